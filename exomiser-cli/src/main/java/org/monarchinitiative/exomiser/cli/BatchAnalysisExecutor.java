@@ -0,0 +1,263 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.cli;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs the analyses of a batch file concurrently on the shared application context. At most {@code concurrency}
+ * analyses are run at once. Each running analysis reserves {@code memoryPerAnalysis} of heap until it finishes and a
+ * new analysis is only started once the available heap, less the reservations of those already running, still leaves
+ * {@code memoryPerAnalysis} free, or there are no other analyses running. A failed analysis is logged and recorded in
+ * the returned {@link BatchSummary} and the rest of the batch continues. This includes errors such as an
+ * OutOfMemoryError, which are exactly what the heap reservation is there to prevent.
+ *
+ * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
+ */
+public class BatchAnalysisExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchAnalysisExecutor.class);
+
+    public static final int DEFAULT_CONCURRENCY = 1;
+    public static final long DEFAULT_MEMORY_PER_ANALYSIS_MB = 2048;
+
+    private static final long MEGABYTE = 1024L * 1024L;
+    private static final long HEAP_POLL_MILLIS = 500;
+
+    private final int concurrency;
+    private final long memoryPerAnalysis;
+    private final LongSupplier availableHeap;
+
+    private final Object lock = new Object();
+    private int running = 0;
+
+    /**
+     * @param concurrency          maximum number of analyses to run at the same time
+     * @param memoryPerAnalysisMb  heap in megabytes reserved for each running analysis
+     */
+    public BatchAnalysisExecutor(int concurrency, long memoryPerAnalysisMb) {
+        this(concurrency, memoryPerAnalysisMb * MEGABYTE, BatchAnalysisExecutor::availableHeap);
+    }
+
+    BatchAnalysisExecutor(int concurrency, long memoryPerAnalysisBytes, LongSupplier availableHeap) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Batch concurrency must be at least 1 but was " + concurrency);
+        }
+        if (memoryPerAnalysisBytes < 0) {
+            throw new IllegalArgumentException("Batch memory per analysis cannot be negative but was " + memoryPerAnalysisBytes);
+        }
+        this.concurrency = concurrency;
+        this.memoryPerAnalysis = memoryPerAnalysisBytes;
+        this.availableHeap = availableHeap;
+    }
+
+    private static long availableHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+        return runtime.maxMemory() - usedMemory;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Runs the analysis for each of the inputs and waits for them all to complete.
+     *
+     * @param inputs   the batch entries e.g. paths to analysis scripts or settings files
+     * @param analysis the analysis to run for each entry
+     * @return a summary of the succeeded and failed entries
+     */
+    public <T> BatchSummary<T> execute(List<T> inputs, Consumer<T> analysis) {
+        logger.info("Running {} analyses with a maximum of {} concurrently and {} MB heap per analysis", inputs.size(), concurrency, memoryPerAnalysis / MEGABYTE);
+        List<T> succeeded = Collections.synchronizedList(new ArrayList<>());
+        List<BatchFailure<T>> failed = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService executorService = Executors.newFixedThreadPool(concurrency, new BatchThreadFactory());
+        try {
+            for (T input : inputs) {
+                if (!awaitCapacity()) {
+                    logger.warn("Interrupted while waiting to run {} - no further analyses will be started", input);
+                    break;
+                }
+                executorService.execute(() -> runAnalysis(input, analysis, succeeded, failed));
+            }
+        } finally {
+            executorService.shutdown();
+            awaitTermination(executorService);
+        }
+
+        BatchSummary<T> batchSummary = new BatchSummary<>(inputs.size(), succeeded, failed);
+        logger.info("{}", batchSummary);
+        return batchSummary;
+    }
+
+    private <T> void runAnalysis(T input, Consumer<T> analysis, List<T> succeeded, List<BatchFailure<T>> failed) {
+        try {
+            logger.info("Running analysis: {}", input);
+            analysis.accept(input);
+            succeeded.add(input);
+        } catch (Throwable throwable) {
+            //the failure is recorded before logging in case there is not enough heap left to log it
+            failed.add(new BatchFailure<>(input, throwable));
+            logger.error("Analysis {} failed - continuing with the rest of the batch", input, throwable);
+        } finally {
+            //releases this analysis' slot and heap reservation
+            synchronized (lock) {
+                running--;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Blocks until there is a free slot and enough heap headroom to start another analysis. The free heap is not
+     * necessarily reduced by an analysis which has only just started, so the budget of every running analysis is held
+     * back from it. The heap check is skipped when nothing else is running otherwise a batch with an over-sized budget
+     * would never start.
+     */
+    private boolean awaitCapacity() {
+        synchronized (lock) {
+            try {
+                while (running >= concurrency || (running > 0 && unreservedHeap() < memoryPerAnalysis)) {
+                    lock.wait(HEAP_POLL_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            running++;
+            return true;
+        }
+    }
+
+    private long unreservedHeap() {
+        return availableHeap.getAsLong() - running * memoryPerAnalysis;
+    }
+
+    private void awaitTermination(ExecutorService executorService) {
+        try {
+            while (!executorService.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.debug("Waiting for batch analyses to complete...");
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted while waiting for batch analyses to complete");
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class BatchThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "exomiser-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * An input of the batch whose analysis failed, along with the cause. The same input can be listed more than once in
+     * a batch so each failure is recorded separately.
+     */
+    public static class BatchFailure<T> {
+
+        private final T input;
+        private final Throwable cause;
+
+        BatchFailure(T input, Throwable cause) {
+            this.input = input;
+            this.cause = cause;
+        }
+
+        public T getInput() {
+            return input;
+        }
+
+        public Throwable getCause() {
+            return cause;
+        }
+
+        @Override
+        public String toString() {
+            return input + ": " + cause;
+        }
+    }
+
+    /**
+     * Outcome of running a batch of analyses. Any input which neither succeeded nor failed, e.g. as the batch was
+     * interrupted before it was started, is counted as not run and also makes the batch a failure.
+     */
+    public static class BatchSummary<T> {
+
+        private final int total;
+        private final List<T> succeeded;
+        private final List<BatchFailure<T>> failed;
+
+        BatchSummary(int total, List<T> succeeded, List<BatchFailure<T>> failed) {
+            this.total = total;
+            this.succeeded = Collections.unmodifiableList(new ArrayList<>(succeeded));
+            this.failed = Collections.unmodifiableList(new ArrayList<>(failed));
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public List<T> getSucceeded() {
+            return succeeded;
+        }
+
+        public List<BatchFailure<T>> getFailed() {
+            return failed;
+        }
+
+        public int getNotRun() {
+            return Math.max(0, total - succeeded.size() - failed.size());
+        }
+
+        public boolean hasFailures() {
+            return !failed.isEmpty() || getNotRun() > 0;
+        }
+
+        @Override
+        public String toString() {
+            return "BatchSummary{" +
+                    "total=" + total +
+                    ", succeeded=" + succeeded.size() +
+                    ", failed=" + failed +
+                    ", notRun=" + getNotRun() +
+                    '}';
+        }
+    }
+}
@@ -32,6 +32,7 @@
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.ExitCodeGenerator;
 import org.springframework.stereotype.Component;
 
 import java.nio.file.Path;
@@ -42,10 +43,12 @@
  * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
  */
 @Component
-public class ExomiserCommandLineRunner implements CommandLineRunner {
+public class ExomiserCommandLineRunner implements CommandLineRunner, ExitCodeGenerator {
 
     private static final Logger logger = LoggerFactory.getLogger(ExomiserCommandLineRunner.class);
 
+    static final int BATCH_FAILURE_EXIT_CODE = 1;
+
     @Autowired
     private CommandLineOptionsParser commandLineOptionsParser;
     @Autowired
@@ -59,10 +62,14 @@ public class ExomiserCommandLineRunner implements CommandLineRunner {
     private Exomiser exomiser;
     @Autowired
     private ResultsWriterFactory resultsWriterFactory;
+    @Autowired
+    private AnalysisMetrics analysisMetrics;
 
     @Value("buildVersion")
     private String buildVersion;
 
+    private int exitCode = 0;
+
     @Override
     public void run(String... strings) {
         if (strings.length == 0) {
@@ -74,6 +81,7 @@ public void run(String... strings) {
             printHelp();
         }
         runAnalyses(commandLine);
+        logMetrics();
     }
 
     private void runAnalyses(CommandLine commandLine) {
@@ -84,25 +92,23 @@ private void runAnalyses(CommandLine commandLine) {
             Path analysisBatchFile = Paths.get(commandLine.getOptionValue("analysis-batch"));
             List<Path> analysisScripts = new BatchFileReader().readPathsFromBatchFile(analysisBatchFile);
             logger.info("Running {} analyses from analysis batch file.", analysisScripts.size());
-            //this *can* be run in parallel using parallelStream() at the expense of RAM in order to hold all the variants in memory.
-            //like this:
-            //analysisScripts.parallelStream().forEach(this::runAnalysisFromScript);
-            //HOWEVER there may be threading issues so this needs investigation.
-            analysisScripts.forEach(analysis ->{
-                logger.info("Running analysis: {}", analysis);
-                runAnalysisFromScript(analysis);
-            });
+            //the analyses share the same application context so the transcript data, random walk matrix and caches
+            //are loaded once. Running them concurrently costs RAM in order to hold the variants of each in memory.
+            BatchAnalysisExecutor batchAnalysisExecutor = createBatchAnalysisExecutor(commandLine);
+            BatchAnalysisExecutor.BatchSummary<Path> batchSummary = batchAnalysisExecutor.execute(analysisScripts, this::runAnalysisFromScript);
+            checkForFailures(batchSummary);
         }
         //check the args for a batch file first as this option is otherwise ignored
         else if (commandLine.hasOption("batch-file")) {
             Path batchFilePath = Paths.get(commandLine.getOptionValue("batch-file"));
             List<Path> settingsFiles = new BatchFileReader().readPathsFromBatchFile(batchFilePath);
             logger.info("Running {} analyses from settings batch file.", settingsFiles.size());
-            for (Path settingsFile : settingsFiles) {
-                logger.info("Running settings: {}", settingsFile);
+            BatchAnalysisExecutor batchAnalysisExecutor = createBatchAnalysisExecutor(commandLine);
+            BatchAnalysisExecutor.BatchSummary<Path> batchSummary = batchAnalysisExecutor.execute(settingsFiles, settingsFile -> {
                 Settings settings = commandLineOptionsParser.parseSettingsFile(settingsFile);
                 runAnalysisFromSettings(settings);
-            }
+            });
+            checkForFailures(batchSummary);
         } else {
             //make a single SettingsBuilder
             Settings settings = commandLineOptionsParser.parseCommandLine(commandLine);
@@ -110,6 +116,36 @@ else if (commandLine.hasOption("batch-file")) {
         }
     }
 
+    private void checkForFailures(BatchAnalysisExecutor.BatchSummary<Path> batchSummary) {
+        if (batchSummary.hasFailures()) {
+            logger.error("{} of {} batch analyses failed and {} were not run: {}", batchSummary.getFailed().size(), batchSummary.getTotal(), batchSummary.getNotRun(), batchSummary.getFailed());
+            exitCode = BATCH_FAILURE_EXIT_CODE;
+        }
+    }
+
+    /**
+     * @return a non-zero value if any of the analyses in a batch failed.
+     */
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    private BatchAnalysisExecutor createBatchAnalysisExecutor(CommandLine commandLine) {
+        try {
+            int concurrency = Integer.parseInt(commandLine.getOptionValue("batch-threads", String.valueOf(BatchAnalysisExecutor.DEFAULT_CONCURRENCY)));
+            long memoryPerAnalysisMb = Long.parseLong(commandLine.getOptionValue("batch-memory", String.valueOf(BatchAnalysisExecutor.DEFAULT_MEMORY_PER_ANALYSIS_MB)));
+            return new BatchAnalysisExecutor(concurrency, memoryPerAnalysisMb);
+        } catch (IllegalArgumentException ex) {
+            throw new CommandLineParseError("Invalid batch-threads or batch-memory value. " + ex.getMessage(), ex);
+        }
+    }
+
+    private void logMetrics() {
+        logger.info("Analysis metrics:");
+        analysisMetrics.getMetrics().forEach((name, value) -> logger.info("{}: {}", name, value));
+    }
+
     private CommandLine parseCommandLineOptions(String[] args) {
         CommandLineParser parser = new DefaultParser();
         try {
@@ -149,7 +185,7 @@ private void writeResults(Analysis analysis, AnalysisResults analysisResults, Ou
         logger.info("Writing results");
         for (OutputFormat outFormat : outputSettings.getOutputFormats()) {
             ResultsWriter resultsWriter = resultsWriterFactory.getResultsWriter(outFormat);
-            resultsWriter.writeFile(analysis, analysisResults, outputSettings);
+            analysisMetrics.time("write." + outFormat, () -> resultsWriter.writeFile(analysis, analysisResults, outputSettings));
         }
     }
 
@@ -81,6 +81,12 @@ private void showSplash() {
     private void runExomiser(String[] args) {
         ExomiserCommandLineRunner exomiserCliRunner = applicationContext.getBean(ExomiserCommandLineRunner.class);
         exomiserCliRunner.run(args);
+        int exitCode = exomiserCliRunner.getExitCode();
+        if (exitCode != 0) {
+            logger.error("Exomising finished with errors - exiting with status {}", exitCode);
+            applicationContext.close();
+            System.exit(exitCode);
+        }
         logger.info("Exomising finished - Bye!");
     }
 
@@ -133,6 +133,18 @@ public Options options() {
                 .desc("Path to analysis batch file. This should be in plain text file with the path to a single analysis script file in yaml format on each line.")
                 .longOpt("analysis-batch")
                 .build());
+        options.addOption(Option.builder()
+                .argName("integer")
+                .hasArg()
+                .desc("Number of analyses from a batch file to run concurrently. Defaults to 1.")
+                .longOpt("batch-threads")
+                .build());
+        options.addOption(Option.builder()
+                .argName("megabytes")
+                .hasArg()
+                .desc("Heap space in megabytes which must be available before another analysis from a batch file is started. Defaults to 2048.")
+                .longOpt("batch-memory")
+                .build());
         
         for (OptionMarshaller optionMarshaller : desiredOptionMarshallers()) {
             Option option = optionMarshaller.getOption();
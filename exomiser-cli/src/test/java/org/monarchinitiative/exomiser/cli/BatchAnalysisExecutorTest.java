@@ -0,0 +1,190 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize variants
+ *
+ * Copyright (C) 2012 - 2015  Charite Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as
+ *  published by the Free Software Foundation, either version 3 of the
+ *  License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.cli;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
+ */
+public class BatchAnalysisExecutorTest {
+
+    private static final List<String> INPUTS = Arrays.asList("one", "two", "three", "four", "five", "six");
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    private Consumer<String> trackConcurrency(Consumer<String> analysis) {
+        return input -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                analysis.accept(input);
+            } finally {
+                running.decrementAndGet();
+            }
+        };
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsExceptionWithZeroConcurrency() {
+        new BatchAnalysisExecutor(0, 1024);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsExceptionWithNegativeMemory() {
+        new BatchAnalysisExecutor(1, -1);
+    }
+
+    @Test
+    public void runsAllAnalyses() {
+        BatchAnalysisExecutor instance = new BatchAnalysisExecutor(3, 0, () -> Long.MAX_VALUE);
+        BatchAnalysisExecutor.BatchSummary<String> summary = instance.execute(INPUTS, input -> pause());
+
+        assertThat(summary.getTotal(), equalTo(INPUTS.size()));
+        assertThat(summary.getSucceeded().size(), equalTo(INPUTS.size()));
+        assertThat(summary.hasFailures(), is(false));
+    }
+
+    @Test
+    public void singleThreadRunsAnalysesInOrder() {
+        BatchAnalysisExecutor instance = new BatchAnalysisExecutor(1, 0, () -> Long.MAX_VALUE);
+        BatchAnalysisExecutor.BatchSummary<String> summary = instance.execute(INPUTS, trackConcurrency(input -> pause()));
+
+        assertThat(summary.getSucceeded(), equalTo(INPUTS));
+        assertThat(maxRunning.get(), equalTo(1));
+    }
+
+    @Test
+    public void runsAnalysesConcurrently() throws Exception {
+        int concurrency = 3;
+        CountDownLatch allStarted = new CountDownLatch(concurrency);
+        BatchAnalysisExecutor instance = new BatchAnalysisExecutor(concurrency, 0, () -> Long.MAX_VALUE);
+        instance.execute(INPUTS, trackConcurrency(input -> {
+            allStarted.countDown();
+            try {
+                allStarted.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        assertThat(maxRunning.get(), equalTo(concurrency));
+    }
+
+    @Test
+    public void doesNotStartAnotherAnalysisWithoutEnoughHeap() {
+        BatchAnalysisExecutor instance = new BatchAnalysisExecutor(4, 1024, () -> 0L);
+        BatchAnalysisExecutor.BatchSummary<String> summary = instance.execute(INPUTS, trackConcurrency(input -> pause()));
+
+        assertThat(summary.getSucceeded().size(), equalTo(INPUTS.size()));
+        assertThat(maxRunning.get(), equalTo(1));
+    }
+
+    @Test
+    public void reservesHeapForEachRunningAnalysis() {
+        //enough free heap for two and a half analyses - the third must wait for the reservations of the first two
+        CountDownLatch twoStarted = new CountDownLatch(2);
+        BatchAnalysisExecutor instance = new BatchAnalysisExecutor(4, 1024, () -> 2560L);
+        BatchAnalysisExecutor.BatchSummary<String> summary = instance.execute(INPUTS, trackConcurrency(input -> {
+            twoStarted.countDown();
+            try {
+                twoStarted.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        assertThat(summary.getSucceeded().size(), equalTo(INPUTS.size()));
+        assertThat(maxRunning.get(), equalTo(2));
+    }
+
+    @Test
+    public void continuesAfterFailedAnalysis() {
+        BatchAnalysisExecutor instance = new BatchAnalysisExecutor(2, 0, () -> Long.MAX_VALUE);
+        BatchAnalysisExecutor.BatchSummary<String> summary = instance.execute(INPUTS, input -> {
+            if (input.equals("two")) {
+                throw new IllegalStateException("Wibble!");
+            }
+        });
+
+        assertThat(summary.getSucceeded().size(), equalTo(INPUTS.size() - 1));
+        assertThat(summary.hasFailures(), is(true));
+        assertThat(summary.getFailed().size(), equalTo(1));
+        assertThat(summary.getFailed().get(0).getInput(), equalTo("two"));
+        assertThat(summary.getFailed().get(0).getCause().getMessage(), equalTo("Wibble!"));
+    }
+
+    @Test
+    public void recordsErrorAsFailedAnalysis() {
+        BatchAnalysisExecutor instance = new BatchAnalysisExecutor(2, 0, () -> Long.MAX_VALUE);
+        BatchAnalysisExecutor.BatchSummary<String> summary = instance.execute(INPUTS, input -> {
+            if (input.equals("three")) {
+                throw new OutOfMemoryError("Wibble!");
+            }
+        });
+
+        assertThat(summary.getSucceeded().size(), equalTo(INPUTS.size() - 1));
+        assertThat(summary.hasFailures(), is(true));
+        assertThat(summary.getFailed().get(0).getInput(), equalTo("three"));
+        assertThat(summary.getFailed().get(0).getCause() instanceof OutOfMemoryError, is(true));
+    }
+
+    @Test
+    public void countsEachFailureOfRepeatedInput() {
+        BatchAnalysisExecutor instance = new BatchAnalysisExecutor(2, 0, () -> Long.MAX_VALUE);
+        List<String> inputs = Arrays.asList("one", "two", "one");
+        BatchAnalysisExecutor.BatchSummary<String> summary = instance.execute(inputs, input -> {
+            if (input.equals("one")) {
+                throw new IllegalStateException("Wibble!");
+            }
+        });
+
+        assertThat(summary.getSucceeded(), equalTo(Collections.singletonList("two")));
+        assertThat(summary.getFailed().size(), equalTo(2));
+    }
+
+    @Test
+    public void summaryWithInputsNotRunHasFailures() {
+        BatchAnalysisExecutor.BatchSummary<String> summary = new BatchAnalysisExecutor.BatchSummary<>(3, Arrays.asList("one", "two"), Collections.emptyList());
+
+        assertThat(summary.getNotRun(), equalTo(1));
+        assertThat(summary.hasFailures(), is(true));
+    }
+}
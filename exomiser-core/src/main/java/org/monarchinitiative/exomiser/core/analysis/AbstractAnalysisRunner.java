@@ -25,7 +25,10 @@
 import de.charite.compbio.jannovar.pedigree.Pedigree;
 import htsjdk.variant.vcf.VCFFileReader;
 import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderVersion;
 import org.monarchinitiative.exomiser.core.analysis.util.*;
+import org.monarchinitiative.exomiser.core.analysis.util.VariantCheckpointIO.VariantCheckpointIoException;
+import org.monarchinitiative.exomiser.core.filters.Filter;
 import org.monarchinitiative.exomiser.core.filters.GeneFilter;
 import org.monarchinitiative.exomiser.core.filters.GeneFilterRunner;
 import org.monarchinitiative.exomiser.core.filters.VariantFilter;
@@ -42,12 +45,15 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -64,17 +70,23 @@ abstract class AbstractAnalysisRunner implements AnalysisRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractAnalysisRunner.class);
 
-    private final GeneFactory geneFactory;
+    final GeneFactory geneFactory;
     private final VariantFactory variantFactory;
 
     private final VariantDataService variantDataService;
     final VariantFilterRunner variantFilterRunner;
-    private final GeneFilterRunner geneFilterRunner;
+    final GeneFilterRunner geneFilterRunner;
+    final AnalysisMetrics analysisMetrics;
 
     public AbstractAnalysisRunner(GeneFactory geneFactory, VariantFactory variantFactory, VariantDataService variantDataService, VariantFilterRunner variantFilterRunner, GeneFilterRunner geneFilterRunner) {
+        this(geneFactory, variantFactory, variantDataService, variantFilterRunner, geneFilterRunner, new AnalysisMetrics());
+    }
+
+    public AbstractAnalysisRunner(GeneFactory geneFactory, VariantFactory variantFactory, VariantDataService variantDataService, VariantFilterRunner variantFilterRunner, GeneFilterRunner geneFilterRunner, AnalysisMetrics analysisMetrics) {
         this.geneFactory = geneFactory;
         this.variantFactory = variantFactory;
         this.variantDataService = variantDataService;
+        this.analysisMetrics = analysisMetrics;
         this.variantFilterRunner = variantFilterRunner;
         this.geneFilterRunner = geneFilterRunner;
     }
@@ -112,7 +124,8 @@ public AnalysisResults run(Analysis analysis) {
             if (firstStep.isVariantFilter() && !variantsLoaded) {
                 //variants take up 99% of all the memory in an analysis - this scales approximately linearly with the sample size
                 //so for whole genomes this is best run as a stream to filter out the unwanted variants with as many filters as possible in one go
-                variantEvaluations = loadAndFilterVariants(vcfPath, allGenes, analysisGroup, analysis);
+                List<List<AnalysisStep>> stepGroupsRun = analysisStepGroups.subList(0, analysisStepGroups.indexOf(analysisGroup) + 1);
+                variantEvaluations = analysisMetrics.time(AnalysisMetrics.LOAD_VARIANTS, () -> loadOrRestoreFilteredVariants(vcfHeader, allGenes, stepGroupsRun, analysis));
                 //this is done here as there are GeneFilter steps which may require Variants in the genes, or the InheritanceModeDependent steps which definitely need them...
                 assignVariantsToGenes(variantEvaluations, allGenes);
                 variantsLoaded = true;
@@ -126,15 +139,18 @@ public AnalysisResults run(Analysis analysis) {
         //i.e. stream in the variants, annotate them (assign a gene symbol) then write out that variant with the calculated GENE_PHENO_SCORE (prioritiser scores).
         //this would fit well with a lot of people's pipelines where they only want the phenotype score as they are using VEP or ANNOVAR for variant analysis.
         if (!variantsLoaded) {
+            long loadStart = System.nanoTime();
             try(Stream<VariantEvaluation> variantStream = loadVariants(vcfPath)) {
                 variantEvaluations = variantStream.collect(toList());
             }
+            analysisMetrics.recordTime(AnalysisMetrics.LOAD_VARIANTS, System.nanoTime() - loadStart);
+            analysisMetrics.incrementCounter(AnalysisMetrics.VARIANTS_LOADED, variantEvaluations.size());
             assignVariantsToGenes(variantEvaluations, allGenes);
         }
 
         logger.info("Scoring genes");
         GeneScorer geneScorer = new RawScoreGeneScorer(probandSampleId, modeOfInheritance, pedigree);
-        List<Gene> genes = geneScorer.scoreGenes(getGenesWithVariants(allGenes).collect(toList()));
+        List<Gene> genes = analysisMetrics.time(AnalysisMetrics.SCORE_GENES, () -> geneScorer.scoreGenes(getGenesWithVariants(allGenes).collect(toList())));
         List<VariantEvaluation> variants = getFinalVariantList(variantEvaluations);
         logger.info("Analysed {} genes containing {} filtered variants", genes.size(), variants.size());
 
@@ -151,11 +167,80 @@ public AnalysisResults run(Analysis analysis) {
                 .build();
 
         Duration duration = Duration.between(timeStart, Instant.now());
+        analysisMetrics.recordTime(AnalysisMetrics.ANALYSIS, duration.toNanos());
         long ms = duration.toMillis();
         logger.info("Finished analysis in {}m {}s {}ms ({} ms)", (ms / 1000) / 60 % 60, ms / 1000 % 60, ms % 1000, ms);
         return analysisResults;
     }
 
+    /**
+     * Loads and filters the variants with the variant filters of the last group of steps. If the analysis has a variant
+     * checkpoint the filtered variants are read from it when it was written for the same VCF file and steps, otherwise
+     * they are loaded from the VCF file and written to the checkpoint for the next run. Any problem with the checkpoint
+     * is logged and the variants are loaded from the VCF file as usual.
+     */
+    private List<VariantEvaluation> loadOrRestoreFilteredVariants(VCFHeader vcfHeader, Map<String, Gene> allGenes, List<List<AnalysisStep>> stepGroupsRun, Analysis analysis) {
+        Path vcfPath = analysis.getVcfPath();
+        List<AnalysisStep> analysisGroup = stepGroupsRun.get(stepGroupsRun.size() - 1);
+        Path checkpointPath = analysis.getVariantCheckpointPath();
+        if (checkpointPath == null) {
+            return loadAndFilterVariants(vcfPath, allGenes, analysisGroup, analysis);
+        }
+        String checkpointKey = makeVariantCheckpointKey(analysis, stepGroupsRun);
+        try {
+            VCFHeaderVersion vcfHeaderVersion = VariantCheckpointIO.readVcfHeaderVersion(vcfPath);
+            Optional<List<VariantEvaluation>> checkpointVariants = VariantCheckpointIO.readVariantCheckpoint(checkpointPath, checkpointKey, vcfHeader, vcfHeaderVersion);
+            if (checkpointVariants.isPresent()) {
+                //the known genes could have changed since the checkpoint was written
+                List<VariantEvaluation> restoredVariants = checkpointVariants.get()
+                        .stream()
+                        .filter(isAssociatedWithKnownGene(allGenes))
+                        .collect(toList());
+                logger.info("Restored {} filtered variants from checkpoint {}", restoredVariants.size(), checkpointPath);
+                analysisMetrics.incrementCounter(AnalysisMetrics.VARIANTS_RESTORED, restoredVariants.size());
+                return restoredVariants;
+            }
+        } catch (VariantCheckpointIoException e) {
+            logger.warn("Unable to read variant checkpoint {} - loading variants from {}", checkpointPath, vcfPath, e);
+        }
+        List<VariantEvaluation> filteredVariants = loadAndFilterVariants(vcfPath, allGenes, analysisGroup, analysis);
+        try {
+            VariantCheckpointIO.writeVariantCheckpoint(checkpointPath, checkpointKey, vcfHeader, filteredVariants);
+        } catch (VariantCheckpointIoException e) {
+            logger.warn("Unable to write variant checkpoint {}", checkpointPath, e);
+        }
+        return filteredVariants;
+    }
+
+    /**
+     * The filtered variants depend on the VCF file, the version of the transcript, frequency and pathogenicity data,
+     * the type of runner, the main prioritiser used to re-assign non-coding variants and the data sources and steps used
+     * up to and including the variant filter group. If any
+     * steps were run before the variants were loaded, e.g. the prioritisers were run first, the HPO ids are also
+     * included as they affect which genes pass.
+     */
+    private String makeVariantCheckpointKey(Analysis analysis, List<List<AnalysisStep>> stepGroupsRun) {
+        Path vcfPath = analysis.getVcfPath().toAbsolutePath();
+        StringBuilder key = new StringBuilder();
+        key.append("vcf=").append(vcfPath);
+        try {
+            key.append(", size=").append(Files.size(vcfPath));
+            key.append(", modified=").append(Files.getLastModifiedTime(vcfPath).toMillis());
+        } catch (IOException e) {
+            logger.debug("Unable to read attributes of {}", vcfPath, e);
+        }
+        key.append(", dataVersion=").append(variantDataService.getDataVersion());
+        key.append(", runner=").append(getClass().getSimpleName());
+        key.append(", mainPrioritiser=").append(analysis.getMainPrioritiserType());
+        key.append(", frequencySources=").append(analysis.getFrequencySources());
+        key.append(", pathogenicitySources=").append(analysis.getPathogenicitySources());
+        if (stepGroupsRun.size() > 1) {
+            key.append(", hpoIds=").append(analysis.getHpoIds());
+        }
+        key.append(", steps=").append(stepGroupsRun);
+        return key.toString();
+    }
+
     private List<VariantEvaluation> loadAndFilterVariants(Path vcfPath, Map<String, Gene> allGenes, List<AnalysisStep> analysisGroup, Analysis analysis) {
         GeneReassigner geneReassigner = createNonCodingVariantGeneReassigner(analysis, allGenes);
         List<VariantFilter> variantFilters = getVariantFilterSteps(analysisGroup);
@@ -176,13 +261,13 @@ private List<VariantEvaluation> loadAndFilterVariants(Path vcfPath, Map<String,
         return filteredVariants;
     }
 
-    private GeneReassigner createNonCodingVariantGeneReassigner(Analysis analysis, Map<String, Gene> allGenes) {
+    GeneReassigner createNonCodingVariantGeneReassigner(Analysis analysis, Map<String, Gene> allGenes) {
         ChromosomalRegionIndex<TopologicalDomain> tadIndex = new ChromosomalRegionIndex<>(variantDataService.getTopologicallyAssociatedDomains());
         PriorityType mainPriorityType = analysis.getMainPrioritiserType();
         return new GeneReassigner(mainPriorityType, allGenes, tadIndex);
     }
 
-    private List<VariantFilter> getVariantFilterSteps(List<AnalysisStep> analysisSteps) {
+    List<VariantFilter> getVariantFilterSteps(List<AnalysisStep> analysisSteps) {
         logger.info("Filtering variants with:");
         return analysisSteps.stream()
                 .filter(AnalysisStep::isVariantFilter)
@@ -193,7 +278,7 @@ private List<VariantFilter> getVariantFilterSteps(List<AnalysisStep> analysisSte
                 .collect(toList());
     }
 
-    private Function<VariantEvaluation, VariantEvaluation> reassignNonCodingVariantToBestGeneInTad(GeneReassigner geneReassigner) {
+    Function<VariantEvaluation, VariantEvaluation> reassignNonCodingVariantToBestGeneInTad(GeneReassigner geneReassigner) {
         //todo: this won't function correctly if run before a prioritiser has been run
         return variantEvaluation -> {
             geneReassigner.reassignRegulatoryRegionVariantToMostPhenotypicallySimilarGeneInTad(variantEvaluation);
@@ -201,7 +286,7 @@ private Function<VariantEvaluation, VariantEvaluation> reassignNonCodingVariantT
         };
     }
 
-    private Function<VariantEvaluation, VariantEvaluation> reassignNonCodingVariantToBestGeneInJannovarAnnotations(GeneReassigner geneReassigner) {
+    Function<VariantEvaluation, VariantEvaluation> reassignNonCodingVariantToBestGeneInJannovarAnnotations(GeneReassigner geneReassigner) {
         return variantEvaluation -> {
             if (variantEvaluation.isNonCodingVariant()){
                 geneReassigner.reassignGeneToMostPhenotypicallySimilarGeneInAnnotations(variantEvaluation);
@@ -230,7 +315,7 @@ private Function<VariantEvaluation, VariantEvaluation> reassignNonCodingVariantT
      */
     abstract Predicate<VariantEvaluation> runVariantFilters(List<VariantFilter> variantFilters);
 
-    private Stream<VariantEvaluation> loadVariants(Path vcfPath) {
+    Stream<VariantEvaluation> loadVariants(Path vcfPath) {
         List<RegulatoryFeature> regulatoryFeatures = variantDataService.getRegulatoryFeatures();
         ChromosomalRegionIndex<RegulatoryFeature> regulatoryRegionIndex = new ChromosomalRegionIndex<>(regulatoryFeatures);
         logger.info("Loaded {} regulatory regions", regulatoryFeatures.size());
@@ -256,7 +341,7 @@ private boolean isIntergenicOrUpstreamOfGene(VariantEffect variantEffect) {
         return variantEffect == VariantEffect.INTERGENIC_VARIANT || variantEffect == VariantEffect.UPSTREAM_GENE_VARIANT;
     }
 
-    private VCFHeader readVcfHeader(Path vcfFilePath) {
+    VCFHeader readVcfHeader(Path vcfFilePath) {
         try (VCFFileReader vcfReader = new VCFFileReader(vcfFilePath.toFile(), false)) {
             return vcfReader.getFileHeader();
         }
@@ -284,7 +369,7 @@ protected Stream<Gene> getGenesWithVariants(Map<String, Gene> allGenes) {
     /**
      * @return a map of genes indexed by gene symbol.
      */
-    private Map<String, Gene> makeKnownGenes() {
+    Map<String, Gene> makeKnownGenes() {
         return geneFactory.createKnownGenes()
                 .parallelStream()
                 .collect(toConcurrentMap(Gene::getGeneSymbol, Function.identity()));
@@ -302,44 +387,55 @@ private void runSteps(List<AnalysisStep> analysisSteps, List<String> hpoIds, Lis
         }
     }
 
-    private void runStep(AnalysisStep analysisStep, List<String> hpoIds, List<Gene> genes) {
+    void runStep(AnalysisStep analysisStep, List<String> hpoIds, List<Gene> genes) {
         if (analysisStep.isVariantFilter()) {
             VariantFilter filter = (VariantFilter) analysisStep;
             logger.info("Running VariantFilter: {}", filter);
-            for (Gene gene : genes) {
-                variantFilterRunner.run(filter, gene.getVariantEvaluations());
-            }
+            analysisMetrics.time(filterTimerName(filter), () -> {
+                for (Gene gene : genes) {
+                    variantFilterRunner.run(filter, gene.getVariantEvaluations());
+                }
+            });
             return;
 
         }
         if (GeneFilter.class.isInstance(analysisStep)) {
             GeneFilter filter = (GeneFilter) analysisStep;
             logger.info("Running GeneFilter: {}", filter);
-            geneFilterRunner.run(filter, genes);
+            analysisMetrics.time(filterTimerName(filter), () -> geneFilterRunner.run(filter, genes));
             return;
         }
 
         if (Prioritiser.class.isInstance(analysisStep)) {
             Prioritiser prioritiser = (Prioritiser) analysisStep;
             logger.info("Running Prioritiser: {}", prioritiser);
-            prioritiser.prioritizeGenes(hpoIds, genes);
+            analysisMetrics.time("prioritiser." + prioritiser.getPriorityType().name(), () -> prioritiser.prioritizeGenes(hpoIds, genes));
         }
     }
 
+    /**
+     * Filters are timed once per step over all the genes. Variant filters run while the variants are loaded are not
+     * timed individually, as this would mean timing every filter for every variant, and are included in the
+     * {@link AnalysisMetrics#LOAD_VARIANTS} time.
+     */
+    static String filterTimerName(Filter filter) {
+        return "filter." + filter.getFilterType().name();
+    }
+
     private void analyseGeneCompatibilityWithInheritanceMode(List<Gene> genes, Pedigree pedigree, ModeOfInheritance modeOfInheritance) {
         InheritanceModeAnalyser inheritanceModeAnalyser = new InheritanceModeAnalyser(modeOfInheritance, pedigree);
         logger.info("Checking compatibility with {} inheritance mode for genes which passed filters", modeOfInheritance);
-        inheritanceModeAnalyser.analyseInheritanceModes(genes);
+        analysisMetrics.time(AnalysisMetrics.INHERITANCE_MODES, () -> inheritanceModeAnalyser.analyseInheritanceModes(genes));
     }
 
     /**
      * Utility class for logging numbers of processed and passed variants.
      */
-    private class VariantLogger {
+    class VariantLogger {
         private AtomicInteger loaded = new AtomicInteger();
         private AtomicInteger passed = new AtomicInteger();
 
-        private Consumer<VariantEvaluation> logLoadedAndPassedVariants() {
+        Consumer<VariantEvaluation> logLoadedAndPassedVariants() {
             return variantEvaluation -> {
                 loaded.incrementAndGet();
                 if (loaded.get() % 100000 == 0) {
@@ -348,7 +444,7 @@ private Consumer<VariantEvaluation> logLoadedAndPassedVariants() {
             };
         }
 
-        private Consumer<VariantEvaluation> countPassedVariant() {
+        Consumer<VariantEvaluation> countPassedVariant() {
             return variantEvaluation -> {
                 if (variantEvaluation.passedFilters()) {
                     passed.incrementAndGet();
@@ -358,6 +454,8 @@ private Consumer<VariantEvaluation> countPassedVariant() {
 
         void logResults() {
             logger.info("Loaded {} variants - {} passed variant filters", loaded.get(), passed.get());
+            analysisMetrics.incrementCounter(AnalysisMetrics.VARIANTS_LOADED, loaded.get());
+            analysisMetrics.incrementCounter(AnalysisMetrics.VARIANTS_PASSED, passed.get());
         }
     }
 }
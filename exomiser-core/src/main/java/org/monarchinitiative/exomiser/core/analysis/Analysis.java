@@ -54,7 +54,7 @@
  * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
  */
 @JsonDeserialize(builder = Analysis.Builder.class)
-@JsonPropertyOrder({"vcf", "ped", "proband", "hpoIds", "modeOfInheritance", "analysisMode", "frequencySources", "pathogenicitySources", "analysisSteps"})
+@JsonPropertyOrder({"vcf", "ped", "proband", "hpoIds", "modeOfInheritance", "analysisMode", "runPrioritisersFirst", "variantCheckpoint", "frequencySources", "pathogenicitySources", "analysisSteps"})
 public class Analysis {
 
     private static final Logger logger = LoggerFactory.getLogger(Analysis.class);
@@ -73,6 +73,10 @@ public class Analysis {
     private final ModeOfInheritance modeOfInheritance;
 
     private final AnalysisMode analysisMode;
+    private final boolean runPrioritisersFirst;
+    //optional file to save the filtered variants to, or resume from on a re-run
+    @JsonProperty("variantCheckpoint")
+    private final Path variantCheckpointPath;
     private final Set<FrequencySource> frequencySources;
     private final Set<PathogenicitySource> pathogenicitySources;
     private final List<AnalysisStep> analysisSteps;
@@ -85,6 +89,8 @@ private Analysis(Builder builder) {
         this.modeOfInheritance = builder.modeOfInheritance;
 
         this.analysisMode = builder.analysisMode;
+        this.runPrioritisersFirst = builder.runPrioritisersFirst;
+        this.variantCheckpointPath = builder.variantCheckpointPath;
         this.frequencySources = Sets.immutableEnumSet(builder.frequencySources);
         this.pathogenicitySources = Sets.immutableEnumSet(builder.pathogenicitySources);
         this.analysisSteps = ImmutableList.copyOf(builder.analysisSteps);
@@ -114,6 +120,23 @@ public AnalysisMode getAnalysisMode() {
         return analysisMode;
     }
 
+    /**
+     * @return true if the gene-only dependent steps, i.e. the {@link Prioritiser} and
+     * {@link org.monarchinitiative.exomiser.core.filters.PriorityScoreFilter} steps, should be run before any variants
+     * are loaded.
+     */
+    public boolean isRunPrioritisersFirst() {
+        return runPrioritisersFirst;
+    }
+
+    /**
+     * @return the path of the file used to checkpoint the variants which have been loaded and run through the initial
+     * variant filters, or null if the variants should always be loaded from the VCF file.
+     */
+    public Path getVariantCheckpointPath() {
+        return variantCheckpointPath;
+    }
+
     public Set<FrequencySource> getFrequencySources() {
         return frequencySources;
     }
@@ -147,7 +170,41 @@ public List<List<AnalysisStep>> getAnalysisStepsGroupedByFunction() {
             logger.debug("No AnalysisSteps to group.");
             return groups;
         }
+        if (runPrioritisersFirst) {
+            return groupStepsWithGeneOnlyDependentStepsFirst();
+        }
+        return groupSteps(analysisSteps);
+    }
+
+    /**
+     * Prioritisers like HiPhive and Phenix only depend on the HPO terms and the known genes so can be run before the
+     * variants are loaded. This allows a {@link org.monarchinitiative.exomiser.core.filters.PriorityScoreFilter} to
+     * fail the low-scoring genes so that their variants are not loaded or run through the (potentially expensive)
+     * variant filters.
+     */
+    private List<List<AnalysisStep>> groupStepsWithGeneOnlyDependentStepsFirst() {
+        List<AnalysisStep> geneOnlyDependentSteps = new ArrayList<>();
+        List<AnalysisStep> otherSteps = new ArrayList<>();
+        for (AnalysisStep analysisStep : analysisSteps) {
+            if (analysisStep.isOnlyGeneDependent()) {
+                geneOnlyDependentSteps.add(analysisStep);
+            } else {
+                otherSteps.add(analysisStep);
+            }
+        }
+        logger.debug("Running gene-only dependent steps first: {}", geneOnlyDependentSteps);
+        List<List<AnalysisStep>> groups = new ArrayList<>();
+        if (!geneOnlyDependentSteps.isEmpty()) {
+            groups.add(geneOnlyDependentSteps);
+        }
+        if (!otherSteps.isEmpty()) {
+            groups.addAll(groupSteps(otherSteps));
+        }
+        return groups;
+    }
 
+    private List<List<AnalysisStep>> groupSteps(List<AnalysisStep> analysisSteps) {
+        List<List<AnalysisStep>> groups = new ArrayList<>();
         AnalysisStep currentGroupStep = analysisSteps.get(0);
         List<AnalysisStep> currentGroup = new ArrayList<>();
         currentGroup.add(currentGroupStep);
@@ -199,6 +256,8 @@ public Builder copy() {
                 .modeOfInheritance(modeOfInheritance)
 
                 .analysisMode(analysisMode)
+                .runPrioritisersFirst(runPrioritisersFirst)
+                .variantCheckpointPath(variantCheckpointPath)
                 .frequencySources(frequencySources)
                 .pathogenicitySources(pathogenicitySources)
                 .steps(analysisSteps);
@@ -215,6 +274,8 @@ public static class Builder {
         private ModeOfInheritance modeOfInheritance = ModeOfInheritance.ANY;
 
         private AnalysisMode analysisMode = AnalysisMode.PASS_ONLY;
+        private boolean runPrioritisersFirst = false;
+        private Path variantCheckpointPath = null;
         private Set<FrequencySource> frequencySources = EnumSet.noneOf(FrequencySource.class);
         private Set<PathogenicitySource> pathogenicitySources = EnumSet.noneOf(PathogenicitySource.class);
         private List<AnalysisStep> analysisSteps = new ArrayList<>();
@@ -253,6 +314,16 @@ public Builder analysisMode(AnalysisMode analysisMode) {
             return this;
         }
 
+        public Builder runPrioritisersFirst(boolean runPrioritisersFirst) {
+            this.runPrioritisersFirst = runPrioritisersFirst;
+            return this;
+        }
+
+        public Builder variantCheckpointPath(Path variantCheckpointPath) {
+            this.variantCheckpointPath = variantCheckpointPath;
+            return this;
+        }
+
         public Builder frequencySources(Set<FrequencySource> frequencySources) {
             this.frequencySources = frequencySources;
             return this;
@@ -285,6 +356,8 @@ public boolean equals(Object o) {
                 Objects.equals(hpoIds, analysis.hpoIds) &&
                 modeOfInheritance == analysis.modeOfInheritance &&
                 analysisMode == analysis.analysisMode &&
+                runPrioritisersFirst == analysis.runPrioritisersFirst &&
+                Objects.equals(variantCheckpointPath, analysis.variantCheckpointPath) &&
                 Objects.equals(frequencySources, analysis.frequencySources) &&
                 Objects.equals(pathogenicitySources, analysis.pathogenicitySources) &&
                 Objects.equals(analysisSteps, analysis.analysisSteps);
@@ -292,11 +365,11 @@ public boolean equals(Object o) {
 
     @Override
     public int hashCode() {
-        return Objects.hash(vcfPath, pedPath, probandSampleName, hpoIds, modeOfInheritance, analysisMode, frequencySources, pathogenicitySources, analysisSteps);
+        return Objects.hash(vcfPath, pedPath, probandSampleName, hpoIds, modeOfInheritance, analysisMode, runPrioritisersFirst, variantCheckpointPath, frequencySources, pathogenicitySources, analysisSteps);
     }
 
     @Override
     public String toString() {
-        return "Analysis{" + "vcfPath=" + vcfPath + ", pedPath=" + pedPath + ", probandSampleName=" + probandSampleName + ", hpoIds=" + hpoIds + ", modeOfInheritance=" + modeOfInheritance + ", analysisMode=" + analysisMode + ", frequencySources=" + frequencySources + ", pathogenicitySources=" + pathogenicitySources + ", analysisSteps=" + analysisSteps + '}';
+        return "Analysis{" + "vcfPath=" + vcfPath + ", pedPath=" + pedPath + ", probandSampleName=" + probandSampleName + ", hpoIds=" + hpoIds + ", modeOfInheritance=" + modeOfInheritance + ", analysisMode=" + analysisMode + ", runPrioritisersFirst=" + runPrioritisersFirst + ", variantCheckpointPath=" + variantCheckpointPath + ", frequencySources=" + frequencySources + ", pathogenicitySources=" + pathogenicitySources + ", analysisSteps=" + analysisSteps + '}';
     }
 }
@@ -33,6 +33,7 @@
 import org.monarchinitiative.exomiser.core.prioritisers.Prioritiser;
 import org.monarchinitiative.exomiser.core.prioritisers.PriorityFactory;
 import org.monarchinitiative.exomiser.core.prioritisers.PriorityType;
+import org.monarchinitiative.exomiser.core.prioritisers.service.SharedModelScoringContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -61,6 +62,8 @@ public class AnalysisBuilder {
     private Set<PathogenicitySource> pathogenicitySources = EnumSet.noneOf(PathogenicitySource.class);
 
     private List<AnalysisStep> analysisSteps = new ArrayList<>();
+    //the Phive and HiPhive prioritisers of this analysis share the model scoring state for its phenotypes
+    private final SharedModelScoringContext sharedModelScoringContext = new SharedModelScoringContext();
 
     AnalysisBuilder(PriorityFactory priorityFactory, VariantDataService variantDataService) {
         this.priorityFactory = priorityFactory;
@@ -106,6 +109,32 @@ public AnalysisBuilder analysisMode(AnalysisMode analysisMode) {
         return this;
     }
 
+    /**
+     * Run the {@link Prioritiser} and {@link PriorityScoreFilter} steps before any variants are loaded. For
+     * phenotype-driven analyses this means variants in genes failing the {@link PriorityScoreFilter} can be removed
+     * before any frequency or pathogenicity data is looked up for them.
+     *
+     * @param runPrioritisersFirst
+     * @return
+     */
+    public AnalysisBuilder runPrioritisersFirst(boolean runPrioritisersFirst) {
+        builder.runPrioritisersFirst(runPrioritisersFirst);
+        return this;
+    }
+
+    /**
+     * Save the variants remaining after the first group of variant filters to a checkpoint file. When the same VCF file
+     * is re-analysed with the same variant filters, but different phenotypes, prioritisers or later steps, the
+     * variants are read back from the checkpoint rather than being re-annotated and re-filtered.
+     *
+     * @param variantCheckpointPath
+     * @return
+     */
+    public AnalysisBuilder variantCheckpointPath(Path variantCheckpointPath) {
+        builder.variantCheckpointPath(variantCheckpointPath);
+        return this;
+    }
+
     public AnalysisBuilder frequencySources(Set<FrequencySource> frequencySources) {
         this.frequencySources = Sets.immutableEnumSet(frequencySources);
         builder.frequencySources(frequencySources);
@@ -206,7 +235,7 @@ public AnalysisBuilder addOmimPrioritiser() {
     }
 
     public AnalysisBuilder addPhivePrioritiser() {
-        addPrioritiserStepIfHpoIdsNotEmpty(priorityFactory.makePhivePrioritiser());
+        addPrioritiserStepIfHpoIdsNotEmpty(priorityFactory.makePhivePrioritiser(sharedModelScoringContext));
         return this;
     }
 
@@ -219,12 +248,12 @@ private void addPrioritiserStepIfHpoIdsNotEmpty(Prioritiser prioritiser) {
     }
 
     public AnalysisBuilder addHiPhivePrioritiser() {
-        addPrioritiserStepIfHpoIdsNotEmpty(priorityFactory.makeHiPhivePrioritiser(HiPhiveOptions.DEFAULT));
+        addPrioritiserStepIfHpoIdsNotEmpty(priorityFactory.makeHiPhivePrioritiser(HiPhiveOptions.DEFAULT, sharedModelScoringContext));
         return this;
     }
 
     public AnalysisBuilder addHiPhivePrioritiser(HiPhiveOptions hiPhiveOptions) {
-        addPrioritiserStepIfHpoIdsNotEmpty(priorityFactory.makeHiPhivePrioritiser(hiPhiveOptions));
+        addPrioritiserStepIfHpoIdsNotEmpty(priorityFactory.makeHiPhivePrioritiser(hiPhiveOptions, sharedModelScoringContext));
         return this;
     }
 
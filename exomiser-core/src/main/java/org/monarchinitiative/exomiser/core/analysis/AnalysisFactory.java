@@ -28,6 +28,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
@@ -50,13 +51,28 @@ public class AnalysisFactory {
 
     private final PriorityFactory priorityFactory;
     private final VariantDataService variantDataService;
+    private final AnalysisMetrics analysisMetrics;
+    private final int streamingMaxGenes;
 
-    @Autowired
     public AnalysisFactory(GeneFactory geneFactory, VariantFactory variantFactory, PriorityFactory priorityFactory, VariantDataService variantDataService) {
+        this(geneFactory, variantFactory, priorityFactory, variantDataService, new AnalysisMetrics(), StreamingAnalysisRunner.DEFAULT_MAX_GENES);
+    }
+
+    /**
+     * @param streamingMaxGenes the maximum number of genes returned by a {@link AnalysisMode#STREAMING} analysis. This is
+     *                          set using the exomiser.streaming-max-genes property.
+     */
+    @Autowired
+    public AnalysisFactory(GeneFactory geneFactory, VariantFactory variantFactory, PriorityFactory priorityFactory, VariantDataService variantDataService, AnalysisMetrics analysisMetrics, @Value("${exomiser.streaming-max-genes:" + StreamingAnalysisRunner.DEFAULT_MAX_GENES + "}") int streamingMaxGenes) {
+        if (streamingMaxGenes < 1) {
+            throw new IllegalArgumentException("exomiser.streaming-max-genes must be greater than zero, but was " + streamingMaxGenes);
+        }
         this.geneFactory = geneFactory;
         this.variantFactory = variantFactory;
         this.variantDataService = variantDataService;
         this.priorityFactory = priorityFactory;
+        this.analysisMetrics = analysisMetrics;
+        this.streamingMaxGenes = streamingMaxGenes;
     }
 
     public AnalysisRunner getAnalysisRunnerForMode(AnalysisMode analysisMode) {
@@ -65,16 +81,38 @@ public AnalysisRunner getAnalysisRunnerForMode(AnalysisMode analysisMode) {
         // below are package-private.
         switch (analysisMode) {
             case FULL:
-                return new SimpleAnalysisRunner(geneFactory, variantFactory, variantDataService);
+                return new SimpleAnalysisRunner(geneFactory, variantFactory, variantDataService, analysisMetrics);
             case SPARSE:
-                return new SparseAnalysisRunner(geneFactory, variantFactory, variantDataService);
+                return new SparseAnalysisRunner(geneFactory, variantFactory, variantDataService, analysisMetrics);
+            case STREAMING:
+                //this only keeps the top genes and requires a sorted VCF
+                return getStreamingAnalysisRunner(streamingMaxGenes);
             case PASS_ONLY:
             default:
                 //this guy takes up the least RAM
-                return new PassOnlyAnalysisRunner(geneFactory, variantFactory, variantDataService);
+                return new PassOnlyAnalysisRunner(geneFactory, variantFactory, variantDataService, analysisMetrics);
         }
     }
 
+    /**
+     * Returns an {@link AnalysisRunner} which streams variants from a sorted VCF file, finishing each gene as soon as
+     * the variants have moved past it. Only the top scoring genes and their variants are returned in the
+     * {@link AnalysisResults}.
+     *
+     * @param maxGenes the maximum number of genes to be returned in the results.
+     * @return a streaming {@link AnalysisRunner}
+     */
+    public AnalysisRunner getStreamingAnalysisRunner(int maxGenes) {
+        return new StreamingAnalysisRunner(geneFactory, variantFactory, variantDataService, maxGenes, StreamingAnalysisRunner.DEFAULT_GENE_WINDOW_PADDING, analysisMetrics);
+    }
+
+    /**
+     * @return the {@link AnalysisMetrics} recording the stage timings of the analyses run by this factory.
+     */
+    public AnalysisMetrics getAnalysisMetrics() {
+        return analysisMetrics;
+    }
+
     public AnalysisBuilder getAnalysisBuilder() {
         return new AnalysisBuilder(priorityFactory, variantDataService);
     }
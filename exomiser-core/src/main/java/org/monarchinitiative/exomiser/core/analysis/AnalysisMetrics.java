@@ -0,0 +1,161 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.analysis;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe registry of the timings and counts of the stages of the analyses run in this JVM. Timers are recorded
+ * for each analysis stage (e.g. loading variants, each filter and prioritiser, inheritance analysis, scoring, writing)
+ * and data lookup and counters for things like the number of variants loaded and cache hits and misses. Only whole
+ * stages are timed, never individual variants, so the variant filters run while loading the variants are included in
+ * the {@link #LOAD_VARIANTS} time.
+ * <p>
+ * The values are exposed as a flat map of metric names to values by {@link #getMetrics()} so that they can be
+ * published through JMX or a Spring Boot actuator endpoint, or simply logged.
+ *
+ * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
+ */
+@Component
+public class AnalysisMetrics {
+
+    private static final String PREFIX = "exomiser.";
+
+    public static final String ANALYSIS = "analysis";
+    public static final String LOAD_VARIANTS = "load-variants";
+    public static final String INHERITANCE_MODES = "inheritance-modes";
+    public static final String SCORE_GENES = "score-genes";
+
+    public static final String VARIANTS_LOADED = "variants.loaded";
+    public static final String VARIANTS_PASSED = "variants.passed";
+    public static final String VARIANTS_RESTORED = "variants.restored";
+
+    public static final String PHENOTYPE_MATCH_CACHE_HITS = "phenotype-match-cache.hits";
+    public static final String PHENOTYPE_MATCH_CACHE_MISSES = "phenotype-match-cache.misses";
+
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    public void recordTime(String name, long durationNanos) {
+        timers.computeIfAbsent(name, key -> new Timer()).record(durationNanos);
+    }
+
+    public void time(String name, Runnable runnable) {
+        long start = System.nanoTime();
+        try {
+            runnable.run();
+        } finally {
+            recordTime(name, System.nanoTime() - start);
+        }
+    }
+
+    public <T> T time(String name, Supplier<T> supplier) {
+        long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            recordTime(name, System.nanoTime() - start);
+        }
+    }
+
+    public void incrementCounter(String name) {
+        incrementCounter(name, 1);
+    }
+
+    public void incrementCounter(String name, long delta) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).add(delta);
+    }
+
+    public long getCount(String name) {
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public long getTimerCount(String name) {
+        Timer timer = timers.get(name);
+        return timer == null ? 0 : timer.count.sum();
+    }
+
+    public long getTimerTotalMillis(String name) {
+        Timer timer = timers.get(name);
+        return timer == null ? 0 : TimeUnit.NANOSECONDS.toMillis(timer.totalNanos.sum());
+    }
+
+    /**
+     * Returns a snapshot of the current metrics, sorted by name. Timers are reported as {@code exomiser.timer.<name>}
+     * with {@code .count}, {@code .total-ms}, {@code .mean-ms} and {@code .max-ms} values, counters as
+     * {@code exomiser.counter.<name>}. The variant throughput is derived from the number of variants loaded and the
+     * time spent loading and filtering them.
+     *
+     * @return a sorted map of metric name to value.
+     */
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new TreeMap<>();
+        timers.forEach((name, timer) -> {
+            long count = timer.count.sum();
+            long totalNanos = timer.totalNanos.sum();
+            String timerName = PREFIX + "timer." + name;
+            metrics.put(timerName + ".count", count);
+            metrics.put(timerName + ".total-ms", TimeUnit.NANOSECONDS.toMillis(totalNanos));
+            metrics.put(timerName + ".mean-ms", count == 0 ? 0.0 : totalNanos / (double) count / 1_000_000d);
+            metrics.put(timerName + ".max-ms", TimeUnit.NANOSECONDS.toMillis(timer.maxNanos.get()));
+        });
+        counters.forEach((name, counter) -> metrics.put(PREFIX + "counter." + name, counter.sum()));
+
+        Timer loadTimer = timers.get(LOAD_VARIANTS);
+        if (loadTimer != null && loadTimer.totalNanos.sum() > 0) {
+            double seconds = loadTimer.totalNanos.sum() / 1_000_000_000d;
+            metrics.put(PREFIX + "throughput.variants-per-second", getCount(VARIANTS_LOADED) / seconds);
+        }
+        return metrics;
+    }
+
+    public void reset() {
+        timers.clear();
+        counters.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "AnalysisMetrics" + getMetrics();
+    }
+
+    private static class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void record(long durationNanos) {
+            count.increment();
+            totalNanos.add(durationNanos);
+            maxNanos.accumulateAndGet(durationNanos, Math::max);
+        }
+    }
+}
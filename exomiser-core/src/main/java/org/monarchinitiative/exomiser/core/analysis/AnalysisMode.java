@@ -34,5 +34,5 @@
  */
 public enum AnalysisMode {
 
-    FULL, SPARSE, PASS_ONLY
+    FULL, SPARSE, PASS_ONLY, STREAMING
 }
@@ -29,6 +29,7 @@
 import org.monarchinitiative.exomiser.core.model.frequency.FrequencySource;
 import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicitySource;
 import org.monarchinitiative.exomiser.core.prioritisers.*;
+import org.monarchinitiative.exomiser.core.prioritisers.service.SharedModelScoringContext;
 import org.monarchinitiative.exomiser.core.writers.OutputFormat;
 import org.monarchinitiative.exomiser.core.writers.OutputSettings;
 import org.slf4j.Logger;
@@ -190,6 +191,9 @@ private Set<OutputFormat> parseOutputFormats(Map<String, List<String>> analysisM
 
     private class AnalysisConstructor {
 
+        //the Phive and HiPhive prioritisers of this analysis share the model scoring state for its phenotypes
+        private final SharedModelScoringContext sharedModelScoringContext = new SharedModelScoringContext();
+
         public Analysis construct(Map analysisMap) {
 
             Analysis analysis = Analysis.builder()
@@ -199,6 +203,8 @@ public Analysis construct(Map analysisMap) {
                     .hpoIds(parseHpoIds(analysisMap))
                     .modeOfInheritance(parseModeOfInheritance(analysisMap))
                     .analysisMode(parseAnalysisMode(analysisMap))
+                    .runPrioritisersFirst(parseRunPrioritisersFirst(analysisMap))
+                    .variantCheckpointPath(parseVariantCheckpoint(analysisMap))
                     .frequencySources(parseFrequencySources(analysisMap))
                     .pathogenicitySources(parsePathogenicitySources(analysisMap))
                     .steps(makeAnalysisSteps(analysisMap))
@@ -286,6 +292,23 @@ private AnalysisMode parseAnalysisMode(Map<String, String> analysisMap) {
             return AnalysisMode.valueOf(value);
         }
 
+        private boolean parseRunPrioritisersFirst(Map<String, Boolean> analysisMap) {
+            Boolean value = analysisMap.get("runPrioritisersFirst");
+            if (value == null) {
+                return false;
+            }
+            return value;
+        }
+
+        private Path parseVariantCheckpoint(Map<String, String> analysisMap) {
+            String value = analysisMap.get("variantCheckpoint");
+            //the checkpoint is optional
+            if (value == null) {
+                return null;
+            }
+            return Paths.get(value);
+        }
+
         @Deprecated
         private void parseScoringMode(Map<String, String> analysisMap) {
             String value = analysisMap.get("geneScoreMode");
@@ -339,7 +362,7 @@ private AnalysisStep makeAnalysisStep(Entry<String, Map> entry, Map analysisMap)
                 case "hiPhivePrioritiser":
                     return makeHiPhivePrioritiser(analysisStepMap);
                 case "phivePrioritiser":
-                    return prioritiserFactory.makePhivePrioritiser();
+                    return prioritiserFactory.makePhivePrioritiser(sharedModelScoringContext);
                 case "phenixPrioritiser":
                     return prioritiserFactory.makePhenixPrioritiser();
                 case "exomeWalkerPrioritiser":
@@ -497,35 +520,49 @@ private InheritanceFilter makeInheritanceFilter(ModeOfInheritance modeOfInherita
             return new InheritanceFilter(modeOfInheritance);
         }
 
-        private HiPhivePriority makeHiPhivePrioritiser(Map<String, String> options) {
+        private HiPhivePriority makeHiPhivePrioritiser(Map<String, Object> options) {
             HiPhiveOptions hiPhiveOptions = makeHiPhiveOptions(options);
             logger.info("Made {}", hiPhiveOptions);
-            return prioritiserFactory.makeHiPhivePrioritiser(hiPhiveOptions);
+            return prioritiserFactory.makeHiPhivePrioritiser(hiPhiveOptions, sharedModelScoringContext);
         }
 
-        private HiPhiveOptions makeHiPhiveOptions(Map<String, String> options) {
+        private HiPhiveOptions makeHiPhiveOptions(Map<String, Object> options) {
             if (!options.isEmpty()) {
-                String diseaseId = options.get("diseaseId");
+                String diseaseId = (String) options.get("diseaseId");
                 if (diseaseId == null) {
                     diseaseId = "";
                 }
-                String candidateGeneSymbol = options.get("candidateGeneSymbol");
+                String candidateGeneSymbol = (String) options.get("candidateGeneSymbol");
                 if (candidateGeneSymbol == null) {
                     candidateGeneSymbol = "";
                 }
-                String runParams = options.get("runParams");
+                String runParams = (String) options.get("runParams");
                 if (runParams == null) {
                     runParams = "";
                 }
+                int topGenesToScore = parseTopGenesToScore(options);
                 return HiPhiveOptions.builder()
                         .diseaseId(diseaseId)
                         .candidateGeneSymbol(candidateGeneSymbol)
                         .runParams(runParams)
+                        .topGenesToScore(topGenesToScore)
                         .build();
             }
             return HiPhiveOptions.DEFAULT;
         }
 
+        private int parseTopGenesToScore(Map<String, Object> options) {
+            Object value = options.get("topGenesToScore");
+            if (value == null) {
+                return 0;
+            }
+            try {
+                return Integer.parseInt(value.toString().trim());
+            } catch (NumberFormatException ex) {
+                throw new AnalysisParserException("HiPhive prioritiser topGenesToScore requires an integer value e.g. {topGenesToScore: 100}", options, ex);
+            }
+        }
+
         private ExomeWalkerPriority makeWalkerPrioritiser(Map<String, List> options) {
             List geneIds = options.get("seedGeneIds");
             if (geneIds == null || geneIds.isEmpty()) {
@@ -48,7 +48,11 @@ class PassOnlyAnalysisRunner extends AbstractAnalysisRunner {
     private static final Logger logger = LoggerFactory.getLogger(PassOnlyAnalysisRunner.class);
 
     PassOnlyAnalysisRunner(GeneFactory geneFactory, VariantFactory variantFactory, VariantDataService variantDataService) {
-        super(geneFactory, variantFactory, variantDataService, new SparseVariantFilterRunner(), new SimpleGeneFilterRunner());
+        this(geneFactory, variantFactory, variantDataService, new AnalysisMetrics());
+    }
+
+    PassOnlyAnalysisRunner(GeneFactory geneFactory, VariantFactory variantFactory, VariantDataService variantDataService, AnalysisMetrics analysisMetrics) {
+        super(geneFactory, variantFactory, variantDataService, new SparseVariantFilterRunner(), new SimpleGeneFilterRunner(), analysisMetrics);
     }
 
     @Override
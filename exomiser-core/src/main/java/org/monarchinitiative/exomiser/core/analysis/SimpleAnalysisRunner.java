@@ -41,7 +41,11 @@
 class SimpleAnalysisRunner extends AbstractAnalysisRunner {
 
     SimpleAnalysisRunner(GeneFactory geneFactory, VariantFactory variantFactory, VariantDataService variantDataService) {
-        super(geneFactory, variantFactory, variantDataService, new SimpleVariantFilterRunner(), new SimpleGeneFilterRunner());
+        this(geneFactory, variantFactory, variantDataService, new AnalysisMetrics());
+    }
+
+    SimpleAnalysisRunner(GeneFactory geneFactory, VariantFactory variantFactory, VariantDataService variantDataService, AnalysisMetrics analysisMetrics) {
+        super(geneFactory, variantFactory, variantDataService, new SimpleVariantFilterRunner(), new SimpleGeneFilterRunner(), analysisMetrics);
     }
 
     @Override
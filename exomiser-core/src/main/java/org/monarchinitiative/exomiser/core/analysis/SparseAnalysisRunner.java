@@ -42,7 +42,11 @@
 class SparseAnalysisRunner extends AbstractAnalysisRunner {
 
     SparseAnalysisRunner(GeneFactory geneFactory, VariantFactory variantFactory, VariantDataService variantDataService) {
-        super(geneFactory, variantFactory, variantDataService, new SparseVariantFilterRunner(), new SimpleGeneFilterRunner());
+        this(geneFactory, variantFactory, variantDataService, new AnalysisMetrics());
+    }
+
+    SparseAnalysisRunner(GeneFactory geneFactory, VariantFactory variantFactory, VariantDataService variantDataService, AnalysisMetrics analysisMetrics) {
+        super(geneFactory, variantFactory, variantDataService, new SparseVariantFilterRunner(), new SimpleGeneFilterRunner(), analysisMetrics);
     }
 
     @Override
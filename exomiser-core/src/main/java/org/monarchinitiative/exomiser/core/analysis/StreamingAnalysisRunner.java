@@ -0,0 +1,392 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.analysis;
+
+import de.charite.compbio.jannovar.mendel.ModeOfInheritance;
+import de.charite.compbio.jannovar.pedigree.Pedigree;
+import htsjdk.variant.vcf.VCFHeader;
+import org.monarchinitiative.exomiser.core.analysis.util.*;
+import org.monarchinitiative.exomiser.core.filters.GeneFilter;
+import org.monarchinitiative.exomiser.core.filters.SimpleGeneFilterRunner;
+import org.monarchinitiative.exomiser.core.filters.SparseVariantFilterRunner;
+import org.monarchinitiative.exomiser.core.filters.VariantFilter;
+import org.monarchinitiative.exomiser.core.genome.GeneFactory;
+import org.monarchinitiative.exomiser.core.genome.VariantDataService;
+import org.monarchinitiative.exomiser.core.genome.VariantFactory;
+import org.monarchinitiative.exomiser.core.model.Gene;
+import org.monarchinitiative.exomiser.core.model.GeneticInterval;
+import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
+import org.monarchinitiative.exomiser.core.prioritisers.Prioritiser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Analysis runner for sorted VCF files which finishes each gene as soon as the variant stream has moved past it. Unlike
+ * the other runners, which hold every loaded variant in memory until all the variants have been read, this one only
+ * holds the variants for the genes in the current window of the genome and a bounded number of the best scoring genes.
+ * Memory usage is therefore proportional to the widest gene window, not the size of the genome.
+ *
+ * In order to do this the prioritisers and priority score filters are run up-front over all the known genes, the
+ * variant filters are applied to each variant as it is streamed in and the remaining gene-level steps (e.g. inheritance
+ * mode analysis, gene filters and the OMIM prioritiser) are run for each gene once it is finished. Only variants which
+ * pass the filters are kept, as with the {@link PassOnlyAnalysisRunner}.
+ *
+ * A finished gene cannot be re-opened as the variants of failed or dropped genes have already been released. Any variant
+ * assigned to a gene after it has been finished, which will only happen with an unsorted VCF, is therefore discarded
+ * with a warning.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+class StreamingAnalysisRunner extends AbstractAnalysisRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingAnalysisRunner.class);
+
+    static final int DEFAULT_MAX_GENES = 1000;
+
+    /**
+     * Variants can be assigned to a gene some distance from its transcripts - e.g. intergenic variants or regulatory
+     * variants reassigned to the best gene in their TAD. Genes are therefore kept open for this distance past the end of
+     * their transcripts or their last variant. This is roughly the size of a large TAD.
+     */
+    static final int DEFAULT_GENE_WINDOW_PADDING = 1_000_000;
+
+    private final int maxGenes;
+    private final int geneWindowPadding;
+
+    StreamingAnalysisRunner(GeneFactory geneFactory, VariantFactory variantFactory, VariantDataService variantDataService, int maxGenes) {
+        this(geneFactory, variantFactory, variantDataService, maxGenes, DEFAULT_GENE_WINDOW_PADDING);
+    }
+
+    StreamingAnalysisRunner(GeneFactory geneFactory, VariantFactory variantFactory, VariantDataService variantDataService, int maxGenes, int geneWindowPadding) {
+        this(geneFactory, variantFactory, variantDataService, maxGenes, geneWindowPadding, new AnalysisMetrics());
+    }
+
+    StreamingAnalysisRunner(GeneFactory geneFactory, VariantFactory variantFactory, VariantDataService variantDataService, int maxGenes, int geneWindowPadding, AnalysisMetrics analysisMetrics) {
+        super(geneFactory, variantFactory, variantDataService, new SparseVariantFilterRunner(), new SimpleGeneFilterRunner(), analysisMetrics);
+        if (maxGenes < 1) {
+            throw new IllegalArgumentException("maxGenes must be greater than zero, but was " + maxGenes);
+        }
+        this.maxGenes = maxGenes;
+        this.geneWindowPadding = geneWindowPadding;
+    }
+
+    @Override
+    public AnalysisResults run(Analysis analysis) {
+
+        Path vcfPath = analysis.getVcfPath();
+        Path pedigreeFilePath = analysis.getPedPath();
+
+        logger.info("Setting up streaming analysis for VCF and PED files: {}, {}", vcfPath, pedigreeFilePath);
+        VCFHeader vcfHeader = readVcfHeader(vcfPath);
+        List<String> sampleNames = vcfHeader.getGenotypeSamples();
+
+        String probandSampleName = SampleNameChecker.getProbandSampleName(analysis.getProbandSampleName(), sampleNames);
+        int probandSampleId = SampleNameChecker.getProbandSampleId(probandSampleName, sampleNames);
+
+        Pedigree pedigree = new PedigreeFactory().createPedigreeForSampleData(pedigreeFilePath, sampleNames);
+        ModeOfInheritance modeOfInheritance = analysis.getModeOfInheritance();
+
+        logger.info("Running streaming analysis for proband {} (sample {} in VCF) from samples: {}", probandSampleName, probandSampleId + 1, sampleNames);
+        Instant timeStart = Instant.now();
+        List<String> hpoIds = analysis.getHpoIds();
+
+        Map<String, Gene> allGenes = makeKnownGenes();
+        List<AnalysisStep> upFrontSteps = getUpFrontSteps(analysis.getAnalysisSteps());
+        List<AnalysisStep> geneSteps = getFinishedGeneSteps(analysis.getAnalysisSteps(), upFrontSteps);
+        List<VariantFilter> variantFilters = getVariantFilterSteps(analysis.getAnalysisSteps());
+
+        logger.info("Running {} over {} known genes", upFrontSteps, allGenes.size());
+        List<Gene> knownGenes = new ArrayList<>(allGenes.values());
+        upFrontSteps.forEach(analysisStep -> runStep(analysisStep, hpoIds, knownGenes));
+
+        GeneScorer geneScorer = new RawScoreGeneScorer(probandSampleId, modeOfInheritance, pedigree);
+        InheritanceModeAnalyser inheritanceModeAnalyser = new InheritanceModeAnalyser(modeOfInheritance, pedigree);
+        GeneFinisher geneFinisher = new GeneFinisher(geneSteps, hpoIds, inheritanceModeAnalyser, geneScorer.scoreGene());
+        GeneWindow geneWindow = new GeneWindow(geneFactory.createKnownGeneIntervals(), geneFinisher);
+
+        GeneReassigner geneReassigner = createNonCodingVariantGeneReassigner(analysis, allGenes);
+        VariantLogger variantLogger = new VariantLogger();
+        long loadStart = System.nanoTime();
+        try (Stream<VariantEvaluation> variantStream = loadVariants(vcfPath)) {
+            variantStream
+                    .peek(variantLogger.logLoadedAndPassedVariants())
+                    .peek(geneWindow::advanceTo)
+                    .map(reassignNonCodingVariantToBestGeneInJannovarAnnotations(geneReassigner))
+                    .map(reassignNonCodingVariantToBestGeneInTad(geneReassigner))
+                    .filter(isAssociatedWithKnownGene(allGenes))
+                    .filter(runVariantFilters(variantFilters))
+                    .peek(variantLogger.countPassedVariant())
+                    .forEach(variantEvaluation -> geneWindow.add(allGenes.get(variantEvaluation.getGeneSymbol()), variantEvaluation));
+        }
+        geneWindow.finishAll();
+        analysisMetrics.recordTime(AnalysisMetrics.LOAD_VARIANTS, System.nanoTime() - loadStart);
+        variantLogger.logResults();
+
+        List<Gene> genes = geneFinisher.getTopGenes();
+        List<VariantEvaluation> variants = genes.stream()
+                .flatMap(gene -> gene.getVariantEvaluations().stream())
+                .collect(toList());
+        logger.info("Finished {} genes - kept top {} genes containing {} filtered variants", geneFinisher.getNumFinishedGenes(), genes.size(), variants.size());
+        if (geneWindow.getNumLateVariants() > 0) {
+            logger.warn("Discarded {} variants which were assigned to a gene after it had been finished. Is the VCF sorted?", geneWindow.getNumLateVariants());
+        }
+
+        logger.info("Creating analysis results from VCF and PED files: {}, {}", vcfPath, pedigreeFilePath);
+        AnalysisResults analysisResults = AnalysisResults.builder()
+                .vcfPath(vcfPath)
+                .pedPath(pedigreeFilePath)
+                .vcfHeader(vcfHeader)
+                .probandSampleName(probandSampleName)
+                .sampleNames(vcfHeader.getGenotypeSamples())
+                .pedigree(pedigree)
+                .genes(genes)
+                .variantEvaluations(variants)
+                .build();
+
+        Duration duration = Duration.between(timeStart, Instant.now());
+        analysisMetrics.recordTime(AnalysisMetrics.ANALYSIS, duration.toNanos());
+        long ms = duration.toMillis();
+        logger.info("Finished analysis in {}m {}s {}ms ({} ms)", (ms / 1000) / 60 % 60, ms / 1000 % 60, ms % 1000, ms);
+        return analysisResults;
+    }
+
+    /**
+     * Prioritisers which only depend on the gene, and their PriorityScoreFilters, can be run before any variants are
+     * loaded. Variants in genes failing a PriorityScoreFilter are then dropped before they are run through any variant
+     * filters. The OMIM prioritiser is inheritance mode dependent, so has to wait until the gene is finished.
+     */
+    private List<AnalysisStep> getUpFrontSteps(List<AnalysisStep> analysisSteps) {
+        return analysisSteps.stream()
+                .filter(AnalysisStep::isOnlyGeneDependent)
+                .collect(toList());
+    }
+
+    private List<AnalysisStep> getFinishedGeneSteps(List<AnalysisStep> analysisSteps, List<AnalysisStep> upFrontSteps) {
+        return analysisSteps.stream()
+                .filter(analysisStep -> !analysisStep.isVariantFilter())
+                .filter(analysisStep -> !upFrontSteps.contains(analysisStep))
+                .collect(toList());
+    }
+
+    @Override
+    Predicate<VariantEvaluation> isAssociatedWithKnownGene(Map<String, Gene> genes) {
+        return variantEvaluation -> {
+            Gene gene = genes.get(variantEvaluation.getGeneSymbol());
+            return gene != null && gene.passedFilters();
+        };
+    }
+
+    @Override
+    Predicate<VariantEvaluation> runVariantFilters(List<VariantFilter> variantFilters) {
+        return variantEvaluation -> {
+            //loop through the filters and only run if the variantEvaluation has passed all prior filters
+            variantFilters.stream()
+                    .filter(filter -> variantEvaluation.passedFilters())
+                    .forEach(filter -> variantFilterRunner.run(filter, variantEvaluation));
+
+            return variantEvaluation.passedFilters();
+        };
+    }
+
+    @Override
+    List<VariantEvaluation> getFinalVariantList(List<VariantEvaluation> variants) {
+        return variants.stream()
+                .filter(VariantEvaluation::passedFilters)
+                .collect(toList());
+    }
+
+    /**
+     * Holds the genes which are still open, i.e. could still have variants assigned to them, for the current position
+     * of the variant stream. Genes are closed and handed to the {@link GeneFinisher} once the stream has moved onto a
+     * new chromosome or past the end of the gene window.
+     */
+    private class GeneWindow {
+
+        private final Map<String, GeneticInterval> geneIntervals;
+        private final GeneFinisher geneFinisher;
+
+        private final Map<Gene, Integer> openGeneWindowEnds = new LinkedHashMap<>();
+        //open genes ordered by the end of their window so that only the expired ones are looked at for each variant.
+        //Entries are not removed when a gene's window is extended, these are skipped once they reach the head.
+        private final PriorityQueue<OpenGene> openGenesByWindowEnd = new PriorityQueue<>(Comparator.comparingInt(OpenGene::getWindowEnd));
+        private final Set<Gene> finishedGenes = new HashSet<>();
+
+        private int currentChromosome = -1;
+        private int currentPosition = -1;
+        private boolean unsortedWarningLogged = false;
+        private int numLateVariants = 0;
+
+        GeneWindow(Map<String, GeneticInterval> geneIntervals, GeneFinisher geneFinisher) {
+            this.geneIntervals = geneIntervals;
+            this.geneFinisher = geneFinisher;
+        }
+
+        void advanceTo(VariantEvaluation variantEvaluation) {
+            int chromosome = variantEvaluation.getChromosome();
+            int position = variantEvaluation.getPosition();
+            if (chromosome != currentChromosome) {
+                finishAll();
+                currentChromosome = chromosome;
+            } else if (position < currentPosition && !unsortedWarningLogged) {
+                logger.warn("Variant at {}:{} is out of order. Streaming analysis requires a sorted VCF file.", chromosome, position);
+                unsortedWarningLogged = true;
+            }
+            currentPosition = position;
+
+            while (!openGenesByWindowEnd.isEmpty() && openGenesByWindowEnd.peek().getWindowEnd() < position) {
+                OpenGene openGene = openGenesByWindowEnd.poll();
+                Gene gene = openGene.getGene();
+                Integer windowEnd = openGeneWindowEnds.get(gene);
+                //skip the stale entries left behind when the window of a gene was extended
+                if (windowEnd != null && windowEnd == openGene.getWindowEnd()) {
+                    openGeneWindowEnds.remove(gene);
+                    finish(gene);
+                }
+            }
+        }
+
+        void add(Gene gene, VariantEvaluation variantEvaluation) {
+            if (finishedGenes.contains(gene)) {
+                if (numLateVariants == 0) {
+                    logger.warn("Discarding variant at {}:{} as gene {} has already been finished. Streaming analysis requires a sorted VCF file.", variantEvaluation.getChromosome(), variantEvaluation.getPosition(), gene.getGeneSymbol());
+                }
+                numLateVariants++;
+                return;
+            }
+            int position = variantEvaluation.getPosition();
+            GeneticInterval geneInterval = geneIntervals.get(gene.getGeneSymbol());
+            int geneEnd = (geneInterval != null && geneInterval.getChromosome() == variantEvaluation.getChromosome()) ? geneInterval.getEnd() : position;
+            int windowEnd = Math.max(geneEnd, position) + geneWindowPadding;
+            Integer currentWindowEnd = openGeneWindowEnds.get(gene);
+            if (currentWindowEnd == null || windowEnd > currentWindowEnd) {
+                openGeneWindowEnds.put(gene, windowEnd);
+                openGenesByWindowEnd.add(new OpenGene(gene, windowEnd));
+            }
+            gene.addVariant(variantEvaluation);
+        }
+
+        void finishAll() {
+            openGeneWindowEnds.keySet().forEach(this::finish);
+            openGeneWindowEnds.clear();
+            openGenesByWindowEnd.clear();
+        }
+
+        private void finish(Gene gene) {
+            finishedGenes.add(gene);
+            geneFinisher.finish(gene);
+        }
+
+        int getNumLateVariants() {
+            return numLateVariants;
+        }
+    }
+
+    private static class OpenGene {
+
+        private final Gene gene;
+        private final int windowEnd;
+
+        OpenGene(Gene gene, int windowEnd) {
+            this.gene = gene;
+            this.windowEnd = windowEnd;
+        }
+
+        Gene getGene() {
+            return gene;
+        }
+
+        int getWindowEnd() {
+            return windowEnd;
+        }
+    }
+
+    /**
+     * Runs the gene-level steps over a finished gene, scores it and keeps it if it is one of the top scoring genes seen
+     * so far. Genes which fail the filters or drop out of the top genes have their variants released.
+     */
+    private class GeneFinisher {
+
+        private final List<AnalysisStep> geneSteps;
+        private final List<String> hpoIds;
+        private final InheritanceModeAnalyser inheritanceModeAnalyser;
+        private final Consumer<Gene> geneScorer;
+
+        //the lowest ranked gene is at the head of the queue
+        private final PriorityQueue<Gene> topGenes = new PriorityQueue<>(Comparator.reverseOrder());
+        private int numFinishedGenes = 0;
+
+        GeneFinisher(List<AnalysisStep> geneSteps, List<String> hpoIds, InheritanceModeAnalyser inheritanceModeAnalyser, Consumer<Gene> geneScorer) {
+            this.geneSteps = geneSteps;
+            this.hpoIds = hpoIds;
+            this.inheritanceModeAnalyser = inheritanceModeAnalyser;
+            this.geneScorer = geneScorer;
+        }
+
+        void finish(Gene gene) {
+            numFinishedGenes++;
+            List<Gene> genes = Collections.singletonList(gene);
+            boolean inheritanceModesCalculated = false;
+            for (AnalysisStep analysisStep : geneSteps) {
+                if (!inheritanceModesCalculated && analysisStep.isInheritanceModeDependent()) {
+                    inheritanceModeAnalyser.analyseInheritanceModes(gene);
+                    inheritanceModesCalculated = true;
+                }
+                //these are run quietly as there will be one call per gene
+                if (GeneFilter.class.isInstance(analysisStep)) {
+                    geneFilterRunner.run((GeneFilter) analysisStep, genes);
+                } else if (Prioritiser.class.isInstance(analysisStep)) {
+                    ((Prioritiser) analysisStep).prioritizeGenes(hpoIds, genes);
+                }
+            }
+            if (!gene.passedFilters()) {
+                gene.getVariantEvaluations().clear();
+                return;
+            }
+            gene.getVariantEvaluations().removeIf(variantEvaluation -> !variantEvaluation.passedFilters());
+            geneScorer.accept(gene);
+            topGenes.add(gene);
+            if (topGenes.size() > maxGenes) {
+                Gene lowestRankedGene = topGenes.poll();
+                lowestRankedGene.getVariantEvaluations().clear();
+            }
+        }
+
+        int getNumFinishedGenes() {
+            return numFinishedGenes;
+        }
+
+        List<Gene> getTopGenes() {
+            List<Gene> genes = new ArrayList<>(topGenes);
+            Collections.sort(genes);
+            return genes;
+        }
+    }
+}
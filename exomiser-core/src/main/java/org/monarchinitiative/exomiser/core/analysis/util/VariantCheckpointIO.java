@@ -0,0 +1,379 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.analysis.util;
+
+import de.charite.compbio.jannovar.annotation.VariantEffect;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFEncoder;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderVersion;
+import org.monarchinitiative.exomiser.core.filters.FilterResult;
+import org.monarchinitiative.exomiser.core.filters.FilterType;
+import org.monarchinitiative.exomiser.core.model.TranscriptAnnotation;
+import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
+import org.monarchinitiative.exomiser.core.model.frequency.Frequency;
+import org.monarchinitiative.exomiser.core.model.frequency.FrequencyData;
+import org.monarchinitiative.exomiser.core.model.frequency.FrequencySource;
+import org.monarchinitiative.exomiser.core.model.frequency.RsId;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reads and writes a compressed binary checkpoint of the {@link VariantEvaluation} remaining after the variants of a
+ * sample have been loaded, annotated and run through the initial variant filters. Re-running an analysis of the same
+ * sample with different phenotypes or prioritisers can then start from the checkpoint instead of the VCF file, skipping
+ * the annotation, data lookups and filtering.
+ * <p>
+ * The VCF records are stored as VCF lines encoded with the header of the original file, once for each record, with
+ * the variant annotations, frequency, pathogenicity and filter results stored alongside. The checkpoint is saved with
+ * a key describing how the variants were produced and is only read back for an identical key.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class VariantCheckpointIO {
+
+    private static final Logger logger = LoggerFactory.getLogger(VariantCheckpointIO.class);
+
+    //Binary format (gzipped): magic, version, key, the VCF records as (number of records, VCF lines) and then the
+    //variants as (number of variants, variants). Each variant refers to its VCF record by index. Strings are written as
+    //the length of their UTF-8 bytes followed by the bytes, or -1 for null.
+    private static final int BINARY_MAGIC = 0x45585643;
+    private static final int BINARY_VERSION = 1;
+
+    private static final int NULL_STRING = -1;
+
+    /*
+     * This shouldn't be instantiated.
+     */
+    private VariantCheckpointIO() {}
+
+    /**
+     * Writes the variants to the checkpoint file, replacing any existing file only once the write has completed.
+     *
+     * @param checkpointFile     the file to write to.
+     * @param key                describing how the variants were produced, which must match when the file is read.
+     * @param vcfHeader          of the VCF file the variants were loaded from.
+     * @param variantEvaluations the variants to write.
+     */
+    public static void writeVariantCheckpoint(Path checkpointFile, String key, VCFHeader vcfHeader, List<VariantEvaluation> variantEvaluations) {
+        VCFEncoder vcfEncoder = new VCFEncoder(vcfHeader, true, false);
+        //multi-allelic records are shared between variants, so each record is only written once
+        Map<VariantContext, Integer> recordIndexes = new IdentityHashMap<>();
+        List<VariantContext> records = new ArrayList<>();
+        for (VariantEvaluation variantEvaluation : variantEvaluations) {
+            VariantContext variantContext = variantEvaluation.getVariantContext();
+            if (!recordIndexes.containsKey(variantContext)) {
+                recordIndexes.put(variantContext, records.size());
+                records.add(variantContext);
+            }
+        }
+
+        Path tempFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tempFile))))) {
+            out.writeInt(BINARY_MAGIC);
+            out.writeInt(BINARY_VERSION);
+            writeString(out, key);
+            out.writeInt(records.size());
+            for (VariantContext record : records) {
+                writeString(out, vcfEncoder.encode(record));
+            }
+            out.writeInt(variantEvaluations.size());
+            for (VariantEvaluation variantEvaluation : variantEvaluations) {
+                out.writeInt(recordIndexes.get(variantEvaluation.getVariantContext()));
+                writeVariant(out, variantEvaluation);
+            }
+        } catch (IOException e) {
+            throw new VariantCheckpointIoException(e);
+        }
+        try {
+            Files.move(tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new VariantCheckpointIoException(e);
+        }
+        logger.info("Wrote {} variants from {} VCF records to checkpoint {}", variantEvaluations.size(), records.size(), checkpointFile);
+    }
+
+    private static void writeVariant(DataOutputStream out, VariantEvaluation variantEvaluation) throws IOException {
+        out.writeInt(variantEvaluation.getAltAlleleId());
+        out.writeInt(variantEvaluation.getChromosome());
+        writeString(out, variantEvaluation.getChromosomeName());
+        out.writeInt(variantEvaluation.getPosition());
+        writeString(out, variantEvaluation.getRef());
+        writeString(out, variantEvaluation.getAlt());
+        out.writeInt(variantEvaluation.getNumberOfIndividuals());
+        out.writeDouble(variantEvaluation.getPhredScore());
+        out.writeBoolean(variantEvaluation.isOffExome());
+        writeEnum(out, variantEvaluation.getVariantEffect());
+        writeString(out, variantEvaluation.getGeneSymbol());
+        out.writeInt(variantEvaluation.getEntrezGeneId());
+
+        List<TranscriptAnnotation> annotations = variantEvaluation.getAnnotations();
+        out.writeInt(annotations.size());
+        for (TranscriptAnnotation annotation : annotations) {
+            writeEnum(out, annotation.getVariantEffect());
+            writeString(out, annotation.getGeneSymbol());
+            writeString(out, annotation.getAccession());
+            writeString(out, annotation.getHgvsGenomic());
+            writeString(out, annotation.getHgvsCdna());
+            writeString(out, annotation.getHgvsProtein());
+            out.writeInt(annotation.getDistanceFromNearestGene());
+        }
+
+        writeFilterTypes(out, variantEvaluation.getPassedFilterTypes());
+        writeFilterTypes(out, variantEvaluation.getFailedFilterTypes());
+
+        FrequencyData frequencyData = variantEvaluation.getFrequencyData();
+        out.writeInt(frequencyData.getRsId().getId());
+        List<Frequency> frequencies = frequencyData.getKnownFrequencies();
+        out.writeInt(frequencies.size());
+        for (Frequency frequency : frequencies) {
+            writeEnum(out, frequency.getSource());
+            out.writeFloat(frequency.getFrequency());
+        }
+
+        List<PathogenicityScore> pathogenicityScores = variantEvaluation.getPathogenicityData().getPredictedPathogenicityScores();
+        out.writeInt(pathogenicityScores.size());
+        for (PathogenicityScore pathogenicityScore : pathogenicityScores) {
+            writeEnum(out, pathogenicityScore.getSource());
+            out.writeFloat(pathogenicityScore.getScore());
+        }
+    }
+
+    private static void writeFilterTypes(DataOutputStream out, Set<FilterType> filterTypes) throws IOException {
+        out.writeInt(filterTypes.size());
+        for (FilterType filterType : filterTypes) {
+            writeEnum(out, filterType);
+        }
+    }
+
+    private static void writeEnum(DataOutputStream out, Enum<?> value) throws IOException {
+        writeString(out, value == null ? null : value.name());
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        if (string == null) {
+            out.writeInt(NULL_STRING);
+            return;
+        }
+        //VCF lines for large cohorts can be longer than the 64KB limit of writeUTF
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads the variants written by {@link #writeVariantCheckpoint(Path, String, VCFHeader, List)} if the file exists
+     * and was written with the same key.
+     *
+     * @param checkpointFile the file to read.
+     * @param key            describing how the variants should have been produced.
+     * @param vcfHeader        of the VCF file the variants were loaded from.
+     * @param vcfHeaderVersion of the VCF file the variants were loaded from, see {@link #readVcfHeaderVersion(Path)}.
+     *                         The VCF records are decoded as {@link VCFHeaderVersion#VCF4_2} if this is null.
+     * @return the checkpointed variants, or an empty optional if there is no checkpoint or it is for a different key.
+     * @throws VariantCheckpointIoException if the file is not a variant checkpoint or it cannot be read or decoded.
+     */
+    public static Optional<List<VariantEvaluation>> readVariantCheckpoint(Path checkpointFile, String key, VCFHeader vcfHeader, VCFHeaderVersion vcfHeaderVersion) {
+        if (!Files.isRegularFile(checkpointFile)) {
+            logger.info("No variant checkpoint found at {}", checkpointFile);
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(checkpointFile)), 1 << 16))) {
+            int magic = in.readInt();
+            if (magic != BINARY_MAGIC) {
+                throw new VariantCheckpointIoException(new IllegalArgumentException(checkpointFile + " is not a variant checkpoint file"));
+            }
+            int version = in.readInt();
+            if (version != BINARY_VERSION) {
+                logger.info("Ignoring version {} variant checkpoint {} - expected version {}", version, checkpointFile, BINARY_VERSION);
+                return Optional.empty();
+            }
+            String checkpointKey = readString(in);
+            if (!key.equals(checkpointKey)) {
+                logger.info("Ignoring variant checkpoint {} as it was written for a different VCF file or variant filters", checkpointFile);
+                logger.debug("Checkpoint key {} does not match {}", checkpointKey, key);
+                return Optional.empty();
+            }
+            VCFCodec vcfCodec = new VCFCodec();
+            vcfCodec.setVCFHeader(vcfHeader, vcfHeaderVersion == null ? VCFHeaderVersion.VCF4_2 : vcfHeaderVersion);
+            VariantContext[] records = new VariantContext[in.readInt()];
+            for (int i = 0; i < records.length; i++) {
+                records[i] = vcfCodec.decode(readString(in));
+            }
+            int numVariants = in.readInt();
+            List<VariantEvaluation> variantEvaluations = new ArrayList<>(numVariants);
+            for (int i = 0; i < numVariants; i++) {
+                VariantContext record = records[in.readInt()];
+                variantEvaluations.add(readVariant(in, record));
+            }
+            logger.info("Read {} variants from {} VCF records from checkpoint {}", numVariants, records.length, checkpointFile);
+            return Optional.of(variantEvaluations);
+        } catch (VariantCheckpointIoException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            //a corrupt or truncated checkpoint can fail to decode in many ways e.g. an unknown enum constant or a VCF
+            //record which doesn't match the header
+            throw new VariantCheckpointIoException(e);
+        }
+    }
+
+    /**
+     * Reads the version of a VCF file from its first, fileformat, line. This is needed to decode the checkpointed VCF
+     * records as htsjdk does not keep the fileformat line in the {@link VCFHeader}.
+     *
+     * @param vcfPath the VCF file, which may be gzipped.
+     * @return the version of the VCF file, or null if the first line is not a fileformat line for a known version.
+     * @throws VariantCheckpointIoException if the file cannot be read.
+     */
+    public static VCFHeaderVersion readVcfHeaderVersion(Path vcfPath) {
+        try (BufferedReader reader = IOUtil.openFileForBufferedReading(vcfPath.toFile())) {
+            String firstLine = reader.readLine();
+            if (firstLine == null || !firstLine.startsWith(VCFHeader.METADATA_INDICATOR)) {
+                return null;
+            }
+            String[] keyValue = firstLine.substring(VCFHeader.METADATA_INDICATOR.length()).split("=", 2);
+            if (keyValue.length == 2 && VCFHeaderVersion.isFormatString(keyValue[0]) && VCFHeaderVersion.isVersionString(keyValue[1])) {
+                return VCFHeaderVersion.toHeaderVersion(keyValue[1]);
+            }
+            return null;
+        } catch (IOException | RuntimeException e) {
+            throw new VariantCheckpointIoException(e);
+        }
+    }
+
+    private static VariantEvaluation readVariant(DataInputStream in, VariantContext variantContext) throws IOException {
+        int altAlleleId = in.readInt();
+        int chr = in.readInt();
+        String chromosomeName = readString(in);
+        int pos = in.readInt();
+        String ref = readString(in);
+        String alt = readString(in);
+        VariantEvaluation.Builder builder = VariantEvaluation.builder(chr, pos, ref, alt)
+                .variantContext(variantContext)
+                .altAlleleId(altAlleleId)
+                .chromosomeName(chromosomeName)
+                .numIndividuals(in.readInt())
+                .quality(in.readDouble())
+                .isOffExome(in.readBoolean())
+                .variantEffect(readEnum(in, VariantEffect.class));
+        String geneSymbol = readString(in);
+        if (geneSymbol != null) {
+            builder.geneSymbol(geneSymbol);
+        }
+        builder.geneId(in.readInt());
+
+        int numAnnotations = in.readInt();
+        List<TranscriptAnnotation> annotations = new ArrayList<>(numAnnotations);
+        for (int i = 0; i < numAnnotations; i++) {
+            annotations.add(TranscriptAnnotation.builder()
+                    .variantEffect(readEnum(in, VariantEffect.class))
+                    .geneSymbol(readString(in))
+                    .accession(readString(in))
+                    .hgvsGenomic(readString(in))
+                    .hgvsCdna(readString(in))
+                    .hgvsProtein(readString(in))
+                    .distanceFromNearestGene(in.readInt())
+                    .build());
+        }
+        builder.annotations(annotations);
+
+        List<FilterResult> filterResults = new ArrayList<>();
+        int numPassed = in.readInt();
+        for (int i = 0; i < numPassed; i++) {
+            filterResults.add(FilterResult.pass(readEnum(in, FilterType.class)));
+        }
+        int numFailed = in.readInt();
+        for (int i = 0; i < numFailed; i++) {
+            filterResults.add(FilterResult.fail(readEnum(in, FilterType.class)));
+        }
+        builder.filterResults(filterResults);
+
+        RsId rsId = RsId.valueOf(in.readInt());
+        int numFrequencies = in.readInt();
+        List<Frequency> frequencies = new ArrayList<>(numFrequencies);
+        for (int i = 0; i < numFrequencies; i++) {
+            FrequencySource source = readEnum(in, FrequencySource.class);
+            frequencies.add(Frequency.valueOf(in.readFloat(), source));
+        }
+        builder.frequencyData(FrequencyData.of(rsId, frequencies));
+
+        int numPathogenicityScores = in.readInt();
+        List<PathogenicityScore> pathogenicityScores = new ArrayList<>(numPathogenicityScores);
+        for (int i = 0; i < numPathogenicityScores; i++) {
+            PathogenicitySource source = readEnum(in, PathogenicitySource.class);
+            pathogenicityScores.add(makePathogenicityScore(source, in.readFloat()));
+        }
+        builder.pathogenicityData(numPathogenicityScores == 0 ? PathogenicityData.empty() : PathogenicityData.of(pathogenicityScores));
+
+        return builder.build();
+    }
+
+    private static PathogenicityScore makePathogenicityScore(PathogenicitySource source, float score) {
+        switch (source) {
+            case POLYPHEN:
+                return PolyPhenScore.valueOf(score);
+            case MUTATION_TASTER:
+                return MutationTasterScore.valueOf(score);
+            case SIFT:
+                return SiftScore.valueOf(score);
+            case CADD:
+                return CaddScore.valueOf(score);
+            case REMM:
+                return RemmScore.valueOf(score);
+            default:
+                throw new VariantCheckpointIoException(new IllegalArgumentException("Unable to read pathogenicity score from " + source));
+        }
+    }
+
+    private static <T extends Enum<T>> T readEnum(DataInputStream in, Class<T> enumType) throws IOException {
+        String name = readString(in);
+        return name == null ? null : Enum.valueOf(enumType, name);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static class VariantCheckpointIoException extends RuntimeException {
+
+        public VariantCheckpointIoException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
@@ -27,9 +27,12 @@
 
 import com.google.common.collect.ImmutableSet;
 import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.Strand;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
 import org.monarchinitiative.exomiser.core.model.Gene;
 import org.monarchinitiative.exomiser.core.model.GeneIdentifier;
+import org.monarchinitiative.exomiser.core.model.GeneticInterval;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,8 +41,6 @@
 import java.util.*;
 import java.util.function.Function;
 
-import static java.util.stream.Collectors.toList;
-
 /**
  * Creates a {@code List} of {@code Gene} from a {@code List} of
  * {@code VariantEvaluation}.
@@ -53,26 +54,62 @@ public class GeneFactory {
 
     private final JannovarData jannovarData;
 
+    private volatile KnownGeneCatalogue knownGeneCatalogue;
+
     @Autowired
     public GeneFactory(JannovarData jannovarData) {
         this.jannovarData = jannovarData;
     }
 
     /**
-     * Returns a list of genes from the JannovarData TranscriptModels.
+     * Returns the immutable {@link KnownGeneCatalogue} built from the JannovarData TranscriptModels. This is built
+     * on the first call and the same instance returned thereafter so that concurrent analyses share the
+     * query-independent gene data rather than each iterating over all the transcripts.
+     *
+     * @return the shared catalogue of known genes.
+     */
+    public KnownGeneCatalogue getKnownGeneCatalogue() {
+        KnownGeneCatalogue catalogue = knownGeneCatalogue;
+        if (catalogue == null) {
+            synchronized (this) {
+                catalogue = knownGeneCatalogue;
+                if (catalogue == null) {
+                    catalogue = new KnownGeneCatalogue(buildKnownGeneIds(), buildKnownGeneIntervals());
+                    knownGeneCatalogue = catalogue;
+                    logger.info("Built {}", catalogue);
+                }
+            }
+        }
+        return catalogue;
+    }
+
+    /**
+     * Returns a list of genes from the JannovarData TranscriptModels. The {@link Gene} are new instances with each
+     * call, although the underlying {@link GeneIdentifier} are shared.
      * @return
      */
     public List<Gene> createKnownGenes() {
-        List<Gene> knownGenes = createKnownGeneIds().stream()
-                // We're assuming the GeneIdentifier includes Entrez ids here. They should be present.
-                // If not the entire analysis will fail.
-                .map(Gene::new)
-                .collect(toList());
+        List<Gene> knownGenes = getKnownGeneCatalogue().createGenes();
         logger.info("Created {} known genes.", knownGenes.size());
         return knownGenes;
     }
 
     public Set<GeneIdentifier> createKnownGeneIds() {
+        return getKnownGeneCatalogue().getGeneIdentifiers();
+    }
+
+    /**
+     * Returns the genomic region spanned by all the transcripts of each known gene, indexed by gene symbol. Where a gene
+     * symbol has transcripts on more than one chromosome (e.g. the pseudo-autosomal regions of X and Y) only the
+     * region on the chromosome of the first transcript is returned.
+     *
+     * @return an immutable map of gene symbol to the forward-strand interval covering all transcripts of that gene.
+     */
+    public Map<String, GeneticInterval> createKnownGeneIntervals() {
+        return getKnownGeneCatalogue().getGeneIntervals();
+    }
+
+    private Set<GeneIdentifier> buildKnownGeneIds() {
         ImmutableSet.Builder<GeneIdentifier> geneIdentifiers = ImmutableSet.builder();
         int identifiers = 0;
         int noEntrezId = 0;
@@ -99,6 +136,34 @@ public Set<GeneIdentifier> createKnownGeneIds() {
         return geneIdentifiers.build();
     }
 
+    private Map<String, GeneticInterval> buildKnownGeneIntervals() {
+        Map<String, GeneticInterval> geneIntervals = new HashMap<>();
+        for (String geneSymbol : jannovarData.getTmByGeneSymbol().keySet()) {
+            Collection<TranscriptModel> transcriptModels = jannovarData.getTmByGeneSymbol().get(geneSymbol);
+            int chromosome = -1;
+            int start = Integer.MAX_VALUE;
+            int end = Integer.MIN_VALUE;
+            for (TranscriptModel transcriptModel : transcriptModels) {
+                if (transcriptModel == null) {
+                    continue;
+                }
+                GenomeInterval txRegion = transcriptModel.getTXRegion().withStrand(Strand.FWD);
+                if (chromosome == -1) {
+                    chromosome = txRegion.getChr();
+                }
+                if (txRegion.getChr() == chromosome) {
+                    start = Math.min(start, txRegion.getBeginPos());
+                    end = Math.max(end, txRegion.getEndPos());
+                }
+            }
+            if (chromosome != -1) {
+                geneIntervals.put(geneSymbol, new GeneticInterval(chromosome, start, end));
+            }
+        }
+        logger.info("Created {} known gene intervals.", geneIntervals.size());
+        return geneIntervals;
+    }
+
     private Function<TranscriptModel, GeneIdentifier> toGeneIdentifier() {
         //logger.info("{} {} {} {}", transcriptModel.getGeneSymbol(), transcriptModel.getGeneID(), transcriptModel.getAccession(), transcriptModel.getAltGeneIDs());
         //Using ucsc_hg19: LMOD1 ENTREZ25802 uc010ppu.2 null (pre-jannovar 0.19)
@@ -0,0 +1,116 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.core.genome;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.monarchinitiative.exomiser.core.model.Gene;
+import org.monarchinitiative.exomiser.core.model.GeneIdentifier;
+import org.monarchinitiative.exomiser.core.model.GeneticInterval;
+
+import java.util.*;
+
+/**
+ * Immutable catalogue of the known genes in the transcript data together with their symbol and Entrez gene id
+ * indexes. This is query-independent so can be built once and shared between analyses in the same JVM. The
+ * {@link Gene} objects holding the per-analysis mutable state are created afresh for each analysis from here using
+ * {@link #createGenes()}.
+ *
+ * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
+ */
+public final class KnownGeneCatalogue {
+
+    private final Set<GeneIdentifier> geneIdentifiers;
+    private final Map<String, GeneIdentifier> geneIdentifiersBySymbol;
+    private final Map<Integer, GeneIdentifier> geneIdentifiersByEntrezId;
+    private final Map<String, GeneticInterval> geneIntervals;
+
+    public KnownGeneCatalogue(Set<GeneIdentifier> geneIdentifiers, Map<String, GeneticInterval> geneIntervals) {
+        this.geneIdentifiers = ImmutableSet.copyOf(geneIdentifiers);
+        this.geneIntervals = ImmutableMap.copyOf(geneIntervals);
+
+        Map<String, GeneIdentifier> bySymbol = new LinkedHashMap<>();
+        Map<Integer, GeneIdentifier> byEntrezId = new LinkedHashMap<>();
+        for (GeneIdentifier geneIdentifier : this.geneIdentifiers) {
+            bySymbol.putIfAbsent(geneIdentifier.getGeneSymbol(), geneIdentifier);
+            if (geneIdentifier.hasEntrezId()) {
+                byEntrezId.putIfAbsent(geneIdentifier.getEntrezIdAsInteger(), geneIdentifier);
+            }
+        }
+        this.geneIdentifiersBySymbol = ImmutableMap.copyOf(bySymbol);
+        this.geneIdentifiersByEntrezId = ImmutableMap.copyOf(byEntrezId);
+    }
+
+    public Set<GeneIdentifier> getGeneIdentifiers() {
+        return geneIdentifiers;
+    }
+
+    public Map<String, GeneIdentifier> getGeneIdentifiersBySymbol() {
+        return geneIdentifiersBySymbol;
+    }
+
+    public Map<Integer, GeneIdentifier> getGeneIdentifiersByEntrezId() {
+        return geneIdentifiersByEntrezId;
+    }
+
+    public Optional<GeneIdentifier> getGeneIdentifierForSymbol(String geneSymbol) {
+        return Optional.ofNullable(geneIdentifiersBySymbol.get(geneSymbol));
+    }
+
+    public Optional<GeneIdentifier> getGeneIdentifierForEntrezId(Integer entrezId) {
+        return Optional.ofNullable(geneIdentifiersByEntrezId.get(entrezId));
+    }
+
+    /**
+     * @return map of gene symbol to the forward-strand interval covering all transcripts of that gene.
+     */
+    public Map<String, GeneticInterval> getGeneIntervals() {
+        return geneIntervals;
+    }
+
+    public int size() {
+        return geneIdentifiers.size();
+    }
+
+    /**
+     * Creates a new set of {@link Gene} for the known genes. As {@link Gene} is mutable these are not cached and a
+     * new list is returned with each call.
+     *
+     * @return a new list of {@link Gene} for each known gene.
+     */
+    public List<Gene> createGenes() {
+        List<Gene> genes = new ArrayList<>(geneIdentifiers.size());
+        for (GeneIdentifier geneIdentifier : geneIdentifiers) {
+            // We're assuming the GeneIdentifier includes Entrez ids here. They should be present.
+            // If not the entire analysis will fail.
+            genes.add(new Gene(geneIdentifier));
+        }
+        return genes;
+    }
+
+    @Override
+    public String toString() {
+        return "KnownGeneCatalogue{" +
+                "geneIdentifiers=" + geneIdentifiers.size() +
+                ", geneIdentifiersByEntrezId=" + geneIdentifiersByEntrezId.size() +
+                ", geneIntervals=" + geneIntervals.size() +
+                '}';
+    }
+}
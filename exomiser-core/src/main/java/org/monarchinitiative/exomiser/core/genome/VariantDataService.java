@@ -50,4 +50,12 @@ public interface VariantDataService {
     
     List<TopologicalDomain> getTopologicallyAssociatedDomains();
 
+    /**
+     * @return an identifier for the transcript, frequency and pathogenicity data behind this service which changes when
+     * the data does. Anything derived from this data, e.g. a variant checkpoint, should be invalidated when it changes.
+     */
+    default String getDataVersion() {
+        return "";
+    }
+
 }
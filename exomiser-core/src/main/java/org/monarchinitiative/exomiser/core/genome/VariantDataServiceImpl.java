@@ -22,6 +22,7 @@
 package org.monarchinitiative.exomiser.core.genome;
 
 import de.charite.compbio.jannovar.annotation.VariantEffect;
+import org.monarchinitiative.exomiser.core.analysis.AnalysisMetrics;
 import org.monarchinitiative.exomiser.core.genome.dao.*;
 import org.monarchinitiative.exomiser.core.model.RegulatoryFeature;
 import org.monarchinitiative.exomiser.core.model.TopologicalDomain;
@@ -68,15 +69,28 @@ public class VariantDataServiceImpl implements VariantDataService {
     private RegulatoryFeatureDao regulatoryFeatureDao;
     @Autowired
     private TadDao tadDao;
+    @Resource(name = "variantDataVersion")
+    private String dataVersion;
+
+    private final AnalysisMetrics analysisMetrics;
+
+    public VariantDataServiceImpl() {
+        this(new AnalysisMetrics());
+    }
+
+    @Autowired
+    public VariantDataServiceImpl(AnalysisMetrics analysisMetrics) {
+        this.analysisMetrics = analysisMetrics;
+    }
 
     @Override
     public FrequencyData getVariantFrequencyData(Variant variant, Set<FrequencySource> frequencySources) {
         List<Frequency> allFrequencies = new ArrayList<>();
-        FrequencyData allFrequencyData = defaultFrequencyDao.getFrequencyData(variant);
+        FrequencyData allFrequencyData = analysisMetrics.time("dao.frequency", () -> defaultFrequencyDao.getFrequencyData(variant));
         allFrequencies.addAll(allFrequencyData.getKnownFrequencies());
 
         if (frequencySources.contains(FrequencySource.LOCAL)) {
-            FrequencyData localFrequencyData = localFrequencyDao.getFrequencyData(variant);
+            FrequencyData localFrequencyData = analysisMetrics.time("dao.local-frequency", () -> localFrequencyDao.getFrequencyData(variant));
             allFrequencies.addAll(localFrequencyData.getKnownFrequencies());
         }
 
@@ -104,18 +118,18 @@ public PathogenicityData getVariantPathogenicityData(Variant variant, Set<Pathog
         final VariantEffect variantEffect = variant.getVariantEffect();
         //Polyphen, Mutation Taster and SIFT are all trained on missense variants - this is what is contained in the original variant table, but we shouldn't know that.
         if (variantEffect == VariantEffect.MISSENSE_VARIANT) {
-            PathogenicityData missenseScores = pathogenicityDao.getPathogenicityData(variant);
+            PathogenicityData missenseScores = analysisMetrics.time("dao.pathogenicity", () -> pathogenicityDao.getPathogenicityData(variant));
             allPathScores.addAll(missenseScores.getPredictedPathogenicityScores());
         }
         else if (pathogenicitySources.contains(PathogenicitySource.REMM) && variant.isNonCodingVariant()) {
             //REMM is trained on non-coding regulatory bits of the genome, this outperforms CADD for non-coding variants
-            PathogenicityData nonCodingScore = remmDao.getPathogenicityData(variant);
+            PathogenicityData nonCodingScore = analysisMetrics.time("dao.remm", () -> remmDao.getPathogenicityData(variant));
             allPathScores.addAll(nonCodingScore.getPredictedPathogenicityScores());
         }
         
         //CADD does all of it although is not as good as REMM for the non-coding regions.
         if (pathogenicitySources.contains(PathogenicitySource.CADD)) {
-            PathogenicityData caddScore = caddDao.getPathogenicityData(variant);
+            PathogenicityData caddScore = analysisMetrics.time("dao.cadd", () -> caddDao.getPathogenicityData(variant));
             allPathScores.addAll(caddScore.getPredictedPathogenicityScores());
         }
 
@@ -134,12 +148,17 @@ protected PathogenicityData pathDataFromSpecifiedDataSources(List<PathogenicityS
 
     @Override
     public List<RegulatoryFeature> getRegulatoryFeatures() {
-        return regulatoryFeatureDao.getRegulatoryFeatures();
+        return analysisMetrics.time("dao.regulatory-features", () -> regulatoryFeatureDao.getRegulatoryFeatures());
     }
 
     @Override
     public List<TopologicalDomain> getTopologicallyAssociatedDomains() {
-        return tadDao.getAllTads();
+        return analysisMetrics.time("dao.tads", () -> tadDao.getAllTads());
+    }
+
+    @Override
+    public String getDataVersion() {
+        return dataVersion == null ? "" : dataVersion;
     }
 
 }
@@ -26,8 +26,6 @@
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Stream;
 
 import static java.util.Comparator.comparingDouble;
 import static java.util.stream.Collectors.*;
@@ -51,7 +49,17 @@ public class CrossSpeciesPhenotypeMatcher implements PhenotypeMatcher {
     private final Set<String> matchedOrganismPhenotypeIds;
     private final Set<String> matchedQueryPhenotypeIds;
 
-    private final Map<String, PhenotypeMatch> mappedTerms;
+    //Dense match table - rows are the matchedQueryPhenotypeIds, columns the matchedOrganismPhenotypeIds, both in
+    //natural order. Model phenotypes are mapped onto columns using their PhenotypeTermIndex, offset by the smallest
+    //term index of the columns so that the lookup array only spans the term indexes of the columns.
+    private final String[] columnPhenotypeIds;
+    private final int minColumnTermIndex;
+    private final int[] columnsByTermIndex;
+    private final PhenotypeMatch[][] matchTable;
+    private final double[][] scoreTable;
+    //best score in each row and column of the scoreTable, used to bound the score of a model
+    private final double[] rowMaxScores;
+    private final double[] columnMaxScores;
 
     /**
      * @param organism - The organism for which these PhenotypeMatches are associated.
@@ -74,7 +82,52 @@ public CrossSpeciesPhenotypeMatcher(Organism organism, Map<PhenotypeTerm, Set<Ph
                 .map(PhenotypeTerm::getId)
                 .collect(collectingAndThen(toCollection(TreeSet::new), Collections::unmodifiableSet));
 
-        this.mappedTerms = getCompoundKeyIndexedPhenotypeMatches();
+        this.columnPhenotypeIds = matchedOrganismPhenotypeIds.toArray(new String[0]);
+        //the matched phenotypes come from the phenotype mapping data so, unlike the query phenotypes, are indexed
+        int[] columnTermIndexes = PhenotypeTermIndex.indexTerms(Arrays.asList(columnPhenotypeIds));
+        this.minColumnTermIndex = Arrays.stream(columnTermIndexes).min().orElse(0);
+        this.columnsByTermIndex = indexColumns(columnTermIndexes, minColumnTermIndex);
+        this.matchTable = new PhenotypeMatch[matchedQueryPhenotypeIds.size()][columnPhenotypeIds.length];
+        this.scoreTable = new double[matchedQueryPhenotypeIds.size()][columnPhenotypeIds.length];
+        this.rowMaxScores = new double[matchedQueryPhenotypeIds.size()];
+        this.columnMaxScores = new double[columnPhenotypeIds.length];
+        populateMatchTables();
+    }
+
+    private static int[] indexColumns(int[] columnTermIndexes, int minColumnTermIndex) {
+        int maxTermIndex = Arrays.stream(columnTermIndexes).max().orElse(minColumnTermIndex - 1);
+        int[] columnsByTermIndex = new int[maxTermIndex - minColumnTermIndex + 1];
+        Arrays.fill(columnsByTermIndex, -1);
+        for (int column = 0; column < columnTermIndexes.length; column++) {
+            columnsByTermIndex[columnTermIndexes[column] - minColumnTermIndex] = column;
+        }
+        return columnsByTermIndex;
+    }
+
+    private void populateMatchTables() {
+        Map<String, Integer> rowsByQueryId = new HashMap<>();
+        for (String queryId : matchedQueryPhenotypeIds) {
+            rowsByQueryId.put(queryId, rowsByQueryId.size());
+        }
+        for (Set<PhenotypeMatch> matches : termPhenotypeMatches.values()) {
+            for (PhenotypeMatch match : matches) {
+                int row = rowsByQueryId.get(match.getQueryPhenotypeId());
+                int column = columnOf(PhenotypeTermIndex.indexOf(match.getMatchPhenotypeId()));
+                matchTable[row][column] = match;
+                scoreTable[row][column] = match.getScore();
+                rowMaxScores[row] = Math.max(match.getScore(), rowMaxScores[row]);
+                columnMaxScores[column] = Math.max(match.getScore(), columnMaxScores[column]);
+            }
+        }
+    }
+
+    private int columnOf(int termIndex) {
+        //term indexes are never negative, so NOT_INDEXED always falls before the first column
+        int offset = termIndex - minColumnTermIndex;
+        if (offset < 0 || offset >= columnsByTermIndex.length) {
+            return -1;
+        }
+        return columnsByTermIndex[offset];
     }
 
     @Override
@@ -92,19 +145,6 @@ public Map<PhenotypeTerm, Set<PhenotypeMatch>> getTermPhenotypeMatches() {
         return termPhenotypeMatches;
     }
 
-    private Map<String, PhenotypeMatch> getCompoundKeyIndexedPhenotypeMatches() {
-        //'hpId + mpId' : phenotypeMatch
-        return termPhenotypeMatches.values().stream()
-                .flatMap(Collection::stream)
-                .collect(collectingAndThen(
-                        toMap(makeKey(), Function.identity()),
-                        Collections::unmodifiableMap));
-    }
-
-    private Function<PhenotypeMatch, String> makeKey() {
-        return match -> String.join("", match.getQueryPhenotypeId() + match.getMatchPhenotypeId());
-    }
-
     /**
      * Calculates the best forward and reverse matches for a given set of model phenotypes against the sub-graph of matches
      * for the query phenotypes against this organism. The best forward and reverse matches are not necessarily the same.
@@ -113,30 +153,31 @@ private Function<PhenotypeMatch, String> makeKey() {
      */
     @Override
     public PhenodigmMatchRawScore matchPhenotypeIds(List<String> modelPhenotypes) {
-        List<String> matchedModelPhenotypeIds = getMatchingPhenotypes(modelPhenotypes);
+        return matchPhenotypeIndexes(PhenotypeTermIndex.indexesOf(modelPhenotypes));
+    }
 
-        //hpId
-        Set<String> hpIdsWithPhenotypeMatch = new TreeSet<>();
-        for (PhenotypeMatch match : getBestPhenotypeMatches()) {
-            hpIdsWithPhenotypeMatch.add(match.getQueryPhenotypeId());
-        }
+    @Override
+    public PhenodigmMatchRawScore matchPhenotypeIndexes(int[] modelPhenotypes) {
+        int[] matchedModelColumns = getMatchingColumns(modelPhenotypes);
 
         double maxModelMatchScore = 0;
         double sumModelBestMatchScores = 0;
 
-        final Map<PhenotypeTerm, PhenotypeMatch> bestPhenotypeMatchForTerms = new LinkedHashMap<>();
-        for (String hpId : hpIdsWithPhenotypeMatch) {
+        //best match for each query row, in order of insertion
+        PhenotypeMatch[] bestPhenotypeMatchForRows = new PhenotypeMatch[matchTable.length];
+        int[] insertedRows = new int[matchTable.length];
+        int numInsertedRows = 0;
+
+        for (int row = 0; row < matchTable.length; row++) {
+            PhenotypeMatch[] rowMatches = matchTable[row];
+            double[] rowScores = scoreTable[row];
             double bestMatchScore = 0;
-            for (String mpId : matchedModelPhenotypeIds) {
-                String matchIds = hpId + mpId;
-                if (mappedTerms.containsKey(matchIds)) {
-                    PhenotypeMatch match = mappedTerms.get(matchIds);
-                    double matchScore = match.getScore();
-                    // identify best match
-                    bestMatchScore = Math.max(matchScore, bestMatchScore);
-                    if (matchScore > 0) {
-                        addMatchIfAbsentOrBetterThanCurrent(match, bestPhenotypeMatchForTerms);
-                    }
+            for (int column : matchedModelColumns) {
+                double matchScore = rowScores[column];
+                // identify best match
+                bestMatchScore = Math.max(matchScore, bestMatchScore);
+                if (matchScore > 0) {
+                    numInsertedRows = addMatchIfAbsentOrBetterThanCurrent(row, rowMatches[column], bestPhenotypeMatchForRows, insertedRows, numInsertedRows);
                 }
             }
             if (bestMatchScore > 0) {
@@ -145,18 +186,43 @@ public PhenodigmMatchRawScore matchPhenotypeIds(List<String> modelPhenotypes) {
             }
         }
         // Reciprocal hits
-        for (String mpId : matchedModelPhenotypeIds) {
+        for (int column : matchedModelColumns) {
+            double bestMatchScore = 0;
+            for (int row = 0; row < matchTable.length; row++) {
+                double matchScore = scoreTable[row][column];
+                // identify best match
+                bestMatchScore = Math.max(matchScore, bestMatchScore);
+                if (matchScore > 0) {
+                    numInsertedRows = addMatchIfAbsentOrBetterThanCurrent(row, matchTable[row][column], bestPhenotypeMatchForRows, insertedRows, numInsertedRows);
+                }
+            }
+            if (bestMatchScore > 0) {
+                sumModelBestMatchScores += bestMatchScore;
+                maxModelMatchScore = Math.max(bestMatchScore, maxModelMatchScore);
+            }
+        }
+
+        ImmutableList.Builder<PhenotypeMatch> bestPhenotypeMatches = ImmutableList.builder();
+        for (int i = 0; i < numInsertedRows; i++) {
+            bestPhenotypeMatches.add(bestPhenotypeMatchForRows[insertedRows[i]]);
+        }
+        return new PhenodigmMatchRawScore(maxModelMatchScore, sumModelBestMatchScores, getColumnPhenotypeIds(matchedModelColumns), bestPhenotypeMatches
+                .build());
+    }
+
+    @Override
+    public double scorePhenotypeIndexes(int[] modelPhenotypes, RawScoreFunction scoreFunction) {
+        //n.b. this must visit the matches in the same order as matchPhenotypeIndexes so that the sums are identical
+        double maxModelMatchScore = 0;
+        double sumModelBestMatchScores = 0;
+        int numMatchingPhenotypes = 0;
+
+        for (double[] rowScores : scoreTable) {
             double bestMatchScore = 0;
-            for (String hpId : hpIdsWithPhenotypeMatch) {
-                String matchIds = hpId + mpId;
-                if (mappedTerms.containsKey(matchIds)) {
-                    PhenotypeMatch match = mappedTerms.get(matchIds);
-                    double matchScore = match.getScore();
-                    // identify best match
-                    bestMatchScore = Math.max(matchScore, bestMatchScore);
-                    if (matchScore > 0) {
-                        addMatchIfAbsentOrBetterThanCurrent(match, bestPhenotypeMatchForTerms);
-                    }
+            for (int modelPhenotype : modelPhenotypes) {
+                int column = columnOf(modelPhenotype);
+                if (column >= 0) {
+                    bestMatchScore = Math.max(rowScores[column], bestMatchScore);
                 }
             }
             if (bestMatchScore > 0) {
@@ -164,26 +230,93 @@ public PhenodigmMatchRawScore matchPhenotypeIds(List<String> modelPhenotypes) {
                 maxModelMatchScore = Math.max(bestMatchScore, maxModelMatchScore);
             }
         }
+        // Reciprocal hits
+        for (int modelPhenotype : modelPhenotypes) {
+            int column = columnOf(modelPhenotype);
+            if (column < 0) {
+                continue;
+            }
+            numMatchingPhenotypes++;
+            double bestMatchScore = 0;
+            for (double[] rowScores : scoreTable) {
+                bestMatchScore = Math.max(rowScores[column], bestMatchScore);
+            }
+            if (bestMatchScore > 0) {
+                sumModelBestMatchScores += bestMatchScore;
+                maxModelMatchScore = Math.max(bestMatchScore, maxModelMatchScore);
+            }
+        }
+        return scoreFunction.apply(maxModelMatchScore, sumModelBestMatchScores, numMatchingPhenotypes);
+    }
 
-        return new PhenodigmMatchRawScore(maxModelMatchScore, sumModelBestMatchScores, matchedModelPhenotypeIds, ImmutableList
-                .copyOf(bestPhenotypeMatchForTerms.values()));
+    @Override
+    public double scorePhenotypeIndexesUpperBound(int[] modelPhenotypes, RawScoreFunction scoreFunction) {
+        //The reciprocal hits only depend on the best score in each matching column so these, and the overall maximum,
+        //are exact. The forward hit for each row cannot be better than the best score in the row or the best score for
+        //the model. The sums are made in the same order as scorePhenotypeIndexes so the bound is never less than the
+        //score even after rounding.
+        double maxModelMatchScore = 0;
+        for (int modelPhenotype : modelPhenotypes) {
+            int column = columnOf(modelPhenotype);
+            if (column >= 0) {
+                maxModelMatchScore = Math.max(columnMaxScores[column], maxModelMatchScore);
+            }
+        }
+        double sumModelBestMatchScores = 0;
+        for (double rowMaxScore : rowMaxScores) {
+            double bestMatchScore = Math.min(rowMaxScore, maxModelMatchScore);
+            if (bestMatchScore > 0) {
+                sumModelBestMatchScores += bestMatchScore;
+            }
+        }
+        int numMatchingPhenotypes = 0;
+        for (int modelPhenotype : modelPhenotypes) {
+            int column = columnOf(modelPhenotype);
+            if (column >= 0) {
+                numMatchingPhenotypes++;
+                if (columnMaxScores[column] > 0) {
+                    sumModelBestMatchScores += columnMaxScores[column];
+                }
+            }
+        }
+        return scoreFunction.apply(maxModelMatchScore, sumModelBestMatchScores, numMatchingPhenotypes);
     }
 
-    private void addMatchIfAbsentOrBetterThanCurrent(PhenotypeMatch match, Map<PhenotypeTerm, PhenotypeMatch> bestPhenotypeMatchForTerms) {
-        PhenotypeTerm matchQueryTerm = match.getQueryPhenotype();
-        if (!bestPhenotypeMatchForTerms.containsKey(matchQueryTerm) || bestPhenotypeMatchForTerms.get(matchQueryTerm).getScore() < match.getScore()) {
-            bestPhenotypeMatchForTerms.put(matchQueryTerm, match);
+    private int addMatchIfAbsentOrBetterThanCurrent(int row, PhenotypeMatch match, PhenotypeMatch[] bestPhenotypeMatchForRows, int[] insertedRows, int numInsertedRows) {
+        PhenotypeMatch current = bestPhenotypeMatchForRows[row];
+        if (current == null) {
+            bestPhenotypeMatchForRows[row] = match;
+            insertedRows[numInsertedRows] = row;
+            return numInsertedRows + 1;
+        }
+        if (current.getScore() < match.getScore()) {
+            bestPhenotypeMatchForRows[row] = match;
         }
+        return numInsertedRows;
     }
 
-    private List<String> getMatchingPhenotypes(List<String> phenotypeIds) {
-        ImmutableList.Builder<String> matchedPhenotypes = ImmutableList.builder();
-        for (String phenotypeId : phenotypeIds) {
-            if (matchedOrganismPhenotypeIds.contains(phenotypeId)) {
-                matchedPhenotypes.add(phenotypeId);
+    /**
+     * Maps the model phenotypes onto columns of the match table, dropping those with no match. Duplicated phenotypes
+     * are retained.
+     */
+    private int[] getMatchingColumns(int[] phenotypeIndexes) {
+        int[] columns = new int[phenotypeIndexes.length];
+        int numColumns = 0;
+        for (int phenotypeIndex : phenotypeIndexes) {
+            int column = columnOf(phenotypeIndex);
+            if (column >= 0) {
+                columns[numColumns++] = column;
             }
         }
-        return matchedPhenotypes.build();
+        return numColumns == columns.length ? columns : Arrays.copyOf(columns, numColumns);
+    }
+
+    private List<String> getColumnPhenotypeIds(int[] columns) {
+        ImmutableList.Builder<String> phenotypeIds = ImmutableList.builder();
+        for (int column : columns) {
+            phenotypeIds.add(columnPhenotypeIds[column]);
+        }
+        return phenotypeIds.build();
     }
 
     /**
@@ -192,37 +325,39 @@ private List<String> getMatchingPhenotypes(List<String> phenotypeIds) {
      * @return
      */
      List<PhenotypeMatch> calculateBestForwardAndReciprocalMatches(List<String> modelPhenotypes) {
-        List<String> matchedModelPhenotypeIds = modelPhenotypes.stream()
-                .filter(matchedOrganismPhenotypeIds::contains)
-                .collect(toList());
-
-        //loop - 191, 206, 211, 293, 260, 221, 229, 247, 203, 204. (226 ms)
-        //stream - 1208, 773, 1231, 799, 655, 566, 467, 1037, 792, 722. (825 ms)
-        //This takes ~0.7 secs compared to ~0.2 secs using the original loop implementation, although it is now returning
-        //the values. Can it be made faster? Do we care?
-        List<PhenotypeMatch> forwardMatches = matchedQueryPhenotypeIds.stream()
-                .map(hp -> matchedModelPhenotypeIds.stream()
-                        .map(mp -> String.join("", hp, mp))
-                        .map(mappedTerms::get)
-                        .filter(Objects::nonNull)
-                        .max(comparingDouble(PhenotypeMatch::getScore)))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(toList());
+        int[] matchedModelColumns = getMatchingColumns(PhenotypeTermIndex.indexesOf(modelPhenotypes));
 
-        //CAUTION!!! This looks very similar to the forward match statement but there are several important differences...
-        List<PhenotypeMatch> reciprocalMatches = matchedModelPhenotypeIds.stream()
-                .map(mp -> matchedQueryPhenotypeIds.stream()
-                        .map(hp -> String.join("", hp, mp))
-                        .map(mappedTerms::get)
-                        .filter(Objects::nonNull)
-                        .max(comparingDouble(PhenotypeMatch::getScore)))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(toList());
+        ImmutableList.Builder<PhenotypeMatch> bestMatches = ImmutableList.builder();
+        for (PhenotypeMatch[] rowMatches : matchTable) {
+            PhenotypeMatch bestMatch = null;
+            for (int column : matchedModelColumns) {
+                bestMatch = bestOf(bestMatch, rowMatches[column]);
+            }
+            if (bestMatch != null) {
+                bestMatches.add(bestMatch);
+            }
+        }
+        //CAUTION!!! This looks very similar to the forward match loop but the reciprocal matches iterate the model columns first
+        for (int column : matchedModelColumns) {
+            PhenotypeMatch bestMatch = null;
+            for (PhenotypeMatch[] rowMatches : matchTable) {
+                bestMatch = bestOf(bestMatch, rowMatches[column]);
+            }
+            if (bestMatch != null) {
+                bestMatches.add(bestMatch);
+            }
+        }
+        return bestMatches.build();
+    }
 
-         return Stream.concat(forwardMatches.stream(), reciprocalMatches.stream())
-                 .collect(ImmutableList.toImmutableList());
+    private static PhenotypeMatch bestOf(PhenotypeMatch currentBest, PhenotypeMatch match) {
+        if (match == null) {
+            return currentBest;
+        }
+        if (currentBest == null || match.getScore() > currentBest.getScore()) {
+            return match;
+        }
+        return currentBest;
     }
 
     /**
@@ -41,4 +41,15 @@ public interface Model {
     
     List<String> getPhenotypeIds();
 
+    /**
+     * Returns the phenotype ids of this model encoded using the {@link PhenotypeTermIndex}. Implementations which are
+     * scored repeatedly should encode their phenotypes once and return the cached array. Callers must not modify the
+     * returned array.
+     *
+     * @return the phenotype ids encoded as integers in the same order as {@link #getPhenotypeIds()}
+     */
+    default int[] getPhenotypeIndexes() {
+        return PhenotypeTermIndex.indexTerms(getPhenotypeIds());
+    }
+
 }
@@ -0,0 +1,203 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.phenotype;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.nio.IntBuffer;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Index of a list of models by their distinct phenotype profiles. Many models have exactly the same phenotype
+ * annotations, for example where a mouse model is mapped to several human orthologs or where several alleles of the same
+ * gene share an annotation set, so the models are collapsed onto their distinct profiles when the index is created.
+ * Each profile need only be scored once per query with the score fanned back out to all the models sharing it.
+ * <p>
+ * Two models share a profile when their {@link Model#getPhenotypeIndexes()} are identical, including the order of the
+ * terms. This guarantees that the profile score is exactly the same as scoring each model individually.
+ * <p>
+ * The models can also be indexed by an integer key, such as the Entrez gene id of a {@code GeneModel}, so that only
+ * the models for the keys of interest need be visited when scoring.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 8.0.0
+ */
+public final class ModelProfileIndex<T extends Model> {
+
+    private final List<T> models;
+    private final int[] profileIndexes;
+    private final int[][] profiles;
+    private final Map<Integer, int[]> modelIndexesByKey;
+
+    private ModelProfileIndex(List<T> models, int[] profileIndexes, int[][] profiles, Map<Integer, int[]> modelIndexesByKey) {
+        this.models = models;
+        this.profileIndexes = profileIndexes;
+        this.profiles = profiles;
+        this.modelIndexesByKey = modelIndexesByKey;
+    }
+
+    /**
+     * Creates an index of the models without any keys.
+     */
+    public static <T extends Model> ModelProfileIndex<T> of(List<T> models) {
+        return of(models, null);
+    }
+
+    /**
+     * @param models    the models to index
+     * @param keyMapper returns the key of a model, e.g. {@code GeneModel::getEntrezGeneId}. If null the models have no
+     *                  keys.
+     */
+    public static <T extends Model> ModelProfileIndex<T> of(List<T> models, ToIntFunction<? super T> keyMapper) {
+        List<T> indexedModels = ImmutableList.copyOf(models);
+        int[] profileIndexes = new int[indexedModels.size()];
+        //IntBuffer provides value-based equals and hashCode for the wrapped arrays
+        Map<IntBuffer, Integer> profileIndexesByProfile = new HashMap<>();
+        for (int i = 0; i < profileIndexes.length; i++) {
+            IntBuffer profile = IntBuffer.wrap(indexedModels.get(i).getPhenotypeIndexes());
+            profileIndexes[i] = profileIndexesByProfile.computeIfAbsent(profile, key -> profileIndexesByProfile.size());
+        }
+        int[][] profiles = new int[profileIndexesByProfile.size()][];
+        profileIndexesByProfile.forEach((profile, index) -> profiles[index] = profile.array());
+        return new ModelProfileIndex<>(indexedModels, profileIndexes, profiles, indexModelsByKey(indexedModels, keyMapper));
+    }
+
+    private static <T extends Model> Map<Integer, int[]> indexModelsByKey(List<T> models, ToIntFunction<? super T> keyMapper) {
+        if (keyMapper == null) {
+            return ImmutableMap.of();
+        }
+        Map<Integer, List<Integer>> modelIndexLists = new LinkedHashMap<>();
+        for (int i = 0; i < models.size(); i++) {
+            modelIndexLists.computeIfAbsent(keyMapper.applyAsInt(models.get(i)), key -> new ArrayList<>()).add(i);
+        }
+        ImmutableMap.Builder<Integer, int[]> modelIndexesByKey = ImmutableMap.builder();
+        modelIndexLists.forEach((key, modelIndexes) -> modelIndexesByKey.put(key, modelIndexes.stream().mapToInt(Integer::intValue).toArray()));
+        return modelIndexesByKey.build();
+    }
+
+    public List<T> getModels() {
+        return models;
+    }
+
+    public int size() {
+        return models.size();
+    }
+
+    public int numProfiles() {
+        return profiles.length;
+    }
+
+    /**
+     * @return the number of distinct keys of the indexed models
+     */
+    public int numKeys() {
+        return modelIndexesByKey.size();
+    }
+
+    /**
+     * @param keys the keys of the models wanted
+     * @return the indexes, in ascending order, in {@link #getModels()} of all the models with any of the keys
+     */
+    public int[] getModelIndexesForKeys(Collection<Integer> keys) {
+        return keys.stream()
+                .map(modelIndexesByKey::get)
+                .filter(Objects::nonNull)
+                .flatMapToInt(IntStream::of)
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+    /**
+     * @param modelIndex index of the model in {@link #getModels()}
+     * @return the index of the profile shared by this model
+     */
+    public int getProfileIndex(int modelIndex) {
+        return profileIndexes[modelIndex];
+    }
+
+    /**
+     * @param profileIndex index of the profile
+     * @return the phenotypes of the profile encoded using the {@link PhenotypeTermIndex}. Callers must not modify the
+     * returned array.
+     */
+    public int[] getProfile(int profileIndex) {
+        return profiles[profileIndex];
+    }
+
+    /**
+     * Scores the models selected by the modelFilter. Each distinct profile used by the selected models is scored once,
+     * in parallel, and the score copied to every selected model with that profile.
+     *
+     * @param modelFilter    selects the models to be scored
+     * @param profileScorer  scores the encoded phenotypes of a profile, e.g.
+     *                       {@link PhenodigmModelScorer#calculatePhenotypeIndexesScore(int[])}
+     * @return an array of scores in the same order as {@link #getModels()}. Models not selected have a score of 0.
+     */
+    public double[] scoreModels(Predicate<? super T> modelFilter, ToDoubleFunction<int[]> profileScorer) {
+        return scoreModels(IntStream.range(0, models.size()).toArray(), modelFilter, profileScorer);
+    }
+
+    /**
+     * Scores the models with the given indexes which are selected by the modelFilter. Only these models are visited.
+     *
+     * @param modelIndexes   indexes in {@link #getModels()} of the models to consider, e.g. from
+     *                       {@link #getModelIndexesForKeys(Collection)}
+     * @param modelFilter    selects the models to be scored
+     * @param profileScorer  scores the encoded phenotypes of a profile
+     * @return an array of scores in the same order as the modelIndexes. Models not selected have a score of 0.
+     */
+    public double[] scoreModels(int[] modelIndexes, Predicate<? super T> modelFilter, ToDoubleFunction<int[]> profileScorer) {
+        boolean[] selectedModels = new boolean[modelIndexes.length];
+        BitSet profilesToScore = new BitSet(profiles.length);
+        for (int i = 0; i < selectedModels.length; i++) {
+            if (modelFilter.test(models.get(modelIndexes[i]))) {
+                selectedModels[i] = true;
+                profilesToScore.set(profileIndexes[modelIndexes[i]]);
+            }
+        }
+
+        double[] profileScores = new double[profiles.length];
+        profilesToScore.stream().parallel().forEach(profile -> profileScores[profile] = profileScorer.applyAsDouble(profiles[profile]));
+
+        double[] modelScores = new double[modelIndexes.length];
+        for (int i = 0; i < modelScores.length; i++) {
+            if (selectedModels[i]) {
+                modelScores[i] = profileScores[profileIndexes[modelIndexes[i]]];
+            }
+        }
+        return modelScores;
+    }
+
+    @Override
+    public String toString() {
+        return "ModelProfileIndex{" +
+                "models=" + models.size() +
+                ", profiles=" + profiles.length +
+                ", keys=" + modelIndexesByKey.size() +
+                '}';
+    }
+}
@@ -24,9 +24,11 @@
 import org.slf4j.LoggerFactory;
 
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 /**
  * Class implementing the Phenodigm (PHENOtype comparisons for DIsease Genes and Models) algorithm for scoring the
@@ -46,6 +48,8 @@ public class PhenodigmModelScorer implements ModelScorer {
     private final PhenotypeMatcher organismPhenotypeMatcher;
     private final int numQueryPhenotypes;
 
+    private final PhenotypeMatcher.RawScoreFunction combinedScoreFunction = this::calculateCombinedScore;
+
     /**
      * Use this constructor when running a single (HP-HP) or single cross-species (e.g. HP-MP) comparisons.
      * For multi cross-species comparisons use the constructor which requires the {@link QueryPhenotypeMatch} against which
@@ -131,15 +135,74 @@ private void logOrganismPhenotypeMatches() {
 
     @Override
     public ModelPhenotypeMatch scoreModel(Model model) {
-        PhenodigmMatchRawScore rawModelScore = organismPhenotypeMatcher.matchPhenotypeIds(model.getPhenotypeIds());
+        PhenodigmMatchRawScore rawModelScore = organismPhenotypeMatcher.matchPhenotypeIndexes(model.getPhenotypeIndexes());
         double score = calculateCombinedScore(rawModelScore);
         return ModelPhenotypeMatch.of(score, model, rawModelScore.getBestPhenotypeMatches());
     }
 
+    /**
+     * Calculates only the score of the model, without collecting the best {@link PhenotypeMatch} for each phenotype.
+     * This will return the same value as {@code scoreModel(model).getScore()}.
+     *
+     * @param model the model to score
+     * @return the Phenodigm score of the model
+     */
+    public double calculateModelScore(Model model) {
+        return calculatePhenotypeIndexesScore(model.getPhenotypeIndexes());
+    }
+
+    /**
+     * Calculates the score of a phenotype profile encoded using the {@link PhenotypeTermIndex}. This allows models with
+     * identical profiles to be scored once, for example by a {@link ModelProfileIndex}.
+     *
+     * @param phenotypeIndexes the encoded phenotypes of a model
+     * @return the Phenodigm score of the phenotype profile
+     */
+    public double calculatePhenotypeIndexesScore(int[] phenotypeIndexes) {
+        return organismPhenotypeMatcher.scorePhenotypeIndexes(phenotypeIndexes, combinedScoreFunction);
+    }
+
+    /**
+     * Batch version of {@link #calculateModelScore(Model)}. Only the scores are calculated, in parallel, so that callers
+     * can select the models they are interested in and then call {@link #scoreModel(Model)} for those alone to get the
+     * full {@link ModelPhenotypeMatch}.
+     *
+     * @param models the models to score
+     * @return an array of scores in the same order as the input models
+     */
+    public double[] calculateModelScores(List<? extends Model> models) {
+        double[] scores = new double[models.size()];
+        IntStream.range(0, scores.length).parallel().forEach(i -> scores[i] = calculateModelScore(models.get(i)));
+        return scores;
+    }
+
+    /**
+     * Calculates an upper bound on the score of a phenotype profile. This is much cheaper than calculating the actual
+     * score as it is proportional to the number of phenotypes in the query and profile, rather than their product, and
+     * is never less than {@link #calculatePhenotypeIndexesScore(int[])}.
+     *
+     * @param phenotypeIndexes the encoded phenotypes of a model
+     * @return an upper bound on the Phenodigm score of the phenotype profile
+     */
+    public double calculatePhenotypeIndexesScoreUpperBound(int[] phenotypeIndexes) {
+        return organismPhenotypeMatcher.scorePhenotypeIndexesUpperBound(phenotypeIndexes, combinedScoreFunction);
+    }
+
     private double calculateCombinedScore(PhenodigmMatchRawScore rawModelScore) {
         double maxModelMatchScore = rawModelScore.getMaxModelMatchScore();
         double sumModelBestMatchScores = rawModelScore.getSumModelBestMatchScores();
         int numMatchingPhenotypesForModel = rawModelScore.getMatchingPhenotypes().size();
+        return calculateCombinedScore(maxModelMatchScore, sumModelBestMatchScores, numMatchingPhenotypesForModel);
+    }
+
+    /**
+     * Calculates the Phenodigm score from the raw values of a model match. This can be used as the
+     * {@link PhenotypeMatcher.RawScoreFunction} to normalise raw values calculated elsewhere, for example those shared
+     * between scorers with different normalisations.
+     *
+     * @return the Phenodigm score of the model
+     */
+    public double calculateCombinedScore(double maxModelMatchScore, double sumModelBestMatchScores, int numMatchingPhenotypesForModel) {
 
         /*
          * hpIdsWithPhenotypeMatch.size() = no. of HPO disease annotations for human and the no. of annotations with an entry in hp_*_mappings table for other species
@@ -20,11 +20,16 @@
 
 package org.monarchinitiative.exomiser.core.phenotype;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.monarchinitiative.exomiser.core.analysis.AnalysisMetrics;
 import org.monarchinitiative.exomiser.core.phenotype.service.OntologyService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -43,12 +48,46 @@ public class PhenotypeMatchService {
 
     Logger logger = LoggerFactory.getLogger(PhenotypeMatchService.class);
 
+    /**
+     * Maximum total number of PhenotypeMatch held in the term match cache. Common HPO terms have a few thousand HP-HP
+     * matches so this is enough for several thousand distinct terms across the three organisms.
+     */
+    static final long DEFAULT_MAX_CACHED_MATCHES = 5_000_000;
+
     private final OntologyService ontologyService;
+    private final AnalysisMetrics analysisMetrics;
+
+    private final Cache<TermMatchesKey, Set<PhenotypeMatch>> termMatchesCache;
 
-    @Autowired
     public PhenotypeMatchService(OntologyService ontologyService) {
+        this(ontologyService, new AnalysisMetrics());
+    }
+
+    public PhenotypeMatchService(OntologyService ontologyService, AnalysisMetrics analysisMetrics) {
+        this(ontologyService, analysisMetrics, DEFAULT_MAX_CACHED_MATCHES);
+    }
+
+    /**
+     * When the phenotype mapping tables are preloaded the DAOs already hold a complete in-memory copy of the matches, so
+     * the term match cache is disabled rather than holding the same matches twice. Otherwise it is the only cache of
+     * the matches - the {@code @Cacheable} caches of the {@link OntologyService} only hold the MP and ZP terms.
+     */
+    @Autowired
+    public PhenotypeMatchService(OntologyService ontologyService, AnalysisMetrics analysisMetrics, @Value("${exomiser.preload-phenotype-matches:false}") boolean phenotypeMatchesPreloaded) {
+        this(ontologyService, analysisMetrics, phenotypeMatchesPreloaded ? 0 : DEFAULT_MAX_CACHED_MATCHES);
+    }
+
+    PhenotypeMatchService(OntologyService ontologyService, AnalysisMetrics analysisMetrics, long maxCachedMatches) {
         Objects.requireNonNull(ontologyService, "ontologyService cannot be null");
+        Objects.requireNonNull(analysisMetrics, "analysisMetrics cannot be null");
         this.ontologyService = ontologyService;
+        this.analysisMetrics = analysisMetrics;
+        //weighted by the number of matches so that the cache is bounded by memory rather than the number of terms. A
+        //maximum of zero disables the cache.
+        this.termMatchesCache = CacheBuilder.newBuilder()
+                .maximumWeight(maxCachedMatches)
+                .weigher((TermMatchesKey key, Set<PhenotypeMatch> matches) -> matches.size() + 1)
+                .build();
     }
 
     public PhenotypeMatcher getHumanPhenotypeMatcherForTerms(List<PhenotypeTerm> hpoPhenotypeTerms) {
@@ -67,7 +106,7 @@ private PhenotypeMatcher getOrganismPhenotypeMatcherFromTerms(List<PhenotypeTerm
         logger.info("Fetching HUMAN-{} phenotype matches...", organism);
         Map<PhenotypeTerm, Set<PhenotypeMatch>> speciesPhenotypeMatches = new LinkedHashMap<>();
         for (PhenotypeTerm hpoTerm : queryHpoPhenotypes) {
-            Set<PhenotypeMatch> termMatches = getSpeciesMatchesForHpoTerm(hpoTerm, organism);
+            Set<PhenotypeMatch> termMatches = getCachedSpeciesMatchesForHpoTerm(hpoTerm, organism);
             speciesPhenotypeMatches.put(hpoTerm, termMatches);
         }
         return new CrossSpeciesPhenotypeMatcher(organism, ImmutableMap.copyOf(speciesPhenotypeMatches));
@@ -80,6 +119,23 @@ public List<PhenotypeTerm> makePhenotypeTermsFromHpoIds(List<String> hpoIds) {
                 .collect(toList());
     }
 
+    /**
+     * The matches for a term are the same for every query, so these are cached by organism and term to avoid
+     * re-querying the database for the same terms in subsequent analyses.
+     */
+    private Set<PhenotypeMatch> getCachedSpeciesMatchesForHpoTerm(PhenotypeTerm hpoTerm, Organism species) {
+        TermMatchesKey key = new TermMatchesKey(species, hpoTerm);
+        Set<PhenotypeMatch> cachedMatches = termMatchesCache.getIfPresent(key);
+        if (cachedMatches != null) {
+            analysisMetrics.incrementCounter(AnalysisMetrics.PHENOTYPE_MATCH_CACHE_HITS);
+            return cachedMatches;
+        }
+        analysisMetrics.incrementCounter(AnalysisMetrics.PHENOTYPE_MATCH_CACHE_MISSES);
+        Set<PhenotypeMatch> termMatches = ImmutableSet.copyOf(getSpeciesMatchesForHpoTerm(hpoTerm, species));
+        termMatchesCache.put(key, termMatches);
+        return termMatches;
+    }
+
     private Set<PhenotypeMatch> getSpeciesMatchesForHpoTerm(PhenotypeTerm hpoTerm, Organism species) {
         switch (species) {
             case HUMAN:
@@ -93,4 +149,28 @@ private Set<PhenotypeMatch> getSpeciesMatchesForHpoTerm(PhenotypeTerm hpoTerm, O
         }
     }
 
+    private static final class TermMatchesKey {
+
+        private final Organism organism;
+        private final PhenotypeTerm hpoTerm;
+
+        private TermMatchesKey(Organism organism, PhenotypeTerm hpoTerm) {
+            this.organism = organism;
+            this.hpoTerm = hpoTerm;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            TermMatchesKey that = (TermMatchesKey) o;
+            return organism == that.organism && Objects.equals(hpoTerm, that.hpoTerm);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(organism, hpoTerm);
+        }
+    }
+
 }
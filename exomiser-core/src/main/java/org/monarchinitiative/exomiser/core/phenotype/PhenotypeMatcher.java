@@ -31,6 +31,33 @@ public interface PhenotypeMatcher {
 
     PhenodigmMatchRawScore matchPhenotypeIds(List<String> phenotypeIds);
 
+    /**
+     * Matches phenotypes encoded using the {@link PhenotypeTermIndex}. This is equivalent to, but faster than,
+     * {@link #matchPhenotypeIds(List)}.
+     */
+    PhenodigmMatchRawScore matchPhenotypeIndexes(int[] phenotypeIndexes);
+
+    /**
+     * Allocation-free alternative to {@link #matchPhenotypeIndexes(int[])} for when only the score of a model is
+     * required. Rather than being wrapped in a {@link PhenodigmMatchRawScore} the raw values are passed to the
+     * scoreFunction and its result returned.
+     */
+    double scorePhenotypeIndexes(int[] phenotypeIndexes, RawScoreFunction scoreFunction);
+
+    /**
+     * Cheap alternative to {@link #scorePhenotypeIndexes(int[], RawScoreFunction)} which passes the scoreFunction values
+     * which are never less than the actual raw values for the model. Provided the scoreFunction increases with the
+     * maximum and summed match scores the result is an upper bound on the model score which can be used to skip
+     * models which cannot beat a known score.
+     */
+    double scorePhenotypeIndexesUpperBound(int[] phenotypeIndexes, RawScoreFunction scoreFunction);
+
+    @FunctionalInterface
+    interface RawScoreFunction {
+
+        double apply(double maxModelMatchScore, double sumModelBestMatchScores, int numMatchingPhenotypes);
+    }
+
     Organism getOrganism();
 
     List<PhenotypeTerm> getQueryTerms();
@@ -0,0 +1,95 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.phenotype;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JVM-wide dictionary of ontology term ids (e.g. HP:0000001, MP:0000001, ZP:0000001) to dense, non-negative integer
+ * indexes. Only the terms found in the Exomiser data are indexed - the phenotypes of the {@link Model}s, added as the
+ * models are loaded, the matched terms of the phenotype mappings, added as a {@link PhenotypeMatcher} is created, and
+ * the query terms of any phenotype mappings preloaded into memory.
+ * The index is therefore bounded by the size of the ontologies and never needs evicting. An id keeps its index for the
+ * lifetime of the JVM, so that the models and the {@link PhenotypeMatcher} created for each analysis agree on the
+ * encoding without any co-ordination.
+ * <p>
+ * User supplied ids, such as the query phenotypes of an analysis, are only ever looked-up and so do not grow the index.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 8.0.0
+ */
+public final class PhenotypeTermIndex {
+
+    public static final int NOT_INDEXED = -1;
+
+    private static final Map<String, Integer> TERM_INDEXES = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+
+    private PhenotypeTermIndex() {
+        //static utility class
+    }
+
+    /**
+     * Adds terms from the Exomiser data to the index. This must not be called with user supplied ids.
+     *
+     * @param termIds a list of ontology term ids from the model phenotypes or phenotype mappings
+     * @return the indexes of the terms in the same order as the input list, assigning new indexes to any not seen
+     * before.
+     */
+    public static int[] indexTerms(List<String> termIds) {
+        int[] indexes = new int[termIds.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = TERM_INDEXES.computeIfAbsent(termIds.get(i), id -> NEXT_INDEX.getAndIncrement());
+        }
+        return indexes;
+    }
+
+    /**
+     * @param termId an ontology term id
+     * @return the index of the term or {@link #NOT_INDEXED} if the term has not been indexed.
+     */
+    public static int indexOf(String termId) {
+        return TERM_INDEXES.getOrDefault(termId, NOT_INDEXED);
+    }
+
+    /**
+     * @param termIds a list of ontology term ids
+     * @return the indexes of the terms in the same order as the input list. Terms which have not been indexed are
+     * {@link #NOT_INDEXED}.
+     */
+    public static int[] indexesOf(List<String> termIds) {
+        int[] indexes = new int[termIds.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = indexOf(termIds.get(i));
+        }
+        return indexes;
+    }
+
+    /**
+     * @return the number of indexes assigned so far. All assigned indexes are less than this number.
+     */
+    public static int size() {
+        return NEXT_INDEX.get();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.phenotype;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable index of the terms of an ontology by their id. Obsolete ids which have been merged into another term
+ * (the alt_id of a term in the OBO file) are resolved to their current term.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public final class PhenotypeTermRegistry {
+
+    private static final PhenotypeTermRegistry EMPTY = new PhenotypeTermRegistry(ImmutableMap.of(), ImmutableMap.of());
+
+    private final Map<String, PhenotypeTerm> termsById;
+    private final Map<String, String> primaryIdsByAltId;
+    private final Set<PhenotypeTerm> terms;
+
+    private PhenotypeTermRegistry(Map<String, PhenotypeTerm> termsById, Map<String, String> primaryIdsByAltId) {
+        this.termsById = termsById;
+        this.primaryIdsByAltId = primaryIdsByAltId;
+        this.terms = ImmutableSet.copyOf(termsById.values());
+    }
+
+    public static PhenotypeTermRegistry empty() {
+        return EMPTY;
+    }
+
+    public static PhenotypeTermRegistry of(Collection<PhenotypeTerm> terms) {
+        return of(terms, ImmutableMap.of());
+    }
+
+    /**
+     * @param terms             the current terms of the ontology. If there are duplicate ids the first term is used.
+     * @param primaryIdsByAltId map of alternate id to the id of the current term.
+     */
+    public static PhenotypeTermRegistry of(Collection<PhenotypeTerm> terms, Map<String, String> primaryIdsByAltId) {
+        Map<String, PhenotypeTerm> termsById = new LinkedHashMap<>();
+        for (PhenotypeTerm term : terms) {
+            termsById.putIfAbsent(term.getId(), term);
+        }
+        return new PhenotypeTermRegistry(ImmutableMap.copyOf(termsById), ImmutableMap.copyOf(primaryIdsByAltId));
+    }
+
+    /**
+     * @param id a current or alternate term id.
+     * @return the current term for the id or null if the id is not recognised.
+     */
+    public PhenotypeTerm getTerm(String id) {
+        PhenotypeTerm term = termsById.get(id);
+        if (term == null) {
+            String primaryId = primaryIdsByAltId.get(id);
+            return primaryId == null ? null : termsById.get(primaryId);
+        }
+        return term;
+    }
+
+    /**
+     * @param id a current or alternate term id.
+     * @return the current id for the input id or null if the id is not recognised.
+     */
+    public String getPrimaryId(String id) {
+        PhenotypeTerm term = getTerm(id);
+        return term == null ? null : term.getId();
+    }
+
+    public boolean containsId(String id) {
+        return getTerm(id) != null;
+    }
+
+    /**
+     * @return the current terms, excluding alternate ids.
+     */
+    public Set<PhenotypeTerm> getTerms() {
+        return terms;
+    }
+
+    /**
+     * @return map of the current term ids to their label, e.g. for auto-completion of terms.
+     */
+    public Map<String, String> getTermLabelsById() {
+        ImmutableMap.Builder<String, String> termLabels = ImmutableMap.builder();
+        termsById.forEach((id, term) -> termLabels.put(id, term.getLabel()));
+        return termLabels.build();
+    }
+
+    public int size() {
+        return termsById.size();
+    }
+
+    @Override
+    public String toString() {
+        return "PhenotypeTermRegistry{" +
+                "terms=" + termsById.size() +
+                ", altIds=" + primaryIdsByAltId.size() +
+                '}';
+    }
+}
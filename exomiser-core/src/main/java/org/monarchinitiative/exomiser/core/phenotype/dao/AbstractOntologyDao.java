@@ -0,0 +1,113 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.phenotype.dao;
+
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeMatch;
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTerm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Base class for the {@link OntologyDao} of each organism. These only differ in the SQL used to query their HP to
+ * organism phenotype mappings table, so the subclasses supply the queries and this class provides the look-up of the
+ * matches for an HPO term, either from the database or the preloaded {@link PhenotypeMatchTable}.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public abstract class AbstractOntologyDao implements OntologyDao {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbstractOntologyDao.class);
+
+    final DataSource dataSource;
+
+    private final String mappingName;
+    private final String hpoTermMatchesQuery;
+    private final String allMatchesQuery;
+
+    private volatile PhenotypeMatchTable phenotypeMatchTable;
+
+    /**
+     * @param dataSource          the Exomiser database
+     * @param mappingName         name of the mapping used in log messages e.g. HP-MP
+     * @param hpoTermMatchesQuery query for the matches of a single HPO term, which is the only parameter
+     * @param allMatchesQuery     query for the entire mapping table, which must include the HPO term as query_id
+     */
+    AbstractOntologyDao(DataSource dataSource, String mappingName, String hpoTermMatchesQuery, String allMatchesQuery) {
+        this.dataSource = dataSource;
+        this.mappingName = mappingName;
+        this.hpoTermMatchesQuery = hpoTermMatchesQuery;
+        this.allMatchesQuery = allMatchesQuery;
+    }
+
+    @Override
+    public Set<PhenotypeMatch> getPhenotypeMatchesForHpoTerm(PhenotypeTerm hpoTerm) {
+        PhenotypeMatchTable preloadedMatches = phenotypeMatchTable;
+        if (preloadedMatches != null) {
+            return preloadedMatches.getPhenotypeMatchesForHpoTerm(hpoTerm);
+        }
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement ps = PreparedStatementSetter.prepareStatement(connection, hpoTermMatchesQuery, setter -> setter
+                        .setString(1, hpoTerm.getId()));
+                ResultSet rs = ps.executeQuery()) {
+
+            return OntologyDaoResultSetProcessor.processOntologyTermMatchResultSet(rs, hpoTerm);
+
+        } catch (SQLException e) {
+            logger.error("Unable to execute query '{}' for {} match terms", hpoTermMatchesQuery, mappingName, e);
+        }
+        return Collections.emptySet();
+    }
+
+    /**
+     * @throws PhenotypeMatchPreloadException if the mapping table could not be read. Unlike the look-up of a single
+     *                                        term this is not logged and ignored as preloading was explicitly requested.
+     */
+    @Override
+    public void preloadPhenotypeMatches() {
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement ps = connection.prepareStatement(allMatchesQuery);
+                ResultSet rs = ps.executeQuery()) {
+
+            phenotypeMatchTable = OntologyDaoResultSetProcessor.processOntologyTermMatchTableResultSet(rs);
+            logger.info("Loaded {} {} matches for {} HPO terms", phenotypeMatchTable.size(), mappingName, phenotypeMatchTable.numQueryTerms());
+
+        } catch (SQLException e) {
+            throw new PhenotypeMatchPreloadException("Unable to execute query '" + allMatchesQuery + "' for " + mappingName + " match terms", e);
+        }
+    }
+
+    public static class PhenotypeMatchPreloadException extends RuntimeException {
+
+        PhenotypeMatchPreloadException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -25,7 +25,6 @@
  */
 package org.monarchinitiative.exomiser.core.phenotype.dao;
 
-import org.monarchinitiative.exomiser.core.phenotype.PhenotypeMatch;
 import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTerm;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +37,8 @@
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -45,15 +46,16 @@
  * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
  */
 @Repository
-public class HumanPhenotypeOntologyDao implements OntologyDao {
+public class HumanPhenotypeOntologyDao extends AbstractOntologyDao {
 
     private static final Logger logger = LoggerFactory.getLogger(HumanPhenotypeOntologyDao.class);
 
-    private final DataSource dataSource;
+    private static final String HPO_TERM_MATCHES_QUERY = "SELECT simj, ic, score, hp_id_hit AS hit_id, hp_hit_term AS hit_term, lcs_id, lcs_term FROM hp_hp_mappings WHERE hp_id = ?";
+    private static final String ALL_MATCHES_QUERY = "SELECT hp_id AS query_id, simj, ic, score, hp_id_hit AS hit_id, hp_hit_term AS hit_term, lcs_id, lcs_term FROM hp_hp_mappings";
 
     @Autowired
     public HumanPhenotypeOntologyDao(DataSource dataSource) {
-        this.dataSource = dataSource;
+        super(dataSource, "HP-HP", HPO_TERM_MATCHES_QUERY, ALL_MATCHES_QUERY);
     }
 
     @Override
@@ -72,21 +74,27 @@ public Set<PhenotypeTerm> getAllTerms() {
         return Collections.emptySet();
     }
 
-    @Override
-    public Set<PhenotypeMatch> getPhenotypeMatchesForHpoTerm(PhenotypeTerm hpoTerm) {
-        String mappingQuery = "SELECT simj, ic, score, hp_id_hit AS hit_id, hp_hit_term AS hit_term, lcs_id, lcs_term FROM hp_hp_mappings WHERE hp_id = ?";
+    /**
+     * @return a map of alternate (obsolete) HPO ids to the id of the term which replaced them. Databases built before
+     * the hp_alt_ids table was added will return an empty map.
+     */
+    public Map<String, String> getAltTermIds() {
+        String query = "SELECT alt_id, primary_id FROM hp_alt_ids";
         try (
                 Connection connection = dataSource.getConnection();
-                PreparedStatement ps = PreparedStatementSetter.prepareStatement(connection, mappingQuery, setter -> setter
-                        .setString(1, hpoTerm.getId()));
-                ResultSet rs = ps.executeQuery()) {
+                PreparedStatement altIdsStatement = connection.prepareStatement(query);
+                ResultSet rs = altIdsStatement.executeQuery()) {
+
+            Map<String, String> altIds = new HashMap<>();
+            while (rs.next()) {
+                altIds.put(rs.getString("alt_id").trim(), rs.getString("primary_id").trim());
+            }
+            return altIds;
 
-            return OntologyDaoResultSetProcessor.processOntologyTermMatchResultSet(rs, hpoTerm);
-            
         } catch (SQLException e) {
-            logger.error("Unable to execute query '{}' for HP-HP match terms", mappingQuery, e);
+            logger.warn("Unable to execute query '{}' for HPO alt_ids - alternate HPO ids will not be recognised", query);
         }
-        return Collections.emptySet();
+        return Collections.emptyMap();
     }
 
 }
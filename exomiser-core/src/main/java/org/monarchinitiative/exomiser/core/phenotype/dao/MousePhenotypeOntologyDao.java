@@ -25,7 +25,6 @@
  */
 package org.monarchinitiative.exomiser.core.phenotype.dao;
 
-import org.monarchinitiative.exomiser.core.phenotype.PhenotypeMatch;
 import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTerm;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,15 +44,16 @@
  * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
  */
 @Repository
-public class MousePhenotypeOntologyDao implements OntologyDao {
+public class MousePhenotypeOntologyDao extends AbstractOntologyDao {
 
     private static final Logger logger = LoggerFactory.getLogger(MousePhenotypeOntologyDao.class);
 
-    private final DataSource dataSource;
+    private static final String HPO_TERM_MATCHES_QUERY = "SELECT simj, ic, score, mp_id AS hit_id, mp_term AS hit_term, lcs_id, lcs_term FROM hp_mp_mappings WHERE hp_id = ?";
+    private static final String ALL_MATCHES_QUERY = "SELECT hp_id AS query_id, simj, ic, score, mp_id AS hit_id, mp_term AS hit_term, lcs_id, lcs_term FROM hp_mp_mappings";
 
     @Autowired
     public MousePhenotypeOntologyDao(DataSource dataSource) {
-        this.dataSource = dataSource;
+        super(dataSource, "HP-MP", HPO_TERM_MATCHES_QUERY, ALL_MATCHES_QUERY);
     }
 
     @Override
@@ -72,22 +72,4 @@ public Set<PhenotypeTerm> getAllTerms() {
         return Collections.emptySet();
     }
 
-    @Override
-    public Set<PhenotypeMatch> getPhenotypeMatchesForHpoTerm(PhenotypeTerm hpoTerm) {
-        String mappingQuery = "SELECT simj, ic, score, mp_id AS hit_id, mp_term AS hit_term, lcs_id, lcs_term FROM hp_mp_mappings WHERE hp_id = ?";
-
-        try (
-                Connection connection = dataSource.getConnection();
-                PreparedStatement ps = PreparedStatementSetter.prepareStatement(connection, mappingQuery, setter -> setter
-                        .setString(1, hpoTerm.getId()));
-                ResultSet rs = ps.executeQuery()) {
-
-            return OntologyDaoResultSetProcessor.processOntologyTermMatchResultSet(rs, hpoTerm);
-            
-        } catch (SQLException e) {
-            logger.error("Unable to execute query '{}' for HP-MP match terms", mappingQuery, e);
-        }
-        return Collections.emptySet();
-    }
-
 }
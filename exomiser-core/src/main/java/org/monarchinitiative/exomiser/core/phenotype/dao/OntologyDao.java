@@ -39,4 +39,11 @@ public interface OntologyDao {
     Set<PhenotypeTerm> getAllTerms();
 
     Set<PhenotypeMatch> getPhenotypeMatchesForHpoTerm(PhenotypeTerm hpoTerm);
+
+    /**
+     * Loads the entire mapping table into memory so that subsequent calls to
+     * {@link #getPhenotypeMatchesForHpoTerm(PhenotypeTerm)} do not need to query the database. Implementations should
+     * throw an unchecked exception if the table cannot be loaded so that a misconfigured service fails fast.
+     */
+    void preloadPhenotypeMatches();
 }
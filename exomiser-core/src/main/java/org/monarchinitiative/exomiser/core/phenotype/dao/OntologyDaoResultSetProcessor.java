@@ -84,4 +84,20 @@ static Set<PhenotypeMatch> processOntologyTermMatchResultSet(ResultSet rs, Pheno
         return phenotypeMatches.build();
     }
 
+    static PhenotypeMatchTable processOntologyTermMatchTableResultSet(ResultSet rs) throws SQLException {
+        PhenotypeMatchTable.Builder phenotypeMatchTable = PhenotypeMatchTable.builder();
+        while (rs.next()) {
+            //hp_id AS query_id, simj, ic, score, hit_id, hit_term, lcs_id, lcs_term
+            String queryId = rs.getString("query_id");
+            PhenotypeTerm matchPhenotype = PhenotypeTerm.of(rs.getString("hit_id"), rs.getString("hit_term"));
+            PhenotypeTerm lcsPhenotype = PhenotypeTerm.of(rs.getString("lcs_id"), rs.getString("lcs_term"));
+
+            double ic = rs.getDouble("ic");
+            double simj = rs.getDouble("simj");
+            double score = rs.getDouble("score");
+            phenotypeMatchTable.add(queryId, matchPhenotype, lcsPhenotype, simj, ic, score);
+        }
+        return phenotypeMatchTable.build();
+    }
+
 }
@@ -0,0 +1,218 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.phenotype.dao;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeMatch;
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTerm;
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTermIndex;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact in-memory copy of one of the hp_*_mappings tables. The matches are stored in compressed sparse row (CSR)
+ * format - the matches for each query HPO term are held in a contiguous block of the primitive column arrays, and the
+ * block for a term is found using its {@link PhenotypeTermIndex}. The query terms of the table are added to the index
+ * when it is built, as these come from the Exomiser data, and are only looked-up when queried. The match and LCS terms
+ * are only stored once.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+final class PhenotypeMatchTable {
+
+    //rows of the query terms by their PhenotypeTermIndex, offset by the smallest of these so that the array only spans
+    //the indexes of this table's query terms
+    private final int minRowTermIndex;
+    private final int[] rowsByTermIndex;
+    private final int[] rowOffsets;
+
+    private final PhenotypeTerm[] terms;
+    private final int[] matchTerms;
+    private final int[] lcsTerms;
+    private final double[] simjs;
+    private final double[] ics;
+    private final double[] scores;
+
+    private PhenotypeMatchTable(int minRowTermIndex, int[] rowsByTermIndex, int[] rowOffsets, PhenotypeTerm[] terms, int[] matchTerms, int[] lcsTerms, double[] simjs, double[] ics, double[] scores) {
+        this.minRowTermIndex = minRowTermIndex;
+        this.rowsByTermIndex = rowsByTermIndex;
+        this.rowOffsets = rowOffsets;
+        this.terms = terms;
+        this.matchTerms = matchTerms;
+        this.lcsTerms = lcsTerms;
+        this.simjs = simjs;
+        this.ics = ics;
+        this.scores = scores;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the same set of matches as would be returned from the database for the query term.
+     */
+    Set<PhenotypeMatch> getPhenotypeMatchesForHpoTerm(PhenotypeTerm hpoTerm) {
+        int row = findRow(PhenotypeTermIndex.indexOf(hpoTerm.getId()));
+        if (row < 0) {
+            return ImmutableSet.of();
+        }
+        ImmutableSet.Builder<PhenotypeMatch> phenotypeMatches = ImmutableSet.builder();
+        for (int i = rowOffsets[row]; i < rowOffsets[row + 1]; i++) {
+            PhenotypeMatch match = PhenotypeMatch.builder()
+                    .query(hpoTerm)
+                    .match(terms[matchTerms[i]])
+                    .lcs(terms[lcsTerms[i]])
+                    .simj(simjs[i])
+                    .ic(ics[i])
+                    .score(scores[i])
+                    .build();
+            phenotypeMatches.add(match);
+        }
+        return phenotypeMatches.build();
+    }
+
+    private int findRow(int termIndex) {
+        int offset = termIndex - minRowTermIndex;
+        if (termIndex == PhenotypeTermIndex.NOT_INDEXED || offset < 0 || offset >= rowsByTermIndex.length) {
+            return -1;
+        }
+        return rowsByTermIndex[offset];
+    }
+
+    /**
+     * @return the total number of matches in the table.
+     */
+    int size() {
+        return scores.length;
+    }
+
+    /**
+     * @return the number of query terms with at least one match.
+     */
+    int numQueryTerms() {
+        return rowOffsets.length - 1;
+    }
+
+    /**
+     * Accumulates the rows of a mapping table in any order.
+     */
+    static class Builder {
+
+        private final Map<String, Integer> queryRows = new HashMap<>();
+        private final Map<String, Integer> termIndexes = new HashMap<>();
+        private final Map<Integer, PhenotypeTerm> termsByIndex = new HashMap<>();
+
+        private int size = 0;
+        private int[] rows = new int[1024];
+        private int[] matchTerms = new int[1024];
+        private int[] lcsTerms = new int[1024];
+        private double[] simjs = new double[1024];
+        private double[] ics = new double[1024];
+        private double[] scores = new double[1024];
+
+        private Builder() {
+        }
+
+        Builder add(String queryId, PhenotypeTerm matchTerm, PhenotypeTerm lcsTerm, double simj, double ic, double score) {
+            if (size == scores.length) {
+                grow();
+            }
+            rows[size] = queryRows.computeIfAbsent(queryId, id -> queryRows.size());
+            matchTerms[size] = termIndex(matchTerm);
+            lcsTerms[size] = termIndex(lcsTerm);
+            simjs[size] = simj;
+            ics[size] = ic;
+            scores[size] = score;
+            size++;
+            return this;
+        }
+
+        private int termIndex(PhenotypeTerm term) {
+            return termIndexes.computeIfAbsent(term.getId(), id -> {
+                int index = termIndexes.size();
+                termsByIndex.put(index, term);
+                return index;
+            });
+        }
+
+        private void grow() {
+            int capacity = scores.length * 2;
+            rows = Arrays.copyOf(rows, capacity);
+            matchTerms = Arrays.copyOf(matchTerms, capacity);
+            lcsTerms = Arrays.copyOf(lcsTerms, capacity);
+            simjs = Arrays.copyOf(simjs, capacity);
+            ics = Arrays.copyOf(ics, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+        }
+
+        PhenotypeMatchTable build() {
+            int numRows = queryRows.size();
+            //counting sort of the matches by query row, retaining the input order within each row
+            int[] rowOffsets = new int[numRows + 1];
+            for (int i = 0; i < size; i++) {
+                rowOffsets[rows[i] + 1]++;
+            }
+            for (int row = 0; row < numRows; row++) {
+                rowOffsets[row + 1] += rowOffsets[row];
+            }
+            int[] nextPositions = Arrays.copyOf(rowOffsets, numRows);
+            int[] sortedMatchTerms = new int[size];
+            int[] sortedLcsTerms = new int[size];
+            double[] sortedSimjs = new double[size];
+            double[] sortedIcs = new double[size];
+            double[] sortedScores = new double[size];
+            for (int i = 0; i < size; i++) {
+                int position = nextPositions[rows[i]]++;
+                sortedMatchTerms[position] = matchTerms[i];
+                sortedLcsTerms[position] = lcsTerms[i];
+                sortedSimjs[position] = simjs[i];
+                sortedIcs[position] = ics[i];
+                sortedScores[position] = scores[i];
+            }
+
+            String[] queryIds = new String[numRows];
+            queryRows.forEach((queryId, row) -> queryIds[row] = queryId);
+            int[] queryTermIndexes = PhenotypeTermIndex.indexTerms(ImmutableList.copyOf(queryIds));
+            int minRowTermIndex = Arrays.stream(queryTermIndexes).min().orElse(0);
+            int[] rowsByTermIndex = indexRows(queryTermIndexes, minRowTermIndex);
+
+            PhenotypeTerm[] terms = new PhenotypeTerm[termsByIndex.size()];
+            termsByIndex.forEach((index, term) -> terms[index] = term);
+
+            return new PhenotypeMatchTable(minRowTermIndex, rowsByTermIndex, rowOffsets, terms, sortedMatchTerms, sortedLcsTerms, sortedSimjs, sortedIcs, sortedScores);
+        }
+
+        private static int[] indexRows(int[] queryTermIndexes, int minRowTermIndex) {
+            int maxTermIndex = Arrays.stream(queryTermIndexes).max().orElse(minRowTermIndex - 1);
+            int[] rowsByTermIndex = new int[maxTermIndex - minRowTermIndex + 1];
+            Arrays.fill(rowsByTermIndex, -1);
+            for (int row = 0; row < queryTermIndexes.length; row++) {
+                rowsByTermIndex[queryTermIndexes[row] - minRowTermIndex] = row;
+            }
+            return rowsByTermIndex;
+        }
+    }
+}
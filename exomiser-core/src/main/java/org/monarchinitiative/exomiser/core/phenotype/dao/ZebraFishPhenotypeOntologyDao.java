@@ -25,7 +25,6 @@
  */
 package org.monarchinitiative.exomiser.core.phenotype.dao;
 
-import org.monarchinitiative.exomiser.core.phenotype.PhenotypeMatch;
 import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTerm;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,15 +44,16 @@
  * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
  */
 @Repository
-public class ZebraFishPhenotypeOntologyDao implements OntologyDao {
+public class ZebraFishPhenotypeOntologyDao extends AbstractOntologyDao {
 
     private static final Logger logger = LoggerFactory.getLogger(ZebraFishPhenotypeOntologyDao.class);
 
-    private final DataSource dataSource;
+    private static final String HPO_TERM_MATCHES_QUERY = "SELECT simj, ic, score, zp_id AS hit_id, zp_term AS hit_term, lcs_id, lcs_term FROM hp_zp_mappings WHERE hp_id = ?";
+    private static final String ALL_MATCHES_QUERY = "SELECT hp_id AS query_id, simj, ic, score, zp_id AS hit_id, zp_term AS hit_term, lcs_id, lcs_term FROM hp_zp_mappings";
 
     @Autowired
     public ZebraFishPhenotypeOntologyDao(DataSource dataSource) {
-        this.dataSource = dataSource;
+        super(dataSource, "HP-ZP", HPO_TERM_MATCHES_QUERY, ALL_MATCHES_QUERY);
     }
 
     @Override
@@ -72,21 +72,4 @@ public Set<PhenotypeTerm> getAllTerms() {
         return Collections.emptySet();
     }
 
-    @Override
-    public Set<PhenotypeMatch> getPhenotypeMatchesForHpoTerm(PhenotypeTerm hpoTerm) {
-        String mappingQuery = "SELECT simj, ic, score, zp_id AS hit_id, zp_term AS hit_term, lcs_id, lcs_term FROM hp_zp_mappings WHERE hp_id = ?";
-        try (
-                Connection connection = dataSource.getConnection();
-                PreparedStatement ps = PreparedStatementSetter.prepareStatement(connection, mappingQuery, setter -> setter
-                        .setString(1, hpoTerm.getId()));
-                ResultSet rs = ps.executeQuery()) {
-
-            return OntologyDaoResultSetProcessor.processOntologyTermMatchResultSet(rs, hpoTerm);
-            
-        } catch (SQLException e) {
-            logger.error("Unable to execute query '{}' for HP-ZP match terms", mappingQuery, e);
-        }
-        return Collections.emptySet();
-    }
-
 }
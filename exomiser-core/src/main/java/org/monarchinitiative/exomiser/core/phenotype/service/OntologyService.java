@@ -27,6 +27,7 @@
 
 import org.monarchinitiative.exomiser.core.phenotype.PhenotypeMatch;
 import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTerm;
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTermRegistry;
 
 import java.util.Set;
 
@@ -51,4 +52,9 @@ public interface OntologyService {
     Set<PhenotypeMatch> getZpoMatchesForHpoTerm(PhenotypeTerm hpoTerm);
 
     PhenotypeTerm getPhenotypeTermForHpoId(String hpoId);
+
+    /**
+     * @return an index of the current HPO terms by id, including alternate ids.
+     */
+    PhenotypeTermRegistry getHpoTermRegistry();
 }
@@ -27,9 +27,12 @@
 
 import org.monarchinitiative.exomiser.core.phenotype.PhenotypeMatch;
 import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTerm;
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTermRegistry;
 import org.monarchinitiative.exomiser.core.phenotype.dao.HumanPhenotypeOntologyDao;
 import org.monarchinitiative.exomiser.core.phenotype.dao.MousePhenotypeOntologyDao;
 import org.monarchinitiative.exomiser.core.phenotype.dao.ZebraFishPhenotypeOntologyDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
@@ -45,10 +48,14 @@
 @Service
 public class OntologyServiceImpl implements OntologyService {
 
+    private static final Logger logger = LoggerFactory.getLogger(OntologyServiceImpl.class);
+
     private final HumanPhenotypeOntologyDao hpoDao;
     private final MousePhenotypeOntologyDao mpoDao;
     private final ZebraFishPhenotypeOntologyDao zpoDao;
 
+    private volatile PhenotypeTermRegistry hpoTermRegistry;
+
     @Autowired
     public OntologyServiceImpl(HumanPhenotypeOntologyDao hpoDao, MousePhenotypeOntologyDao mpoDao, ZebraFishPhenotypeOntologyDao zpoDao) {
         this.hpoDao = hpoDao;
@@ -56,10 +63,9 @@ public OntologyServiceImpl(HumanPhenotypeOntologyDao hpoDao, MousePhenotypeOntol
         this.zpoDao = zpoDao;
     }
 
-    @Cacheable(value = "hpo")
     @Override
     public Set<PhenotypeTerm> getHpoTerms() {
-        return hpoDao.getAllTerms();
+        return getHpoTermRegistry().getTerms();
     }
 
     @Cacheable(value = "mpo")
@@ -91,19 +97,38 @@ public Set<PhenotypeMatch> getZpoMatchesForHpoTerm(PhenotypeTerm hpoTerm) {
 
     /**
      * Returns the matching HPO PhenotypeTerm for a given HPO id or null if the
-     * term cannot be found.
+     * term cannot be found. Alternate ids will return the current term.
      *
      * @param hpoId
      * @return
      */
     @Override
     public PhenotypeTerm getPhenotypeTermForHpoId(String hpoId) {
-        for (PhenotypeTerm hpoTerm : getHpoTerms()) {
-            if (hpoTerm.getId().equals(hpoId)) {
-                return hpoTerm;
+        return getHpoTermRegistry().getTerm(hpoId);
+    }
+
+    /**
+     * The HPO terms are loaded from the database once, on first use. The HPO DAO returns no terms when the hpo table
+     * cannot be read, so an empty registry is not stored and the terms are loaded again on the next call.
+     */
+    @Override
+    public PhenotypeTermRegistry getHpoTermRegistry() {
+        PhenotypeTermRegistry registry = hpoTermRegistry;
+        if (registry == null) {
+            synchronized (this) {
+                registry = hpoTermRegistry;
+                if (registry == null) {
+                    Set<PhenotypeTerm> hpoTerms = hpoDao.getAllTerms();
+                    if (hpoTerms.isEmpty()) {
+                        logger.warn("No HPO terms were loaded - these will be loaded again on the next request");
+                        return PhenotypeTermRegistry.of(hpoTerms);
+                    }
+                    registry = PhenotypeTermRegistry.of(hpoTerms, hpoDao.getAltTermIds());
+                    hpoTermRegistry = registry;
+                }
             }
         }
-        return null;
+        return registry;
     }
 
 }
@@ -20,7 +20,6 @@
 
 package org.monarchinitiative.exomiser.core.prioritisers;
 
-import org.jblas.FloatMatrix;
 import org.monarchinitiative.exomiser.core.model.Gene;
 import org.monarchinitiative.exomiser.core.prioritisers.util.DataMatrix;
 import org.monarchinitiative.exomiser.core.prioritisers.util.DataMatrixIO;
@@ -78,7 +77,7 @@ public class ExomeWalkerPriority implements Prioritiser {
      * This is the matrix of similarities between the seeed genes and all genes
      * in the network, i.e., p<sub>infinity</sub>.
      */
-    private FloatMatrix combinedProximityVector;
+    private float[] combinedProximityVector;
 
     /**
      * Create a new instance of the {@link ExomeWalkerPriority}.
@@ -149,42 +148,16 @@ public PriorityType getPriorityType() {
 
     /**
      * Compute the distance of all genes in the Random Walk matrix to the set of
-     * seed genes given by the user.
+     * seed genes given by the user. The seed gene columns are summed in place
+     * from the matrix, so large seed lists don't create a new vector per seed.
      */
     private void computeDistanceAllNodesFromStartNodes() {
-        boolean first = true;
-//        FloatMatrix combinedProximityVector = null;
-        for (Integer seedGeneEntrezId : seedGenes) {
-            //shouldn't happed as we've already thrown this in the constructor
-//	    if (this.randomWalkMatrix == null) {
-//		String e = "[GeneWanderer.java] Error: randomWalkMatrix is null";
-//		throw new ExomizerInitializationException(e);
-//	    }
-//	    if (this.randomWalkMatrix.objectid2idx == null) {
-//		String e = "[GeneWanderer.java] Error: randomWalkMatrix.object2idx is null";
-//		throw new ExomizerInitializationException(e);
-//	    }
-            if (!randomWalkMatrix.containsGene(seedGeneEntrezId)) {
-                /* Note that the RW matrix does not have an entry for every
-                 Entrez Gene. If the gene is not contained in the matrix, we
-                 skip it. The gene will be given a (low) default score in 
-                 Genewanderer Relevance.
-                 */
-                continue;
-            }
-            //Get the column we need, this has the distances of ALL genes to the current gene
-            FloatMatrix column = randomWalkMatrix.getColumnMatrixForGene(seedGeneEntrezId);
-
-            // for the first column/known gene we have to init the resulting vector
-            if (first) {
-                combinedProximityVector = column;
-                first = false;
-            } else {
-                combinedProximityVector = combinedProximityVector.add(column);
-            }
-        }
+        /* Note that the RW matrix does not have an entry for every
+         Entrez Gene. Seed genes not contained in the matrix were removed
+         in the constructor and would otherwise be ignored here.
+         */
         /* p_{\infty} */
-//        this.combinedProximityVector = combinedProximityVector;
+        combinedProximityVector = randomWalkMatrix.sumColumnsForGenes(seedGenes);
     }
 
     @Override
@@ -275,7 +248,7 @@ public List<String> getMessages() {
      */
     private double computeSimStartNodesToNode(int nodeToCompute) {
         int idx = randomWalkMatrix.getRowIndexForGene(nodeToCompute);
-        return combinedProximityVector.get(idx, 0);
+        return combinedProximityVector[idx];
     }
 
     @Override
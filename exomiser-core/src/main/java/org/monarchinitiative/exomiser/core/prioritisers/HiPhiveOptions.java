@@ -42,6 +42,11 @@
  * Both the diseaseId and the candidate gene symbol must be valid in order to trigger benchmarking mode. When these are
  * specified the relevant models will be removed from the result set.
  *
+ * Setting topGenesToScore to a positive number enables upper-bound pruning of the models. Models are scored in order of
+ * their maximum possible score and skipped once they can no longer beat the best model for their gene or the score of
+ * the topGenesToScore-th best gene. Genes ranked below this may therefore be missing their phenotype score, so this
+ * should only be used when the results are truncated to the top genes. By default this is 0, i.e. disabled.
+ *
  * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
  */
 public class HiPhiveOptions {
@@ -59,6 +64,8 @@ public class HiPhiveOptions {
     private final boolean runMouse;
     private final boolean runFish;
 
+    private final int topGenesToScore;
+
     private HiPhiveOptions(Builder builder) {
         diseaseId = builder.diseaseId;
         candidateGeneSymbol = builder.candidateGeneSymbol;
@@ -67,6 +74,7 @@ private HiPhiveOptions(Builder builder) {
         runHuman = builder.runHuman;
         runMouse = builder.runMouse;
         runFish = builder.runFish;
+        topGenesToScore = builder.topGenesToScore;
     }
 
     public String getDiseaseId() {
@@ -97,6 +105,14 @@ public boolean runHuman() {
         return runHuman;
     }
 
+    public int getTopGenesToScore() {
+        return topGenesToScore;
+    }
+
+    public boolean isTopGenePruningEnabled() {
+        return topGenesToScore > 0;
+    }
+
     public boolean isBenchmarkHit(GeneModel model) {
         return matchesDisease(model) && matchesCandidateGeneSymbol(model);
     }
@@ -161,6 +177,9 @@ public boolean equals(Object o) {
         if (runFish != that.runFish) {
             return false;
         }
+        if (topGenesToScore != that.topGenesToScore) {
+            return false;
+        }
         if (diseaseId != null ? !diseaseId.equals(that.diseaseId) : that.diseaseId != null) {
             return false;
         }
@@ -177,6 +196,7 @@ public int hashCode() {
         result = 31 * result + (runHuman ? 1 : 0);
         result = 31 * result + (runMouse ? 1 : 0);
         result = 31 * result + (runFish ? 1 : 0);
+        result = 31 * result + topGenesToScore;
         return result;
     }
 
@@ -190,6 +210,7 @@ public String toString() {
                 ", runHuman=" + runHuman +
                 ", runMouse=" + runMouse +
                 ", runFish=" + runFish +
+                ", topGenesToScore=" + topGenesToScore +
                 '}';
     }
 
@@ -209,6 +230,7 @@ public static class Builder {
         private boolean runMouse = true;
         private boolean runFish = true;
 
+        private int topGenesToScore = 0;
 
         private Builder() {}
 
@@ -265,6 +287,17 @@ public Builder diseaseId(String diseaseId) {
             return this;
         }
 
+        /**
+         * Enables upper-bound pruning of the models so that only enough are fully scored to find the best model for the
+         * top number of genes. A value of 0 or less disables the pruning.
+         * @param topGenesToScore
+         * @return
+         */
+        public Builder topGenesToScore(int topGenesToScore) {
+            this.topGenesToScore = Math.max(0, topGenesToScore);
+            return this;
+        }
+
         public HiPhiveOptions build() {
             this.benchmarkingEnabled = assertBenchmarkingStatus(diseaseId, candidateGeneSymbol);
             return new HiPhiveOptions(this);
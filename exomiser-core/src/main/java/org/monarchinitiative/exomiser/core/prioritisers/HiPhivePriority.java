@@ -21,15 +21,17 @@
 package org.monarchinitiative.exomiser.core.prioritisers;
 
 import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Ordering;
 import org.monarchinitiative.exomiser.core.model.Gene;
 import org.monarchinitiative.exomiser.core.phenotype.*;
 import org.monarchinitiative.exomiser.core.prioritisers.model.GeneMatch;
 import org.monarchinitiative.exomiser.core.prioritisers.model.GeneModel;
 import org.monarchinitiative.exomiser.core.prioritisers.model.GeneModelPhenotypeMatch;
+import org.monarchinitiative.exomiser.core.prioritisers.service.ModelScoringContext;
 import org.monarchinitiative.exomiser.core.prioritisers.service.PriorityService;
+import org.monarchinitiative.exomiser.core.prioritisers.service.SharedModelScoringContext;
 import org.monarchinitiative.exomiser.core.prioritisers.util.DataMatrix;
 import org.monarchinitiative.exomiser.core.prioritisers.util.HiPhiveProteinInteractionScorer;
 import org.slf4j.Logger;
@@ -39,9 +41,10 @@
 import java.time.Instant;
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
-import static java.util.Comparator.comparingDouble;
 import static java.util.stream.Collectors.*;
 
 /**
@@ -57,19 +60,30 @@ public class HiPhivePriority implements Prioritiser {
 
     private static final PriorityType PRIORITY_TYPE = PriorityType.HIPHIVE_PRIORITY;
     private static final double HIGH_QUALITY_SCORE_CUTOFF = 0.6;
+    private static final int PRUNING_BATCH_SIZE = 1024;
 
     private final HiPhiveOptions options;
     private final DataMatrix randomWalkMatrix;
     private final PriorityService priorityService;
+    private final SharedModelScoringContext sharedModelScoringContext;
 
     /**
      * @param options
      * @param randomWalkMatrix
      */
     public HiPhivePriority(HiPhiveOptions options, DataMatrix randomWalkMatrix, PriorityService priorityService) {
+        this(options, randomWalkMatrix, priorityService, new SharedModelScoringContext());
+    }
+
+    /**
+     * @param sharedModelScoringContext the model scoring state of the analysis, shared with the other prioritisers of
+     *                                  that analysis, e.g. Phive
+     */
+    public HiPhivePriority(HiPhiveOptions options, DataMatrix randomWalkMatrix, PriorityService priorityService, SharedModelScoringContext sharedModelScoringContext) {
         this.options = options;
         this.randomWalkMatrix = randomWalkMatrix;
         this.priorityService = priorityService;
+        this.sharedModelScoringContext = sharedModelScoringContext;
     }
 
     @Override
@@ -83,10 +97,12 @@ public Stream<HiPhivePriorityResult> prioritise(List<String> hpoIds, List<Gene>
             logger.info("Running in benchmarking mode for disease: {} and candidateGene: {}", options.getDiseaseId(), options.getCandidateGeneSymbol());
         }
         List<PhenotypeTerm> hpoPhenotypeTerms = priorityService.makePhenotypeTermsFromHpoIds(hpoIds);
+        //shared with any other prioritiser scoring models against these phenotypes, e.g. Phive in the same analysis
+        ModelScoringContext scoringContext = sharedModelScoringContext.getModelScoringContext(hpoPhenotypeTerms, priorityService::makeModelScoringContext);
 
         Set<Integer> wantedGeneIds = genes.stream().map(Gene::getEntrezGeneID).collect(ImmutableSet.toImmutableSet());
 
-        ListMultimap<Integer, GeneModelPhenotypeMatch> bestGeneModels = makeBestGeneModelsForOrganisms(hpoPhenotypeTerms, Organism.HUMAN, options
+        ListMultimap<Integer, GeneModelPhenotypeMatch> bestGeneModels = makeBestGeneModelsForOrganisms(scoringContext, Organism.HUMAN, options
                 .getOrganismsToRun(), wantedGeneIds);
 
         HiPhiveProteinInteractionScorer ppiScorer = makeHiPhiveProteinInteractionScorer(bestGeneModels, options.runPpi());
@@ -130,92 +146,160 @@ private HiPhiveProteinInteractionScorer makeHiPhiveProteinInteractionScorer(List
         return HiPhiveProteinInteractionScorer.EMPTY;
     }
 
-    private ListMultimap<Integer, GeneModelPhenotypeMatch> makeBestGeneModelsForOrganisms(List<PhenotypeTerm> hpoPhenotypeTerms, Organism referenceOrganism, Set<Organism> organismsToCompare, Set<Integer> wantedGeneIds) {
+    private ListMultimap<Integer, GeneModelPhenotypeMatch> makeBestGeneModelsForOrganisms(ModelScoringContext scoringContext, Organism referenceOrganism, Set<Organism> organismsToCompare, Set<Integer> wantedGeneIds) {
 
         //CAUTION!! this must always run in order that the best score is set - HUMAN runs first as we are comparing HP to other phenotype ontology terms.
-        PhenotypeMatcher referenceOrganismPhenotypeMatcher = priorityService.getPhenotypeMatcherForOrganism(hpoPhenotypeTerms, referenceOrganism);
+        PhenotypeMatcher referenceOrganismPhenotypeMatcher = scoringContext.getPhenotypeMatcher(referenceOrganism);
         QueryPhenotypeMatch bestQueryPhenotypeMatch = referenceOrganismPhenotypeMatcher.getQueryPhenotypeMatch();
         if (bestQueryPhenotypeMatch.getBestPhenotypeMatches().isEmpty()) {
-            logger.warn("{} has no phenotype matches for input set {}", bestQueryPhenotypeMatch, hpoPhenotypeTerms);
+            logger.warn("{} has no phenotype matches for input set {}", bestQueryPhenotypeMatch, scoringContext.getQueryPhenotypeTerms());
         }
-        List<PhenotypeMatcher> bestOrganismPhenotypeMatches = getBestOrganismPhenotypeMatches(hpoPhenotypeTerms, referenceOrganismPhenotypeMatcher, organismsToCompare);
 
         ListMultimap<Integer, GeneModelPhenotypeMatch> bestGeneModels = ArrayListMultimap.create();
-        for (PhenotypeMatcher organismPhenotypeMatcher : bestOrganismPhenotypeMatches) {
-            Set<GeneModel> modelsToScore = priorityService.getModelsForOrganism(organismPhenotypeMatcher.getOrganism())
-                    .stream()
-                    .filter(model -> wantedGeneIds.contains(model.getEntrezGeneId()))
-                    .collect(toSet());
-
-            List<GeneModelPhenotypeMatch> geneModelPhenotypeMatches = scoreModels(bestQueryPhenotypeMatch, organismPhenotypeMatcher, modelsToScore);
-            Map<Integer, GeneModelPhenotypeMatch> bestGeneModelsForOrganism = mapBestModelByGene(geneModelPhenotypeMatches);
+        for (Organism organism : organismsToCompare) {
+            //the matchers are only created once per query by the scoringContext
+            PhenotypeMatcher organismPhenotypeMatcher = scoringContext.getPhenotypeMatcher(organism);
+
+            Map<Integer, GeneModelPhenotypeMatch> bestGeneModelsForOrganism = scoreBestModelByGene(bestQueryPhenotypeMatch, organismPhenotypeMatcher, scoringContext, wantedGeneIds);
             bestGeneModelsForOrganism.entrySet().forEach(entry -> bestGeneModels.put(entry.getKey(), entry.getValue()));
         }
 
         return bestGeneModels;
     }
 
-    private List<PhenotypeMatcher> getBestOrganismPhenotypeMatches(List<PhenotypeTerm> hpoPhenotypeTerms, PhenotypeMatcher referenceOrganismPhenotypeMatcher, Set<Organism> organismsToCompare) {
-        ImmutableList.Builder<PhenotypeMatcher> bestPossibleOrganismPhenotypeMatches = ImmutableList.builder();
-        for (Organism organism : organismsToCompare) {
-            if (organism == referenceOrganismPhenotypeMatcher.getOrganism()) {
-                //no need to re-query the database for these
-                bestPossibleOrganismPhenotypeMatches.add(referenceOrganismPhenotypeMatcher);
-            } else {
-                PhenotypeMatcher bestOrganismPhenotypes = priorityService.getPhenotypeMatcherForOrganism(hpoPhenotypeTerms, organism);
-                bestPossibleOrganismPhenotypeMatches.add(bestOrganismPhenotypes);
-            }
-        }
-        return bestPossibleOrganismPhenotypeMatches.build();
-    }
-
-    //returns a map of geneId to best model
-    private Map<Integer, GeneModelPhenotypeMatch> mapBestModelByGene(List<GeneModelPhenotypeMatch> organismModels) {
-        return getBestModelsByGene(organismModels)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(toMap(GeneModelPhenotypeMatch::getEntrezGeneId, Function.identity()));
-    }
-
-    private Stream<Optional<GeneModelPhenotypeMatch>> getBestModelsByGene(List<GeneModelPhenotypeMatch> organismModels) {
-        if (options.isBenchmarkingEnabled()) {
-            return organismModels.parallelStream()
-                    .filter(model -> model.getScore() > 0)
-                    // catch hit to known disease-gene association for purposes of benchmarking i.e to simulate novel gene discovery performance
-                    .filter(model -> !options.isBenchmarkHit(model))
-                    .collect(groupingByConcurrent(GeneModelPhenotypeMatch::getEntrezGeneId, maxBy(comparingDouble(GeneModelPhenotypeMatch::getScore))))
-                    .values()
-                    .stream();
-        }
-        return organismModels.parallelStream()
-                .filter(model -> model.getScore() > 0)
-                .collect(groupingByConcurrent(GeneModelPhenotypeMatch::getEntrezGeneId, maxBy(comparingDouble(GeneModelPhenotypeMatch::getScore))))
-                .values()
-                .stream();
-    }
-
     // n.b. this is *almost* identical to PhivePriority.scoreModels() the only difference is in HiPhive we're comparing the input terms
     // against all possible models (disease, mouse, fish), whereas in Phive we're only comparing against mouse.
     // For HiPhive the bestQueryPhenotypeMatch is going to be an HPO self-hit for every term in the query set so the
     // scoreModelPhenotypeMatch uses hpoIds.size() as the numMatchedQueryPhenotypes.
-    private List<GeneModelPhenotypeMatch> scoreModels(QueryPhenotypeMatch bestQueryPhenotypeMatch, PhenotypeMatcher organismPhenotypeMatcher, Collection<GeneModel> models) {
+    // Only the scores are calculated for all the models - the full GeneModelPhenotypeMatch is only made for the best
+    // model for each gene as nearly all the others are discarded. Models sharing identical phenotypes are only scored
+    // once via the ModelProfileIndex and the raw values of each profile are shared with Phive via the ModelScoringContext.
+    //returns a map of geneId to best model
+    private Map<Integer, GeneModelPhenotypeMatch> scoreBestModelByGene(QueryPhenotypeMatch bestQueryPhenotypeMatch, PhenotypeMatcher organismPhenotypeMatcher, ModelScoringContext scoringContext, Set<Integer> wantedGeneIds) {
         Organism organism = organismPhenotypeMatcher.getOrganism();
+        ModelProfileIndex<GeneModel> modelProfileIndex = scoringContext.getModelProfileIndex(organism);
 
-        ModelScorer modelScorer = PhenodigmModelScorer.forMultiCrossSpecies(bestQueryPhenotypeMatch, organismPhenotypeMatcher);
+        PhenodigmModelScorer modelScorer = PhenodigmModelScorer.forMultiCrossSpecies(bestQueryPhenotypeMatch, organismPhenotypeMatcher);
 
         logger.info("Scoring {} models", organism);
         Instant timeStart = Instant.now();
-        //running this in parallel here can cut the overall time for this method in half or better - ~650ms -> ~350ms on Pfeiffer test set.
-        List<GeneModelPhenotypeMatch> geneModelPhenotypeMatches = models.parallelStream()
-                .map(model -> {
-                    ModelPhenotypeMatch score = modelScorer.scoreModel(model);
-                    return new GeneModelPhenotypeMatch(score.getScore(), model, score.getBestPhenotypeMatches());
-                })
-                .collect(toList());
+        List<GeneModel> models = modelProfileIndex.getModels();
+        // only the models of the wanted genes are visited
+        int[] candidateModelIndexes = modelProfileIndex.getModelIndexesForKeys(wantedGeneIds);
+        // catch hit to known disease-gene association for purposes of benchmarking i.e to simulate novel gene discovery performance
+        Predicate<GeneModel> modelFilter = model -> !(options.isBenchmarkingEnabled() && options.isBenchmarkHit(model));
+
+        Map<Integer, Integer> bestModelIndexByGene;
+        if (options.isTopGenePruningEnabled()) {
+            bestModelIndexByGene = findBestModelIndexByGeneWithPruning(modelScorer, scoringContext, organism, candidateModelIndexes, modelFilter, options.getTopGenesToScore());
+        } else {
+            bestModelIndexByGene = findBestModelIndexByGene(modelScorer, scoringContext, organism, candidateModelIndexes, modelFilter);
+        }
+
+        Map<Integer, GeneModelPhenotypeMatch> bestModelByGene = bestModelIndexByGene.entrySet().parallelStream()
+                .collect(toMap(Map.Entry::getKey, entry -> makeGeneModelPhenotypeMatch(modelScorer, models.get(entry.getValue()))));
 
         Duration duration = Duration.between(timeStart, Instant.now());
-        logger.info("Scored {} {} models - {} ms", models.size(), organism, duration.toMillis());
-        return geneModelPhenotypeMatches;
+        logger.info("Scored {} of {} {} models - {} ms", candidateModelIndexes.length, models.size(), organism, duration.toMillis());
+        return bestModelByGene;
+    }
+
+    private Map<Integer, Integer> findBestModelIndexByGene(PhenodigmModelScorer modelScorer, ModelScoringContext scoringContext, Organism organism, int[] candidateModelIndexes, Predicate<GeneModel> modelFilter) {
+        List<GeneModel> models = scoringContext.getModelProfileIndex(organism).getModels();
+        double[] scores = scoringContext.scoreModels(organism, candidateModelIndexes, modelFilter, modelScorer::calculateCombinedScore);
+
+        //the candidates are in ascending model index order, so where scores are equal the model with the lowest index wins
+        Map<Integer, Integer> bestCandidateByGene = new HashMap<>();
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] > 0) {
+                int candidate = i;
+                bestCandidateByGene.merge(models.get(candidateModelIndexes[i]).getEntrezGeneId(), candidate, (current, next) -> scores[next] > scores[current] ? next : current);
+            }
+        }
+        return bestCandidateByGene.entrySet().stream()
+                .collect(toMap(Map.Entry::getKey, entry -> candidateModelIndexes[entry.getValue()]));
+    }
+
+    // Branch-and-bound version of findBestModelIndexByGene. The models are visited in descending order of the upper-bound
+    // of their score and only fully scored if this can beat the current best model for their gene and the score of the
+    // topGenes-th best gene found so far. Models are scored in parallel batches, with the pruning thresholds updated
+    // between batches. The best model found for each gene is identical to the un-pruned version, for all the genes with
+    // a score at least that of the topGenes-th best gene.
+    private Map<Integer, Integer> findBestModelIndexByGeneWithPruning(PhenodigmModelScorer modelScorer, ModelScoringContext scoringContext, Organism organism, int[] candidateModelIndexes, Predicate<GeneModel> modelFilter, int topGenes) {
+        ModelProfileIndex<GeneModel> modelProfileIndex = scoringContext.getModelProfileIndex(organism);
+        List<GeneModel> models = modelProfileIndex.getModels();
+        double[] upperBounds = modelProfileIndex.scoreModels(candidateModelIndexes, modelFilter, modelScorer::calculatePhenotypeIndexesScoreUpperBound);
+        //positions in the candidateModelIndexes, which are in ascending model index order
+        int[] candidates = IntStream.range(0, upperBounds.length)
+                .filter(i -> upperBounds[i] > 0)
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> upperBounds[i]).reversed().thenComparing(Comparator.naturalOrder()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        double[] profileScores = new double[modelProfileIndex.numProfiles()];
+        Arrays.fill(profileScores, Double.NaN);
+
+        Map<Integer, Integer> bestModelIndexByGene = new HashMap<>();
+        Map<Integer, Double> bestScoreByGene = new HashMap<>();
+        double topGenesThreshold = 0;
+        int numScored = 0;
+
+        for (int batchStart = 0; batchStart < candidates.length; batchStart += PRUNING_BATCH_SIZE) {
+            int batchEnd = Math.min(batchStart + PRUNING_BATCH_SIZE, candidates.length);
+            if (upperBounds[candidates[batchStart]] < topGenesThreshold) {
+                //all the remaining bounds are lower than this, so none of them can make it into the top genes
+                break;
+            }
+            BitSet batchProfiles = new BitSet(profileScores.length);
+            for (int c = batchStart; c < batchEnd; c++) {
+                int modelIndex = candidateModelIndexes[candidates[c]];
+                if (canBeatCurrentBest(modelIndex, upperBounds[candidates[c]], models.get(modelIndex).getEntrezGeneId(), bestModelIndexByGene, bestScoreByGene, topGenesThreshold)) {
+                    int profile = modelProfileIndex.getProfileIndex(modelIndex);
+                    if (Double.isNaN(profileScores[profile])) {
+                        batchProfiles.set(profile);
+                    }
+                }
+            }
+            numScored += batchProfiles.cardinality();
+            batchProfiles.stream().parallel().forEach(profile -> profileScores[profile] = scoringContext.scoreProfile(organism, profile, modelScorer::calculateCombinedScore));
+
+            for (int c = batchStart; c < batchEnd; c++) {
+                int modelIndex = candidateModelIndexes[candidates[c]];
+                double score = profileScores[modelProfileIndex.getProfileIndex(modelIndex)];
+                //NaN scores were pruned and fail this test
+                if (score > 0) {
+                    int geneId = models.get(modelIndex).getEntrezGeneId();
+                    if (canBeatCurrentBest(modelIndex, score, geneId, bestModelIndexByGene, bestScoreByGene, 0)) {
+                        bestModelIndexByGene.put(geneId, modelIndex);
+                        bestScoreByGene.put(geneId, score);
+                    }
+                }
+            }
+            if (bestScoreByGene.size() >= topGenes) {
+                topGenesThreshold = Ordering.natural().greatestOf(bestScoreByGene.values(), topGenes).get(topGenes - 1);
+            }
+        }
+        logger.info("Fully scored {} of {} model phenotype profiles with upper-bound pruning for the top {} genes", numScored, modelProfileIndex.numProfiles(), topGenes);
+        return bestModelIndexByGene;
+    }
+
+    //Replicates the tie-breaking of findBestModelIndexByGene - where scores are equal the model with the lowest index wins
+    private static boolean canBeatCurrentBest(int modelIndex, double score, int geneId, Map<Integer, Integer> bestModelIndexByGene, Map<Integer, Double> bestScoreByGene, double threshold) {
+        if (score < threshold) {
+            return false;
+        }
+        Integer currentIndex = bestModelIndexByGene.get(geneId);
+        if (currentIndex == null) {
+            return true;
+        }
+        double currentScore = bestScoreByGene.get(geneId);
+        return score > currentScore || (score == currentScore && modelIndex < currentIndex);
+    }
+
+    private GeneModelPhenotypeMatch makeGeneModelPhenotypeMatch(ModelScorer modelScorer, GeneModel model) {
+        ModelPhenotypeMatch score = modelScorer.scoreModel(model);
+        return new GeneModelPhenotypeMatch(score.getScore(), model, score.getBestPhenotypeMatches());
     }
 
     @Override
@@ -22,6 +22,7 @@
 
 import org.monarchinitiative.exomiser.core.model.Gene;
 import org.monarchinitiative.exomiser.core.prioritisers.model.Disease;
+import org.monarchinitiative.exomiser.core.prioritisers.model.GeneDiseaseIndex;
 import org.monarchinitiative.exomiser.core.prioritisers.model.InheritanceMode;
 import org.monarchinitiative.exomiser.core.prioritisers.service.PriorityService;
 import org.slf4j.Logger;
@@ -83,30 +84,31 @@ public PriorityType getPriorityType() {
      */
     @Override
     public void prioritizeGenes(List<String> hpoIds, List<Gene> genes) {
+        Function<Gene, OMIMPriorityResult> prioritiseGene = prioritiseGene(priorityService.getGeneDiseaseIndex());
         for (Gene gene : genes) {
-            OMIMPriorityResult result = prioritiseGene().apply(gene);
+            OMIMPriorityResult result = prioritiseGene.apply(gene);
             gene.addPriorityResult(result);
         }
     }
 
     @Override
     public Stream<OMIMPriorityResult> prioritise(List<String> hpoIds, List<Gene> genes) {
-        return genes.stream().map(prioritiseGene());
+        return genes.stream().map(prioritiseGene(priorityService.getGeneDiseaseIndex()));
     }
 
     /**
      * If the gene is not contained in the database, we return an empty
      * but initialized RelevanceScore object. Otherwise, we retrieve a list of
-     * all OMIM and Orphanet diseases associated with the entrez Gene.
+     * all OMIM and Orphanet diseases associated with the entrez Gene. These,
+     * along with the distinct inheritance modes of the OMIM diseases, are
+     * pre-loaded in the GeneDiseaseIndex.
      *
      **/
-    private Function<Gene, OMIMPriorityResult> prioritiseGene() {
+    private Function<Gene, OMIMPriorityResult> prioritiseGene(GeneDiseaseIndex geneDiseaseIndex) {
         return gene -> {
-            List<Disease> diseases = priorityService.getDiseaseDataAssociatedWithGeneId(gene.getEntrezGeneID());
+            List<Disease> diseases = geneDiseaseIndex.getDiseasesForGene(gene.getEntrezGeneID());
             //this is a pretty non-punitive prioritiser. We're relying on the other prioritisers to do the main ranking
-            double score = diseases.stream()
-                    .filter(disease -> disease.getDiseaseId().startsWith("OMIM"))
-                    .map(Disease::getInheritanceMode)
+            double score = geneDiseaseIndex.getOmimInheritanceModesForGene(gene.getEntrezGeneID()).stream()
                     .mapToDouble(scoreInheritanceMode(gene))
                     .max()
                     .orElse(DEFAULT_SCORE);
@@ -20,30 +20,23 @@
 
 package org.monarchinitiative.exomiser.core.prioritisers;
 
-import hpo.HPOutils;
-import ontologizer.go.*;
+import ontologizer.go.Ontology;
+import ontologizer.go.Term;
 import org.monarchinitiative.exomiser.core.model.Gene;
+import org.monarchinitiative.exomiser.core.prioritisers.util.PhenixData;
 import org.monarchinitiative.exomiser.core.prioritisers.util.ScoreDistribution;
 import org.monarchinitiative.exomiser.core.prioritisers.util.ScoreDistributionContainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import similarity.SimilarityUtilities;
-import similarity.concepts.ResnikSimilarity;
 import similarity.objects.InformationContentObjectSimilarity;
-import sonumina.math.graph.SlimDirectedGraphView;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
-import static java.util.stream.Collectors.toMap;
-
 /**
  * Filter variants according to the phenotypic similarity of the specified
  * disease to mouse models disrupting the same gene. We use semantic similarity
@@ -67,9 +60,10 @@ public class PhenixPriority implements Prioritiser {
     private Ontology hpo;
 
     /**
-     * The semantic similarity measure used to calculate phenotypic similarity
+     * The semantic similarity measure used to calculate phenotypic similarity. The Ontologizer similarity classes make
+     * no guarantees of thread-safety so each thread has its own.
      */
-    private InformationContentObjectSimilarity similarityMeasure;
+    private ThreadLocal<InformationContentObjectSimilarity> similarityMeasure;
 
     private static final double DEFAULT_SCORE = 0;
 
@@ -77,10 +71,10 @@ public class PhenixPriority implements Prioritiser {
 
     private boolean symmetric;
     /**
-     * Path to the directory that has the files needed to calculate the score
-     * distribution.
+     * The score distributions read from the PhenIX data directory. These are
+     * shared by all PhenixPriority instances.
      */
-    private String scoredistributionFolder;
+    private ScoreDistributionContainer scoreDistributionContainer;
 
 //counters for stats
     /**
@@ -114,146 +108,35 @@ public class PhenixPriority implements Prioritiser {
      * Hudson page</a>
      */
     public PhenixPriority(String scoreDistributionFolder, boolean symmetric) {
-
-        if (!scoreDistributionFolder.endsWith(File.separator)) {
-            scoreDistributionFolder += File.separator;
-        }
-        this.scoredistributionFolder = scoreDistributionFolder;
-        this.symmetric = symmetric;
-
-        String hpoOboFile = String.format("%s%s", scoreDistributionFolder, "hp.obo");
-        String hpoAnnotationFile = String.format("%s%s", scoreDistributionFolder, "ALL_SOURCES_ALL_FREQUENCIES_genes_to_phenotype.txt");
         //The phenixData directory must contain the files "hp.obo", "ALL_SOURCES_ALL_FREQUENCIES_genes_to_phenotype.txt"
         //as well as the score distribution files "*.out", all of which can be downloaded from the HPO hudson server.
-        this.hpo = parseOntology(hpoOboFile);
-        //The HPO as SlimDirectedGraph (fast access to ancestors etc.)
-        SlimDirectedGraphView<Term> hpoSlim = hpo.getSlimGraphView();
-        this.geneId2annotations = parseAnnotations(hpoAnnotationFile, hpo, hpoSlim);
-        this.similarityMeasure = calculateInformationContentSimilarityMeasures(symmetric, hpo, hpoSlim, geneId2annotations);
+        this(PhenixData.load(Paths.get(scoreDistributionFolder)), new ScoreDistributionContainer(scoreDistributionFolder), symmetric);
     }
 
     /**
-     * STUB CONSTRUCTOR - ONLY USED FOR TESTING PURPOSES TO AVOID NULL POINTERS FROM ORIGINAL CONSTRUCTOR. DO NOT USE FOR PRODUCTION CODE!!!!
-     * @param symmetric
-     */
-    protected PhenixPriority(boolean symmetric) {
-        this.symmetric = symmetric;
-    }
-
-    private InformationContentObjectSimilarity calculateInformationContentSimilarityMeasures(boolean symmetric, Ontology hpo, SlimDirectedGraphView<Term> hpoSlim, Map<String, List<Term>> geneId2annotations) {
-        Map<Term, Double> term2ic = calculateTermIC(hpo, hpoSlim, geneId2annotations);
-        ResnikSimilarity resnik = new ResnikSimilarity(hpo, (HashMap<Term, Double>) term2ic);
-        return new InformationContentObjectSimilarity(resnik, symmetric, false);
-    }
-
-    /**
-     * Parses the human-phenotype-ontology.obo file (or equivalently, the hp.obo
-     * file from our Hudosn server).
+     * Create a new instance of the PhenixPriority using pre-loaded PhenIX data. The PhenixData and
+     * ScoreDistributionContainer are expensive to build and are not modified here, so a single instance of each should
+     * be shared between all PhenixPriority instances.
      *
-     * @param hpoOboFile path to the hp.obo file.
+     * @param phenixData the parsed HPO, gene annotations and term IC loaded from the PhenIX data directory.
+     * @param scoreDistributionContainer the score distributions from the PhenIX data directory.
+     * @param symmetric Flag to indicate if the semantic similarity score should
+     * be calculated using the symmetrix formula.
      */
-    private Ontology parseOntology(String hpoOboFile) {
-        OBOParser oboParser = new OBOParser(hpoOboFile, OBOParser.PARSE_XREFS);
-
-        try {
-            String parseInfo = oboParser.doParse();
-            logger.info(parseInfo);
-        } catch (IOException | OBOParserException e) {
-            logger.error("Error parsing HPO OBO file", e);
-        }
-
-        TermContainer termContainer = new TermContainer(oboParser.getTermMap(), oboParser.getFormatVersion(), oboParser.getDate());
-        Ontology hpoOntology = new Ontology(termContainer);
-        hpoOntology.setRelevantSubontology(termContainer.get(HPOutils.organAbnormalityRootId).getName());
-        return hpoOntology;
+    public PhenixPriority(PhenixData phenixData, ScoreDistributionContainer scoreDistributionContainer, boolean symmetric) {
+        this.scoreDistributionContainer = scoreDistributionContainer;
+        this.symmetric = symmetric;
+        this.hpo = phenixData.getHpo();
+        this.geneId2annotations = phenixData.getGeneId2Annotations();
+        this.similarityMeasure = ThreadLocal.withInitial(() -> new InformationContentObjectSimilarity(phenixData.getResnikSimilarity(), symmetric, false));
     }
 
     /**
-     * Parse the HPO phenotype annotation file (e.g., phenotype_annotation.tab).
-     * The point of this is to get the links between diseases and HPO phenotype
-     * terms. The hpoAnnotationFile is The
-     * ALL_SOURCES_ALL_FREQUENCIES_genes_to_phenotype.txt-file
-     *
-     * @param hpoAnnotationFile path to the file
+     * STUB CONSTRUCTOR - ONLY USED FOR TESTING PURPOSES TO AVOID NULL POINTERS FROM ORIGINAL CONSTRUCTOR. DO NOT USE FOR PRODUCTION CODE!!!!
+     * @param symmetric
      */
-    private Map<String, List<Term>> parseAnnotations(String hpoAnnotationFile, Ontology hpo, SlimDirectedGraphView<Term> hpoSlim) {
-        Map<String, List<Term>> geneAnnotations = new HashMap<>();
-        logger.info("Parsing Annotations file {}", hpoAnnotationFile);
-
-        try (BufferedReader bufferedReader = Files.newBufferedReader(Paths.get(hpoAnnotationFile))) {
-            String line;
-            while ((line = bufferedReader.readLine()) != null) {
-                if (line.startsWith("#")) {
-                    continue;
-                }
-
-                String[] split = line.split("\t");
-                String entrez = split[0];
-                Term term = null;
-                try {
-                /* split[4] is the HPO term field of an annotation line. */
-                    term = hpo.getTermIncludingAlternatives(split[3]);
-                } catch (IllegalArgumentException e) {
-                    logger.error("Unable to get term for line \n{}\n", line);
-                    logger.error("The offending field was '{}'", split[3]);
-                    for (int k = 0; k < split.length; ++k) {
-                        logger.error("{} '{}'", k, split[k]);
-                    }
-                    logger.error("", e);
-                }
-                if (term != null) {
-                    geneAnnotations.computeIfAbsent(entrez, annotations -> new ArrayList<>()).add(term);
-                }
-            }
-        } catch (IOException e) {
-            logger.error("Error parsing annotation file {}", hpoAnnotationFile, e);
-        }
-
-        // cleanup annotations
-        for (Map.Entry<String, List<Term>> entry : geneAnnotations.entrySet()) {
-            String entrezId = entry.getKey();
-            List<Term> uniqueTerms = entry.getValue().stream().distinct().collect(Collectors.toCollection(ArrayList::new));
-            List<Term> mostSpecificTerms = HPOutils.cleanUpAssociation((ArrayList<Term>) uniqueTerms, hpoSlim, hpo.getRootTerm());
-            geneAnnotations.put(entrezId, mostSpecificTerms);
-        }
-        logger.info("Made HPO annotations for {} genes", geneAnnotations.size());
-        return geneAnnotations;
-    }
-
-    private Map<Term, Double> calculateTermIC(Ontology ontology, SlimDirectedGraphView<Term> hpoSlim, Map<String, List<Term>> geneId2annotations) {
-
-        // prepare IC computation
-        // here we store which objects have been annotated with this term
-        final Map<Term, Set<String>> annotationTerm2geneIds = new HashMap<>();
-        for (Map.Entry<String, List<Term>> entry : geneId2annotations.entrySet()) {
-            String entrezId = entry.getKey();
-            List<Term> annotations = entry.getValue();
-            for (Term annot : annotations) {
-                List<Term> termAndAncestors = hpoSlim.getAncestors(annot);
-                for (Term term : termAndAncestors) {
-                    annotationTerm2geneIds.computeIfAbsent(term, objectsAnnotatedByTerm -> new HashSet<>()).add(entrezId);
-                }
-            }
-        }
-
-        Map<Term, Integer> termFrequencies = annotationTerm2geneIds.entrySet().stream()
-                .collect(toMap(Map.Entry::getKey, entry -> entry.getValue().size()));
-
-        Term root = ontology.getRootTerm();
-        int maxFreq = termFrequencies.get(root);
-        double ICzeroCountTerms = -1 * (Math.log(1 / (double) maxFreq));
-
-        Map<Term, Double> term2informationContent = SimilarityUtilities.caculateInformationContent(maxFreq, (HashMap<Term, Integer>) termFrequencies);
-        int frequencyZeroCounter = 0;
-        for (Term t : ontology) {
-            if (!termFrequencies.containsKey(t)) {
-                ++frequencyZeroCounter;
-                term2informationContent.put(t, ICzeroCountTerms);
-            }
-        }
-
-        logger.info("WARNING: Frequency of {} terms was zero!! Set IC of these to : {}", frequencyZeroCounter, ICzeroCountTerms);
-        return term2informationContent;
+    protected PhenixPriority(boolean symmetric) {
+        this.symmetric = symmetric;
     }
 
     /**
@@ -274,19 +157,19 @@ public Stream<PhenixPriorityResult> prioritise(List<String> hpoIds, List<Gene> g
         List<Term> hpoQueryTerms = makeHpoQueryTerms(hpoIds);
         logger.info("Created HPO query terms {}", hpoQueryTerms);
 
-        ScoreDistributionContainer scoredistributionContainer = new ScoreDistributionContainer(scoredistributionFolder, symmetric, hpoQueryTerms.size());
-
-        Map<Gene, PhenixScore> geneScores = genes.stream().collect(toMap(Function.identity(), scoreGene(hpoQueryTerms, scoredistributionContainer)));
+        // Each gene is scored independently using the similarity measure of the scoring thread, so this is done in
+        // parallel. The scores are collected in the same order as the genes.
+        List<PhenixScore> geneScores = genes.parallelStream().map(scoreGene(hpoQueryTerms)).collect(Collectors.toList());
 
-        double maxSemSimScore = geneScores.values().stream().mapToDouble(PhenixScore::getSemanticSimilarityScore).max().orElse(DEFAULT_SCORE);
-        double maxNegLogP = geneScores.values().stream().mapToDouble(PhenixScore::getNegativeLogP).max().orElse(DEFAULT_SCORE);
+        double maxSemSimScore = geneScores.stream().mapToDouble(PhenixScore::getSemanticSimilarityScore).max().orElse(DEFAULT_SCORE);
+        double maxNegLogP = geneScores.stream().mapToDouble(PhenixScore::getNegativeLogP).max().orElse(DEFAULT_SCORE);
         double normalisationFactor = calculateNormalisationFactor(maxSemSimScore);
 
         logger.info("Data investigated in HPO for {} genes. No data for {} genes", genes.size(), geneId2annotations.keySet().size());
-        return geneScores.entrySet().stream()
-                .map(entry -> {
-                    Gene gene = entry.getKey();
-                    PhenixScore phenixScore = entry.getValue();
+        return IntStream.range(0, genes.size())
+                .mapToObj(i -> {
+                    Gene gene = genes.get(i);
+                    PhenixScore phenixScore = geneScores.get(i);
                     double score = phenixScore.getSemanticSimilarityScore() * normalisationFactor;
                     return new PhenixPriorityResult(gene.getEntrezGeneID(), gene.getGeneSymbol(), score, phenixScore.getSemanticSimilarityScore(), phenixScore.getNegativeLogP());
                 });
@@ -306,7 +189,7 @@ private List<Term> makeHpoQueryTerms(List<String> hpoIds) {
                 .collect(Collectors.toList());
     }
 
-    private Function<Gene, PhenixScore> scoreGene(List<Term> queryTerms, ScoreDistributionContainer scoredistributionContainer) {
+    private Function<Gene, PhenixScore> scoreGene(List<Term> queryTerms) {
         return gene -> {
             int entrezGeneId = gene.getEntrezGeneID();
             String geneIdString = Integer.toString(entrezGeneId);
@@ -316,12 +199,12 @@ private Function<Gene, PhenixScore> scoreGene(List<Term> queryTerms, ScoreDistri
             }
 
             List<Term> geneAnnotations = geneId2annotations.get(geneIdString);
-            double semanticSimilarityScore = similarityMeasure.computeObjectSimilarity( (ArrayList<Term>) queryTerms, (ArrayList<Term>) geneAnnotations);
+            double semanticSimilarityScore = similarityMeasure.get().computeObjectSimilarity( (ArrayList<Term>) queryTerms, (ArrayList<Term>) geneAnnotations);
 
             if (Double.isNaN(semanticSimilarityScore)) {
                 logger.error("Score was NaN for geneId: {} : ", entrezGeneId, queryTerms);
             }
-            ScoreDistribution scoreDist = scoredistributionContainer.getDistribution(geneIdString);
+            ScoreDistribution scoreDist = scoreDistributionContainer.getDistribution(entrezGeneId, symmetric, queryTerms.size());
 
             double negLogP = calculateNegLogP(semanticSimilarityScore, scoreDist);
             return new PhenixScore(semanticSimilarityScore, negLogP);
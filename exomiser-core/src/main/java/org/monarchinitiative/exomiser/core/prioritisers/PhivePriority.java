@@ -25,7 +25,9 @@
 import org.monarchinitiative.exomiser.core.phenotype.*;
 import org.monarchinitiative.exomiser.core.prioritisers.model.GeneModel;
 import org.monarchinitiative.exomiser.core.prioritisers.model.GeneModelPhenotypeMatch;
+import org.monarchinitiative.exomiser.core.prioritisers.service.ModelScoringContext;
 import org.monarchinitiative.exomiser.core.prioritisers.service.PriorityService;
+import org.monarchinitiative.exomiser.core.prioritisers.service.SharedModelScoringContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,8 +37,7 @@
 import java.util.function.Function;
 import java.util.stream.Stream;
 
-import static java.util.Comparator.comparingDouble;
-import static java.util.stream.Collectors.*;
+import static java.util.stream.Collectors.toMap;
 
 /**
  * Filter variants according to the phenotypic similarity of the specified
@@ -62,9 +63,19 @@ public class PhivePriority implements Prioritiser {
     static final float NO_MOUSE_MODEL_SCORE = 0.6f;
 
     private final PriorityService priorityService;
+    private final SharedModelScoringContext sharedModelScoringContext;
 
     public PhivePriority(PriorityService priorityService) {
+        this(priorityService, new SharedModelScoringContext());
+    }
+
+    /**
+     * @param sharedModelScoringContext the model scoring state of the analysis, shared with the other prioritisers of
+     *                                  that analysis, e.g. HiPhive
+     */
+    public PhivePriority(PriorityService priorityService, SharedModelScoringContext sharedModelScoringContext) {
         this.priorityService = priorityService;
+        this.sharedModelScoringContext = sharedModelScoringContext;
     }
 
     /**
@@ -80,26 +91,19 @@ public Stream<PhivePriorityResult> prioritise(List<String> hpoIds, List<Gene> ge
         logger.info("Starting {}", PRIORITY_TYPE);
 
         List<PhenotypeTerm> hpoPhenotypeTerms = priorityService.makePhenotypeTermsFromHpoIds(hpoIds);
-        PhenotypeMatcher humanMousePhenotypeMatcher = priorityService.getPhenotypeMatcherForOrganism(hpoPhenotypeTerms, Organism.MOUSE);
+        //shared with any other prioritiser scoring models against these phenotypes, e.g. HiPhive in the same analysis
+        ModelScoringContext scoringContext = sharedModelScoringContext.getModelScoringContext(hpoPhenotypeTerms, priorityService::makeModelScoringContext);
 
         Set<Integer> wantedGeneIds = genes.stream().map(Gene::getEntrezGeneID).collect(ImmutableSet.toImmutableSet());
 
-        Set<GeneModel> modelsToScore = priorityService.getModelsForOrganism(Organism.MOUSE).stream()
-                .filter(model -> wantedGeneIds.contains(model.getEntrezGeneId()))
-                .collect(ImmutableSet.toImmutableSet());
-
-        List<GeneModelPhenotypeMatch> scoredModels = scoreModels(humanMousePhenotypeMatcher, modelsToScore);
-
         //n.b. this will contain models but with a phenotype score of zero
-        Map<Integer, Optional<GeneModelPhenotypeMatch>> geneModelPhenotypeMatches = scoredModels.parallelStream()
-//                .filter(model -> model.getScore() > 0)
-                .collect(groupingByConcurrent(GeneModelPhenotypeMatch::getEntrezGeneId, maxBy(comparingDouble(GeneModelPhenotypeMatch::getScore))));
+        Map<Integer, GeneModelPhenotypeMatch> geneModelPhenotypeMatches = scoreBestModelByGene(scoringContext, wantedGeneIds);
 
         return genes.stream().map(getPhivePriorityResult(geneModelPhenotypeMatches));
     }
 
-    private Function<Gene, PhivePriorityResult> getPhivePriorityResult(Map<Integer, Optional<GeneModelPhenotypeMatch>> geneModelPhenotypeMatches) {
-        return gene -> geneModelPhenotypeMatches.getOrDefault(gene.getEntrezGeneID(), Optional.empty())
+    private Function<Gene, PhivePriorityResult> getPhivePriorityResult(Map<Integer, GeneModelPhenotypeMatch> geneModelPhenotypeMatches) {
+        return gene -> Optional.ofNullable(geneModelPhenotypeMatches.get(gene.getEntrezGeneID()))
                     .map(makeModelPhivePriorityResult())
                     //This is set to 0.6 otherwise the performance is poor for genes with no mouse models.
                     //The rankings are quite different to hiPhive because of this - HiPhive uses 0 if there are no models.
@@ -111,26 +115,40 @@ private Function<GeneModelPhenotypeMatch, PhivePriorityResult> makeModelPhivePri
         return modelPhenotypeMatch -> new PhivePriorityResult(modelPhenotypeMatch.getEntrezGeneId(), modelPhenotypeMatch.getHumanGeneSymbol(), modelPhenotypeMatch.getScore(), modelPhenotypeMatch);
     }
 
-    private List<GeneModelPhenotypeMatch> scoreModels(PhenotypeMatcher organismPhenotypeMatcher, Collection<GeneModel> models) {
-        Organism organism = organismPhenotypeMatcher.getOrganism();
-
-        ModelScorer modelScorer = PhenodigmModelScorer.forSingleCrossSpecies(organismPhenotypeMatcher);
+    // Only the scores are calculated for all the models of the wanted genes, using the raw values shared via the
+    // ModelScoringContext - the full GeneModelPhenotypeMatch is only made for the best model for each gene.
+    private Map<Integer, GeneModelPhenotypeMatch> scoreBestModelByGene(ModelScoringContext scoringContext, Set<Integer> wantedGeneIds) {
+        Organism organism = Organism.MOUSE;
+        PhenotypeMatcher humanMousePhenotypeMatcher = scoringContext.getPhenotypeMatcher(organism);
+        PhenodigmModelScorer modelScorer = PhenodigmModelScorer.forSingleCrossSpecies(humanMousePhenotypeMatcher);
 
         logger.info("Scoring {} models", organism);
         Instant timeStart = Instant.now();
-        //running this in parallel here can cut the overall time for this method in half or better - ~650ms -> ~350ms on Pfeiffer test set.
-        List<GeneModelPhenotypeMatch> geneModelPhenotypeMatches = models.parallelStream()
-                .map(model -> {
-                    ModelPhenotypeMatch score = modelScorer.scoreModel(model);
-                    return new GeneModelPhenotypeMatch(score.getScore(), model, score.getBestPhenotypeMatches());
-                })
-                .collect(toList());
+        //only the models of the wanted genes are visited
+        List<GeneModel> models = scoringContext.getModelProfileIndex(organism).getModels();
+        int[] modelIndexes = scoringContext.getModelProfileIndex(organism).getModelIndexesForKeys(wantedGeneIds);
+        double[] scores = scoringContext.scoreModels(organism, modelIndexes, model -> true, modelScorer::calculateCombinedScore);
+
+        //the models are in ascending index order, so where scores are equal the first model wins
+        Map<Integer, Integer> bestModelPositionByGene = new HashMap<>();
+        for (int i = 0; i < modelIndexes.length; i++) {
+            int position = i;
+            bestModelPositionByGene.merge(models.get(modelIndexes[i]).getEntrezGeneId(), position, (current, next) -> scores[next] > scores[current] ? next : current);
+        }
+
+        Map<Integer, GeneModelPhenotypeMatch> geneModelPhenotypeMatches = bestModelPositionByGene.entrySet().parallelStream()
+                .collect(toMap(Map.Entry::getKey, entry -> makeGeneModelPhenotypeMatch(modelScorer, models.get(modelIndexes[entry.getValue()]))));
 
         Duration duration = Duration.between(timeStart, Instant.now());
-        logger.info("Scored {} {} models - {} ms", models.size(), organism, duration.toMillis());
+        logger.info("Scored {} {} models - {} ms", modelIndexes.length, organism, duration.toMillis());
         return geneModelPhenotypeMatches;
     }
 
+    private GeneModelPhenotypeMatch makeGeneModelPhenotypeMatch(ModelScorer modelScorer, GeneModel model) {
+        ModelPhenotypeMatch score = modelScorer.scoreModel(model);
+        return new GeneModelPhenotypeMatch(score.getScore(), model, score.getBestPhenotypeMatches());
+    }
+
     @Override
     public int hashCode() {
         return Objects.hashCode(PhivePriority.class.getName());
@@ -25,6 +25,8 @@
  */
 package org.monarchinitiative.exomiser.core.prioritisers;
 
+import org.monarchinitiative.exomiser.core.prioritisers.service.SharedModelScoringContext;
+
 import java.util.List;
 
 /**
@@ -49,9 +51,21 @@ public interface PriorityFactory {
 
     PhivePriority makePhivePrioritiser();
 
+    /**
+     * Returns a PhivePriority which shares the model scoring state of an analysis with the other prioritisers made
+     * for that analysis using the same {@link SharedModelScoringContext}.
+     */
+    PhivePriority makePhivePrioritiser(SharedModelScoringContext sharedModelScoringContext);
+
     ExomeWalkerPriority makeExomeWalkerPrioritiser(List<Integer> entrezSeedGenes);
 
     HiPhivePriority makeHiPhivePrioritiser(HiPhiveOptions hiPhiveOptions);
 
+    /**
+     * Returns a HiPhivePriority which shares the model scoring state of an analysis with the other prioritisers made
+     * for that analysis using the same {@link SharedModelScoringContext}.
+     */
+    HiPhivePriority makeHiPhivePrioritiser(HiPhiveOptions hiPhiveOptions, SharedModelScoringContext sharedModelScoringContext);
+
     List<String> getHpoIdsForDiseaseId(String diseaseId);
 }
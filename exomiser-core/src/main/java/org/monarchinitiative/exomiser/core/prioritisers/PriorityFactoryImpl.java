@@ -25,17 +25,24 @@
  */
 package org.monarchinitiative.exomiser.core.prioritisers;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import org.monarchinitiative.exomiser.core.prioritisers.service.PriorityService;
+import org.monarchinitiative.exomiser.core.prioritisers.service.SharedModelScoringContext;
 import org.monarchinitiative.exomiser.core.prioritisers.util.DataMatrix;
+import org.monarchinitiative.exomiser.core.prioritisers.util.PhenixData;
+import org.monarchinitiative.exomiser.core.prioritisers.util.ScoreDistributionContainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Factory class for handling creation of FilterType objects.
@@ -49,16 +56,31 @@ public class PriorityFactoryImpl implements PriorityFactory {
 
     private final PriorityService priorityService;
     private final DataMatrix randomWalkMatrix;
-    private final Path phenixDataDirectory;
+    // The PhenIX ontology, annotations and IC are expensive to build, so are loaded once on first use and then shared
+    // between all PhenixPriority instances.
+    private final Supplier<PhenixData> phenixDataSupplier;
+    // The score distributions are also shared. A container supplied as a bean will be used in preference to the default
+    // so that the memory used can be configured.
+    private final Supplier<ScoreDistributionContainer> scoreDistributionContainerSupplier;
+
+    public PriorityFactoryImpl(PriorityService priorityService, DataMatrix randomWalkMatrix, Path phenixDataDirectory) {
+        this(priorityService, randomWalkMatrix, phenixDataDirectory, false);
+    }
+
+    public PriorityFactoryImpl(PriorityService priorityService, DataMatrix randomWalkMatrix, Path phenixDataDirectory, boolean phenixDataSnapshot) {
+        this(priorityService, randomWalkMatrix, phenixDataDirectory, phenixDataSnapshot, Optional.empty());
+    }
 
     // The randomWalkMatrix takes about 1min to load into RAM and isn't always required, so @Lazy is used to defer loading
-    // until it is required.
-    @Lazy
+    // until it is required. The PhenIX data snapshot is only used when exomiser.phenix-data-snapshot=true as it is
+    // written to the PhenIX data directory.
     @Autowired
-    public PriorityFactoryImpl(PriorityService priorityService, DataMatrix randomWalkMatrix, Path phenixDataDirectory) {
+    public PriorityFactoryImpl(PriorityService priorityService, @Lazy DataMatrix randomWalkMatrix, Path phenixDataDirectory, @Value("${exomiser.phenix-data-snapshot:false}") boolean phenixDataSnapshot, Optional<ScoreDistributionContainer> phenixScoreDistributionContainer) {
         this.priorityService = priorityService;
         this.randomWalkMatrix = randomWalkMatrix;
-        this.phenixDataDirectory = phenixDataDirectory;
+        this.phenixDataSupplier = Suppliers.memoize(() -> PhenixData.load(phenixDataDirectory, phenixDataSnapshot));
+        this.scoreDistributionContainerSupplier = Suppliers.memoize(() -> phenixScoreDistributionContainer.orElseGet(() -> new ScoreDistributionContainer(phenixDataDirectory
+                .toString())));
     }
 
     /**
@@ -118,7 +140,7 @@ public OMIMPriority makeOmimPrioritiser() {
     @Override
     public PhenixPriority makePhenixPrioritiser() {
         boolean symmetric = false;
-        return new PhenixPriority(phenixDataDirectory.toString(), symmetric);
+        return new PhenixPriority(phenixDataSupplier.get(), scoreDistributionContainerSupplier.get(), symmetric);
     }
 
     @Override
@@ -126,6 +148,11 @@ public PhivePriority makePhivePrioritiser() {
         return new PhivePriority(priorityService);
     }
 
+    @Override
+    public PhivePriority makePhivePrioritiser(SharedModelScoringContext sharedModelScoringContext) {
+        return new PhivePriority(priorityService, sharedModelScoringContext);
+    }
+
     @Override
     public ExomeWalkerPriority makeExomeWalkerPrioritiser(List<Integer> entrezSeedGenes) {
         return new ExomeWalkerPriority(randomWalkMatrix, entrezSeedGenes);
@@ -136,4 +163,9 @@ public HiPhivePriority makeHiPhivePrioritiser(HiPhiveOptions hiPhiveOptions) {
         return new HiPhivePriority(hiPhiveOptions, randomWalkMatrix, priorityService);
     }
 
+    @Override
+    public HiPhivePriority makeHiPhivePrioritiser(HiPhiveOptions hiPhiveOptions, SharedModelScoringContext sharedModelScoringContext) {
+        return new HiPhivePriority(hiPhiveOptions, randomWalkMatrix, priorityService, sharedModelScoringContext);
+    }
+
 }
@@ -85,10 +85,12 @@ private List<String> parseHpoIdListFromString(String hpoIdsString) {
         return hpoIdList;
     }
 
+    private static final String GENE_DISEASE_ASSOCIATIONS_QUERY = "SELECT gene_id as entrez_id, symbol as human_gene_symbol, d.disease_id as disease_id, d.diseasename as disease_name, d.TYPE AS disease_type, d.INHERITANCE as inheritance_code, hp_id as pheno_ids FROM entrez2sym e, disease_hp dhp, disease d  WHERE dhp.disease_id = d.DISEASE_ID and e.entrezid = d.GENE_ID";
+
     @Cacheable(value="diseases")
     @Override
     public List<Disease> getDiseaseDataAssociatedWithGeneId(int geneId) {
-        String query = "SELECT gene_id as entrez_id, symbol as human_gene_symbol, d.disease_id as disease_id, d.diseasename as disease_name, d.TYPE AS disease_type, d.INHERITANCE as inheritance_code, hp_id as pheno_ids FROM entrez2sym e, disease_hp dhp, disease d  WHERE dhp.disease_id = d.DISEASE_ID and e.entrezid = d.GENE_ID and d.GENE_ID = ?";
+        String query = GENE_DISEASE_ASSOCIATIONS_QUERY + " and d.GENE_ID = ?";
 
         try (Connection connection = dataSource.getConnection();
              PreparedStatement statement = setQueryGeneId(connection, query, geneId);
@@ -102,6 +104,21 @@ public List<Disease> getDiseaseDataAssociatedWithGeneId(int geneId) {
         return Collections.emptyList();
     }
 
+    @Override
+    public List<Disease> getGeneDiseaseAssociations() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(GENE_DISEASE_ASSOCIATIONS_QUERY);
+             ResultSet rs = statement.executeQuery()){
+
+            List<Disease> diseases = processDiseaseResults(rs);
+            logger.info("Loaded {} gene-disease associations", diseases.size());
+            return diseases;
+
+        } catch (SQLException e) {
+            throw new GeneDiseaseAssociationsException("Unable to load gene-disease associations using query '" + GENE_DISEASE_ASSOCIATIONS_QUERY + "'", e);
+        }
+    }
+
     private PreparedStatement setQueryGeneId(Connection connection, String query, int geneId) throws SQLException {
         PreparedStatement ps = connection.prepareStatement(query);
         ps.setInt(1, geneId);
@@ -125,4 +142,15 @@ private List<Disease> processDiseaseResults(ResultSet rs) throws SQLException{
         }
         return listBuilder.build();
     }
+
+    /**
+     * Thrown when the gene-disease associations cannot be read. Unlike the per-gene query an empty list is not returned
+     * as this would be mistaken for there being no associations at all.
+     */
+    public static class GeneDiseaseAssociationsException extends RuntimeException {
+
+        GeneDiseaseAssociationsException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
 }
@@ -39,4 +39,11 @@ public interface DiseaseDao {
     Set<String> getHpoIdsForDiseaseId(String diseaseId);
 
     List<Disease> getDiseaseDataAssociatedWithGeneId(int geneId);
+
+    /**
+     * @return all the gene-disease associations, as returned by {@link #getDiseaseDataAssociatedWithGeneId(int)} for
+     * every gene. Implementations should throw a RuntimeException rather than return an empty list if these cannot be
+     * read.
+     */
+    List<Disease> getGeneDiseaseAssociations();
 }
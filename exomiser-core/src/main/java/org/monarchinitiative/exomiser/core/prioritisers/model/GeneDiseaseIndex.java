@@ -0,0 +1,102 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.model;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import java.util.*;
+
+/**
+ * Immutable index of the diseases associated with each gene, keyed by Entrez gene id. The set of inheritance modes of
+ * the OMIM diseases of each gene is pre-computed as this is all the OMIM prioritiser needs to score a gene.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public final class GeneDiseaseIndex {
+
+    private static final GeneDiseaseIndex EMPTY = new GeneDiseaseIndex(ImmutableMap.of(), ImmutableMap.of());
+
+    private final Map<Integer, List<Disease>> diseasesByGeneId;
+    private final Map<Integer, Set<InheritanceMode>> omimInheritanceModesByGeneId;
+
+    private GeneDiseaseIndex(Map<Integer, List<Disease>> diseasesByGeneId, Map<Integer, Set<InheritanceMode>> omimInheritanceModesByGeneId) {
+        this.diseasesByGeneId = diseasesByGeneId;
+        this.omimInheritanceModesByGeneId = omimInheritanceModesByGeneId;
+    }
+
+    public static GeneDiseaseIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param diseases the gene-disease associations. The diseases of each gene are kept in the order supplied.
+     */
+    public static GeneDiseaseIndex of(Collection<Disease> diseases) {
+        Map<Integer, ImmutableList.Builder<Disease>> diseaseListBuilders = new LinkedHashMap<>();
+        Map<Integer, Set<InheritanceMode>> omimInheritanceModes = new LinkedHashMap<>();
+        for (Disease disease : diseases) {
+            Integer geneId = disease.getAssociatedGeneId();
+            diseaseListBuilders.computeIfAbsent(geneId, key -> ImmutableList.builder()).add(disease);
+            if (disease.getDiseaseId().startsWith("OMIM")) {
+                InheritanceMode inheritanceMode = disease.getInheritanceMode() == null ? InheritanceMode.UNKNOWN : disease.getInheritanceMode();
+                omimInheritanceModes.computeIfAbsent(geneId, key -> EnumSet.noneOf(InheritanceMode.class)).add(inheritanceMode);
+            }
+        }
+        ImmutableMap.Builder<Integer, List<Disease>> diseasesByGeneId = ImmutableMap.builder();
+        diseaseListBuilders.forEach((geneId, diseaseList) -> diseasesByGeneId.put(geneId, diseaseList.build()));
+        ImmutableMap.Builder<Integer, Set<InheritanceMode>> omimInheritanceModesByGeneId = ImmutableMap.builder();
+        omimInheritanceModes.forEach((geneId, modes) -> omimInheritanceModesByGeneId.put(geneId, Sets.immutableEnumSet(modes)));
+        return new GeneDiseaseIndex(diseasesByGeneId.build(), omimInheritanceModesByGeneId.build());
+    }
+
+    /**
+     * @return the diseases associated with the gene or an empty list if there are none.
+     */
+    public List<Disease> getDiseasesForGene(int entrezGeneId) {
+        return diseasesByGeneId.getOrDefault(entrezGeneId, ImmutableList.of());
+    }
+
+    /**
+     * @return the distinct inheritance modes of the OMIM diseases associated with the gene or an empty set if there
+     * are none.
+     */
+    public Set<InheritanceMode> getOmimInheritanceModesForGene(int entrezGeneId) {
+        return omimInheritanceModesByGeneId.getOrDefault(entrezGeneId, ImmutableSet.of());
+    }
+
+    public boolean containsGene(int entrezGeneId) {
+        return diseasesByGeneId.containsKey(entrezGeneId);
+    }
+
+    public int size() {
+        return diseasesByGeneId.size();
+    }
+
+    @Override
+    public String toString() {
+        return "GeneDiseaseIndex{" +
+                "genes=" + diseasesByGeneId.size() +
+                '}';
+    }
+}
@@ -25,7 +25,9 @@
  */
 package org.monarchinitiative.exomiser.core.prioritisers.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.monarchinitiative.exomiser.core.phenotype.Organism;
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTermIndex;
 
 import java.util.List;
 import java.util.Objects;
@@ -46,6 +48,7 @@ public class GeneDiseaseModel implements GeneModel {
     private final String diseaseTerm;
     
     private final List<String> phenotypeIds;
+    private final int[] phenotypeIndexes;
 
     public GeneDiseaseModel(String modelId, Organism organism, int entrezGeneId, String humanGeneSymbol, String diseaseId, String diseaseTerm, List<String> phenotypeIds) {
         this.modelId = modelId;
@@ -58,6 +61,7 @@ public GeneDiseaseModel(String modelId, Organism organism, int entrezGeneId, Str
         this.diseaseTerm = diseaseTerm;
     
         this.phenotypeIds = phenotypeIds;
+        this.phenotypeIndexes = phenotypeIds == null ? new int[0] : PhenotypeTermIndex.indexTerms(phenotypeIds);
     }
     
     public String getDiseaseId() {
@@ -93,6 +97,12 @@ public List<String> getPhenotypeIds() {
         return phenotypeIds;
     }
 
+    @JsonIgnore
+    @Override
+    public int[] getPhenotypeIndexes() {
+        return phenotypeIndexes;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -67,6 +67,12 @@ public List<String> getPhenotypeIds() {
         return model.getPhenotypeIds();
     }
 
+    @JsonIgnore
+    @Override
+    public int[] getPhenotypeIndexes() {
+        return model.getPhenotypeIndexes();
+    }
+
     @JsonIgnore
     @Override
     public Organism getOrganism() {
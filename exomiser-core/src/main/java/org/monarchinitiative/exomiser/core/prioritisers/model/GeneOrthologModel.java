@@ -25,7 +25,9 @@
  */
 package org.monarchinitiative.exomiser.core.prioritisers.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.monarchinitiative.exomiser.core.phenotype.Organism;
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTermIndex;
 
 import java.util.List;
 import java.util.Objects;
@@ -60,6 +62,7 @@ public class GeneOrthologModel implements GeneModel {
     private final String modelGeneSymbol;
     
     private final List<String> phenotypeIds;
+    private final int[] phenotypeIndexes;
     
     public GeneOrthologModel(String modelId, Organism organism, int entrezGeneId, String humanGeneSymbol, String modelGeneId, String modelGeneSymbol, List<String> phenotypeIds) {
         this.modelId = modelId;
@@ -72,6 +75,7 @@ public GeneOrthologModel(String modelId, Organism organism, int entrezGeneId, St
         this.modelGeneSymbol = modelGeneSymbol;
         
         this.phenotypeIds = phenotypeIds;
+        this.phenotypeIndexes = phenotypeIds == null ? new int[0] : PhenotypeTermIndex.indexTerms(phenotypeIds);
     }
 
     public String getModelGeneId() {
@@ -107,6 +111,12 @@ public List<String> getPhenotypeIds() {
         return phenotypeIds;
     }
 
+    @JsonIgnore
+    @Override
+    public int[] getPhenotypeIndexes() {
+        return phenotypeIndexes;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
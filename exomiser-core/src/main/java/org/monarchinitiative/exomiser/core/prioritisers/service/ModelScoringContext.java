@@ -0,0 +1,186 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.service;
+
+import org.monarchinitiative.exomiser.core.phenotype.ModelProfileIndex;
+import org.monarchinitiative.exomiser.core.phenotype.Organism;
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeMatcher;
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTerm;
+import org.monarchinitiative.exomiser.core.prioritisers.model.GeneModel;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Model scoring state for a set of query phenotypes which is shared by all the prioritisers scoring models against
+ * them. Phive and HiPhive both score the mouse models against the same HP-MP matches and only differ in how the raw
+ * Phenodigm values are normalised, so the {@link PhenotypeMatcher} for each organism is created once and the raw
+ * values (maximum match score, sum of best match scores and number of matching phenotypes) of each model phenotype
+ * profile are only calculated once. Each prioritiser then applies its own normalisation to these.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class ModelScoringContext {
+
+    private final List<PhenotypeTerm> queryPhenotypeTerms;
+    private final BiFunction<List<PhenotypeTerm>, Organism, PhenotypeMatcher> phenotypeMatcherFactory;
+    private final Function<Organism, ModelProfileIndex<GeneModel>> modelProfileIndexSupplier;
+
+    private final Map<Organism, OrganismModelScores> organismModelScores = new ConcurrentHashMap<>();
+
+    ModelScoringContext(List<PhenotypeTerm> queryPhenotypeTerms, BiFunction<List<PhenotypeTerm>, Organism, PhenotypeMatcher> phenotypeMatcherFactory, Function<Organism, ModelProfileIndex<GeneModel>> modelProfileIndexSupplier) {
+        this.queryPhenotypeTerms = queryPhenotypeTerms;
+        this.phenotypeMatcherFactory = phenotypeMatcherFactory;
+        this.modelProfileIndexSupplier = modelProfileIndexSupplier;
+    }
+
+    public List<PhenotypeTerm> getQueryPhenotypeTerms() {
+        return queryPhenotypeTerms;
+    }
+
+    private OrganismModelScores getOrganismModelScores(Organism organism) {
+        return organismModelScores.computeIfAbsent(organism, key -> new OrganismModelScores(phenotypeMatcherFactory.apply(queryPhenotypeTerms, key), modelProfileIndexSupplier
+                .apply(key)));
+    }
+
+    /**
+     * @return the matcher for the query phenotypes against the phenotypes of the organism. This is only created once.
+     */
+    public PhenotypeMatcher getPhenotypeMatcher(Organism organism) {
+        return getOrganismModelScores(organism).phenotypeMatcher;
+    }
+
+    public ModelProfileIndex<GeneModel> getModelProfileIndex(Organism organism) {
+        return getOrganismModelScores(organism).modelProfileIndex;
+    }
+
+    /**
+     * Scores a single phenotype profile of the organism's {@link ModelProfileIndex}. The raw values of the profile
+     * are calculated on first use and then passed to the scoreFunction.
+     *
+     * @param profileIndex  index of the profile in the organism's {@link ModelProfileIndex}
+     * @param scoreFunction normalises the raw values, e.g. {@code PhenodigmModelScorer::calculateCombinedScore}
+     */
+    public double scoreProfile(Organism organism, int profileIndex, PhenotypeMatcher.RawScoreFunction scoreFunction) {
+        return getOrganismModelScores(organism).scoreProfile(profileIndex, scoreFunction);
+    }
+
+    /**
+     * Equivalent of {@link ModelProfileIndex#scoreModels(int[], Predicate, java.util.function.ToDoubleFunction)} for
+     * the organism's {@link ModelProfileIndex}, where the raw values of each profile are calculated once and shared
+     * between all callers.
+     *
+     * @return an array of scores in the same order as the modelIndexes. Models not selected have a score of 0.
+     */
+    public double[] scoreModels(Organism organism, int[] modelIndexes, Predicate<? super GeneModel> modelFilter, PhenotypeMatcher.RawScoreFunction scoreFunction) {
+        OrganismModelScores scores = getOrganismModelScores(organism);
+        ModelProfileIndex<GeneModel> modelProfileIndex = scores.modelProfileIndex;
+        List<GeneModel> models = modelProfileIndex.getModels();
+
+        boolean[] selectedModels = new boolean[modelIndexes.length];
+        BitSet profilesToScore = new BitSet(modelProfileIndex.numProfiles());
+        for (int i = 0; i < selectedModels.length; i++) {
+            if (modelFilter.test(models.get(modelIndexes[i]))) {
+                selectedModels[i] = true;
+                profilesToScore.set(modelProfileIndex.getProfileIndex(modelIndexes[i]));
+            }
+        }
+
+        double[] profileScores = new double[modelProfileIndex.numProfiles()];
+        profilesToScore.stream().parallel().forEach(profile -> profileScores[profile] = scores.scoreProfile(profile, scoreFunction));
+
+        double[] modelScores = new double[modelIndexes.length];
+        for (int i = 0; i < modelScores.length; i++) {
+            if (selectedModels[i]) {
+                modelScores[i] = profileScores[modelProfileIndex.getProfileIndex(modelIndexes[i])];
+            }
+        }
+        return modelScores;
+    }
+
+    /**
+     * @return the number of distinct profiles of the organism whose raw values have been calculated
+     */
+    int numMatchedProfiles(Organism organism) {
+        OrganismModelScores scores = organismModelScores.get(organism);
+        if (scores == null) {
+            return 0;
+        }
+        int numMatched = 0;
+        for (int i = 0; i < scores.rawProfileScores.length(); i++) {
+            if (scores.rawProfileScores.get(i) != null) {
+                numMatched++;
+            }
+        }
+        return numMatched;
+    }
+
+    private static class OrganismModelScores {
+
+        private final PhenotypeMatcher phenotypeMatcher;
+        private final ModelProfileIndex<GeneModel> modelProfileIndex;
+        //maxModelMatchScore, sumModelBestMatchScores and numMatchingPhenotypes of each profile, or null if not yet matched
+        private final AtomicReferenceArray<double[]> rawProfileScores;
+
+        private OrganismModelScores(PhenotypeMatcher phenotypeMatcher, ModelProfileIndex<GeneModel> modelProfileIndex) {
+            this.phenotypeMatcher = phenotypeMatcher;
+            this.modelProfileIndex = modelProfileIndex;
+            this.rawProfileScores = new AtomicReferenceArray<>(modelProfileIndex.numProfiles());
+        }
+
+        private double scoreProfile(int profileIndex, PhenotypeMatcher.RawScoreFunction scoreFunction) {
+            double[] raw = rawProfileScores.get(profileIndex);
+            if (raw == null) {
+                //two threads may match the same profile at once, but the values will be identical
+                raw = matchProfile(modelProfileIndex.getProfile(profileIndex));
+                rawProfileScores.set(profileIndex, raw);
+            }
+            return scoreFunction.apply(raw[0], raw[1], (int) raw[2]);
+        }
+
+        private double[] matchProfile(int[] profile) {
+            double[] raw = new double[3];
+            phenotypeMatcher.scorePhenotypeIndexes(profile, (maxModelMatchScore, sumModelBestMatchScores, numMatchingPhenotypes) -> {
+                raw[0] = maxModelMatchScore;
+                raw[1] = sumModelBestMatchScores;
+                raw[2] = numMatchingPhenotypes;
+                return 0;
+            });
+            return raw;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ModelScoringContext{" +
+                "queryPhenotypeTerms=" + queryPhenotypeTerms.size() +
+                ", organisms=" + organismModelScores.keySet() +
+                '}';
+    }
+}
@@ -25,25 +25,35 @@
  */
 package org.monarchinitiative.exomiser.core.prioritisers.service;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import org.monarchinitiative.exomiser.core.phenotype.Organism;
 import org.monarchinitiative.exomiser.core.prioritisers.model.GeneDiseaseModel;
 import org.monarchinitiative.exomiser.core.prioritisers.model.GeneModel;
 import org.monarchinitiative.exomiser.core.prioritisers.model.GeneOrthologModel;
+import org.monarchinitiative.exomiser.core.prioritisers.util.GeneModelIO;
+import org.monarchinitiative.exomiser.core.prioritisers.util.GeneModelIO.GeneModelIoException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import javax.sql.DataSource;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
+ * Loads the gene models from the database or, if one has been configured, from the binary gene model file written
+ * by the exomiser-db build using {@link GeneModelIO}.
  *
  * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
  */
@@ -55,8 +65,43 @@ public class ModelServiceImpl implements ModelService {
     @Autowired
     private DataSource dataSource;
 
+    @Autowired(required = false)
+    @Qualifier("geneModelFilePath")
+    private Path geneModelFilePath;
+
+    private final Supplier<Map<Organism, List<GeneModel>>> geneModelFileModels = Suppliers.memoize(this::readGeneModelFile);
+
+    public ModelServiceImpl() {
+    }
+
+    public ModelServiceImpl(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Any problem with the gene model file is logged and the models are loaded from the database instead. This is
+     * returned rather than thrown so that the memoized supplier doesn't try to read a broken file for every organism.
+     */
+    private Map<Organism, List<GeneModel>> readGeneModelFile() {
+        try {
+            if (geneModelFilePath == null || !GeneModelIO.isGeneModelFile(geneModelFilePath)) {
+                logger.info("No current gene model file found - models will be loaded from the database");
+                return Collections.emptyMap();
+            }
+            logger.info("Loading models from gene model file {}", geneModelFilePath);
+            return GeneModelIO.readGeneModels(geneModelFilePath);
+        } catch (GeneModelIoException e) {
+            logger.warn("Unable to read gene model file {} - models will be loaded from the database", geneModelFilePath, e);
+            return Collections.emptyMap();
+        }
+    }
+
     @Override
     public List<GeneModel> getHumanGeneDiseaseModels() {
+        List<GeneModel> storedModels = geneModelFileModels.get().get(Organism.HUMAN);
+        if (storedModels != null) {
+            return storedModels;
+        }
         // We only connect to human2mouse_orthologs to get the human_gene_symbol but if there is no orthology mapping we get 0 results and no disease hit at all - this is daft!
         // Tried to replace with the below - should be more successful
         String modelQuery = "SELECT distinct 'HUMAN' as organism, gene_id as entrez_id, symbol as human_gene_symbol, d.disease_id as disease_id, d.diseasename as disease_term, hp_id as pheno_ids FROM entrez2sym e, disease_hp M, disease d WHERE e.entrezid=d.gene_id and M.disease_id=d.disease_id"; 
@@ -66,12 +111,20 @@ public List<GeneModel> getHumanGeneDiseaseModels() {
 
     @Override
     public List<GeneModel> getMouseGeneOrthologModels() {
+        List<GeneModel> storedModels = geneModelFileModels.get().get(Organism.MOUSE);
+        if (storedModels != null) {
+            return storedModels;
+        }
         String modelQuery = "SELECT 'MOUSE' as organism, entrez_id, human_gene_symbol, mouse_model_id as model_id, M.mgi_gene_id as model_gene_id, M.mgi_gene_symbol as model_gene_symbol, mp_id as pheno_ids FROM mgi_mp M, human2mouse_orthologs H WHERE M.mgi_gene_id=H.mgi_gene_id and human_gene_symbol != 'null'";
         return runGeneOrthologModelQuery(modelQuery);
     }
 
     @Override
     public List<GeneModel> getFishGeneOrthologModels() {
+        List<GeneModel> storedModels = geneModelFileModels.get().get(Organism.FISH);
+        if (storedModels != null) {
+            return storedModels;
+        }
         String modelQuery = "SELECT 'FISH' as organism, entrez_id, human_gene_symbol, zfin_model_id as model_id, M.zfin_gene_id as model_gene_id, M.zfin_gene_symbol as model_gene_symbol, zp_id as pheno_ids FROM zfin_zp M, human2fish_orthologs H WHERE M.zfin_gene_id=H.zfin_gene_id and human_gene_symbol != 'null'";
         return runGeneOrthologModelQuery(modelQuery);
     }
@@ -26,21 +26,24 @@
 package org.monarchinitiative.exomiser.core.prioritisers.service;
 
 import com.google.common.collect.ImmutableList;
+import org.monarchinitiative.exomiser.core.phenotype.ModelProfileIndex;
 import org.monarchinitiative.exomiser.core.phenotype.Organism;
 import org.monarchinitiative.exomiser.core.phenotype.PhenotypeMatchService;
 import org.monarchinitiative.exomiser.core.phenotype.PhenotypeMatcher;
 import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTerm;
 import org.monarchinitiative.exomiser.core.prioritisers.dao.DiseaseDao;
 import org.monarchinitiative.exomiser.core.prioritisers.model.Disease;
+import org.monarchinitiative.exomiser.core.prioritisers.model.GeneDiseaseIndex;
 import org.monarchinitiative.exomiser.core.prioritisers.model.GeneModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service class which offers a single interface to other services required by
@@ -57,6 +60,10 @@ public class PriorityService {
     private final PhenotypeMatchService phenotypeMatchService;
     private final DiseaseDao diseaseDao;
 
+    private volatile GeneDiseaseIndex geneDiseaseIndex;
+
+    private final Map<Organism, ModelProfileIndex<GeneModel>> modelProfileIndexes = new ConcurrentHashMap<>();
+
     @Autowired
     public PriorityService(ModelService modelService, PhenotypeMatchService phenotypeMatchService, DiseaseDao diseaseDao) {
         this.modelService = modelService;
@@ -85,8 +92,38 @@ public PhenotypeMatcher getPhenotypeMatcherForOrganism(List<PhenotypeTerm> query
         }
     }
 
-    @Cacheable(value = "models", key = "#species", cacheResolver = "modelCacheResolver")
+    /**
+     * @return the models held by the {@link ModelProfileIndex} for the organism, so these are only loaded once.
+     */
     public List<GeneModel> getModelsForOrganism(Organism species) {
+        return getModelProfileIndexForOrganism(species).getModels();
+    }
+
+    /**
+     * Returns the models for the organism indexed by their distinct phenotype profiles so that models with identical
+     * phenotypes are only scored once per query. The models are keyed by their Entrez gene id so that only the models
+     * of the genes being prioritised need be scored. The index is only created once for each organism.
+     */
+    public ModelProfileIndex<GeneModel> getModelProfileIndexForOrganism(Organism species) {
+        return modelProfileIndexes.computeIfAbsent(species, this::indexModelsForOrganism);
+    }
+
+    /**
+     * Returns a new {@link ModelScoringContext} for the query phenotypes. This is not kept here - the prioritisers of an
+     * analysis, e.g. Phive and HiPhive, share it through the {@link SharedModelScoringContext} of that analysis so that
+     * the phenotype matchers are only created and each model phenotype profile only matched once per analysis.
+     */
+    public ModelScoringContext makeModelScoringContext(List<PhenotypeTerm> queryPhenotypeTerms) {
+        return new ModelScoringContext(ImmutableList.copyOf(queryPhenotypeTerms), this::getPhenotypeMatcherForOrganism, this::getModelProfileIndexForOrganism);
+    }
+
+    private ModelProfileIndex<GeneModel> indexModelsForOrganism(Organism species) {
+        ModelProfileIndex<GeneModel> modelProfileIndex = ModelProfileIndex.of(loadModelsForOrganism(species), GeneModel::getEntrezGeneId);
+        logger.info("Indexed {} {} models for {} genes by {} distinct phenotype profiles", modelProfileIndex.size(), species, modelProfileIndex.numKeys(), modelProfileIndex.numProfiles());
+        return modelProfileIndex;
+    }
+
+    private List<GeneModel> loadModelsForOrganism(Organism species) {
         logger.info("Fetching disease/gene model phenotype annotations and HUMAN-{} gene orthologs", species);
         switch (species) {
             case HUMAN:
@@ -104,4 +141,23 @@ public List<Disease> getDiseaseDataAssociatedWithGeneId(int geneId) {
         return diseaseDao.getDiseaseDataAssociatedWithGeneId(geneId);
     }
 
+    /**
+     * The gene-disease associations are loaded from the database once, on first use. If these cannot be loaded the
+     * exception is passed on and nothing is stored, so the load is tried again on the next call.
+     */
+    public GeneDiseaseIndex getGeneDiseaseIndex() {
+        GeneDiseaseIndex index = geneDiseaseIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = geneDiseaseIndex;
+                if (index == null) {
+                    index = GeneDiseaseIndex.of(diseaseDao.getGeneDiseaseAssociations());
+                    logger.info("Indexed diseases for {} genes", index.size());
+                    geneDiseaseIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
 }
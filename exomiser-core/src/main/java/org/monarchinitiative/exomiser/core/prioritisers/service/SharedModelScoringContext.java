@@ -0,0 +1,68 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.service;
+
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTerm;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toCollection;
+
+/**
+ * Holds the {@link ModelScoringContext} of a single analysis, so that the Phive and HiPhive prioritisers made for that
+ * analysis score their models using the same phenotype matchers and raw profile scores. The context is created on
+ * first use and is only replaced if asked for different query phenotypes, compared as a set of term ids so that the
+ * order of the terms does not matter. Nothing is kept once the analysis holding this is no longer used.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class SharedModelScoringContext {
+
+    private Set<String> queryTermIds = Collections.emptySet();
+    private ModelScoringContext modelScoringContext;
+
+    /**
+     * @param queryPhenotypeTerms the query phenotypes of the analysis
+     * @param contextFactory      makes a new context for the phenotypes, e.g. {@code PriorityService::makeModelScoringContext}
+     * @return the context for the query phenotypes, which is the same instance for all callers using the same phenotypes
+     */
+    public synchronized ModelScoringContext getModelScoringContext(List<PhenotypeTerm> queryPhenotypeTerms, Function<List<PhenotypeTerm>, ModelScoringContext> contextFactory) {
+        Set<String> termIds = queryPhenotypeTerms.stream().map(PhenotypeTerm::getId).collect(toCollection(TreeSet::new));
+        if (modelScoringContext == null || !termIds.equals(queryTermIds)) {
+            modelScoringContext = contextFactory.apply(queryPhenotypeTerms);
+            queryTermIds = termIds;
+        }
+        return modelScoringContext;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "SharedModelScoringContext{" +
+                "queryTermIds=" + queryTermIds +
+                '}';
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.util;
+
+import ontologizer.go.Ontology;
+import ontologizer.go.Term;
+import similarity.concepts.ResnikSimilarity;
+
+import java.util.HashMap;
+
+/**
+ * A ResnikSimilarity which remembers the similarity of previously seen pairs of terms in a
+ * {@link TermPairSimilarityCache}, finding the IC of the most informative common ancestor of a pair only the first time
+ * it is seen. The Ontologizer ResnikSimilarity makes no guarantees of thread-safety, so each thread should use its own
+ * instance. Only the cache is intended to be shared between them.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+class CachingResnikSimilarity extends ResnikSimilarity {
+
+    private final TermPairSimilarityCache termPairSimilarityCache;
+
+    CachingResnikSimilarity(Ontology hpo, HashMap<Term, Double> term2ic, TermPairSimilarityCache termPairSimilarityCache) {
+        super(hpo, term2ic);
+        this.termPairSimilarityCache = termPairSimilarityCache;
+    }
+
+    @Override
+    public double computeSimilarity(Term termA, Term termB) {
+        return termPairSimilarityCache.getSimilarity(termA.getID().id, termB.getID().id, () -> super.computeSimilarity(termA, termB));
+    }
+}
@@ -21,66 +21,84 @@
 package org.monarchinitiative.exomiser.core.prioritisers.util;
 
 import org.jblas.FloatMatrix;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
-import java.util.Objects;
+import java.util.stream.IntStream;
 
 /**
- * Contains the random walk relationships and the entrez-id to index relations.
+ * Contains the random walk relationships and the entrez-id to index relations. The random walk matrix is symmetrical,
+ * so the row and column index of a gene are the same.
  *
  * @author Sebastian Köhler <dr.sebastian.koehler@gmail.com>
  * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
  */
-public class DataMatrix {
+public interface DataMatrix {
 
-    private static final Logger logger = LoggerFactory.getLogger(DataMatrix.class);
+    DataMatrix EMPTY = new InMemoryDataMatrix(FloatMatrix.EMPTY, Collections.emptyMap());
 
-    public static final DataMatrix EMPTY = new DataMatrix(FloatMatrix.EMPTY, Collections.emptyMap());
+    Map<Integer, Integer> getEntrezIdToRowIndex();
 
-    private final FloatMatrix matrix;
-    private final Map<Integer, Integer> entrezIdToRowIndex;
+    /**
+     * @return the number of rows in the matrix, i.e. the length of the columns returned by
+     * {@link #getColumnMatrixForGene(int)}
+     */
+    int numRows();
 
-    public DataMatrix(FloatMatrix matrix, Map<Integer, Integer> entrezIdToRowIndex) {
-        this.matrix = matrix;
-        this.entrezIdToRowIndex = entrezIdToRowIndex;
+    default boolean containsGene(Integer entrezGeneId) {
+        return getEntrezIdToRowIndex().containsKey(entrezGeneId);
     }
 
-    public Map<Integer, Integer> getEntrezIdToRowIndex() {
-        return entrezIdToRowIndex;
+    default Integer getRowIndexForGene(int entrezGeneId) {
+        return getEntrezIdToRowIndex().get(entrezGeneId);
     }
 
-    public FloatMatrix getMatrix() {
-        return matrix;
-    }
-
-    public boolean containsGene(Integer entrezGeneId) {
-        return entrezIdToRowIndex.containsKey(entrezGeneId);
-    }
+    /**
+     * @param entrezGeneId of a gene in the matrix
+     * @return a new column vector of the random walk scores of all the genes to the gene
+     */
+    FloatMatrix getColumnMatrixForGene(int entrezGeneId);
 
-    public Integer getRowIndexForGene(int entrezGeneId) {
-        return entrezIdToRowIndex.get(entrezGeneId);
+    /**
+     * Adds the values of rows rowStart (inclusive) to rowEnd (exclusive) of the column for the gene to the same rows of
+     * the sums array. Implementations should read directly from their backing storage rather than copying the column.
+     *
+     * @param entrezGeneId of a gene in the matrix
+     * @param sums         array of length {@link #numRows()} to be added to
+     * @param rowStart     first row to add
+     * @param rowEnd       row after the last row to add
+     */
+    default void addColumnForGene(int entrezGeneId, float[] sums, int rowStart, int rowEnd) {
+        float[] column = getColumnMatrixForGene(entrezGeneId).data;
+        for (int row = rowStart; row < rowEnd; row++) {
+            sums[row] += column[row];
+        }
     }
 
-    public FloatMatrix getColumnMatrixForGene(int entrezGeneId) {
-        //the PPI float matrix is symmetrical so this will work here.
-        Integer rowIndex = entrezIdToRowIndex.get(entrezGeneId);
-        return matrix.getColumn(rowIndex);
+    /**
+     * Sums the columns of the genes into a single vector without creating an intermediate column for each gene. The
+     * rows are split into blocks which are summed in parallel. Within each row the columns are added in the iteration
+     * order of the input so the result is the same as adding the columns one after another. Genes not in the matrix
+     * are ignored.
+     *
+     * @param entrezGeneIds of the columns to sum
+     * @return a new array of length {@link #numRows()} containing the sum of the columns
+     */
+    default float[] sumColumnsForGenes(Collection<Integer> entrezGeneIds) {
+        int rowBlockSize = 4096;
+        int numRows = numRows();
+        int[] geneIds = entrezGeneIds.stream().filter(this::containsGene).mapToInt(Integer::intValue).toArray();
+        float[] sums = new float[numRows];
+        int numRowBlocks = (numRows + rowBlockSize - 1) / rowBlockSize;
+        IntStream.range(0, numRowBlocks).parallel().forEach(rowBlock -> {
+            int rowStart = rowBlock * rowBlockSize;
+            int rowEnd = Math.min(rowStart + rowBlockSize, numRows);
+            for (int geneId : geneIds) {
+                addColumnForGene(geneId, sums, rowStart, rowEnd);
+            }
+        });
+        return sums;
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (!(o instanceof DataMatrix)) return false;
-        DataMatrix that = (DataMatrix) o;
-        return Objects.equals(matrix, that.matrix) &&
-                Objects.equals(entrezIdToRowIndex, that.entrezIdToRowIndex);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(matrix, entrezIdToRowIndex);
-    }
 }
@@ -25,6 +25,12 @@
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.zip.GZIPInputStream;
@@ -39,6 +45,12 @@ public class DataMatrixIO {
 
     private static final String TAB_DELIMITER = "\t";
 
+    //Binary format: header of magic, version, number of rows, number of columns and number of index entries followed by
+    //the index entries as (entrezId, index) pairs and then the row-major matrix values. All values are big-endian.
+    private static final int BINARY_MAGIC = 0x45584D58;
+    private static final int BINARY_VERSION = 1;
+    private static final int BINARY_HEADER_BYTES = 5 * Integer.BYTES;
+
     /*
      * This shouldn't be instantiated.
      */
@@ -47,7 +59,175 @@ private DataMatrixIO() {}
     public static DataMatrix loadDataMatrix(String matrixFileZip, String entrezId2indexFileZip, boolean shouldUseExponent) {
         Map<Integer, Integer> index = createIndex(entrezId2indexFileZip);
         FloatMatrix floatMatrix = createMatrixfromFile(index.size(), matrixFileZip, shouldUseExponent);
-        return new DataMatrix(floatMatrix, index);
+        return new InMemoryDataMatrix(floatMatrix, index);
+    }
+
+    /**
+     * Loads the matrix into a {@link SparseDataMatrix} which only keeps the top maxEntriesPerColumn entries of each
+     * column. The file is read a line at a time so the full dense matrix is never held in memory. As the random walk
+     * matrix is symmetrical each row of the file is added as the column of the same index.
+     */
+    public static SparseDataMatrix loadSparseDataMatrix(String matrixFileZip, String entrezId2indexFileZip, boolean shouldUseExponent, int maxEntriesPerColumn) {
+        Map<Integer, Integer> index = createIndex(entrezId2indexFileZip);
+        int matrixSize = index.size();
+        SparseDataMatrix.Builder builder = SparseDataMatrix.builder(index, matrixSize, maxEntriesPerColumn);
+
+        File matrixFile = new File(matrixFileZip);
+        try (BufferedReader in = gzippedFileBufferedReader(matrixFile)) {
+            float[] row = new float[matrixSize];
+            int i = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                logLineNumberIfMultipleOf(i, 500);
+                parseLineData(line, row, shouldUseExponent);
+                builder.addColumn(row);
+                i++;
+            }
+        } catch (IOException e) {
+            throw new DataMatrixIoException(e);
+        }
+        SparseDataMatrix sparseDataMatrix = builder.build();
+        logger.info("Loaded {}", sparseDataMatrix);
+        return sparseDataMatrix;
+    }
+
+    /**
+     * Converts the gzipped text matrix and index files read by {@link #loadDataMatrix(String, String, boolean)} into a
+     * single binary file which can be opened using {@link #loadMappedDataMatrix(Path)}. The text file is converted a
+     * line at a time so the matrix is never held in memory.
+     */
+    public static void convertToBinaryDataMatrix(String matrixFileZip, String entrezId2indexFileZip, boolean shouldUseExponent, Path binaryFile) {
+        Map<Integer, Integer> index = createIndex(entrezId2indexFileZip);
+        int matrixSize = index.size();
+        File matrixFile = new File(matrixFileZip);
+        try (BufferedReader in = gzippedFileBufferedReader(matrixFile);
+             FileChannel out = FileChannel.open(binaryFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeBinaryHeader(out, index, matrixSize, matrixSize);
+            ByteBuffer rowBuffer = ByteBuffer.allocate(matrixSize * Float.BYTES);
+            float[] row = new float[matrixSize];
+            int i = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                logLineNumberIfMultipleOf(i, 500);
+                parseLineData(line, row, shouldUseExponent);
+                writeBinaryRow(out, rowBuffer, row);
+                i++;
+            }
+            if (i != matrixSize) {
+                throw new DataMatrixIoException(new IllegalStateException("Expected " + matrixSize + " rows in " + matrixFileZip + " but found " + i));
+            }
+        } catch (IOException e) {
+            throw new DataMatrixIoException(e);
+        }
+        logger.info("Converted {} to binary matrix {}", matrixFileZip, binaryFile);
+    }
+
+    /**
+     * Writes the matrix in the binary format read by {@link #loadMappedDataMatrix(Path)}. The matrix is assumed to be
+     * symmetrical so the column of each gene is written as the row of the same index.
+     */
+    public static void writeBinaryDataMatrix(DataMatrix dataMatrix, Path binaryFile) {
+        Map<Integer, Integer> index = dataMatrix.getEntrezIdToRowIndex();
+        int matrixSize = dataMatrix.numRows();
+        Integer[] geneIdsByIndex = new Integer[matrixSize];
+        index.forEach((geneId, idx) -> geneIdsByIndex[idx] = geneId);
+        try (FileChannel out = FileChannel.open(binaryFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeBinaryHeader(out, index, matrixSize, matrixSize);
+            ByteBuffer rowBuffer = ByteBuffer.allocate(matrixSize * Float.BYTES);
+            for (Integer geneId : geneIdsByIndex) {
+                float[] row = geneId == null ? new float[matrixSize] : dataMatrix.getColumnMatrixForGene(geneId).toArray();
+                writeBinaryRow(out, rowBuffer, row);
+            }
+        } catch (IOException e) {
+            throw new DataMatrixIoException(e);
+        }
+    }
+
+    private static void writeBinaryHeader(FileChannel out, Map<Integer, Integer> index, int numRows, int numColumns) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(BINARY_HEADER_BYTES + index.size() * 2 * Integer.BYTES);
+        header.putInt(BINARY_MAGIC)
+                .putInt(BINARY_VERSION)
+                .putInt(numRows)
+                .putInt(numColumns)
+                .putInt(index.size());
+        for (Map.Entry<Integer, Integer> entry : index.entrySet()) {
+            header.putInt(entry.getKey()).putInt(entry.getValue());
+        }
+        header.flip();
+        writeFully(out, header);
+    }
+
+    private static void writeBinaryRow(FileChannel out, ByteBuffer rowBuffer, float[] row) throws IOException {
+        rowBuffer.clear();
+        rowBuffer.asFloatBuffer().put(row);
+        writeFully(out, rowBuffer);
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * @return true if the file starts with the header written by {@link #writeBinaryDataMatrix(DataMatrix, Path)}
+     */
+    public static boolean isBinaryDataMatrix(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            return channel.read(magic, 0) == Integer.BYTES && magic.getInt(0) == BINARY_MAGIC;
+        } catch (IOException e) {
+            throw new DataMatrixIoException(e);
+        }
+    }
+
+    /**
+     * Memory-maps a binary matrix file written by {@link #writeBinaryDataMatrix(DataMatrix, Path)} or
+     * {@link #convertToBinaryDataMatrix(String, String, boolean, Path)}. Only the header and index are read, so this is
+     * near instant regardless of the size of the matrix.
+     */
+    public static MappedDataMatrix loadMappedDataMatrix(Path binaryFile) {
+        try (FileChannel channel = FileChannel.open(binaryFile, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, BINARY_HEADER_BYTES);
+            int magic = header.getInt();
+            int version = header.getInt();
+            if (magic != BINARY_MAGIC || version != BINARY_VERSION) {
+                throw new DataMatrixIoException(new IllegalArgumentException(binaryFile + " is not a version " + BINARY_VERSION + " binary DataMatrix file"));
+            }
+            int numRows = header.getInt();
+            int numColumns = header.getInt();
+            int numIndexEntries = header.getInt();
+
+            long indexBytes = (long) numIndexEntries * 2 * Integer.BYTES;
+            ByteBuffer indexBuffer = channel.map(FileChannel.MapMode.READ_ONLY, BINARY_HEADER_BYTES, indexBytes);
+            Map<Integer, Integer> index = new HashMap<>();
+            for (int i = 0; i < numIndexEntries; i++) {
+                index.put(indexBuffer.getInt(), indexBuffer.getInt());
+            }
+
+            long rowBytes = (long) numColumns * Float.BYTES;
+            long expectedSize = BINARY_HEADER_BYTES + indexBytes + numRows * rowBytes;
+            if (channel.size() != expectedSize) {
+                throw new DataMatrixIoException(new IllegalArgumentException(binaryFile + " expected to be " + expectedSize + " bytes but was " + channel.size()));
+            }
+            int rowsPerBlock = rowBytes == 0 ? Math.max(numRows, 1) : (int) Math.max(1, Integer.MAX_VALUE / rowBytes);
+            int numBlocks = (numRows + rowsPerBlock - 1) / rowsPerBlock;
+            FloatBuffer[] rowBlocks = new FloatBuffer[numBlocks];
+            long position = BINARY_HEADER_BYTES + indexBytes;
+            for (int block = 0; block < numBlocks; block++) {
+                int rowsInBlock = Math.min(rowsPerBlock, numRows - block * rowsPerBlock);
+                long blockBytes = rowsInBlock * rowBytes;
+                rowBlocks[block] = channel.map(FileChannel.MapMode.READ_ONLY, position, blockBytes).asFloatBuffer();
+                position += blockBytes;
+            }
+            logger.info("Mapped {} x {} matrix from {}", numRows, numColumns, binaryFile);
+            return new MappedDataMatrix(index, numRows, numColumns, rowsPerBlock, rowBlocks);
+        } catch (IOException e) {
+            throw new DataMatrixIoException(e);
+        }
     }
 
     private static Map<Integer, Integer> createIndex(String object2idxFileZip) {
@@ -108,6 +288,17 @@ private static void addLineDataToMatrixRow(FloatMatrix floatMatrix, String line,
         }
     }
 
+    private static void parseLineData(String line, float[] row, boolean shouldUseExponent) {
+        String[] values = line.split(TAB_DELIMITER);
+        for (int j = 0; j < row.length; j++) {
+            float entry = Float.parseFloat(values[j]);
+            if (shouldUseExponent) {
+                entry = (float) Math.exp(entry);
+            }
+            row[j] = entry;
+        }
+    }
+
     private static BufferedReader gzippedFileBufferedReader(File file) throws IOException {
         // if the gz-file exists we try to create a BufferedReader for this file
         BufferedReader bufferedReader;
@@ -127,7 +318,7 @@ private static BufferedReader gzippedFileBufferedReader(File file) throws IOExce
      * @param file
      * @param doLogarithm
      */
-    public static void writeMatrix(DataMatrix dataMatrix, String file, boolean doLogarithm) {
+    public static void writeMatrix(InMemoryDataMatrix dataMatrix, String file, boolean doLogarithm) {
         FloatMatrix matrix = dataMatrix.getMatrix();
         Map<String, Integer> id2index = new HashMap<>();
         for (Map.Entry<Integer, Integer> entry : dataMatrix.getEntrezIdToRowIndex().entrySet()) {
@@ -178,7 +369,7 @@ public static void writeMatrix(FloatMatrix matrix, String file, Map<String, Inte
      * @param file
      * @param doLogarithm
      */
-    public static void writeMatrixInclHeaderAndRowIDs(DataMatrix dataMatrix, String file, boolean doLogarithm) {
+    public static void writeMatrixInclHeaderAndRowIDs(InMemoryDataMatrix dataMatrix, String file, boolean doLogarithm) {
         FloatMatrix matrix = dataMatrix.getMatrix();
         Map<String, Integer> id2index = new HashMap<>();
         for (Map.Entry<Integer, Integer> entry : dataMatrix.getEntrezIdToRowIndex().entrySet()) {
@@ -0,0 +1,241 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.util;
+
+import org.monarchinitiative.exomiser.core.phenotype.Organism;
+import org.monarchinitiative.exomiser.core.prioritisers.model.GeneDiseaseModel;
+import org.monarchinitiative.exomiser.core.prioritisers.model.GeneModel;
+import org.monarchinitiative.exomiser.core.prioritisers.model.GeneOrthologModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Reads and writes a binary snapshot of the human disease and animal ortholog gene models. Building these from the
+ * database requires several large joins and splitting the phenotype id strings of every model, so the exomiser-db
+ * build writes them out once in this format which can be read back in a fraction of the time.
+ * <p>
+ * All the strings are written once to a shared table and the models refer to them by index, so repeated gene symbols
+ * and phenotype ids share the same instance once loaded.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class GeneModelIO {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeneModelIO.class);
+
+    //Binary format: magic, version, the string table as (number of strings, UTF strings) and then for each organism
+    //(organism name, number of models, models). Each model is written as (kind, model id, entrez id, human gene symbol,
+    //disease id or model gene id, disease term or model gene symbol, number of phenotypes, phenotype ids) where all
+    //strings are indexes into the string table or -1 for null.
+    private static final int BINARY_MAGIC = 0x4558474D;
+    private static final int BINARY_VERSION = 1;
+
+    private static final byte DISEASE_MODEL = 0;
+    private static final byte ORTHOLOG_MODEL = 1;
+
+    private static final int NULL_STRING = -1;
+
+    /*
+     * This shouldn't be instantiated.
+     */
+    private GeneModelIO() {}
+
+    /**
+     * Writes the models to the file, replacing any existing file only once the write has completed.
+     */
+    public static void writeGeneModels(Map<Organism, List<GeneModel>> modelsByOrganism, Path modelFile) {
+        Map<String, Integer> stringIndexes = new LinkedHashMap<>();
+        modelsByOrganism.values().forEach(models -> models.forEach(model -> indexStrings(model, stringIndexes)));
+
+        Path tempFile = modelFile.resolveSibling(modelFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(BINARY_MAGIC);
+            out.writeInt(BINARY_VERSION);
+            out.writeInt(stringIndexes.size());
+            for (String string : stringIndexes.keySet()) {
+                out.writeUTF(string);
+            }
+            out.writeInt(modelsByOrganism.size());
+            for (Map.Entry<Organism, List<GeneModel>> entry : modelsByOrganism.entrySet()) {
+                out.writeUTF(entry.getKey().name());
+                List<GeneModel> models = entry.getValue();
+                out.writeInt(models.size());
+                for (GeneModel model : models) {
+                    writeModel(out, model, stringIndexes);
+                }
+            }
+        } catch (IOException e) {
+            throw new GeneModelIoException(e);
+        }
+        try {
+            Files.move(tempFile, modelFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new GeneModelIoException(e);
+        }
+        logger.info("Wrote {} strings and models for {} to {}", stringIndexes.size(), modelsByOrganism.keySet(), modelFile);
+    }
+
+    private static void indexStrings(GeneModel model, Map<String, Integer> stringIndexes) {
+        indexString(model.getId(), stringIndexes);
+        indexString(model.getHumanGeneSymbol(), stringIndexes);
+        if (model instanceof GeneDiseaseModel) {
+            GeneDiseaseModel diseaseModel = (GeneDiseaseModel) model;
+            indexString(diseaseModel.getDiseaseId(), stringIndexes);
+            indexString(diseaseModel.getDiseaseTerm(), stringIndexes);
+        } else {
+            GeneOrthologModel orthologModel = (GeneOrthologModel) model;
+            indexString(orthologModel.getModelGeneId(), stringIndexes);
+            indexString(orthologModel.getModelGeneSymbol(), stringIndexes);
+        }
+        for (String phenotypeId : model.getPhenotypeIds()) {
+            indexString(phenotypeId, stringIndexes);
+        }
+    }
+
+    private static void indexString(String string, Map<String, Integer> stringIndexes) {
+        if (string != null) {
+            stringIndexes.putIfAbsent(string, stringIndexes.size());
+        }
+    }
+
+    private static void writeModel(DataOutputStream out, GeneModel model, Map<String, Integer> stringIndexes) throws IOException {
+        if (model instanceof GeneDiseaseModel) {
+            GeneDiseaseModel diseaseModel = (GeneDiseaseModel) model;
+            out.writeByte(DISEASE_MODEL);
+            writeCommonFields(out, model, stringIndexes);
+            out.writeInt(indexOf(diseaseModel.getDiseaseId(), stringIndexes));
+            out.writeInt(indexOf(diseaseModel.getDiseaseTerm(), stringIndexes));
+        } else if (model instanceof GeneOrthologModel) {
+            GeneOrthologModel orthologModel = (GeneOrthologModel) model;
+            out.writeByte(ORTHOLOG_MODEL);
+            writeCommonFields(out, model, stringIndexes);
+            out.writeInt(indexOf(orthologModel.getModelGeneId(), stringIndexes));
+            out.writeInt(indexOf(orthologModel.getModelGeneSymbol(), stringIndexes));
+        } else {
+            throw new GeneModelIoException(new IllegalArgumentException("Unable to write model of type " + model.getClass()));
+        }
+        List<String> phenotypeIds = model.getPhenotypeIds();
+        out.writeInt(phenotypeIds.size());
+        for (String phenotypeId : phenotypeIds) {
+            out.writeInt(indexOf(phenotypeId, stringIndexes));
+        }
+    }
+
+    private static void writeCommonFields(DataOutputStream out, GeneModel model, Map<String, Integer> stringIndexes) throws IOException {
+        out.writeInt(indexOf(model.getId(), stringIndexes));
+        out.writeInt(model.getEntrezGeneId());
+        out.writeInt(indexOf(model.getHumanGeneSymbol(), stringIndexes));
+    }
+
+    private static int indexOf(String string, Map<String, Integer> stringIndexes) {
+        return string == null ? NULL_STRING : stringIndexes.get(string);
+    }
+
+    /**
+     * @return true if the file starts with the header, including the version, written by this version of
+     * {@link #writeGeneModels(Map, Path)}
+     */
+    public static boolean isGeneModelFile(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return in.readInt() == BINARY_MAGIC && in.readInt() == BINARY_VERSION;
+        } catch (EOFException e) {
+            return false;
+        } catch (IOException e) {
+            throw new GeneModelIoException(e);
+        }
+    }
+
+    /**
+     * Reads all the models written by {@link #writeGeneModels(Map, Path)}.
+     */
+    public static Map<Organism, List<GeneModel>> readGeneModels(Path modelFile) {
+        Map<Organism, List<GeneModel>> modelsByOrganism = new EnumMap<>(Organism.class);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(modelFile), 1 << 16))) {
+            int magic = in.readInt();
+            int version = in.readInt();
+            if (magic != BINARY_MAGIC || version != BINARY_VERSION) {
+                throw new GeneModelIoException(new IllegalArgumentException(modelFile + " is not a version " + BINARY_VERSION + " gene model file"));
+            }
+            String[] strings = new String[in.readInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = in.readUTF();
+            }
+            int numOrganisms = in.readInt();
+            for (int i = 0; i < numOrganisms; i++) {
+                Organism organism = Organism.valueOf(in.readUTF());
+                int numModels = in.readInt();
+                List<GeneModel> models = new ArrayList<>(numModels);
+                for (int j = 0; j < numModels; j++) {
+                    models.add(readModel(in, organism, strings));
+                }
+                modelsByOrganism.put(organism, Collections.unmodifiableList(models));
+                logger.info("Read {} {} models from {}", numModels, organism, modelFile);
+            }
+        } catch (GeneModelIoException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            //a truncated or corrupt file can also fail with an unknown organism or an out of range string index
+            throw new GeneModelIoException(e);
+        }
+        return modelsByOrganism;
+    }
+
+    private static GeneModel readModel(DataInputStream in, Organism organism, String[] strings) throws IOException {
+        byte kind = in.readByte();
+        String modelId = stringAt(in.readInt(), strings);
+        int entrezGeneId = in.readInt();
+        String humanGeneSymbol = stringAt(in.readInt(), strings);
+        String first = stringAt(in.readInt(), strings);
+        String second = stringAt(in.readInt(), strings);
+        String[] phenotypeIds = new String[in.readInt()];
+        for (int i = 0; i < phenotypeIds.length; i++) {
+            phenotypeIds[i] = stringAt(in.readInt(), strings);
+        }
+        switch (kind) {
+            case DISEASE_MODEL:
+                return new GeneDiseaseModel(modelId, organism, entrezGeneId, humanGeneSymbol, first, second, Arrays.asList(phenotypeIds));
+            case ORTHOLOG_MODEL:
+                return new GeneOrthologModel(modelId, organism, entrezGeneId, humanGeneSymbol, first, second, Arrays.asList(phenotypeIds));
+            default:
+                throw new GeneModelIoException(new IllegalArgumentException("Unrecognised model kind " + kind));
+        }
+    }
+
+    private static String stringAt(int index, String[] strings) {
+        return index == NULL_STRING ? null : strings[index];
+    }
+
+    public static class GeneModelIoException extends RuntimeException {
+
+        public GeneModelIoException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
@@ -23,16 +23,17 @@
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
-import org.jblas.FloatMatrix;
 import org.monarchinitiative.exomiser.core.prioritisers.model.GeneMatch;
 import org.monarchinitiative.exomiser.core.prioritisers.model.GeneModelPhenotypeMatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
  * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
@@ -41,6 +42,9 @@ public class HiPhiveProteinInteractionScorer {
 
     private static final Logger logger = LoggerFactory.getLogger(HiPhiveProteinInteractionScorer.class);
 
+    private static final int SEED_BLOCK_SIZE = 64;
+    private static final int ROW_BLOCK_SIZE = 1024;
+
     public static final HiPhiveProteinInteractionScorer EMPTY = new HiPhiveProteinInteractionScorer();
 
     private final DataMatrix dataMatrix;
@@ -50,7 +54,10 @@ public class HiPhiveProteinInteractionScorer {
 
     private final Map<Integer, Double> highQualityPhenoMatchedGeneScores;
     private final List<Integer> highQualityPhenoMatchedGeneIds;
-    private final FloatMatrix weightedHighQualityMatrix;
+    private final int numRows;
+    // index into highQualityPhenoMatchedGeneIds of the closest seed gene for each matrix row, or -1 if there is none
+    private final int[] bestSeedIndexByRow;
+    private final float[] bestWeightedScoreByRow;
 
     private HiPhiveProteinInteractionScorer() {
         this.dataMatrix = DataMatrix.EMPTY;
@@ -61,7 +68,9 @@ private HiPhiveProteinInteractionScorer() {
         //should be used to produce these wrapped in some matcher or some-such:
         highQualityPhenoMatchedGeneScores = Collections.emptyMap();
         highQualityPhenoMatchedGeneIds = Collections.emptyList();
-        weightedHighQualityMatrix = FloatMatrix.EMPTY;
+        numRows = 0;
+        bestSeedIndexByRow = new int[0];
+        bestWeightedScoreByRow = new float[0];
     }
 
     public HiPhiveProteinInteractionScorer(DataMatrix dataMatrix, ListMultimap<Integer, GeneModelPhenotypeMatch> bestGeneModels, double highQualityPhenoScoreCutOff) {
@@ -71,7 +80,10 @@ public HiPhiveProteinInteractionScorer(DataMatrix dataMatrix, ListMultimap<Integ
 
         highQualityPhenoMatchedGeneScores = getHighestGeneIdPhenoScores();
         highQualityPhenoMatchedGeneIds = Lists.newArrayList(highQualityPhenoMatchedGeneScores.keySet());
-        weightedHighQualityMatrix = makeWeightedProteinInteractionMatrix();
+        numRows = dataMatrix.numRows();
+        bestSeedIndexByRow = new int[numRows];
+        bestWeightedScoreByRow = new float[numRows];
+        findBestWeightedSeedForAllRows();
     }
 
     private Map<Integer, Double> getHighestGeneIdPhenoScores() {
@@ -92,31 +104,59 @@ private Map<Integer, Double> getHighestGeneIdPhenoScores() {
         return Collections.unmodifiableMap(highestGeneIdPhenoScores);
     }
 
-    //todo: If this returned a DataMatrix things might be a bit more convenient later on...
-    private FloatMatrix makeWeightedProteinInteractionMatrix() {
-        logger.info("Making weighted-score Protein-Protein interaction sub-matrix from high quality phenotypic gene matches...");
-        logger.info("Original data matrix ({} rows * {} columns)", dataMatrix.getMatrix()
-                .getRows(), dataMatrix.getMatrix().getColumns());
-        int rows = dataMatrix.getMatrix().getRows();
-        int cols = highQualityPhenoMatchedGeneScores.size();
-        FloatMatrix highQualityPpiMatrix = FloatMatrix.zeros(rows, cols);
-        int c = 0;
-        for (Map.Entry<Integer, Double> entry : highQualityPhenoMatchedGeneScores.entrySet()) {
-            Integer seedGeneEntrezId = entry.getKey();
-            //TODO: the original DataMatrix is a symmetrical matrix this new one is asymmetrical with the original rows but only high-quality columns.
+    /**
+     * Finds the best weighted seed gene for every row of the matrix in a single pass over the high quality seed
+     * columns. Seed columns are read a block at a time and each block is reduced in parallel over blocks of rows so
+     * that the rows * seeds weighted matrix never needs to be materialised. Seeds are visited in their original order
+     * and only a strictly greater score replaces the current best, so ties resolve to the first seed.
+     */
+    private void findBestWeightedSeedForAllRows() {
+        logger.info("Finding closest high quality phenotypic gene matches in Protein-Protein interaction matrix ({} rows * {} seeds)", numRows, highQualityPhenoMatchedGeneIds
+                .size());
+        Arrays.fill(bestSeedIndexByRow, -1);
+        int[] seedIndexes = new int[highQualityPhenoMatchedGeneIds.size()];
+        int[] seedRowIndexes = new int[highQualityPhenoMatchedGeneIds.size()];
+        int numSeeds = 0;
+        for (int seedIndex = 0; seedIndex < highQualityPhenoMatchedGeneIds.size(); seedIndex++) {
+            Integer seedGeneEntrezId = highQualityPhenoMatchedGeneIds.get(seedIndex);
             if (dataMatrix.containsGene(seedGeneEntrezId)) {
-                FloatMatrix column = dataMatrix.getColumnMatrixForGene(seedGeneEntrezId);
-                // weight column by phenoScore
-                //get the best model score for the gene from the highQualityPhenoMatchedGenes
-                Double score = entry.getValue();
-                column = column.mul(score.floatValue());
-                highQualityPpiMatrix.putColumn(c, column);
+                seedIndexes[numSeeds] = seedIndex;
+                seedRowIndexes[numSeeds] = dataMatrix.getRowIndexForGene(seedGeneEntrezId);
+                numSeeds++;
             }
-            c++;
         }
-        logger.info("Made high quality interaction matrix ({} rows * {} columns)", highQualityPpiMatrix.getRows(), highQualityPpiMatrix
-                .getColumns());
-        return highQualityPpiMatrix;
+        int numRowBlocks = (numRows + ROW_BLOCK_SIZE - 1) / ROW_BLOCK_SIZE;
+        float[][] weightedSeedColumns = new float[Math.min(numSeeds, SEED_BLOCK_SIZE)][];
+        for (int seedBlockStart = 0; seedBlockStart < numSeeds; seedBlockStart += SEED_BLOCK_SIZE) {
+            int seedBlockEnd = Math.min(seedBlockStart + SEED_BLOCK_SIZE, numSeeds);
+            for (int s = seedBlockStart; s < seedBlockEnd; s++) {
+                Integer seedGeneEntrezId = highQualityPhenoMatchedGeneIds.get(seedIndexes[s]);
+                // weight column by the best phenoScore for the seed gene
+                float weight = highQualityPhenoMatchedGeneScores.get(seedGeneEntrezId).floatValue();
+                float[] column = dataMatrix.getColumnMatrixForGene(seedGeneEntrezId).data;
+                for (int row = 0; row < column.length; row++) {
+                    column[row] *= weight;
+                }
+                weightedSeedColumns[s - seedBlockStart] = column;
+            }
+            int blockStart = seedBlockStart;
+            IntStream.range(0, numRowBlocks).parallel().forEach(rowBlock -> {
+                int rowStart = rowBlock * ROW_BLOCK_SIZE;
+                int rowEnd = Math.min(rowStart + ROW_BLOCK_SIZE, numRows);
+                for (int s = blockStart; s < seedBlockEnd; s++) {
+                    float[] column = weightedSeedColumns[s - blockStart];
+                    int seedRowIndex = seedRowIndexes[s];
+                    int seedIndex = seedIndexes[s];
+                    for (int row = rowStart; row < rowEnd; row++) {
+                        //avoid self-hits now are testing genes with direct pheno-evidence as well
+                        if (row != seedRowIndex && column[row] > bestWeightedScoreByRow[row]) {
+                            bestWeightedScoreByRow[row] = column[row];
+                            bestSeedIndexByRow[row] = seedIndex;
+                        }
+                    }
+                }
+            });
+        }
     }
 
     public GeneMatch getClosestPhenoMatchInNetwork(Integer entrezGeneId) {
@@ -124,21 +164,21 @@ public GeneMatch getClosestPhenoMatchInNetwork(Integer entrezGeneId) {
             return GeneMatch.NO_HIT;
         }
         int rowIndex = dataMatrix.getRowIndexForGene(entrezGeneId);
-        int columnIndex = getColumnIndexOfMostPhenotypicallySimilarGene(entrezGeneId);
+        int seedIndex = bestSeedIndexByRow[rowIndex];
 
         /* Changed method to return -1 if no hit as otherwise could not distinguish between
         no hit or hit to 1st entry in column (entrezGene 50640). When querying with 50640 this
         resulted in a self-hit being returned with a PPI score of 0.5+0.7=1.2 and also lots of
         low-scoring (0.5) PPI hits to 50640 for other genes with no PPI match
          */
-        if (columnIndex == -1){
+        if (seedIndex == -1) {
             return GeneMatch.NO_HIT;
         }
 
         // optimal adjustment based on benchmarking to allow walker scores to compete with low phenotype scores
-        double walkerScore = 0.5 + weightedHighQualityMatrix.get(rowIndex, columnIndex);
+        double walkerScore = 0.5 + bestWeightedScoreByRow[rowIndex];
 
-        Integer closestGeneId = highQualityPhenoMatchedGeneIds.get(columnIndex);
+        Integer closestGeneId = highQualityPhenoMatchedGeneIds.get(seedIndex);
         List<GeneModelPhenotypeMatch> models = bestGeneModels.get(closestGeneId);
 
         return GeneMatch.builder()
@@ -149,39 +189,4 @@ public GeneMatch getClosestPhenoMatchInNetwork(Integer entrezGeneId) {
                 .build();
     }
 
-    /**
-     * This function retrieves the random walk similarity score for the gene
-     *
-     * @param entrezGeneId for which the random walk score is to be retrieved
-     */
-    //TODO: speed this up? This bit is slow. This can be done in a single operation without having to pre-compute the high-quality matrix.
-    private int getColumnIndexOfMostPhenotypicallySimilarGene(int entrezGeneId) {
-        int geneIndex = dataMatrix.getRowIndexForGene(entrezGeneId);
-        int columnIndex = 0;
-        double bestScore = 0;
-        int bestHitIndex = -1;
-        //TODO: here were walking along all the columns of a row from the high quality matches, i.e. traversing a list to find the value and position of the highest value in that list.
-        //The matrix is (12511 rows * 303 columns)
-        // The output of this function (assigned to columnIndex) is used to:
-        // define the walkerScore:
-        // walkerScore = 0.5 + weightedHighQualityMatrix.get(rowIndex, columnIndex);
-        //
-        // Integer closestGeneId = highQualityPhenoMatchedGeneIds.get(columnIndex);
-        // closestPhysicallyInteractingGeneModels = bestGeneModels.get(closestGeneId);
-        for (Integer similarGeneEntrezId : highQualityPhenoMatchedGeneIds) {
-            if (!dataMatrix.containsGene(similarGeneEntrezId) || similarGeneEntrezId == entrezGeneId) {
-                //avoid self-hits now are testing genes with direct pheno-evidence as well
-                columnIndex++;
-            } else {
-                double cellScore = weightedHighQualityMatrix.get(geneIndex, columnIndex);
-                if (cellScore > bestScore) {
-                    bestScore = cellScore;
-                    bestHitIndex = columnIndex;
-                }
-                columnIndex++;
-            }
-        }
-        return bestHitIndex;
-    }
-
 }
@@ -0,0 +1,113 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.util;
+
+import org.jblas.FloatMatrix;
+
+import java.nio.FloatBuffer;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * {@link DataMatrix} backed by a memory-mapped binary file written by
+ * {@link DataMatrixIO#writeBinaryDataMatrix(DataMatrix, java.nio.file.Path)}. The matrix values are not held on the heap
+ * but read on demand from the OS page cache, so opening the matrix is near instant and the pages are shared between all
+ * the JVMs on a host which map the same file.
+ * <p>
+ * The values are stored row-major. As the random walk matrix is symmetrical the column of a gene is read as the
+ * contiguous row of the same index.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 8.0.0
+ */
+public class MappedDataMatrix implements DataMatrix {
+
+    private final Map<Integer, Integer> entrezIdToRowIndex;
+    private final int numRows;
+    private final int numColumns;
+    //a single mapping is limited to 2GB so the rows are split into blocks of rowsPerBlock rows
+    private final int rowsPerBlock;
+    private final FloatBuffer[] rowBlocks;
+
+    MappedDataMatrix(Map<Integer, Integer> entrezIdToRowIndex, int numRows, int numColumns, int rowsPerBlock, FloatBuffer[] rowBlocks) {
+        this.entrezIdToRowIndex = entrezIdToRowIndex;
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.rowsPerBlock = rowsPerBlock;
+        this.rowBlocks = rowBlocks;
+    }
+
+    @Override
+    public Map<Integer, Integer> getEntrezIdToRowIndex() {
+        return entrezIdToRowIndex;
+    }
+
+    @Override
+    public int numRows() {
+        return numRows;
+    }
+
+    @Override
+    public FloatMatrix getColumnMatrixForGene(int entrezGeneId) {
+        int rowIndex = entrezIdToRowIndex.get(entrezGeneId);
+        float[] values = new float[numColumns];
+        //duplicate so that concurrent readers don't share the buffer position
+        FloatBuffer rowBlock = rowBlocks[rowIndex / rowsPerBlock].duplicate();
+        rowBlock.position((rowIndex % rowsPerBlock) * numColumns);
+        rowBlock.get(values);
+        return new FloatMatrix(values);
+    }
+
+    @Override
+    public void addColumnForGene(int entrezGeneId, float[] sums, int rowStart, int rowEnd) {
+        int rowIndex = entrezIdToRowIndex.get(entrezGeneId);
+        //absolute gets don't touch the buffer position so are safe for concurrent readers
+        FloatBuffer rowBlock = rowBlocks[rowIndex / rowsPerBlock];
+        int offset = (rowIndex % rowsPerBlock) * numColumns;
+        for (int row = rowStart; row < rowEnd; row++) {
+            sums[row] += rowBlock.get(offset + row);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MappedDataMatrix that = (MappedDataMatrix) o;
+        return numRows == that.numRows &&
+                numColumns == that.numColumns &&
+                Objects.equals(entrezIdToRowIndex, that.entrezIdToRowIndex) &&
+                Objects.deepEquals(rowBlocks, that.rowBlocks);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entrezIdToRowIndex, numRows, numColumns);
+    }
+
+    @Override
+    public String toString() {
+        return "MappedDataMatrix{" +
+                "numRows=" + numRows +
+                ", numColumns=" + numColumns +
+                '}';
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.util;
+
+import hpo.HPOutils;
+import ontologizer.go.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import similarity.SimilarityUtilities;
+import similarity.concepts.ResnikSimilarity;
+import sonumina.math.graph.SlimDirectedGraphView;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * The parsed HPO, the cleaned-up gene annotations and the Resnik information content table used by PhenIX. These
+ * take tens of seconds to build, so are intended to be built once and then shared by all the PhenixPriority instances.
+ * Instances are not modified after construction and so are safe to share across threads. Each thread is given its own
+ * ResnikSimilarity, but these all share a cache of the similarity of term pairs as they are computed so that these are
+ * shared by subsequent queries.
+ * <p>
+ * As the gene annotations and term IC are derived entirely from the hp.obo and genes_to_phenotype files they can
+ * optionally be cached in a binary snapshot in the PhenIX data directory, which is used in preference to re-parsing the
+ * annotations for as long as the source files are unchanged. This requires the data directory to be writable so is
+ * disabled by default.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public final class PhenixData {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhenixData.class);
+
+    static final String HPO_OBO_FILE_NAME = "hp.obo";
+    static final String HPO_ANNOTATION_FILE_NAME = "ALL_SOURCES_ALL_FREQUENCIES_genes_to_phenotype.txt";
+    static final String SNAPSHOT_FILE_NAME = "phenix-data.bin";
+
+    private static final int SNAPSHOT_MAGIC = 0x50484E58;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final Path phenixDataDirectory;
+    private final Ontology hpo;
+    private final Map<String, List<Term>> geneId2annotations;
+    private final Map<Term, Double> term2ic;
+    private final TermPairSimilarityCache termPairSimilarityCache;
+    private final ThreadLocal<ResnikSimilarity> resnikSimilarity;
+
+    private PhenixData(Path phenixDataDirectory, Ontology hpo, Map<String, List<Term>> geneId2annotations, HashMap<Term, Double> term2ic) {
+        this.phenixDataDirectory = phenixDataDirectory;
+        this.hpo = hpo;
+        this.geneId2annotations = Collections.unmodifiableMap(geneId2annotations);
+        this.term2ic = Collections.unmodifiableMap(term2ic);
+        this.termPairSimilarityCache = new TermPairSimilarityCache();
+        this.resnikSimilarity = ThreadLocal.withInitial(() -> new CachingResnikSimilarity(hpo, term2ic, termPairSimilarityCache));
+    }
+
+    /**
+     * Loads the PhenIX data from the given directory without using a snapshot. This must contain the files hp.obo and
+     * ALL_SOURCES_ALL_FREQUENCIES_genes_to_phenotype.txt.
+     *
+     * @param phenixDataDirectory the PhenIX data directory
+     * @return a new, fully-initialised PhenixData instance.
+     */
+    public static PhenixData load(Path phenixDataDirectory) {
+        return load(phenixDataDirectory, false);
+    }
+
+    /**
+     * Loads the PhenIX data from the given directory. This must contain the files hp.obo and
+     * ALL_SOURCES_ALL_FREQUENCIES_genes_to_phenotype.txt. If useSnapshot is true and a valid snapshot of the annotations
+     * is present this is used, otherwise the annotations and IC are calculated from the source files and a new snapshot
+     * is written.
+     *
+     * @param phenixDataDirectory the PhenIX data directory
+     * @param useSnapshot         whether to read and write the phenix-data.bin snapshot in the PhenIX data directory
+     * @return a new, fully-initialised PhenixData instance.
+     */
+    public static PhenixData load(Path phenixDataDirectory, boolean useSnapshot) {
+        Path hpoOboFile = phenixDataDirectory.resolve(HPO_OBO_FILE_NAME);
+        Path hpoAnnotationFile = phenixDataDirectory.resolve(HPO_ANNOTATION_FILE_NAME);
+        Path snapshotFile = phenixDataDirectory.resolve(SNAPSHOT_FILE_NAME);
+
+        Ontology hpo = parseOntology(hpoOboFile.toString());
+        //The HPO as SlimDirectedGraph (fast access to ancestors etc.). This is lazily created by the Ontology, so is
+        //built here before the instance is shared between threads.
+        SlimDirectedGraphView<Term> hpoSlim = hpo.getSlimGraphView();
+
+        if (useSnapshot) {
+            Optional<PhenixData> snapshot = readSnapshot(snapshotFile, hpoOboFile, hpoAnnotationFile, hpo, phenixDataDirectory);
+            if (snapshot.isPresent()) {
+                return snapshot.get();
+            }
+        }
+        Map<String, List<Term>> geneId2annotations = parseAnnotations(hpoAnnotationFile, hpo, hpoSlim);
+        HashMap<Term, Double> term2ic = calculateTermIC(hpo, hpoSlim, geneId2annotations);
+        PhenixData phenixData = new PhenixData(phenixDataDirectory, hpo, geneId2annotations, term2ic);
+        if (useSnapshot) {
+            writeSnapshot(phenixData, snapshotFile, hpoOboFile, hpoAnnotationFile);
+        }
+        return phenixData;
+    }
+
+    public Path getPhenixDataDirectory() {
+        return phenixDataDirectory;
+    }
+
+    public Ontology getHpo() {
+        return hpo;
+    }
+
+    public Map<String, List<Term>> getGeneId2Annotations() {
+        return geneId2annotations;
+    }
+
+    public Map<Term, Double> getTermInformationContent() {
+        return term2ic;
+    }
+
+    /**
+     * @return the ResnikSimilarity for the calling thread. This must not be handed to other threads.
+     */
+    public ResnikSimilarity getResnikSimilarity() {
+        return resnikSimilarity.get();
+    }
+
+    /**
+     * Parses the human-phenotype-ontology.obo file (or equivalently, the hp.obo
+     * file from our Hudosn server).
+     *
+     * @param hpoOboFile path to the hp.obo file.
+     */
+    private static Ontology parseOntology(String hpoOboFile) {
+        OBOParser oboParser = new OBOParser(hpoOboFile, OBOParser.PARSE_XREFS);
+
+        try {
+            String parseInfo = oboParser.doParse();
+            logger.info(parseInfo);
+        } catch (IOException | OBOParserException e) {
+            logger.error("Error parsing HPO OBO file", e);
+        }
+
+        TermContainer termContainer = new TermContainer(oboParser.getTermMap(), oboParser.getFormatVersion(), oboParser.getDate());
+        Ontology hpoOntology = new Ontology(termContainer);
+        hpoOntology.setRelevantSubontology(termContainer.get(HPOutils.organAbnormalityRootId).getName());
+        return hpoOntology;
+    }
+
+    /**
+     * Parse the HPO phenotype annotation file (e.g., phenotype_annotation.tab).
+     * The point of this is to get the links between diseases and HPO phenotype
+     * terms. The hpoAnnotationFile is The
+     * ALL_SOURCES_ALL_FREQUENCIES_genes_to_phenotype.txt-file
+     *
+     * @param hpoAnnotationFile path to the file
+     */
+    private static Map<String, List<Term>> parseAnnotations(Path hpoAnnotationFile, Ontology hpo, SlimDirectedGraphView<Term> hpoSlim) {
+        Map<String, List<Term>> geneAnnotations = new HashMap<>();
+        logger.info("Parsing Annotations file {}", hpoAnnotationFile);
+
+        try (BufferedReader bufferedReader = Files.newBufferedReader(hpoAnnotationFile)) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                if (line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] split = line.split("\t");
+                String entrez = split[0];
+                Term term = null;
+                try {
+                /* split[4] is the HPO term field of an annotation line. */
+                    term = hpo.getTermIncludingAlternatives(split[3]);
+                } catch (IllegalArgumentException e) {
+                    logger.error("Unable to get term for line \n{}\n", line);
+                    logger.error("The offending field was '{}'", split[3]);
+                    for (int k = 0; k < split.length; ++k) {
+                        logger.error("{} '{}'", k, split[k]);
+                    }
+                    logger.error("", e);
+                }
+                if (term != null) {
+                    geneAnnotations.computeIfAbsent(entrez, annotations -> new ArrayList<>()).add(term);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error parsing annotation file {}", hpoAnnotationFile, e);
+        }
+
+        // cleanup annotations
+        for (Map.Entry<String, List<Term>> entry : geneAnnotations.entrySet()) {
+            String entrezId = entry.getKey();
+            List<Term> uniqueTerms = entry.getValue().stream().distinct().collect(Collectors.toCollection(ArrayList::new));
+            List<Term> mostSpecificTerms = HPOutils.cleanUpAssociation((ArrayList<Term>) uniqueTerms, hpoSlim, hpo.getRootTerm());
+            geneAnnotations.put(entrezId, mostSpecificTerms);
+        }
+        logger.info("Made HPO annotations for {} genes", geneAnnotations.size());
+        return geneAnnotations;
+    }
+
+    private static HashMap<Term, Double> calculateTermIC(Ontology ontology, SlimDirectedGraphView<Term> hpoSlim, Map<String, List<Term>> geneId2annotations) {
+
+        // prepare IC computation
+        // here we store which objects have been annotated with this term
+        final Map<Term, Set<String>> annotationTerm2geneIds = new HashMap<>();
+        for (Map.Entry<String, List<Term>> entry : geneId2annotations.entrySet()) {
+            String entrezId = entry.getKey();
+            List<Term> annotations = entry.getValue();
+            for (Term annot : annotations) {
+                List<Term> termAndAncestors = hpoSlim.getAncestors(annot);
+                for (Term term : termAndAncestors) {
+                    annotationTerm2geneIds.computeIfAbsent(term, objectsAnnotatedByTerm -> new HashSet<>()).add(entrezId);
+                }
+            }
+        }
+
+        Map<Term, Integer> termFrequencies = annotationTerm2geneIds.entrySet().stream()
+                .collect(toMap(Map.Entry::getKey, entry -> entry.getValue().size()));
+
+        Term root = ontology.getRootTerm();
+        int maxFreq = termFrequencies.get(root);
+        double ICzeroCountTerms = -1 * (Math.log(1 / (double) maxFreq));
+
+        Map<Term, Double> term2informationContent = SimilarityUtilities.caculateInformationContent(maxFreq, (HashMap<Term, Integer>) termFrequencies);
+        int frequencyZeroCounter = 0;
+        for (Term t : ontology) {
+            if (!termFrequencies.containsKey(t)) {
+                ++frequencyZeroCounter;
+                term2informationContent.put(t, ICzeroCountTerms);
+            }
+        }
+
+        logger.info("WARNING: Frequency of {} terms was zero!! Set IC of these to : {}", frequencyZeroCounter, ICzeroCountTerms);
+        return (HashMap<Term, Double>) term2informationContent;
+    }
+
+    private static void writeSnapshot(PhenixData phenixData, Path snapshotFile, Path hpoOboFile, Path hpoAnnotationFile) {
+        logger.info("Writing PhenIX data snapshot to {}", snapshotFile);
+        //a unique temp file stops concurrent loads of the same directory writing over each other before the move
+        Path tempFile;
+        try {
+            tempFile = Files.createTempFile(snapshotFile.toAbsolutePath().getParent(), snapshotFile.getFileName().toString(), ".tmp");
+        } catch (IOException e) {
+            logger.warn("Unable to write PhenIX data snapshot to {} - annotations will be re-parsed next time", snapshotFile, e);
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            writeSourceFileStamp(out, hpoOboFile);
+            writeSourceFileStamp(out, hpoAnnotationFile);
+
+            out.writeInt(phenixData.geneId2annotations.size());
+            for (Map.Entry<String, List<Term>> entry : phenixData.geneId2annotations.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (Term term : entry.getValue()) {
+                    out.writeUTF(term.getID().toString());
+                }
+            }
+            out.writeInt(phenixData.term2ic.size());
+            for (Map.Entry<Term, Double> entry : phenixData.term2ic.entrySet()) {
+                out.writeUTF(entry.getKey().getID().toString());
+                out.writeDouble(entry.getValue());
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to write PhenIX data snapshot to {} - annotations will be re-parsed next time", snapshotFile, e);
+            deleteQuietly(tempFile);
+            return;
+        }
+        try {
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Unable to write PhenIX data snapshot to {} - annotations will be re-parsed next time", snapshotFile, e);
+            deleteQuietly(tempFile);
+        }
+    }
+
+    private static Optional<PhenixData> readSnapshot(Path snapshotFile, Path hpoOboFile, Path hpoAnnotationFile, Ontology hpo, Path phenixDataDirectory) {
+        if (!Files.isRegularFile(snapshotFile)) {
+            return Optional.empty();
+        }
+        logger.info("Reading PhenIX data snapshot {}", snapshotFile);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                logger.info("Ignoring PhenIX data snapshot {} - unrecognised format", snapshotFile);
+                return Optional.empty();
+            }
+            if (!isCurrentSourceFileStamp(in, hpoOboFile) || !isCurrentSourceFileStamp(in, hpoAnnotationFile)) {
+                logger.info("Ignoring PhenIX data snapshot {} - source files have changed", snapshotFile);
+                return Optional.empty();
+            }
+
+            int numGenes = in.readInt();
+            Map<String, List<Term>> geneId2annotations = new HashMap<>(numGenes * 2);
+            for (int i = 0; i < numGenes; i++) {
+                String entrezId = in.readUTF();
+                int numTerms = in.readInt();
+                List<Term> terms = new ArrayList<>(numTerms);
+                for (int j = 0; j < numTerms; j++) {
+                    terms.add(getSnapshotTerm(hpo, in.readUTF()));
+                }
+                geneId2annotations.put(entrezId, terms);
+            }
+            int numTerms = in.readInt();
+            HashMap<Term, Double> term2ic = new HashMap<>(numTerms * 2);
+            for (int i = 0; i < numTerms; i++) {
+                Term term = getSnapshotTerm(hpo, in.readUTF());
+                term2ic.put(term, in.readDouble());
+            }
+            logger.info("Read HPO annotations for {} genes and IC for {} terms from snapshot", geneId2annotations.size(), term2ic.size());
+            return Optional.of(new PhenixData(phenixDataDirectory, hpo, geneId2annotations, term2ic));
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Ignoring unreadable PhenIX data snapshot {}", snapshotFile, e);
+            return Optional.empty();
+        }
+    }
+
+    private static Term getSnapshotTerm(Ontology hpo, String termId) {
+        Term term = hpo.getTermIncludingAlternatives(termId);
+        if (term == null) {
+            throw new IllegalArgumentException("Snapshot term " + termId + " not found in HPO");
+        }
+        return term;
+    }
+
+    private static void writeSourceFileStamp(DataOutputStream out, Path sourceFile) throws IOException {
+        out.writeLong(Files.size(sourceFile));
+        out.writeLong(Files.getLastModifiedTime(sourceFile).toMillis());
+    }
+
+    private static boolean isCurrentSourceFileStamp(DataInputStream in, Path sourceFile) throws IOException {
+        long size = in.readLong();
+        long lastModified = in.readLong();
+        return size == Files.size(sourceFile) && lastModified == Files.getLastModifiedTime(sourceFile).toMillis();
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.debug("Unable to delete {}", path, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PhenixData{" +
+                "phenixDataDirectory=" + phenixDataDirectory +
+                ", genes=" + geneId2annotations.size() +
+                ", terms=" + term2ic.size() +
+                '}';
+    }
+}
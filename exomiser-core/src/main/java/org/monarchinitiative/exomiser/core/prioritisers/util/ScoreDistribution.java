@@ -31,6 +31,7 @@ public class ScoreDistribution {
     private double[] scores;
     private double[] pvalues;
     private double numberRandomizations;
+    private boolean sortedScores;
     private int numberQueryTerms;
     private int mimNumber;
 
@@ -45,18 +46,38 @@ public int getMimNumber() {
 
     public void setDistribution(List<Double> scoresAL, List<Double> pvaluesAL, double numRandomizations){
 
-        this.scores = new double[scoresAL.size()];
-        this.pvalues = new double[pvaluesAL.size()];
+        double[] scores = new double[scoresAL.size()];
+        double[] pvalues = new double[pvaluesAL.size()];
 
         for (int i = 0 ; i < scoresAL.size(); i++){
-            this.scores[i] 	= scoresAL.get(i);
-            this.pvalues[i] = pvaluesAL.get(i);
+            scores[i] 	= scoresAL.get(i);
+            pvalues[i] = pvaluesAL.get(i);
         }
 
+        setDistribution(scores, pvalues, numRandomizations);
+    }
+
+    public void setDistribution(double[] scores, double[] pvalues, double numRandomizations){
+
+        this.scores = scores;
+        this.pvalues = pvalues;
         this.numberRandomizations 	= numRandomizations;
+        this.sortedScores = isNonDecreasing(scores);
+    }
 
+    private static boolean isNonDecreasing(double[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (Double.isNaN(values[i]) || (i > 0 && values[i] < values[i - 1])) {
+                return false;
+            }
+        }
+        return true;
     }
 
+    /**
+     * Returns the p-value of the first score in the distribution which is greater than or equal to the rounded score.
+     * The distribution files list the scores in ascending order, in which case this is found by a binary search.
+     */
     public double getPvalue(double score, double roundFactor) {
 
         score 	= round(score, roundFactor);
@@ -64,20 +85,33 @@ public double getPvalue(double score, double roundFactor) {
 		/* maybe this value is too high */
         if ( scores[scores.length-1] < score )
             return (double)1/numberRandomizations;
-		
-		/* init with 1 */
-        double pvalue = 1;
 
-        for (int i = 0; i < scores.length ; i++){
+        int index = sortedScores ? findFirstIndexAtLeast(score) : scanForFirstIndexAtLeast(score);
+        /* init with 1 */
+        return index < 0 ? 1 : pvalues[index];
+    }
 
-            double scoreCand = scores[i];
-            if ( score <= scoreCand ){
-                pvalue 	= pvalues[i];
-                break;
+    private int findFirstIndexAtLeast(double score) {
+        int low = 0;
+        int high = scores.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (!(score <= scores[mid])) {
+                low = mid + 1;
+            } else {
+                high = mid;
             }
+        }
+        return low < scores.length ? low : -1;
+    }
 
+    private int scanForFirstIndexAtLeast(double score) {
+        for (int i = 0; i < scores.length ; i++){
+            if ( score <= scores[i] ){
+                return i;
+            }
         }
-        return pvalue;
+        return -1;
     }
 
     public static double round( double d , double fact) {
@@ -20,45 +20,67 @@
 
 package org.monarchinitiative.exomiser.core.prioritisers.util;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
 /**
+ * Provides the PhenIX score distribution for a gene for a given number of query terms. The distributions for each
+ * number of query terms are read from the N.out (or N_symmetric.out) files in the distributions folder. The first
+ * time one of these is parsed it is written out as a binary N.bin file alongside, which is memory-mapped in preference
+ * to the text file for as long as it is newer than it.
+ * <p>
+ * A single instance is intended to be shared by all analyses. Each file is loaded at most once and is then held in a
+ * cache which is bounded by the approximate heap size of the loaded distributions, so that the distributions for rarely
+ * used numbers of query terms are evicted first. Memory-mapped distributions only count their gene index towards this
+ * bound as the scores themselves are paged in and out by the OS. This class is thread-safe.
+ *
  * @author Sebastian Köhler <dr.sebastian.koehler@gmail.com>
  *
  */
 public class ScoreDistributionContainer {
 
     private final Logger logger = LoggerFactory.getLogger(ScoreDistributionContainer.class);
-    
-	private boolean verboseParsing = false;
+
+    /**
+     * Default bound on the heap size of the cached distributions. A typical term count file holds ~4k genes at a few
+     * megabytes each so this allows the commonly used term counts to stay loaded.
+     */
+    public static final long DEFAULT_MAX_CACHED_MEGABYTES = 512;
+
+	private volatile boolean verboseParsing = false;
 	private final String distributionsFolder;
-    private final boolean symmetric;
-    private final int numQueryTerms;
 	private static final int MAX_NUMBER_QUERY_TERMS = 20;
-	private Map<String, Map<String, ScoreDistribution>> key2scoreDistribution;
+	private final LoadingCache<String, ScoreDistributionTable> key2scoreDistributions;
+
+    public ScoreDistributionContainer(String distributionsFolder) {
+        this(distributionsFolder, DEFAULT_MAX_CACHED_MEGABYTES);
+    }
 
-	public ScoreDistributionContainer(String distributionsFolder, boolean symmetric, int numQueryTerms) {
+	public ScoreDistributionContainer(String distributionsFolder, long maxCachedMegabytes) {
 		this.distributionsFolder = distributionsFolder;
-        this.symmetric = symmetric;
-        this.numQueryTerms = limitNumQueryTerms(numQueryTerms);
-		this.key2scoreDistribution = new HashMap<>();
-        parseDistributions(this.numQueryTerms);
+        //weighted in kilobytes by the heap size of the distributions rather than the number of term counts
+		this.key2scoreDistributions = CacheBuilder.newBuilder()
+                .maximumWeight(Math.max(0, maxCachedMegabytes) * 1024)
+                .weigher((String key, ScoreDistributionTable table) -> (int) Math.min(Integer.MAX_VALUE, table.heapSizeInBytes() / 1024 + 1))
+                .build(CacheLoader.from(this::loadScoreDistributionTable));
 	}
 
 	public void useVerboseParsing() {
         this.verboseParsing = true;
     }
 
-    private int limitNumQueryTerms(int numQueryTerms) {
+    private static int limitNumQueryTerms(int numQueryTerms) {
         //numQueryTerms is used as a look-up to a file with a filename prefixed with a number from 1-20
         //the constant MAX_NUMBER_QUERY_TERMS is used to make sure the file will be found
         return Math.min(numQueryTerms, MAX_NUMBER_QUERY_TERMS);
@@ -68,108 +90,110 @@ private static String getKey(boolean symmetric, int numberQueryTerms) {
         return symmetric ? Integer.toString(numberQueryTerms) + "_symmetric" : Integer.toString(numberQueryTerms);
 	}
 
-	public ScoreDistribution getDistribution(String entrezGeneId) {
-		while (true) {
-			String key = getKey(symmetric, numQueryTerms);
-			Map<String, ScoreDistribution> mim2scoredist = key2scoreDistribution.get(key);
-			ScoreDistribution scoreDist = null;
-			if (mim2scoredist != null) {
-                scoreDist = mim2scoredist.get(entrezGeneId);
+    /**
+     * Returns the distribution for the gene for the given number of query terms. Where there is no distribution for
+     * the gene this falls back to the distributions for successively fewer query terms.
+     *
+     * @return the distribution or null if the gene has no distribution for any number of terms.
+     */
+    public ScoreDistribution getDistribution(int entrezGeneId, boolean symmetric, int numQueryTerms) {
+        int limitedNumQueryTerms = limitNumQueryTerms(numQueryTerms);
+        for (int numTerms = limitedNumQueryTerms; numTerms >= 1; numTerms--) {
+            ScoreDistribution scoreDist = getScoreDistributionTable(getKey(symmetric, numTerms)).getDistribution(entrezGeneId);
+            if (scoreDist != null) {
+                return scoreDist;
             }
-			if (mim2scoredist == null || scoreDist == null) {
-                logger.error("Could not find scoreDistribution for entrezid {} numQueryTerms: {} symmetric: {} using key: {}" , entrezGeneId, numQueryTerms, symmetric, key);
-				if (numQueryTerms > 1) {
-					int oneFewer = numQueryTerms - 1;
-                    logger.error("Trying to find distribution for {} terms", oneFewer);
-					if (!didParseDistributions(oneFewer)) {
-                        logger.error("Trying to parse {} term distribution", oneFewer);
-						parseDistributions(oneFewer);
-					}
-				}
-				else {
-					logger.error("NO WAY! Could not even find scoreDistribution for entrezid {} numQueryTerms: {} symmetric: {} using key: {} - returning null", entrezGeneId, numQueryTerms, symmetric, key);
-					return null;
-				}
-			}
-			else {
-				return scoreDist;
-			}
-		}
-	}
+            logger.debug("Could not find scoreDistribution for entrezid {} numQueryTerms: {} symmetric: {} using key: {}", entrezGeneId, numTerms, symmetric, getKey(symmetric, numTerms));
+        }
+        logger.error("Could not find scoreDistribution for entrezid {} numQueryTerms: {} symmetric: {} - returning null", entrezGeneId, limitedNumQueryTerms, symmetric);
+        return null;
+    }
 
-	private boolean didParseDistributions(int numQueryTerms) {
-		return key2scoreDistribution.containsKey(getKey(symmetric, numQueryTerms));
-	}
+    /**
+     * A file which could not be read is not cached, so it will be tried again the next time it is needed.
+     */
+    private ScoreDistributionTable getScoreDistributionTable(String key) {
+        try {
+            return key2scoreDistributions.getUnchecked(key);
+        } catch (UncheckedExecutionException e) {
+            logger.error("Unable to load PhenIX score distributions for {} query terms", key, e.getCause());
+            return ScoreDistributionTable.EMPTY;
+        }
+    }
 
-	/**
-	 * 
-	 * 
-	 * @param numQueryTerms
-	 */
-	private synchronized void parseDistributions(int numQueryTerms) {
-
-		String key = getKey(symmetric, numQueryTerms);
-		String file = distributionsFolder + key + ".out";
-
-		if (verboseParsing)
-			logger.info("Reading distributions from file: {}", file);
-		try (BufferedReader in = new BufferedReader(new FileReader(file))){
-            ScoreDistribution actualDistribution = null;
-			String actualDiseaseId = null;
-			double numberRandomizations = -1;
-			List<Double> scores = new ArrayList<>();
-			List<Double> pvalues = new ArrayList<>();
-            String line;
-			while ((line = in.readLine()) != null) {
-
-				if (line.startsWith(">")) {
-
-					line = line.replaceAll(">", "");
-
-					if (actualDistribution != null) {
-						actualDistribution.setDistribution(scores, pvalues, numberRandomizations);
-						addDistribution(actualDiseaseId, actualDistribution);
-						scores = new ArrayList<>();
-						pvalues = new ArrayList<>();
-					}
-
-					actualDistribution = new ScoreDistribution();
-
-					String[] split = line.split("_");
-					actualDiseaseId = split[0];
-					numberRandomizations = Double.parseDouble(split[1]);
-				}
-				else {
-					int indexFirstMinus = line.indexOf('-');
-					Double score;
-					try {
-						score = Double.parseDouble(line.substring(0, indexFirstMinus));
-					} catch (NumberFormatException e) {
-						indexFirstMinus = line.indexOf('-', indexFirstMinus + 1);
-						score = Double.parseDouble(line.substring(0, indexFirstMinus));
-					}
-					Double pValue = Double.parseDouble(line.substring(indexFirstMinus + 1));
-					scores.add(score);
-					pvalues.add(pValue);
-				}
-			}// end while
-			if (verboseParsing) {
-                logger.info("done while loop.... add last");
+    /**
+     * @return the number of term count distributions currently loaded.
+     */
+    public long numLoadedDistributions() {
+        return key2scoreDistributions.size();
+    }
+
+    private ScoreDistributionTable loadScoreDistributionTable(String key) {
+        Path textFile = Paths.get(distributionsFolder, key + ".out");
+        Path binaryFile = Paths.get(distributionsFolder, key + ".bin");
+        //a missing file means there are no distributions for this number of terms, whereas a file which can't be read
+        //throws a ScoreDistributionIoException so that the failure is not cached
+        if (isUpToDateBinaryFile(binaryFile, textFile)) {
+            if (verboseParsing) {
+                logger.info("Mapping distributions from file: {}", binaryFile);
             }
-            if (actualDistribution != null) {
-                actualDistribution.setDistribution(scores, pvalues, numberRandomizations);
-                addDistribution(actualDiseaseId, actualDistribution);
+            return ScoreDistributionIO.loadMappedScoreDistributionTable(binaryFile);
+        }
+        if (!Files.isRegularFile(textFile)) {
+            logger.error("Unable access file {} to create PhenIX score distributions", textFile);
+            return ScoreDistributionTable.EMPTY;
+        }
+        if (verboseParsing) {
+            logger.info("Reading distributions from file: {}", textFile);
+        }
+        ScoreDistributionTable scoreDistributionTable = ScoreDistributionIO.parseScoreDistributionTable(textFile);
+        writeBinaryFile(scoreDistributionTable, binaryFile);
+        return scoreDistributionTable;
+    }
+
+    private boolean isUpToDateBinaryFile(Path binaryFile, Path textFile) {
+        if (!ScoreDistributionIO.isBinaryScoreDistributionTable(binaryFile)) {
+            return false;
+        }
+        try {
+            return !Files.exists(textFile) || Files.getLastModifiedTime(binaryFile).compareTo(Files.getLastModifiedTime(textFile)) >= 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Several processes can share the same distributions folder, so the binary file is written to a unique temp file
+     * and then atomically moved into place. This way a reader will never map a partially written file.
+     */
+    private void writeBinaryFile(ScoreDistributionTable scoreDistributionTable, Path binaryFile) {
+        Path tempFile;
+        try {
+            tempFile = Files.createTempFile(binaryFile.toAbsolutePath().getParent(), binaryFile.getFileName().toString(), ".tmp");
+        } catch (IOException e) {
+            logger.warn("Unable to write binary PhenIX score distributions to {} - these will be re-parsed next time", binaryFile, e);
+            return;
+        }
+        try {
+            ScoreDistributionIO.writeBinaryScoreDistributionTable(scoreDistributionTable, tempFile);
+            moveIntoPlace(tempFile, binaryFile);
+        } catch (ScoreDistributionIO.ScoreDistributionIoException | IOException e) {
+            logger.warn("Unable to write binary PhenIX score distributions to {} - these will be re-parsed next time", binaryFile, e);
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException deleteException) {
+                logger.debug("Unable to delete {}", tempFile, deleteException);
             }
-		} catch (IOException e) {
-			logger.error("Unable access file {} to create PhenIX score distributions", file,  e);
-		}
-		if (verboseParsing)
-			logger.info("done parsing");
-	}
+        }
+    }
 
-    private synchronized void addDistribution(String diseaseId, ScoreDistribution actualDistribution) {
-        String key = getKey(symmetric, numQueryTerms);
-        key2scoreDistribution.computeIfAbsent(key, mim2scoreDist -> new HashMap<>()).put(diseaseId, actualDistribution);
+    private void moveIntoPlace(Path tempFile, Path binaryFile) throws IOException {
+        try {
+            Files.move(tempFile, binaryFile, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            logger.debug("Atomic move not supported for {} - replacing file instead", binaryFile);
+            Files.move(tempFile, binaryFile, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
 }
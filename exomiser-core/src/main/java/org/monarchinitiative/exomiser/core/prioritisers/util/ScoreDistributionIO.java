@@ -0,0 +1,276 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads and writes the PhenIX score distribution files. The distributions are supplied as text files named by the
+ * number of query terms (e.g. 3.out, 3_symmetric.out) which are slow to parse, so these can be converted into a
+ * binary format which is memory-mapped into a {@link ScoreDistributionTable}.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class ScoreDistributionIO {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScoreDistributionIO.class);
+
+    //Binary format: header of magic, version, number of genes and total number of points followed by the index entries
+    //as (entrezId, offset, length, numberRandomisations) sorted by entrezId and then all the scores followed by all the
+    //p-values. All values are big-endian.
+    private static final int BINARY_MAGIC = 0x45585344;
+    private static final int BINARY_VERSION = 1;
+    private static final int BINARY_HEADER_BYTES = 4 * Integer.BYTES;
+    private static final int BINARY_INDEX_ENTRY_BYTES = 3 * Integer.BYTES + Double.BYTES;
+
+    /*
+     * This shouldn't be instantiated.
+     */
+    private ScoreDistributionIO() {}
+
+    /**
+     * Parses a text distribution file. Each gene starts with a '>entrezId_numberRandomisations' line and is followed by
+     * 'score-pvalue' lines in ascending order of score. Genes with a non-numeric id are ignored as these can never be
+     * looked-up.
+     */
+    public static ScoreDistributionTable parseScoreDistributionTable(Path distributionFile) {
+        ScoreDistributionTable.Builder builder = ScoreDistributionTable.builder();
+        try (BufferedReader in = Files.newBufferedReader(distributionFile)) {
+            DistributionLines distributionLines = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith(">")) {
+                    addDistribution(builder, distributionLines);
+                    distributionLines = parseHeader(line);
+                } else if (distributionLines != null && !line.isEmpty()) {
+                    distributionLines.addLine(line);
+                }
+            }
+            addDistribution(builder, distributionLines);
+        } catch (IOException e) {
+            throw new ScoreDistributionIoException(e);
+        }
+        ScoreDistributionTable table = builder.build();
+        logger.info("Parsed {} from {}", table, distributionFile);
+        return table;
+    }
+
+    private static DistributionLines parseHeader(String line) {
+        String header = line.substring(1);
+        int separator = header.indexOf('_');
+        int end = header.indexOf('_', separator + 1);
+        String geneId = header.substring(0, separator);
+        double numberRandomisations = Double.parseDouble(header.substring(separator + 1, end < 0 ? header.length() : end));
+        return new DistributionLines(geneId, numberRandomisations);
+    }
+
+    private static void addDistribution(ScoreDistributionTable.Builder builder, DistributionLines distributionLines) {
+        if (distributionLines == null) {
+            return;
+        }
+        try {
+            int entrezGeneId = Integer.parseInt(distributionLines.geneId);
+            builder.addDistribution(entrezGeneId, distributionLines.getScores(), distributionLines.getPvalues(), distributionLines.numberRandomisations);
+        } catch (NumberFormatException e) {
+            logger.debug("Ignoring distribution for non-numeric gene id {}", distributionLines.geneId);
+        }
+    }
+
+    /**
+     * Writes the table in the binary format read by {@link #loadMappedScoreDistributionTable(Path)}.
+     */
+    public static void writeBinaryScoreDistributionTable(ScoreDistributionTable table, Path binaryFile) {
+        int numGenes = table.size();
+        int numPoints = table.numPoints();
+        try (FileChannel out = FileChannel.open(binaryFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(BINARY_HEADER_BYTES + numGenes * BINARY_INDEX_ENTRY_BYTES);
+            header.putInt(BINARY_MAGIC)
+                    .putInt(BINARY_VERSION)
+                    .putInt(numGenes)
+                    .putInt(numPoints);
+            int[] entrezIds = table.getEntrezIds();
+            for (int i = 0; i < numGenes; i++) {
+                header.putInt(entrezIds[i])
+                        .putInt(table.getOffset(i))
+                        .putInt(table.getLength(i))
+                        .putDouble(table.getNumberRandomisations(i));
+            }
+            header.flip();
+            writeFully(out, header);
+            writeDoubles(out, table.getScores(), numPoints);
+            writeDoubles(out, table.getPvalues(), numPoints);
+        } catch (IOException e) {
+            throw new ScoreDistributionIoException(e);
+        }
+        logger.info("Wrote {} to {}", table, binaryFile);
+    }
+
+    private static void writeDoubles(FileChannel out, DoubleBuffer values, int numValues) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192 * Double.BYTES);
+        values.position(0);
+        int remaining = numValues;
+        while (remaining > 0) {
+            int chunk = Math.min(remaining, 8192);
+            buffer.clear();
+            for (int i = 0; i < chunk; i++) {
+                buffer.putDouble(values.get());
+            }
+            buffer.flip();
+            writeFully(out, buffer);
+            remaining -= chunk;
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * @return true if the file starts with the header written by
+     * {@link #writeBinaryScoreDistributionTable(ScoreDistributionTable, Path)}
+     */
+    public static boolean isBinaryScoreDistributionTable(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            return channel.read(magic, 0) == Integer.BYTES && magic.getInt(0) == BINARY_MAGIC;
+        } catch (IOException e) {
+            throw new ScoreDistributionIoException(e);
+        }
+    }
+
+    /**
+     * Memory-maps a binary distribution file written by
+     * {@link #writeBinaryScoreDistributionTable(ScoreDistributionTable, Path)}. Only the index is read onto the heap.
+     */
+    public static ScoreDistributionTable loadMappedScoreDistributionTable(Path binaryFile) {
+        try (FileChannel channel = FileChannel.open(binaryFile, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, BINARY_HEADER_BYTES);
+            int magic = header.getInt();
+            int version = header.getInt();
+            if (magic != BINARY_MAGIC || version != BINARY_VERSION) {
+                throw new ScoreDistributionIoException(new IllegalArgumentException(binaryFile + " is not a version " + BINARY_VERSION + " binary score distribution file"));
+            }
+            int numGenes = header.getInt();
+            int numPoints = header.getInt();
+
+            long indexBytes = (long) numGenes * BINARY_INDEX_ENTRY_BYTES;
+            long valuesBytes = (long) numPoints * Double.BYTES;
+            long expectedSize = BINARY_HEADER_BYTES + indexBytes + 2 * valuesBytes;
+            if (channel.size() != expectedSize) {
+                throw new ScoreDistributionIoException(new IllegalArgumentException(binaryFile + " expected to be " + expectedSize + " bytes but was " + channel.size()));
+            }
+            if (valuesBytes > Integer.MAX_VALUE) {
+                throw new ScoreDistributionIoException(new IllegalArgumentException(binaryFile + " has too many points to map (" + numPoints + ")"));
+            }
+
+            ByteBuffer indexBuffer = channel.map(FileChannel.MapMode.READ_ONLY, BINARY_HEADER_BYTES, indexBytes);
+            int[] entrezIds = new int[numGenes];
+            int[] offsets = new int[numGenes];
+            int[] lengths = new int[numGenes];
+            double[] numberRandomisations = new double[numGenes];
+            for (int i = 0; i < numGenes; i++) {
+                entrezIds[i] = indexBuffer.getInt();
+                offsets[i] = indexBuffer.getInt();
+                lengths[i] = indexBuffer.getInt();
+                numberRandomisations[i] = indexBuffer.getDouble();
+            }
+            long position = BINARY_HEADER_BYTES + indexBytes;
+            DoubleBuffer scores = channel.map(FileChannel.MapMode.READ_ONLY, position, valuesBytes).asDoubleBuffer();
+            DoubleBuffer pvalues = channel.map(FileChannel.MapMode.READ_ONLY, position + valuesBytes, valuesBytes).asDoubleBuffer();
+            ScoreDistributionTable table = new ScoreDistributionTable(entrezIds, offsets, lengths, numberRandomisations, scores, pvalues);
+            logger.info("Mapped {} from {}", table, binaryFile);
+            return table;
+        } catch (IOException e) {
+            throw new ScoreDistributionIoException(e);
+        }
+    }
+
+    /**
+     * Accumulates the score-pvalue lines of a single gene.
+     */
+    private static class DistributionLines {
+
+        private final String geneId;
+        private final double numberRandomisations;
+        private double[] scores = new double[256];
+        private double[] pvalues = new double[256];
+        private int size = 0;
+
+        private DistributionLines(String geneId, double numberRandomisations) {
+            this.geneId = geneId;
+            this.numberRandomisations = numberRandomisations;
+        }
+
+        /**
+         * Lines are 'score-pvalue'. As the score can be negative or in scientific notation the first '-' may not be the
+         * separator, in which case the next one is.
+         */
+        private void addLine(String line) {
+            int separator = line.indexOf('-');
+            double score;
+            try {
+                score = Double.parseDouble(line.substring(0, separator));
+            } catch (NumberFormatException e) {
+                separator = line.indexOf('-', separator + 1);
+                score = Double.parseDouble(line.substring(0, separator));
+            }
+            double pvalue = Double.parseDouble(line.substring(separator + 1));
+            if (size == scores.length) {
+                scores = Arrays.copyOf(scores, size * 2);
+                pvalues = Arrays.copyOf(pvalues, size * 2);
+            }
+            scores[size] = score;
+            pvalues[size] = pvalue;
+            size++;
+        }
+
+        private double[] getScores() {
+            return Arrays.copyOf(scores, size);
+        }
+
+        private double[] getPvalues() {
+            return Arrays.copyOf(pvalues, size);
+        }
+    }
+
+    public static class ScoreDistributionIoException extends RuntimeException {
+
+        public ScoreDistributionIoException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
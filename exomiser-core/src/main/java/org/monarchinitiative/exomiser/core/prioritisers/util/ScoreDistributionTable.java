@@ -0,0 +1,196 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.util;
+
+import java.nio.DoubleBuffer;
+import java.util.*;
+
+/**
+ * The PhenIX score distributions of all genes for a given number of query terms. These are stored as a single pair of
+ * score and p-value arrays with a sorted Entrez gene id index holding the offset and length of the distribution of
+ * each gene. The arrays can be on the heap or memory-mapped from the binary file written by
+ * {@link ScoreDistributionIO#writeBinaryScoreDistributionTable(ScoreDistributionTable, java.nio.file.Path)}.
+ * Instances are immutable and safe to share across threads.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public final class ScoreDistributionTable {
+
+    public static final ScoreDistributionTable EMPTY = builder().build();
+
+    private final int[] entrezIds;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final double[] numberRandomisations;
+    private final DoubleBuffer scores;
+    private final DoubleBuffer pvalues;
+
+    ScoreDistributionTable(int[] entrezIds, int[] offsets, int[] lengths, double[] numberRandomisations, DoubleBuffer scores, DoubleBuffer pvalues) {
+        this.entrezIds = entrezIds;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.numberRandomisations = numberRandomisations;
+        this.scores = scores;
+        this.pvalues = pvalues;
+    }
+
+    /**
+     * @return a new ScoreDistribution for the gene or null if there is no distribution for this gene.
+     */
+    public ScoreDistribution getDistribution(int entrezGeneId) {
+        int i = Arrays.binarySearch(entrezIds, entrezGeneId);
+        if (i < 0) {
+            return null;
+        }
+        double[] geneScores = new double[lengths[i]];
+        double[] genePvalues = new double[lengths[i]];
+        //duplicate the buffers so that concurrent readers don't share a position
+        DoubleBuffer scoresView = scores.duplicate();
+        scoresView.position(offsets[i]);
+        scoresView.get(geneScores);
+        DoubleBuffer pvaluesView = pvalues.duplicate();
+        pvaluesView.position(offsets[i]);
+        pvaluesView.get(genePvalues);
+
+        ScoreDistribution scoreDistribution = new ScoreDistribution();
+        scoreDistribution.setDistribution(geneScores, genePvalues, numberRandomisations[i]);
+        return scoreDistribution;
+    }
+
+    public boolean containsGene(int entrezGeneId) {
+        return Arrays.binarySearch(entrezIds, entrezGeneId) >= 0;
+    }
+
+    public int size() {
+        return entrezIds.length;
+    }
+
+    public int numPoints() {
+        return scores.capacity();
+    }
+
+    /**
+     * @return the approximate number of bytes used by this table, including any memory-mapped score data.
+     */
+    public long sizeInBytes() {
+        return indexSizeInBytes() + 2L * numPoints() * Double.BYTES;
+    }
+
+    /**
+     * @return the approximate number of bytes of the Java heap used by this table. Memory-mapped score data is held
+     * off-heap in the OS page cache so is not included.
+     */
+    public long heapSizeInBytes() {
+        long scoresBytes = scores.isDirect() ? 0 : (long) scores.capacity() * Double.BYTES;
+        long pvaluesBytes = pvalues.isDirect() ? 0 : (long) pvalues.capacity() * Double.BYTES;
+        return indexSizeInBytes() + scoresBytes + pvaluesBytes;
+    }
+
+    private long indexSizeInBytes() {
+        return entrezIds.length * (3L * Integer.BYTES + Double.BYTES);
+    }
+
+    int[] getEntrezIds() {
+        return entrezIds;
+    }
+
+    int getOffset(int i) {
+        return offsets[i];
+    }
+
+    int getLength(int i) {
+        return lengths[i];
+    }
+
+    double getNumberRandomisations(int i) {
+        return numberRandomisations[i];
+    }
+
+    DoubleBuffer getScores() {
+        return scores.duplicate();
+    }
+
+    DoubleBuffer getPvalues() {
+        return pvalues.duplicate();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public String toString() {
+        return "ScoreDistributionTable{" +
+                "genes=" + entrezIds.length +
+                ", points=" + numPoints() +
+                '}';
+    }
+
+    /**
+     * Collects the distributions of each gene. Where a gene is added more than once the last distribution added is used.
+     */
+    public static class Builder {
+
+        private final Map<Integer, Integer> geneDistributionIndex = new HashMap<>();
+        private final List<double[]> geneScores = new ArrayList<>();
+        private final List<double[]> genePvalues = new ArrayList<>();
+        private final List<Double> geneNumberRandomisations = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder addDistribution(int entrezGeneId, double[] scores, double[] pvalues, double numberRandomisations) {
+            if (scores.length != pvalues.length) {
+                throw new IllegalArgumentException("Gene " + entrezGeneId + " has " + scores.length + " scores but " + pvalues.length + " p-values");
+            }
+            geneDistributionIndex.put(entrezGeneId, geneScores.size());
+            geneScores.add(scores);
+            genePvalues.add(pvalues);
+            geneNumberRandomisations.add(numberRandomisations);
+            return this;
+        }
+
+        public ScoreDistributionTable build() {
+            int[] entrezIds = geneDistributionIndex.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            int numGenes = entrezIds.length;
+            int[] offsets = new int[numGenes];
+            int[] lengths = new int[numGenes];
+            double[] numberRandomisations = new double[numGenes];
+            int numPoints = 0;
+            for (int i = 0; i < numGenes; i++) {
+                int distributionIndex = geneDistributionIndex.get(entrezIds[i]);
+                offsets[i] = numPoints;
+                lengths[i] = geneScores.get(distributionIndex).length;
+                numberRandomisations[i] = geneNumberRandomisations.get(distributionIndex);
+                numPoints += lengths[i];
+            }
+            double[] scores = new double[numPoints];
+            double[] pvalues = new double[numPoints];
+            for (int i = 0; i < numGenes; i++) {
+                int distributionIndex = geneDistributionIndex.get(entrezIds[i]);
+                System.arraycopy(geneScores.get(distributionIndex), 0, scores, offsets[i], lengths[i]);
+                System.arraycopy(genePvalues.get(distributionIndex), 0, pvalues, offsets[i], lengths[i]);
+            }
+            return new ScoreDistributionTable(entrezIds, offsets, lengths, numberRandomisations, DoubleBuffer.wrap(scores), DoubleBuffer
+                    .wrap(pvalues));
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.util;
+
+import org.jblas.FloatMatrix;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compact {@link DataMatrix} which only keeps the highest scoring entries of each column, quantised to 16 bits.
+ * <p>
+ * HiPhive and ExomeWalker only read the columns of the seed genes and are only interested in the genes most closely
+ * connected to these. Given this, only the top maxEntriesPerColumn positive entries of each column are kept, with all
+ * others read as zero. The values are stored as unsigned 16-bit fractions of the column maximum, so the absolute error of a stored
+ * value is at most half of 1/65535th of the column maximum. The trade-off between accuracy and size is controlled by the
+ * maxEntriesPerColumn - each entry needs 6 bytes, so a 20,000 gene matrix keeping the top 1000 entries of each column
+ * needs about 120 MB rather than the 1.6 GB of the {@link InMemoryDataMatrix}.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 8.0.0
+ */
+public class SparseDataMatrix implements DataMatrix {
+
+    private static final float MAX_QUANTISED_VALUE = 65535f;
+
+    private final Map<Integer, Integer> entrezIdToRowIndex;
+    private final int numRows;
+    private final int maxEntriesPerColumn;
+
+    //CSR-style storage - the entries of column c are at positions columnOffsets[c] until columnOffsets[c + 1], in row
+    //order. The value of an entry is quantisedValues[i] * columnScales[c].
+    private final int[] columnOffsets;
+    private final int[] rowIndexes;
+    private final char[] quantisedValues;
+    private final float[] columnScales;
+
+    private SparseDataMatrix(Builder builder) {
+        this.entrezIdToRowIndex = builder.entrezIdToRowIndex;
+        this.numRows = builder.numRows;
+        this.maxEntriesPerColumn = builder.maxEntriesPerColumn;
+        this.columnOffsets = builder.columnOffsets;
+        this.rowIndexes = Arrays.copyOf(builder.rowIndexes, builder.numEntries);
+        this.quantisedValues = Arrays.copyOf(builder.quantisedValues, builder.numEntries);
+        this.columnScales = builder.columnScales;
+    }
+
+    /**
+     * Creates a sparse copy of the input matrix.
+     *
+     * @param dataMatrix          the matrix to copy.
+     * @param maxEntriesPerColumn the maximum number of non-zero entries to keep for each column.
+     */
+    public static SparseDataMatrix of(DataMatrix dataMatrix, int maxEntriesPerColumn) {
+        Builder builder = builder(dataMatrix.getEntrezIdToRowIndex(), dataMatrix.numRows(), maxEntriesPerColumn);
+        //columns are added in index order, which may not be the order of the map
+        Integer[] columnGeneIds = new Integer[dataMatrix.numRows()];
+        dataMatrix.getEntrezIdToRowIndex().forEach((geneId, index) -> columnGeneIds[index] = geneId);
+        for (Integer geneId : columnGeneIds) {
+            if (geneId == null) {
+                builder.addColumn(new float[dataMatrix.numRows()]);
+            } else {
+                builder.addColumn(dataMatrix.getColumnMatrixForGene(geneId).toArray());
+            }
+        }
+        return builder.build();
+    }
+
+    public static Builder builder(Map<Integer, Integer> entrezIdToRowIndex, int numRows, int maxEntriesPerColumn) {
+        return new Builder(entrezIdToRowIndex, numRows, maxEntriesPerColumn);
+    }
+
+    @Override
+    public Map<Integer, Integer> getEntrezIdToRowIndex() {
+        return entrezIdToRowIndex;
+    }
+
+    @Override
+    public int numRows() {
+        return numRows;
+    }
+
+    public int getMaxEntriesPerColumn() {
+        return maxEntriesPerColumn;
+    }
+
+    /**
+     * @return the number of stored, i.e. non-zero, entries in the matrix.
+     */
+    public int numEntries() {
+        return rowIndexes.length;
+    }
+
+    @Override
+    public FloatMatrix getColumnMatrixForGene(int entrezGeneId) {
+        int column = entrezIdToRowIndex.get(entrezGeneId);
+        FloatMatrix columnMatrix = FloatMatrix.zeros(numRows, 1);
+        float scale = columnScales[column];
+        for (int i = columnOffsets[column]; i < columnOffsets[column + 1]; i++) {
+            columnMatrix.put(rowIndexes[i], quantisedValues[i] * scale);
+        }
+        return columnMatrix;
+    }
+
+    @Override
+    public void addColumnForGene(int entrezGeneId, float[] sums, int rowStart, int rowEnd) {
+        int column = entrezIdToRowIndex.get(entrezGeneId);
+        float scale = columnScales[column];
+        int end = columnOffsets[column + 1];
+        //entries are in row order so start from the first entry at or after rowStart
+        for (int i = firstEntryAtOrAfterRow(columnOffsets[column], end, rowStart); i < end && rowIndexes[i] < rowEnd; i++) {
+            sums[rowIndexes[i]] += quantisedValues[i] * scale;
+        }
+    }
+
+    private int firstEntryAtOrAfterRow(int from, int to, int row) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rowIndexes[mid] < row) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SparseDataMatrix that = (SparseDataMatrix) o;
+        return numRows == that.numRows &&
+                maxEntriesPerColumn == that.maxEntriesPerColumn &&
+                Objects.equals(entrezIdToRowIndex, that.entrezIdToRowIndex) &&
+                Arrays.equals(columnOffsets, that.columnOffsets) &&
+                Arrays.equals(rowIndexes, that.rowIndexes) &&
+                Arrays.equals(quantisedValues, that.quantisedValues) &&
+                Arrays.equals(columnScales, that.columnScales);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entrezIdToRowIndex, numRows, maxEntriesPerColumn, Arrays.hashCode(columnOffsets), Arrays.hashCode(rowIndexes));
+    }
+
+    @Override
+    public String toString() {
+        return "SparseDataMatrix{" +
+                "numRows=" + numRows +
+                ", maxEntriesPerColumn=" + maxEntriesPerColumn +
+                ", numEntries=" + rowIndexes.length +
+                '}';
+    }
+
+    /**
+     * Builds the matrix one column at a time, so that the full dense matrix need never be held in memory.
+     */
+    public static class Builder {
+
+        private final Map<Integer, Integer> entrezIdToRowIndex;
+        private final int numRows;
+        private final int maxEntriesPerColumn;
+
+        private final int[] columnOffsets;
+        private final float[] columnScales;
+        private int[] rowIndexes;
+        private char[] quantisedValues;
+        private int numColumns = 0;
+        private int numEntries = 0;
+
+        private Builder(Map<Integer, Integer> entrezIdToRowIndex, int numRows, int maxEntriesPerColumn) {
+            if (maxEntriesPerColumn < 1) {
+                throw new IllegalArgumentException("maxEntriesPerColumn must be greater than 0");
+            }
+            this.entrezIdToRowIndex = entrezIdToRowIndex;
+            this.numRows = numRows;
+            this.maxEntriesPerColumn = Math.min(maxEntriesPerColumn, Math.max(numRows, 1));
+            this.columnOffsets = new int[numRows + 1];
+            this.columnScales = new float[numRows];
+            this.rowIndexes = new int[Math.min(numRows * this.maxEntriesPerColumn, 1 << 20)];
+            this.quantisedValues = new char[rowIndexes.length];
+        }
+
+        /**
+         * Adds the next column of the matrix. Columns must be added in index order.
+         *
+         * @param column the values of all the rows in the column.
+         */
+        public Builder addColumn(float[] column) {
+            if (numColumns == numRows) {
+                throw new IllegalStateException("All " + numRows + " columns have already been added");
+            }
+            if (column.length != numRows) {
+                throw new IllegalArgumentException("Expected column of length " + numRows + " but was " + column.length);
+            }
+            float threshold = minValueToKeep(column);
+            float maxValue = 0;
+            for (float value : column) {
+                maxValue = Math.max(value, maxValue);
+            }
+            float scale = maxValue / MAX_QUANTISED_VALUE;
+            int numKeptAtThreshold = maxEntriesPerColumn - countGreaterThan(column, threshold);
+            ensureCapacity(numEntries + maxEntriesPerColumn);
+            for (int row = 0; row < column.length; row++) {
+                float value = column[row];
+                if (value <= 0 || value < threshold) {
+                    continue;
+                }
+                //ties at the threshold are kept in row order until the column is full
+                if (value == threshold) {
+                    if (numKeptAtThreshold == 0) {
+                        continue;
+                    }
+                    numKeptAtThreshold--;
+                }
+                rowIndexes[numEntries] = row;
+                quantisedValues[numEntries] = (char) Math.round(value / scale);
+                numEntries++;
+            }
+            columnScales[numColumns] = scale;
+            numColumns++;
+            columnOffsets[numColumns] = numEntries;
+            return this;
+        }
+
+        private float minValueToKeep(float[] column) {
+            if (maxEntriesPerColumn >= column.length) {
+                return Float.NEGATIVE_INFINITY;
+            }
+            float[] values = column.clone();
+            //the value which would be at index (length - k) were the values sorted in ascending order
+            return select(values, values.length - maxEntriesPerColumn);
+        }
+
+        private static int countGreaterThan(float[] column, float threshold) {
+            int count = 0;
+            for (float value : column) {
+                if (value > threshold) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        //Hoare's quickselect - partially sorts the values in place and returns the kth smallest
+        private static float select(float[] values, int k) {
+            int left = 0;
+            int right = values.length - 1;
+            while (left < right) {
+                float pivot = values[(left + right) >>> 1];
+                int i = left;
+                int j = right;
+                while (i <= j) {
+                    while (values[i] < pivot) {
+                        i++;
+                    }
+                    while (values[j] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        float tmp = values[i];
+                        values[i] = values[j];
+                        values[j] = tmp;
+                        i++;
+                        j--;
+                    }
+                }
+                if (k <= j) {
+                    right = j;
+                } else if (k >= i) {
+                    left = i;
+                } else {
+                    return values[k];
+                }
+            }
+            return values[k];
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > rowIndexes.length) {
+                int newLength = Math.max(capacity, rowIndexes.length + (rowIndexes.length >> 1));
+                rowIndexes = Arrays.copyOf(rowIndexes, newLength);
+                quantisedValues = Arrays.copyOf(quantisedValues, newLength);
+            }
+        }
+
+        public SparseDataMatrix build() {
+            if (numColumns != numRows) {
+                throw new IllegalStateException("Expected " + numRows + " columns but only " + numColumns + " were added");
+            }
+            return new SparseDataMatrix(this);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * The similarity of previously seen pairs of HPO terms. Scoring a PhenIX query compares every query term with the
+ * annotations of every gene and the same term pairs are seen over and over again both within and between queries, so
+ * a single instance is shared by all the {@link CachingResnikSimilarity} instances made from a {@link PhenixData}. The
+ * cache is bounded to a maximum number of term pairs, evicting the least recently used. This class is thread-safe.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+final class TermPairSimilarityCache {
+
+    /**
+     * Maximum number of term pairs held in the cache. A typical query of ten terms against ~4k annotated genes will
+     * touch under 100k distinct pairs.
+     */
+    static final long DEFAULT_MAX_CACHED_PAIRS = 2_000_000;
+
+    private final Cache<Long, Double> termPairSimilarities;
+
+    TermPairSimilarityCache() {
+        this(DEFAULT_MAX_CACHED_PAIRS);
+    }
+
+    TermPairSimilarityCache(long maxCachedPairs) {
+        this.termPairSimilarities = CacheBuilder.newBuilder()
+                .maximumSize(maxCachedPairs)
+                .build();
+    }
+
+    /**
+     * Returns the cached similarity of the pair of terms, or computes and caches it if this pair has not been seen.
+     * Pairs are symmetrical, so (a, b) and (b, a) share an entry. Concurrent callers may both compute a missing pair,
+     * which is harmless as the similarity of a pair is always the same.
+     */
+    double getSimilarity(int termIdA, int termIdB, DoubleSupplier similarity) {
+        Long key = termPairKey(termIdA, termIdB);
+        Double cachedSimilarity = termPairSimilarities.getIfPresent(key);
+        if (cachedSimilarity != null) {
+            return cachedSimilarity;
+        }
+        double computedSimilarity = similarity.getAsDouble();
+        termPairSimilarities.put(key, computedSimilarity);
+        return computedSimilarity;
+    }
+
+    long size() {
+        return termPairSimilarities.size();
+    }
+
+    /**
+     * The key is made from the pair of integer term ids ordered smallest first.
+     */
+    private static long termPairKey(int idA, int idB) {
+        int low = Math.min(idA, idB);
+        int high = Math.max(idA, idB);
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+}
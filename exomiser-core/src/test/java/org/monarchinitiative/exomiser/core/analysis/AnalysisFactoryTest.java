@@ -59,6 +59,23 @@ public void testCanMakePassOnlyAnalysisRunner() {
         assertThat(PassOnlyAnalysisRunner.class.isInstance(analysisRunner), is(true));
     }
 
+    @Test
+    public void testCanMakeStreamingAnalysisRunner() {
+        AnalysisRunner analysisRunner = instance.getAnalysisRunnerForMode(AnalysisMode.STREAMING);
+        assertThat(StreamingAnalysisRunner.class.isInstance(analysisRunner), is(true));
+    }
+
+    @Test
+    public void testCanMakeStreamingAnalysisRunnerWithMaxGenes() {
+        AnalysisRunner analysisRunner = instance.getStreamingAnalysisRunner(20);
+        assertThat(StreamingAnalysisRunner.class.isInstance(analysisRunner), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStreamingMaxGenesMustBeGreaterThanZero() {
+        new AnalysisFactory(geneFactory, variantFactory, priorityFactory, variantDataService, new AnalysisMetrics(), 0);
+    }
+
     @Test
     public void testCanMakeAnalysisBuilder() {
         assertThat(instance.getAnalysisBuilder(), notNullValue());
@@ -0,0 +1,98 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.analysis;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
+ */
+public class AnalysisMetricsTest {
+
+    private final AnalysisMetrics instance = new AnalysisMetrics();
+
+    @Test
+    public void metricsAreEmptyByDefault() {
+        assertThat(instance.getMetrics().isEmpty(), is(true));
+        assertThat(instance.getCount("wibble"), equalTo(0L));
+        assertThat(instance.getTimerCount("wibble"), equalTo(0L));
+    }
+
+    @Test
+    public void canRecordTimes() {
+        instance.recordTime("stage", TimeUnit.MILLISECONDS.toNanos(10));
+        instance.recordTime("stage", TimeUnit.MILLISECONDS.toNanos(30));
+
+        Map<String, Number> metrics = instance.getMetrics();
+        assertThat(metrics.get("exomiser.timer.stage.count"), equalTo(2L));
+        assertThat(metrics.get("exomiser.timer.stage.total-ms"), equalTo(40L));
+        assertThat(metrics.get("exomiser.timer.stage.mean-ms"), equalTo(20.0));
+        assertThat(metrics.get("exomiser.timer.stage.max-ms"), equalTo(30L));
+    }
+
+    @Test
+    public void canTimeSupplier() {
+        String result = instance.time("stage", () -> "wibble");
+        assertThat(result, equalTo("wibble"));
+        assertThat(instance.getTimerCount("stage"), equalTo(1L));
+    }
+
+    @Test
+    public void recordsTimeWhenRunnableThrowsException() {
+        try {
+            instance.time("stage", (Runnable) () -> {
+                throw new IllegalStateException();
+            });
+        } catch (IllegalStateException ex) {
+            //expected
+        }
+        assertThat(instance.getTimerCount("stage"), equalTo(1L));
+    }
+
+    @Test
+    public void canIncrementCounters() {
+        instance.incrementCounter("hits");
+        instance.incrementCounter("hits", 4);
+        assertThat(instance.getCount("hits"), equalTo(5L));
+        assertThat(instance.getMetrics().get("exomiser.counter.hits"), equalTo(5L));
+    }
+
+    @Test
+    public void reportsVariantThroughput() {
+        instance.recordTime(AnalysisMetrics.LOAD_VARIANTS, TimeUnit.SECONDS.toNanos(2));
+        instance.incrementCounter(AnalysisMetrics.VARIANTS_LOADED, 1000);
+        assertThat(instance.getMetrics().get("exomiser.throughput.variants-per-second"), equalTo(500.0));
+    }
+
+    @Test
+    public void canReset() {
+        instance.incrementCounter("hits");
+        instance.recordTime("stage", 1);
+        instance.reset();
+        assertThat(instance.getMetrics().isEmpty(), is(true));
+    }
+}
@@ -132,6 +132,44 @@ public void testParseAnalysis_FullAnalysisMode() {
         assertThat(analysis.getAnalysisMode(), equalTo(AnalysisMode.FULL));
     }
 
+    @Test
+    public void testParseAnalysis_RunPrioritisersFirst() {
+        Analysis analysis = instance.parseAnalysis(
+                "analysis:\n"
+                + "    vcf: test.vcf\n"
+                + "    runPrioritisersFirst: true \n"
+                + "    ");
+        assertThat(analysis.isRunPrioritisersFirst(), is(true));
+    }
+
+    @Test
+    public void testParseAnalysis_RunPrioritisersFirstDefaultsToFalse() {
+        Analysis analysis = instance.parseAnalysis(
+                "analysis:\n"
+                + "    vcf: test.vcf\n"
+                + "    ");
+        assertThat(analysis.isRunPrioritisersFirst(), is(false));
+    }
+
+    @Test
+    public void testParseAnalysis_VariantCheckpoint() {
+        Analysis analysis = instance.parseAnalysis(
+                "analysis:\n"
+                + "    vcf: test.vcf\n"
+                + "    variantCheckpoint: results/test-variants.bin \n"
+                + "    ");
+        assertThat(analysis.getVariantCheckpointPath(), equalTo(Paths.get("results/test-variants.bin")));
+    }
+
+    @Test
+    public void testParseAnalysis_VariantCheckpointDefaultsToNull() {
+        Analysis analysis = instance.parseAnalysis(
+                "analysis:\n"
+                + "    vcf: test.vcf\n"
+                + "    ");
+        assertThat(analysis.getVariantCheckpointPath(), nullValue());
+    }
+
     @Test
     public void testParseAnalysisModeOfInheritanceAutosomalDominant() {
         Analysis analysis = instance.parseAnalysis(
@@ -320,6 +358,27 @@ public void testParseAnalysisStep_HiPhivePrioritiserWithUserDefinedOptions() {
         assertThat(analysis.getAnalysisSteps(), equalTo(analysisSteps));
     }
 
+    @Test
+    public void testParseAnalysisStep_HiPhivePrioritiserWithTopGenesToScore() {
+        Analysis analysis = instance.parseAnalysis(addStepToAnalysis("hiPhivePrioritiser: {runParams: 'human,mouse', topGenesToScore: 20}"));
+        HiPhiveOptions hiPhiveOptions = HiPhiveOptions.builder().runParams("human,mouse").topGenesToScore(20).build();
+        analysisSteps.add(priorityFactory.makeHiPhivePrioritiser(hiPhiveOptions));
+        assertThat(analysis.getAnalysisSteps(), equalTo(analysisSteps));
+    }
+
+    @Test
+    public void testParseAnalysisStep_HiPhivePrioritiserWithQuotedTopGenesToScore() {
+        Analysis analysis = instance.parseAnalysis(addStepToAnalysis("hiPhivePrioritiser: {runParams: 'human,mouse', topGenesToScore: '20'}"));
+        HiPhiveOptions hiPhiveOptions = HiPhiveOptions.builder().runParams("human,mouse").topGenesToScore(20).build();
+        analysisSteps.add(priorityFactory.makeHiPhivePrioritiser(hiPhiveOptions));
+        assertThat(analysis.getAnalysisSteps(), equalTo(analysisSteps));
+    }
+
+    @Test(expected = AnalysisParserException.class)
+    public void testParseAnalysisStep_HiPhivePrioritiserWithNonIntegerTopGenesToScore() {
+        instance.parseAnalysis(addStepToAnalysis("hiPhivePrioritiser: {runParams: 'human,mouse', topGenesToScore: 20.5}"));
+    }
+
     @Test
     public void testParseAnalysisStep_PhivePrioritiser() {
         Analysis analysis = instance.parseAnalysis(addStepToAnalysis("phivePrioritiser: {}"));
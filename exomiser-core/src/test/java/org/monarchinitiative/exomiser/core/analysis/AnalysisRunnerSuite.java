@@ -27,6 +27,6 @@
  * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
  */
 @RunWith(Suite.class)
-@Suite.SuiteClasses({SimpleAnalysisRunnerTest.class, SparseAnalysisRunnerTest.class, PassOnlyAnalysisRunnerTest.class})
+@Suite.SuiteClasses({SimpleAnalysisRunnerTest.class, SparseAnalysisRunnerTest.class, PassOnlyAnalysisRunnerTest.class, StreamingAnalysisRunnerTest.class})
 public class AnalysisRunnerSuite {
 }
@@ -112,6 +112,56 @@ public void analysisCanSpecifyAlternativeAnalysisMode() {
         assertThat(instance.getAnalysisMode(), equalTo(AnalysisMode.FULL));
     }
 
+    @Test
+    public void runPrioritisersFirstDefaultsToFalse() {
+        assertThat(DEFAULT_ANALYSIS.isRunPrioritisersFirst(), is(false));
+    }
+
+    @Test
+    public void canSpecifyRunPrioritisersFirst() {
+        Analysis instance = newBuilder()
+                .runPrioritisersFirst(true)
+                .build();
+        assertThat(instance.isRunPrioritisersFirst(), is(true));
+        assertThat(instance.copy().build().isRunPrioritisersFirst(), is(true));
+    }
+
+    @Test
+    public void variantCheckpointPathDefaultsToNull() {
+        assertThat(DEFAULT_ANALYSIS.getVariantCheckpointPath(), nullValue());
+    }
+
+    @Test
+    public void canSpecifyVariantCheckpointPath() {
+        Path checkpointPath = Paths.get("results/sample-variants.bin");
+        Analysis instance = newBuilder()
+                .variantCheckpointPath(checkpointPath)
+                .build();
+        assertThat(instance.getVariantCheckpointPath(), equalTo(checkpointPath));
+        assertThat(instance.copy().build().getVariantCheckpointPath(), equalTo(checkpointPath));
+    }
+
+    @Test
+    public void testGetAnalysisStepsGroupedByFunctionRunsPrioritisersFirst() {
+        VariantFilter geneIdFilter = new EntrezGeneIdFilter(new HashSet<>());
+        Prioritiser noneTypePrioritiser = new NoneTypePrioritiser();
+        GeneFilter inheritanceFilter = new InheritanceFilter(ModeOfInheritance.ANY);
+        VariantFilter targetFilter = new PassAllVariantEffectsFilter();
+        GeneFilter priorityScoreFilter = new PriorityScoreFilter(noneTypePrioritiser.getPriorityType(), 0.5f);
+
+        Analysis instance = newBuilder()
+                .runPrioritisersFirst(true)
+                .steps(Lists.newArrayList(geneIdFilter, targetFilter, noneTypePrioritiser, priorityScoreFilter, inheritanceFilter))
+                .build();
+
+        List<List<AnalysisStep>> expected = new ArrayList<>();
+        expected.add(Lists.newArrayList(noneTypePrioritiser, priorityScoreFilter));
+        expected.add(Lists.newArrayList(geneIdFilter, targetFilter));
+        expected.add(Lists.newArrayList(inheritanceFilter));
+
+        assertThat(instance.getAnalysisStepsGroupedByFunction(), equalTo(expected));
+    }
+
     @Test
     public void testFrequencySourcesAreEmptyByDefault() {
         assertThat(DEFAULT_ANALYSIS.getFrequencySources().isEmpty(), is(true));
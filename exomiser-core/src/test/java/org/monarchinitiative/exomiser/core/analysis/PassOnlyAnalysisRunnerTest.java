@@ -23,6 +23,7 @@
 import de.charite.compbio.jannovar.mendel.ModeOfInheritance;
 import org.junit.Test;
 import org.monarchinitiative.exomiser.core.filters.*;
+import org.monarchinitiative.exomiser.core.genome.VariantDataServiceStub;
 import org.monarchinitiative.exomiser.core.model.FilterStatus;
 import org.monarchinitiative.exomiser.core.model.Gene;
 import org.monarchinitiative.exomiser.core.model.GeneticInterval;
@@ -31,8 +32,14 @@
 import org.monarchinitiative.exomiser.core.prioritisers.Prioritiser;
 import org.monarchinitiative.exomiser.core.prioritisers.PriorityType;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.CoreMatchers.*;
@@ -299,6 +306,163 @@ public void testRunAnalysis_VariantFilterPrioritiserPriorityScoreFilterVariantFi
         assertThat(rbm8Variant2.passedFilter(FilterType.INHERITANCE_FILTER), is(true));
     }
 
+    @Test
+    public void testRunAnalysis_RunPrioritisersFirstFailsGenesBeforeVariantFilters() {
+        Float desiredPrioritiserScore = 0.9f;
+        Map<String, Float> geneSymbolPrioritiserScores = new HashMap<>();
+        geneSymbolPrioritiserScores.put("RBM8A", desiredPrioritiserScore);
+
+        VariantFilter intervalFilter = new IntervalFilter(new GeneticInterval(1, 145508800, 145508800));
+        PriorityType prioritiserTypeToMock = PriorityType.HIPHIVE_PRIORITY;
+        Prioritiser prioritiser = new MockPrioritiser(prioritiserTypeToMock, geneSymbolPrioritiserScores);
+        GeneFilter priorityScoreFilter = new PriorityScoreFilter(prioritiserTypeToMock, desiredPrioritiserScore - 0.1f);
+
+        Analysis analysis = Analysis.builder()
+                .vcfPath(vcfPath)
+                .runPrioritisersFirst(true)
+                .addStep(intervalFilter)
+                .addStep(prioritiser)
+                .addStep(priorityScoreFilter)
+                .build();
+        AnalysisResults analysisResults = instance.run(analysis);
+        printResults(analysisResults);
+        assertThat(analysisResults.getGenes().size(), equalTo(1));
+
+        Map<String, Gene> results = makeResults(analysisResults.getGenes());
+
+        Gene passedGene = results.get("RBM8A");
+        assertThat(passedGene.passedFilters(), is(true));
+        assertThat(passedGene.getPriorityScore(), equalTo(desiredPrioritiserScore));
+        assertThat(passedGene.getNumberOfVariants(), equalTo(1));
+
+        VariantEvaluation rbm8Variant = passedGene.getVariantEvaluations().get(0);
+        assertThat(rbm8Variant.getPosition(), equalTo(145508800));
+        assertThat(rbm8Variant.passedFilter(FilterType.INTERVAL_FILTER), is(true));
+    }
+
+    @Test
+    public void testRunAnalysisRecordsStageMetrics() {
+        AnalysisMetrics analysisMetrics = new AnalysisMetrics();
+        PassOnlyAnalysisRunner runner = new PassOnlyAnalysisRunner(geneFactory, variantFactory, stubDataService, analysisMetrics);
+
+        VariantFilter intervalFilter = new IntervalFilter(new GeneticInterval(1, 145508800, 145508800));
+        Prioritiser prioritiser = new MockPrioritiser(PriorityType.HIPHIVE_PRIORITY, new HashMap<>());
+        Analysis analysis = makeAnalysis(vcfPath, intervalFilter, prioritiser);
+        runner.run(analysis);
+
+        assertThat(analysisMetrics.getTimerCount(AnalysisMetrics.ANALYSIS), equalTo(1L));
+        assertThat(analysisMetrics.getTimerCount(AnalysisMetrics.LOAD_VARIANTS), equalTo(1L));
+        assertThat(analysisMetrics.getTimerCount(AnalysisMetrics.SCORE_GENES), equalTo(1L));
+        assertThat(analysisMetrics.getTimerCount("prioritiser.HIPHIVE_PRIORITY"), equalTo(1L));
+        //the interval filter is run while loading the variants so is included in the LOAD_VARIANTS time
+        assertThat(analysisMetrics.getTimerCount("filter.INTERVAL_FILTER"), equalTo(0L));
+        assertThat(analysisMetrics.getCount(AnalysisMetrics.VARIANTS_LOADED) > 0, is(true));
+        assertThat(analysisMetrics.getCount(AnalysisMetrics.VARIANTS_PASSED), equalTo(1L));
+    }
+
+    @Test
+    public void testRunStepTimesVariantFilterOnceForAllGenes() {
+        AnalysisMetrics analysisMetrics = new AnalysisMetrics();
+        PassOnlyAnalysisRunner runner = new PassOnlyAnalysisRunner(geneFactory, variantFactory, stubDataService, analysisMetrics);
+
+        VariantFilter intervalFilter = new IntervalFilter(new GeneticInterval(1, 145508800, 145508800));
+        List<Gene> genes = Arrays.asList(new Gene("GENE1", 1), new Gene("GENE2", 2));
+        runner.runStep(intervalFilter, Collections.emptyList(), genes);
+
+        assertThat(analysisMetrics.getTimerCount("filter.INTERVAL_FILTER"), equalTo(1L));
+    }
+
+    @Test
+    public void testRunAnalysis_VariantCheckpointIsRestoredWhenOnlyThePrioritiserChanges() throws IOException {
+        Path checkpointPath = Paths.get("target", "pass-only-variant-checkpoint.bin");
+        Files.deleteIfExists(checkpointPath);
+        AnalysisMetrics analysisMetrics = new AnalysisMetrics();
+        PassOnlyAnalysisRunner runner = new PassOnlyAnalysisRunner(geneFactory, variantFactory, stubDataService, analysisMetrics);
+
+        VariantFilter intervalFilter = new IntervalFilter(new GeneticInterval(1, 145508800, 145508800));
+        Map<String, Float> firstScores = new HashMap<>();
+        firstScores.put("RBM8A", 0.5f);
+        Analysis firstAnalysis = Analysis.builder()
+                .vcfPath(vcfPath)
+                .variantCheckpointPath(checkpointPath)
+                .addStep(intervalFilter)
+                .addStep(new MockPrioritiser(PriorityType.HIPHIVE_PRIORITY, firstScores))
+                .build();
+        AnalysisResults firstResults = runner.run(firstAnalysis);
+        assertThat(Files.exists(checkpointPath), is(true));
+        assertThat(analysisMetrics.getCount(AnalysisMetrics.VARIANTS_RESTORED), equalTo(0L));
+
+        Map<String, Float> secondScores = new HashMap<>();
+        secondScores.put("RBM8A", 0.9f);
+        Analysis secondAnalysis = firstAnalysis.copy()
+                .hpoIds(Collections.singletonList("HP:0001156"))
+                .steps(Arrays.asList(intervalFilter, new MockPrioritiser(PriorityType.HIPHIVE_PRIORITY, secondScores)))
+                .build();
+        AnalysisResults secondResults = runner.run(secondAnalysis);
+        Files.delete(checkpointPath);
+        printResults(secondResults);
+
+        assertThat(analysisMetrics.getCount(AnalysisMetrics.VARIANTS_RESTORED), equalTo(1L));
+        assertThat(secondResults.getVariantEvaluations(), equalTo(firstResults.getVariantEvaluations()));
+        assertThat(secondResults.getGenes().size(), equalTo(1));
+
+        Gene passedGene = secondResults.getGenes().get(0);
+        assertThat(passedGene.getGeneSymbol(), equalTo("RBM8A"));
+        assertThat(passedGene.getPriorityScore(), equalTo(0.9f));
+        VariantEvaluation rbm8Variant = passedGene.getVariantEvaluations().get(0);
+        assertThat(rbm8Variant.getPosition(), equalTo(145508800));
+        assertThat(rbm8Variant.passedFilter(FilterType.INTERVAL_FILTER), is(true));
+    }
+
+    @Test
+    public void testRunAnalysis_VariantCheckpointIsNotRestoredWhenTheVariantFiltersChange() throws IOException {
+        Path checkpointPath = Paths.get("target", "pass-only-variant-checkpoint-filters.bin");
+        Files.deleteIfExists(checkpointPath);
+        AnalysisMetrics analysisMetrics = new AnalysisMetrics();
+        PassOnlyAnalysisRunner runner = new PassOnlyAnalysisRunner(geneFactory, variantFactory, stubDataService, analysisMetrics);
+
+        Analysis firstAnalysis = Analysis.builder()
+                .vcfPath(vcfPath)
+                .variantCheckpointPath(checkpointPath)
+                .addStep(new IntervalFilter(new GeneticInterval(1, 145508800, 145508800)))
+                .build();
+        runner.run(firstAnalysis);
+
+        Analysis secondAnalysis = firstAnalysis.copy()
+                .steps(Collections.singletonList(new QualityFilter(120)))
+                .build();
+        AnalysisResults secondResults = runner.run(secondAnalysis);
+        Files.delete(checkpointPath);
+
+        assertThat(analysisMetrics.getCount(AnalysisMetrics.VARIANTS_RESTORED), equalTo(0L));
+        assertThat(secondResults.getGenes().size(), equalTo(2));
+    }
+
+    @Test
+    public void testRunAnalysis_VariantCheckpointIsNotRestoredWhenTheDataVersionChanges() throws IOException {
+        Path checkpointPath = Paths.get("target", "pass-only-variant-checkpoint-data.bin");
+        Files.deleteIfExists(checkpointPath);
+        AnalysisMetrics analysisMetrics = new AnalysisMetrics();
+
+        Analysis analysis = Analysis.builder()
+                .vcfPath(vcfPath)
+                .variantCheckpointPath(checkpointPath)
+                .addStep(new IntervalFilter(new GeneticInterval(1, 145508800, 145508800)))
+                .build();
+        new PassOnlyAnalysisRunner(geneFactory, variantFactory, stubDataService, analysisMetrics).run(analysis);
+
+        VariantDataServiceStub updatedDataService = new VariantDataServiceStub() {
+            @Override
+            public String getDataVersion() {
+                return "updated";
+            }
+        };
+        new PassOnlyAnalysisRunner(geneFactory, variantFactory, updatedDataService, analysisMetrics).run(analysis);
+        Files.delete(checkpointPath);
+
+        assertThat(analysisMetrics.getCount(AnalysisMetrics.VARIANTS_RESTORED), equalTo(0L));
+    }
+
     @Test
     public void testRunAnalysis_autosomalDominantTrioDeNovoInheritanceFilter() {
     	VariantFilter qualityFilter = new QualityFilter(5);
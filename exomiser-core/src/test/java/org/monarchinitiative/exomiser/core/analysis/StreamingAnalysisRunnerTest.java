@@ -0,0 +1,198 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.analysis;
+
+import de.charite.compbio.jannovar.mendel.ModeOfInheritance;
+import org.junit.Test;
+import org.monarchinitiative.exomiser.core.filters.*;
+import org.monarchinitiative.exomiser.core.model.FilterStatus;
+import org.monarchinitiative.exomiser.core.model.Gene;
+import org.monarchinitiative.exomiser.core.model.GeneticInterval;
+import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
+import org.monarchinitiative.exomiser.core.prioritisers.MockPrioritiser;
+import org.monarchinitiative.exomiser.core.prioritisers.Prioritiser;
+import org.monarchinitiative.exomiser.core.prioritisers.PriorityType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class StreamingAnalysisRunnerTest extends AnalysisRunnerTestBase {
+
+    private final StreamingAnalysisRunner instance = new StreamingAnalysisRunner(geneFactory, variantFactory, stubDataService, StreamingAnalysisRunner.DEFAULT_MAX_GENES);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxGenesMustBePositive() {
+        new StreamingAnalysisRunner(geneFactory, variantFactory, stubDataService, 0);
+    }
+
+    @Test
+    public void testRunAnalysis_NoFiltersNoPrioritisers() {
+        Analysis analysis = makeAnalysis(vcfPath);
+
+        AnalysisResults analysisResults = instance.run(analysis);
+
+        printResults(analysisResults);
+        assertThat(analysisResults.getGenes().size(), equalTo(2));
+        assertThat(analysisResults.getVariantEvaluations().size(), equalTo(3));
+        for (Gene gene : analysisResults.getGenes()) {
+            assertThat(gene.passedFilters(), is(true));
+            for (VariantEvaluation variantEvaluation : gene.getVariantEvaluations()) {
+                assertThat(variantEvaluation.getFilterStatus(), equalTo(FilterStatus.UNFILTERED));
+            }
+        }
+    }
+
+    @Test
+    public void testRunAnalysis_VariantFilterOnly_OneVariantPasses() {
+        VariantFilter intervalFilter = new IntervalFilter(new GeneticInterval(1, 145508800, 145508800));
+
+        Analysis analysis = makeAnalysis(vcfPath, intervalFilter);
+        AnalysisResults analysisResults = instance.run(analysis);
+        printResults(analysisResults);
+        assertThat(analysisResults.getGenes().size(), equalTo(1));
+
+        Gene passedGene = analysisResults.getGenes().get(0);
+        assertThat(passedGene.getGeneSymbol(), equalTo("RBM8A"));
+        assertThat(passedGene.getNumberOfVariants(), equalTo(1));
+        assertThat(analysisResults.getVariantEvaluations(), equalTo(passedGene.getVariantEvaluations()));
+    }
+
+    @Test
+    public void testRunAnalysis_PrioritiserIsRunBeforeVariantFilters() {
+        Float desiredPrioritiserScore = 0.9f;
+        Map<String, Float> geneSymbolPrioritiserScores = new HashMap<>();
+        geneSymbolPrioritiserScores.put("RBM8A", desiredPrioritiserScore);
+
+        PriorityType prioritiserTypeToMock = PriorityType.HIPHIVE_PRIORITY;
+        Prioritiser prioritiser = new MockPrioritiser(prioritiserTypeToMock, geneSymbolPrioritiserScores);
+        GeneFilter priorityScoreFilter = new PriorityScoreFilter(prioritiserTypeToMock, desiredPrioritiserScore - 0.1f);
+        VariantFilter intervalFilter = new IntervalFilter(new GeneticInterval(1, 145508800, 145508800));
+
+        Analysis analysis = makeAnalysis(vcfPath, intervalFilter, prioritiser, priorityScoreFilter);
+        AnalysisResults analysisResults = instance.run(analysis);
+        printResults(analysisResults);
+        assertThat(analysisResults.getGenes().size(), equalTo(1));
+
+        Gene passedGene = analysisResults.getGenes().get(0);
+        assertThat(passedGene.getGeneSymbol(), equalTo("RBM8A"));
+        assertThat(passedGene.passedFilters(), is(true));
+        assertThat(passedGene.getPriorityScore(), equalTo(desiredPrioritiserScore));
+        assertThat(passedGene.getNumberOfVariants(), equalTo(1));
+        assertThat(passedGene.getVariantEvaluations().get(0).getPosition(), equalTo(145508800));
+    }
+
+    @Test
+    public void testRunAnalysis_OnlyTopGenesAreKept() {
+        Map<String, Float> hiPhiveGeneScores = new HashMap<>();
+        hiPhiveGeneScores.put("GNRHR2", 0.75f);
+        hiPhiveGeneScores.put("RBM8A", 0.65f);
+        Prioritiser mockHiPhivePrioritiser = new MockPrioritiser(PriorityType.HIPHIVE_PRIORITY, hiPhiveGeneScores);
+
+        StreamingAnalysisRunner topGeneRunner = new StreamingAnalysisRunner(geneFactory, variantFactory, stubDataService, 1);
+        Analysis analysis = makeAnalysis(vcfPath, mockHiPhivePrioritiser);
+        AnalysisResults analysisResults = topGeneRunner.run(analysis);
+        printResults(analysisResults);
+        assertThat(analysisResults.getGenes().size(), equalTo(1));
+
+        Gene topGene = analysisResults.getGenes().get(0);
+        assertThat(topGene.getGeneSymbol(), equalTo("GNRHR2"));
+        assertThat(analysisResults.getVariantEvaluations(), equalTo(topGene.getVariantEvaluations()));
+    }
+
+    @Test
+    public void testRunAnalysis_autosomalRecessiveTrioInheritanceFilterWithNoWindowPadding() {
+        StreamingAnalysisRunner noPaddingRunner = new StreamingAnalysisRunner(geneFactory, variantFactory, stubDataService, StreamingAnalysisRunner.DEFAULT_MAX_GENES, 0);
+
+        VariantFilter qualityFilter = new QualityFilter(5);
+        InheritanceFilter inheritanceFilter = new InheritanceFilter(ModeOfInheritance.AUTOSOMAL_RECESSIVE);
+        Analysis analysis = Analysis.builder()
+                .vcfPath(inheritanceFilterVCFPath)
+                .pedPath(childAffectedPedPath)
+                .probandSampleName("Seth")
+                .modeOfInheritance(ModeOfInheritance.AUTOSOMAL_RECESSIVE)
+                .addStep(qualityFilter)
+                .addStep(inheritanceFilter)
+                .build();
+        AnalysisResults analysisResults = noPaddingRunner.run(analysis);
+        printResults(analysisResults);
+        assertThat(analysisResults.getGenes().size(), equalTo(2));
+
+        Map<String, Gene> results = makeResults(analysisResults.getGenes());
+        //CompoundHeterozygous
+        Gene passedGene = results.get("RBM8A");
+        assertThat(passedGene.passedFilters(), is(true));
+        assertThat(passedGene.isCompatibleWith(ModeOfInheritance.AUTOSOMAL_RECESSIVE), is(true));
+        assertThat(passedGene.getNumberOfVariants(), equalTo(2));
+        assertThat(passedGene.getVariantEvaluations().get(0).getPosition(), equalTo(123256214));
+        assertThat(passedGene.getVariantEvaluations().get(1).getPosition(), equalTo(145508800));
+
+        //Homozygous
+        passedGene = results.get("FGFR2");
+        assertThat(passedGene.passedFilters(), is(true));
+        assertThat(passedGene.isCompatibleWith(ModeOfInheritance.AUTOSOMAL_RECESSIVE), is(true));
+        assertThat(passedGene.getNumberOfVariants(), equalTo(1));
+        assertThat(passedGene.getVariantEvaluations().get(0).getPosition(), equalTo(123239370));
+    }
+
+    @Test
+    public void testRunAnalysis_lateVariantForFinishedGeneIsDiscarded() throws Exception {
+        //RBM8A is finished when the stream moves onto chromosome 10 so the out of order variant can't be added to it
+        Path unsortedVcfPath = Paths.get("target", "unsortedStreamingTest.vcf");
+        List<String> lines = Arrays.asList(
+                "##fileformat=VCFv4.1",
+                "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tmanuel",
+                "1\t145508800\trs12345678\tT\tC\t123.15\tPASS\tGENE=RBM8A\tGT:DP\t1/1:33",
+                "10\t123239370\t.\tG\tA\t260.15\tPASS\tGENE=FGFR2\tGT:DP\t1/1:21",
+                "1\t123256213\t.\tCA\tCC\t100.15\tPASS\tGENE=RBM8A\tGT:DP\t1/1:33"
+        );
+        Files.write(unsortedVcfPath, lines);
+
+        AnalysisResults analysisResults = instance.run(makeAnalysis(unsortedVcfPath));
+        Files.delete(unsortedVcfPath);
+        printResults(analysisResults);
+
+        Map<String, Gene> results = makeResults(analysisResults.getGenes());
+        assertThat(results.get("RBM8A").getNumberOfVariants(), equalTo(1));
+        assertThat(results.get("RBM8A").getVariantEvaluations().get(0).getPosition(), equalTo(145508800));
+        assertThat(results.get("FGFR2").getNumberOfVariants(), equalTo(1));
+        assertThat(analysisResults.getVariantEvaluations().size(), equalTo(2));
+    }
+
+    @Test(expected = SampleMismatchException.class)
+    public void testRunAnalysisWhenProbandSampleNameIsNotInSingleSampleVcf() {
+        Analysis analysis = Analysis.builder()
+                .vcfPath(vcfPath)
+                .probandSampleName("mickyMouse")
+                .build();
+        instance.run(analysis);
+    }
+}
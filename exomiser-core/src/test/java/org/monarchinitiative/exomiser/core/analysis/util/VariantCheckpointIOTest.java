@@ -0,0 +1,272 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.analysis.util;
+
+import de.charite.compbio.jannovar.annotation.VariantEffect;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderVersion;
+import org.junit.Test;
+import org.monarchinitiative.exomiser.core.filters.FilterResult;
+import org.monarchinitiative.exomiser.core.filters.FilterType;
+import org.monarchinitiative.exomiser.core.genome.VariantContextBuilder;
+import org.monarchinitiative.exomiser.core.model.TranscriptAnnotation;
+import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
+import org.monarchinitiative.exomiser.core.model.frequency.Frequency;
+import org.monarchinitiative.exomiser.core.model.frequency.FrequencyData;
+import org.monarchinitiative.exomiser.core.model.frequency.FrequencySource;
+import org.monarchinitiative.exomiser.core.model.frequency.RsId;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityData;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.PolyPhenScore;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.SiftScore;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class VariantCheckpointIOTest {
+
+    private static final String KEY = "vcf=test.vcf, steps=[[FrequencyFilter{maxFreq=1.0}]]";
+
+    private final VCFHeader vcfHeader = new VCFHeader(new HashSet<>(), Arrays.asList("Adam", "Eve"));
+    private final VariantContext multiAllelicRecord = new VariantContextBuilder("Adam", "Eve").build("1 123256213 rs123 CA CC,CT 100 PASS . GT 1/1 1/2");
+
+    private VariantEvaluation annotatedVariant() {
+        TranscriptAnnotation annotation = TranscriptAnnotation.builder()
+                .variantEffect(VariantEffect.MISSENSE_VARIANT)
+                .geneSymbol("FGFR2")
+                .accession("uc021pzz.1")
+                .hgvsCdna("c.1A>G")
+                .hgvsProtein("p.(Lys1Arg)")
+                .distanceFromNearestGene(0)
+                .build();
+        return VariantEvaluation.builder(1, 123256214, "A", "C")
+                .variantContext(multiAllelicRecord)
+                .altAlleleId(0)
+                .numIndividuals(2)
+                .quality(100)
+                .chromosomeName("1")
+                .variantEffect(VariantEffect.MISSENSE_VARIANT)
+                .annotations(Collections.singletonList(annotation))
+                .geneSymbol("FGFR2")
+                .geneId(2263)
+                .frequencyData(FrequencyData.of(RsId.valueOf(123), Frequency.valueOf(0.01f, FrequencySource.ESP_AFRICAN_AMERICAN)))
+                .pathogenicityData(PathogenicityData.of(PolyPhenScore.valueOf(0.9f), SiftScore.valueOf(0.01f)))
+                .filterResults(FilterResult.pass(FilterType.FREQUENCY_FILTER), FilterResult.fail(FilterType.PATHOGENICITY_FILTER))
+                .build();
+    }
+
+    private VariantEvaluation unannotatedVariant() {
+        return VariantEvaluation.builder(1, 123256214, "A", "T")
+                .variantContext(multiAllelicRecord)
+                .altAlleleId(1)
+                .numIndividuals(2)
+                .quality(100)
+                .build();
+    }
+
+    private Path writeCheckpoint(String fileName, List<VariantEvaluation> variants) {
+        Path checkpointFile = Paths.get("target", fileName);
+        VariantCheckpointIO.writeVariantCheckpoint(checkpointFile, KEY, vcfHeader, variants);
+        return checkpointFile;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        VariantEvaluation annotated = annotatedVariant();
+        VariantEvaluation unannotated = unannotatedVariant();
+        Path checkpointFile = writeCheckpoint("variant-checkpoint-round-trip.bin", Arrays.asList(annotated, unannotated));
+
+        List<VariantEvaluation> variants = VariantCheckpointIO.readVariantCheckpoint(checkpointFile, KEY, vcfHeader, VCFHeaderVersion.VCF4_2).get();
+        Files.delete(checkpointFile);
+
+        assertThat(variants, equalTo(Arrays.asList(annotated, unannotated)));
+
+        VariantEvaluation restored = variants.get(0);
+        assertThat(restored.getChromosomeName(), equalTo(annotated.getChromosomeName()));
+        assertThat(restored.getAltAlleleId(), equalTo(0));
+        assertThat(restored.getNumberOfIndividuals(), equalTo(2));
+        assertThat(restored.getPhredScore(), equalTo(annotated.getPhredScore()));
+        assertThat(restored.isOffExome(), equalTo(annotated.isOffExome()));
+        assertThat(restored.getVariantEffect(), equalTo(VariantEffect.MISSENSE_VARIANT));
+        assertThat(restored.getGeneSymbol(), equalTo("FGFR2"));
+        assertThat(restored.getEntrezGeneId(), equalTo(2263));
+        assertThat(restored.getAnnotations(), equalTo(annotated.getAnnotations()));
+        assertThat(restored.getFrequencyData(), equalTo(annotated.getFrequencyData()));
+        assertThat(restored.getPathogenicityData(), equalTo(annotated.getPathogenicityData()));
+        assertThat(restored.getPassedFilterTypes(), equalTo(annotated.getPassedFilterTypes()));
+        assertThat(restored.getFailedFilterTypes(), equalTo(annotated.getFailedFilterTypes()));
+        assertThat(restored.getVariantScore(), equalTo(annotated.getVariantScore()));
+
+        VariantEvaluation restoredUnannotated = variants.get(1);
+        assertThat(restoredUnannotated.getAltAlleleId(), equalTo(1));
+        assertThat(restoredUnannotated.getFrequencyData(), equalTo(FrequencyData.empty()));
+        assertThat(restoredUnannotated.getPathogenicityData(), equalTo(PathogenicityData.empty()));
+        assertThat(restoredUnannotated.getFilterStatus(), equalTo(unannotated.getFilterStatus()));
+    }
+
+    @Test
+    public void testVcfRecordIsRestoredAndSharedBetweenAlleles() throws IOException {
+        Path checkpointFile = writeCheckpoint("variant-checkpoint-records.bin", Arrays.asList(annotatedVariant(), unannotatedVariant()));
+
+        List<VariantEvaluation> variants = VariantCheckpointIO.readVariantCheckpoint(checkpointFile, KEY, vcfHeader, VCFHeaderVersion.VCF4_2).get();
+        Files.delete(checkpointFile);
+
+        VariantContext record = variants.get(0).getVariantContext();
+        assertThat(variants.get(1).getVariantContext(), sameInstance(record));
+        assertThat(record.getContig(), equalTo(multiAllelicRecord.getContig()));
+        assertThat(record.getStart(), equalTo(multiAllelicRecord.getStart()));
+        assertThat(record.getID(), equalTo("rs123"));
+        assertThat(record.getAlleles(), equalTo(multiAllelicRecord.getAlleles()));
+        assertThat(record.getGenotype("Adam").getGenotypeString(), equalTo(multiAllelicRecord.getGenotype("Adam").getGenotypeString()));
+        assertThat(record.getGenotype("Eve").getGenotypeString(), equalTo(multiAllelicRecord.getGenotype("Eve").getGenotypeString()));
+        assertThat(variants.get(0).getGenotypeString(), equalTo(annotatedVariant().getGenotypeString()));
+    }
+
+    @Test
+    public void testReadWithDifferentKeyIsEmpty() throws IOException {
+        Path checkpointFile = writeCheckpoint("variant-checkpoint-key.bin", Collections.singletonList(annotatedVariant()));
+
+        Optional<List<VariantEvaluation>> variants = VariantCheckpointIO.readVariantCheckpoint(checkpointFile, KEY + " changed", vcfHeader, VCFHeaderVersion.VCF4_2);
+        Files.delete(checkpointFile);
+
+        assertThat(variants.isPresent(), is(false));
+    }
+
+    @Test
+    public void testReadMissingFileIsEmpty() {
+        Optional<List<VariantEvaluation>> variants = VariantCheckpointIO.readVariantCheckpoint(Paths.get("target", "wibble.bin"), KEY, vcfHeader, VCFHeaderVersion.VCF4_2);
+        assertThat(variants.isPresent(), is(false));
+    }
+
+    @Test(expected = VariantCheckpointIO.VariantCheckpointIoException.class)
+    public void testReadNonCheckpointFileThrowsException() {
+        VariantCheckpointIO.readVariantCheckpoint(Paths.get("src/test/resources/smallTest.vcf"), KEY, vcfHeader, VCFHeaderVersion.VCF4_2);
+    }
+
+    @Test
+    public void testReadUndecodableVcfRecordThrowsException() throws IOException {
+        Path checkpointFile = Paths.get("target", "variant-checkpoint-corrupt.bin");
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(checkpointFile)))) {
+            out.writeInt(0x45585643);
+            out.writeInt(1);
+            writeString(out, KEY);
+            //one VCF record which doesn't match the header
+            out.writeInt(1);
+            writeString(out, "wibble");
+            out.writeInt(0);
+        }
+        try {
+            VariantCheckpointIO.readVariantCheckpoint(checkpointFile, KEY, vcfHeader, VCFHeaderVersion.VCF4_2);
+            fail("Expected a VariantCheckpointIoException");
+        } catch (VariantCheckpointIO.VariantCheckpointIoException e) {
+            assertThat(e.getCause() instanceof RuntimeException, is(true));
+        } finally {
+            Files.delete(checkpointFile);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private Path writeVcfFile(String fileName, String firstLine) throws IOException {
+        Path vcfFile = Paths.get("target", fileName);
+        Files.write(vcfFile, Arrays.asList(firstLine, "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tAdam\tEve"));
+        return vcfFile;
+    }
+
+    @Test
+    public void testReadVcfHeaderVersion() {
+        assertThat(VariantCheckpointIO.readVcfHeaderVersion(Paths.get("src/test/resources/smallTest.vcf")), equalTo(VCFHeaderVersion.VCF4_1));
+    }
+
+    @Test
+    public void testReadVcfHeaderVersionForEachVersion() throws IOException {
+        for (VCFHeaderVersion version : Arrays.asList(VCFHeaderVersion.VCF4_0, VCFHeaderVersion.VCF4_1, VCFHeaderVersion.VCF4_2)) {
+            Path vcfFile = writeVcfFile("variant-checkpoint-version.vcf", "##fileformat=" + version.getVersionString());
+            assertThat(VariantCheckpointIO.readVcfHeaderVersion(vcfFile), equalTo(version));
+            Files.delete(vcfFile);
+        }
+    }
+
+    @Test
+    public void testReadVcfHeaderVersionIsNullWithoutFileFormatLine() throws IOException {
+        Path vcfFile = writeVcfFile("variant-checkpoint-no-version.vcf", "##source=wibble");
+        assertThat(VariantCheckpointIO.readVcfHeaderVersion(vcfFile), is(nullValue()));
+        Files.delete(vcfFile);
+    }
+
+    @Test(expected = VariantCheckpointIO.VariantCheckpointIoException.class)
+    public void testReadVcfHeaderVersionForMissingFileThrowsException() {
+        VariantCheckpointIO.readVcfHeaderVersion(Paths.get("target", "wibble.vcf"));
+    }
+
+    @Test
+    public void testRoundTripWithVcf41Records() throws IOException {
+        VariantEvaluation annotated = annotatedVariant();
+        Path checkpointFile = writeCheckpoint("variant-checkpoint-vcf41.bin", Collections.singletonList(annotated));
+
+        List<VariantEvaluation> variants = VariantCheckpointIO.readVariantCheckpoint(checkpointFile, KEY, vcfHeader, VCFHeaderVersion.VCF4_1).get();
+        Files.delete(checkpointFile);
+
+        assertThat(variants, equalTo(Collections.singletonList(annotated)));
+        assertThat(variants.get(0).getGenotypeString(), equalTo(annotated.getGenotypeString()));
+    }
+
+    @Test
+    public void testReadWithUnknownVersionDecodesAsVcf42() throws IOException {
+        VariantEvaluation annotated = annotatedVariant();
+        Path checkpointFile = writeCheckpoint("variant-checkpoint-no-version.bin", Collections.singletonList(annotated));
+
+        List<VariantEvaluation> variants = VariantCheckpointIO.readVariantCheckpoint(checkpointFile, KEY, vcfHeader, null).get();
+        Files.delete(checkpointFile);
+
+        assertThat(variants, equalTo(Collections.singletonList(annotated)));
+    }
+
+    @Test
+    public void testWriteEmpty() throws IOException {
+        Path checkpointFile = writeCheckpoint("variant-checkpoint-empty.bin", Collections.emptyList());
+
+        List<VariantEvaluation> variants = VariantCheckpointIO.readVariantCheckpoint(checkpointFile, KEY, vcfHeader, VCFHeaderVersion.VCF4_2).get();
+        Files.delete(checkpointFile);
+
+        assertThat(variants.isEmpty(), is(true));
+    }
+}
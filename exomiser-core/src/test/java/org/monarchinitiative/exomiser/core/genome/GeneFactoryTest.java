@@ -27,13 +27,17 @@
 
 import com.google.common.collect.Sets;
 import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.Strand;
 import org.junit.Test;
 import org.monarchinitiative.exomiser.core.model.Gene;
 import org.monarchinitiative.exomiser.core.model.GeneIdentifier;
+import org.monarchinitiative.exomiser.core.model.GeneticInterval;
 
+import java.util.Map;
 import java.util.Set;
 
-import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -60,4 +64,29 @@ public void testCreateKnownGenes() {
         assertThat(knownGenes, equalTo(expected));
     }
 
+    @Test
+    public void testKnownGeneCatalogueIsOnlyBuiltOnce() {
+        KnownGeneCatalogue catalogue = instance.getKnownGeneCatalogue();
+        assertThat(instance.getKnownGeneCatalogue(), sameInstance(catalogue));
+        assertThat(instance.createKnownGeneIds(), sameInstance(catalogue.getGeneIdentifiers()));
+    }
+
+    @Test
+    public void testCreateKnownGenesReturnsNewGenesWithEachCall() {
+        Gene gene = instance.createKnownGenes().get(0);
+        Gene otherGene = instance.createKnownGenes().get(0);
+        assertThat(otherGene, equalTo(gene));
+        assertThat(otherGene, not(sameInstance(gene)));
+    }
+
+    @Test
+    public void testCreateKnownGeneIntervals() {
+        Map<String, GeneticInterval> knownGeneIntervals = instance.createKnownGeneIntervals();
+        assertThat(knownGeneIntervals.size(), equalTo(4));
+
+        GenomeInterval rbm8aTxRegion = TestTranscriptModelFactory.buildTMForRBM8A().getTXRegion().withStrand(Strand.FWD);
+        GeneticInterval expected = new GeneticInterval(rbm8aTxRegion.getChr(), rbm8aTxRegion.getBeginPos(), rbm8aTxRegion.getEndPos());
+        assertThat(knownGeneIntervals.get("RBM8A"), equalTo(expected));
+    }
+
 }
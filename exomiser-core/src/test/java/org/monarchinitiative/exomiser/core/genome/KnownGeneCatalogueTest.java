@@ -0,0 +1,91 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.core.genome;
+
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.monarchinitiative.exomiser.core.model.Gene;
+import org.monarchinitiative.exomiser.core.model.GeneIdentifier;
+import org.monarchinitiative.exomiser.core.model.GeneticInterval;
+
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
+ */
+public class KnownGeneCatalogueTest {
+
+    private static final GeneticInterval FGFR2_INTERVAL = new GeneticInterval(10, 123237848, 123357992);
+
+    private final KnownGeneCatalogue instance = new KnownGeneCatalogue(
+            new LinkedHashSet<>(TestFactory.buildGeneIdentifiers()),
+            Collections.singletonMap("FGFR2", FGFR2_INTERVAL)
+    );
+
+    @Test
+    public void testGetGeneIdentifiers() {
+        assertThat(instance.getGeneIdentifiers(), equalTo(Sets.newHashSet(TestFactory.buildGeneIdentifiers())));
+        assertThat(instance.size(), equalTo(TestFactory.buildGeneIdentifiers().size()));
+    }
+
+    @Test
+    public void testGetGeneIdentifierForSymbol() {
+        assertThat(instance.getGeneIdentifierForSymbol("FGFR2"), equalTo(Optional.of(TestGeneFactory.FGFR2_IDENTIFIER)));
+        assertThat(instance.getGeneIdentifierForSymbol("WIBBLE"), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void testGetGeneIdentifierForEntrezId() {
+        Integer fgfr2EntrezId = TestGeneFactory.FGFR2_IDENTIFIER.getEntrezIdAsInteger();
+        assertThat(instance.getGeneIdentifierForEntrezId(fgfr2EntrezId), equalTo(Optional.of(TestGeneFactory.FGFR2_IDENTIFIER)));
+        assertThat(instance.getGeneIdentifierForEntrezId(GeneIdentifier.NULL_ENTREZ_ID), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void testGeneIdentifiersWithoutEntrezIdAreNotIndexedByEntrezId() {
+        GeneIdentifier noEntrezId = GeneIdentifier.builder().geneSymbol("WIBBLE").build();
+        KnownGeneCatalogue catalogue = new KnownGeneCatalogue(Collections.singleton(noEntrezId), Collections.emptyMap());
+        assertThat(catalogue.getGeneIdentifierForSymbol("WIBBLE"), equalTo(Optional.of(noEntrezId)));
+        assertThat(catalogue.getGeneIdentifiersByEntrezId().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testGetGeneIntervals() {
+        assertThat(instance.getGeneIntervals(), equalTo(Collections.singletonMap("FGFR2", FGFR2_INTERVAL)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGeneIdentifiersAreImmutable() {
+        instance.getGeneIdentifiers().clear();
+    }
+
+    @Test
+    public void testCreateGenesReturnsNewGenesWithEachCall() {
+        List<Gene> genes = instance.createGenes();
+        assertThat(Sets.newHashSet(genes), equalTo(Sets.newHashSet(TestFactory.buildGenes())));
+
+        List<Gene> otherGenes = instance.createGenes();
+        assertThat(otherGenes.get(0), not(sameInstance(genes.get(0))));
+        assertThat(otherGenes.get(0).getGeneIdentifier(), sameInstance(genes.get(0).getGeneIdentifier()));
+    }
+}
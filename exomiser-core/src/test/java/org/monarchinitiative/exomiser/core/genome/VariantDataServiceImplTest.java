@@ -55,7 +55,7 @@
 public class VariantDataServiceImplTest {
 
     @InjectMocks
-    private VariantDataServiceImpl instance;
+    private VariantDataServiceImpl instance = new VariantDataServiceImpl();
     @Mock
     private FrequencyDao defaultFrequencyDao;
     @Mock
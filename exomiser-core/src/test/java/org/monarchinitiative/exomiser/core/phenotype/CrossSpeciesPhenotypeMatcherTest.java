@@ -122,4 +122,33 @@ public void testCalculateBestPhenotypeMatchesByTermReturnsEmptyMapForEmptyInputL
     public void testCanGetTheoreticalBestModel() {
         assertThat(instance.getQueryPhenotypeMatch(), equalTo(new QueryPhenotypeMatch(Organism.HUMAN, instance.getTermPhenotypeMatches())));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testMatchPhenotypeIdsNoMatches() {
+        PhenodigmMatchRawScore result = instance.matchPhenotypeIds(Lists.newArrayList("MP:0000000", "HP:0000004"));
+        assertThat(result, equalTo(new PhenodigmMatchRawScore(0, 0, Collections.emptyList(), Collections.emptyList())));
+    }
+
+    @Test
+    public void testMatchPhenotypeIds() {
+        List<String> modelPhenotypes = Lists.newArrayList(littleNose.getId(), "MP:0000000", longToe.getId());
+        PhenodigmMatchRawScore result = instance.matchPhenotypeIds(modelPhenotypes);
+
+        List<String> matchingPhenotypes = Lists.newArrayList(littleNose.getId(), longToe.getId());
+        List<PhenotypeMatch> bestMatches = Lists.newArrayList(noseMatch, bestToeMatch);
+        assertThat(result, equalTo(new PhenodigmMatchRawScore(2.0, 6.0, matchingPhenotypes, bestMatches)));
+    }
+
+    @Test
+    public void testMatchPhenotypeIndexesIsSameAsMatchPhenotypeIds() {
+        List<String> modelPhenotypes = Lists.newArrayList(crookedToe.getId(), bigNose.getId(), littleNose.getId(), longToe.getId());
+        int[] modelPhenotypeIndexes = PhenotypeTermIndex.indexTerms(modelPhenotypes);
+        assertThat(instance.matchPhenotypeIndexes(modelPhenotypeIndexes), equalTo(instance.matchPhenotypeIds(modelPhenotypes)));
+    }
+
+    @Test
+    public void testMatchPhenotypeIndexesNotIndexed() {
+        int[] modelPhenotypeIndexes = {PhenotypeTermIndex.NOT_INDEXED};
+        assertThat(instance.matchPhenotypeIndexes(modelPhenotypeIndexes), equalTo(new PhenodigmMatchRawScore(0, 0, Collections.emptyList(), Collections.emptyList())));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.phenotype;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.monarchinitiative.exomiser.core.prioritisers.model.GeneModel;
+import org.monarchinitiative.exomiser.core.prioritisers.model.GeneOrthologModel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class ModelProfileIndexTest {
+
+    private final GeneModel fgfr2Model = new GeneOrthologModel("MGI:95523_1", Organism.MOUSE, 2263, "FGFR2", "MGI:95523", "Fgfr2", ImmutableList.of("MP:0000031", "MP:0000035"));
+    //same phenotypes as fgfr2Model but a different gene
+    private final GeneModel fgfr1Model = new GeneOrthologModel("MGI:95522_2", Organism.MOUSE, 2260, "FGFR1", "MGI:95522", "Fgfr1", ImmutableList.of("MP:0000031", "MP:0000035"));
+    private final GeneModel ror2Model = new GeneOrthologModel("MGI:1347521_3", Organism.MOUSE, 4920, "ROR2", "MGI:1347521", "Ror2", ImmutableList.of("MP:0000031"));
+    //same terms as fgfr2Model in a different order
+    private final GeneModel frem2Model = new GeneOrthologModel("MGI:2444465_4", Organism.MOUSE, 341640, "FREM2", "MGI:2444465", "Frem2", ImmutableList.of("MP:0000035", "MP:0000031"));
+
+    private final ModelProfileIndex<GeneModel> instance = ModelProfileIndex.of(ImmutableList.of(fgfr2Model, fgfr1Model, ror2Model, frem2Model));
+
+    @Test
+    public void testEmpty() {
+        ModelProfileIndex<GeneModel> empty = ModelProfileIndex.of(Collections.emptyList());
+        assertThat(empty.size(), equalTo(0));
+        assertThat(empty.numProfiles(), equalTo(0));
+        assertThat(empty.scoreModels(model -> true, profile -> 1d), equalTo(new double[0]));
+    }
+
+    @Test
+    public void testModelsRetainInputOrder() {
+        assertThat(instance.getModels(), equalTo(ImmutableList.of(fgfr2Model, fgfr1Model, ror2Model, frem2Model)));
+        assertThat(instance.size(), equalTo(4));
+    }
+
+    @Test
+    public void testModelsWithIdenticalPhenotypesShareProfile() {
+        assertThat(instance.numProfiles(), equalTo(3));
+        assertThat(instance.getProfileIndex(0), equalTo(instance.getProfileIndex(1)));
+        assertThat(instance.getProfileIndex(0), not(equalTo(instance.getProfileIndex(2))));
+        assertThat(instance.getProfileIndex(0), not(equalTo(instance.getProfileIndex(3))));
+    }
+
+    @Test
+    public void testScoreModelsScoresEachProfileOnce() {
+        List<int[]> scoredProfiles = Collections.synchronizedList(new ArrayList<>());
+        double[] scores = instance.scoreModels(model -> true, profile -> {
+            scoredProfiles.add(profile);
+            return profile.length;
+        });
+        assertThat(scoredProfiles.size(), equalTo(3));
+        assertThat(scores, equalTo(new double[]{2, 2, 1, 2}));
+    }
+
+    @Test
+    public void testScoreModelsOnlyScoresSelectedModels() {
+        List<int[]> scoredProfiles = Collections.synchronizedList(new ArrayList<>());
+        double[] scores = instance.scoreModels(model -> model.getEntrezGeneId() == 2260 || model.getEntrezGeneId() == 4920, profile -> {
+            scoredProfiles.add(profile);
+            return profile.length;
+        });
+        assertThat(scoredProfiles.size(), equalTo(2));
+        assertThat(scores, equalTo(new double[]{0, 2, 1, 0}));
+    }
+
+    @Test
+    public void testNoKeysWhenCreatedWithoutKeyMapper() {
+        assertThat(instance.numKeys(), equalTo(0));
+        assertThat(instance.getModelIndexesForKeys(ImmutableList.of(2263, 2260)), equalTo(new int[0]));
+    }
+
+    @Test
+    public void testGetModelIndexesForKeys() {
+        GeneModel otherFgfr2Model = new GeneOrthologModel("MGI:95523_5", Organism.MOUSE, 2263, "FGFR2", "MGI:95523", "Fgfr2", ImmutableList.of("MP:0000031"));
+        ModelProfileIndex<GeneModel> keyedInstance = ModelProfileIndex.of(ImmutableList.of(fgfr2Model, fgfr1Model, ror2Model, frem2Model, otherFgfr2Model), GeneModel::getEntrezGeneId);
+        assertThat(keyedInstance.numKeys(), equalTo(4));
+        assertThat(keyedInstance.getModelIndexesForKeys(ImmutableList.of(4920, 2263, 1)), equalTo(new int[]{0, 2, 4}));
+        assertThat(keyedInstance.getModelIndexesForKeys(Collections.emptyList()), equalTo(new int[0]));
+    }
+
+    @Test
+    public void testScoreModelsOnlyVisitsGivenModelIndexes() {
+        List<GeneModel> visitedModels = Collections.synchronizedList(new ArrayList<>());
+        double[] scores = instance.scoreModels(new int[]{1, 3}, model -> {
+            visitedModels.add(model);
+            return model.getEntrezGeneId() != 341640;
+        }, profile -> profile.length);
+        assertThat(visitedModels, equalTo(ImmutableList.of(fgfr1Model, frem2Model)));
+        assertThat(scores, equalTo(new double[]{2, 0}));
+    }
+}
@@ -34,6 +34,8 @@
 import static java.util.stream.Collectors.toList;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -191,4 +193,69 @@ public void testScoreMultiCrossSpecies() {
         System.out.println(fishResult);
         assertThat(fishResult.getScore(), equalTo(0.628922135363762));
     }
+
+    @Test
+    public void testCalculateModelScoreIsSameAsScoreModel() {
+        List<PhenotypeTerm> queryTerms = ImmutableList.copyOf(ontologyService.getHpoTerms());
+        PhenotypeMatcher referenceOrganismPhenotypeMatcher = priorityService.getHumanPhenotypeMatcherForTerms(queryTerms);
+
+        PhenodigmModelScorer instance = PhenodigmModelScorer.forSameSpecies(referenceOrganismPhenotypeMatcher);
+
+        List<String> twoExactPhenotypeMatches = queryTerms.stream().limit(2).map(PhenotypeTerm::getId).collect(toList());
+        Model model = new GeneDiseaseModel("DISEASE:1", Organism.HUMAN, 12345, "GENE1", "DISEASE:1", "disease", twoExactPhenotypeMatches);
+
+        assertThat(instance.calculateModelScore(model), equalTo(instance.scoreModel(model).getScore()));
+    }
+
+    @Test
+    public void testCalculatePhenotypeIndexesScoreIsSameAsCalculateModelScore() {
+        List<PhenotypeTerm> queryTerms = ImmutableList.copyOf(ontologyService.getHpoTerms());
+        PhenotypeMatcher referenceOrganismPhenotypeMatcher = priorityService.getHumanPhenotypeMatcherForTerms(queryTerms);
+
+        PhenodigmModelScorer instance = PhenodigmModelScorer.forSameSpecies(referenceOrganismPhenotypeMatcher);
+
+        List<String> twoExactPhenotypeMatches = queryTerms.stream().limit(2).map(PhenotypeTerm::getId).collect(toList());
+        Model model = new GeneDiseaseModel("DISEASE:1", Organism.HUMAN, 12345, "GENE1", "DISEASE:1", "disease", twoExactPhenotypeMatches);
+
+        assertThat(instance.calculatePhenotypeIndexesScore(model.getPhenotypeIndexes()), equalTo(instance.calculateModelScore(model)));
+    }
+
+    @Test
+    public void testCalculatePhenotypeIndexesScoreUpperBoundIsNeverLessThanScore() {
+        List<PhenotypeTerm> queryTerms = ImmutableList.copyOf(ontologyService.getHpoTerms());
+        PhenotypeMatcher referenceOrganismPhenotypeMatcher = priorityService.getHumanPhenotypeMatcherForTerms(queryTerms);
+
+        PhenodigmModelScorer instance = PhenodigmModelScorer.forSameSpecies(referenceOrganismPhenotypeMatcher);
+
+        Model bestModel = makeBestHumanModel(referenceOrganismPhenotypeMatcher);
+        List<String> twoExactPhenotypeMatches = queryTerms.stream().limit(2).map(PhenotypeTerm::getId).collect(toList());
+        Model partialModel = new GeneDiseaseModel("DISEASE:2", Organism.HUMAN, 12345, "GENE1", "DISEASE:2", "disease 2", twoExactPhenotypeMatches);
+        Model noMatchModel = new GeneDiseaseModel("DISEASE:3", Organism.HUMAN, 12345, "GENE1", "DISEASE:3", "disease 3", Collections.singletonList("HP:000000"));
+
+        for (Model model : ImmutableList.of(bestModel, partialModel)) {
+            double upperBound = instance.calculatePhenotypeIndexesScoreUpperBound(model.getPhenotypeIndexes());
+            assertThat(upperBound, greaterThanOrEqualTo(instance.calculateModelScore(model)));
+            assertThat(upperBound, lessThanOrEqualTo(1.0));
+        }
+        assertThat(instance.calculatePhenotypeIndexesScoreUpperBound(noMatchModel.getPhenotypeIndexes()), equalTo(0.0));
+    }
+
+    @Test
+    public void testCalculateModelScores() {
+        List<PhenotypeTerm> queryTerms = ImmutableList.copyOf(ontologyService.getHpoTerms());
+        PhenotypeMatcher referenceOrganismPhenotypeMatcher = priorityService.getHumanPhenotypeMatcherForTerms(queryTerms);
+
+        PhenodigmModelScorer instance = PhenodigmModelScorer.forSameSpecies(referenceOrganismPhenotypeMatcher);
+
+        Model bestModel = makeBestHumanModel(referenceOrganismPhenotypeMatcher);
+        List<String> twoExactPhenotypeMatches = queryTerms.stream().limit(2).map(PhenotypeTerm::getId).collect(toList());
+        Model partialModel = new GeneDiseaseModel("DISEASE:2", Organism.HUMAN, 12345, "GENE1", "DISEASE:2", "disease 2", twoExactPhenotypeMatches);
+        Model noMatchModel = new GeneDiseaseModel("DISEASE:3", Organism.HUMAN, 12345, "GENE1", "DISEASE:3", "disease 3", Collections.singletonList("HP:000000"));
+
+        double[] scores = instance.calculateModelScores(ImmutableList.of(bestModel, partialModel, noMatchModel));
+
+        double[] expected = {instance.scoreModel(bestModel).getScore(), instance.scoreModel(partialModel).getScore(), 0.0};
+        assertThat(scores, equalTo(expected));
+        assertThat(scores[0], equalTo(1.0));
+    }
 }
@@ -21,6 +21,8 @@
 package org.monarchinitiative.exomiser.core.phenotype;
 
 import org.junit.Test;
+import org.mockito.Mockito;
+import org.monarchinitiative.exomiser.core.analysis.AnalysisMetrics;
 import org.monarchinitiative.exomiser.core.phenotype.service.OntologyService;
 import org.monarchinitiative.exomiser.core.prioritisers.service.TestPriorityServiceFactory;
 
@@ -44,6 +46,52 @@ private List<String> getAllHpoIds() {
         return ontologyService.getHpoTerms().stream().map(PhenotypeTerm::getId).collect(toList());
     }
 
+    @Test
+    public void testPhenotypeMatchesForTermsAreCachedByOrganism() {
+        AnalysisMetrics analysisMetrics = new AnalysisMetrics();
+        OntologyService spyOntologyService = Mockito.spy(ontologyService);
+        PhenotypeMatchService instance = new PhenotypeMatchService(spyOntologyService, analysisMetrics);
+        List<PhenotypeTerm> queryTerms = instance.makePhenotypeTermsFromHpoIds(getAllHpoIds());
+
+        PhenotypeMatcher first = instance.getHumanPhenotypeMatcherForTerms(queryTerms);
+        PhenotypeMatcher second = instance.getHumanPhenotypeMatcherForTerms(queryTerms);
+        instance.getMousePhenotypeMatcherForTerms(queryTerms);
+
+        assertThat(second, equalTo(first));
+        Mockito.verify(spyOntologyService, Mockito.times(queryTerms.size())).getHpoMatchesForHpoTerm(Mockito.any());
+        Mockito.verify(spyOntologyService, Mockito.times(queryTerms.size())).getMpoMatchesForHpoTerm(Mockito.any());
+        assertThat(analysisMetrics.getCount(AnalysisMetrics.PHENOTYPE_MATCH_CACHE_MISSES), equalTo(2L * queryTerms.size()));
+        assertThat(analysisMetrics.getCount(AnalysisMetrics.PHENOTYPE_MATCH_CACHE_HITS), equalTo((long) queryTerms.size()));
+    }
+
+    @Test
+    public void testPhenotypeMatchCacheIsBounded() {
+        AnalysisMetrics analysisMetrics = new AnalysisMetrics();
+        PhenotypeMatchService instance = new PhenotypeMatchService(ontologyService, analysisMetrics, 0);
+        List<PhenotypeTerm> queryTerms = instance.makePhenotypeTermsFromHpoIds(getAllHpoIds());
+
+        PhenotypeMatcher first = instance.getHumanPhenotypeMatcherForTerms(queryTerms);
+        PhenotypeMatcher second = instance.getHumanPhenotypeMatcherForTerms(queryTerms);
+
+        assertThat(second, equalTo(first));
+        assertThat(analysisMetrics.getCount(AnalysisMetrics.PHENOTYPE_MATCH_CACHE_MISSES), equalTo(2L * queryTerms.size()));
+        assertThat(analysisMetrics.getCount(AnalysisMetrics.PHENOTYPE_MATCH_CACHE_HITS), equalTo(0L));
+    }
+
+    @Test
+    public void testPhenotypeMatchesAreNotCachedWhenPreloaded() {
+        AnalysisMetrics analysisMetrics = new AnalysisMetrics();
+        OntologyService spyOntologyService = Mockito.spy(ontologyService);
+        PhenotypeMatchService instance = new PhenotypeMatchService(spyOntologyService, analysisMetrics, true);
+        List<PhenotypeTerm> queryTerms = instance.makePhenotypeTermsFromHpoIds(getAllHpoIds());
+
+        instance.getHumanPhenotypeMatcherForTerms(queryTerms);
+        instance.getHumanPhenotypeMatcherForTerms(queryTerms);
+
+        Mockito.verify(spyOntologyService, Mockito.times(2 * queryTerms.size())).getHpoMatchesForHpoTerm(Mockito.any());
+        assertThat(analysisMetrics.getCount(AnalysisMetrics.PHENOTYPE_MATCH_CACHE_HITS), equalTo(0L));
+    }
+
     @Test
     public void testIntegrationWithModelScorer() {
         PhenotypeMatchService instance = new PhenotypeMatchService(ontologyService);
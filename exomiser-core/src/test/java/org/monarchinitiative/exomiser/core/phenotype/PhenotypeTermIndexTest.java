@@ -0,0 +1,76 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.phenotype;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class PhenotypeTermIndexTest {
+
+    @Test
+    public void testIndexOfIsStableForTheSameTerm() {
+        int index = PhenotypeTermIndex.indexTerms(Collections.singletonList("HP:0000118"))[0];
+        assertThat(PhenotypeTermIndex.indexOf("HP:0000118"), equalTo(index));
+        assertThat(PhenotypeTermIndex.indexTerms(Collections.singletonList("HP:0000118"))[0], equalTo(index));
+    }
+
+    @Test
+    public void testIndexOfIsDifferentForDifferentTerms() {
+        PhenotypeTermIndex.indexTerms(Lists.newArrayList("MP:0000001", "ZP:0000001"));
+        assertThat(PhenotypeTermIndex.indexOf("MP:0000001"), not(equalTo(PhenotypeTermIndex.indexOf("ZP:0000001"))));
+    }
+
+    @Test
+    public void testSizeIsGreaterThanAssignedIndex() {
+        int index = PhenotypeTermIndex.indexTerms(Collections.singletonList("HP:0001156"))[0];
+        assertThat(PhenotypeTermIndex.size(), greaterThan(index));
+    }
+
+    @Test
+    public void testIndexOfUnknownTermIsNotIndexedAndIsNotAdded() {
+        int size = PhenotypeTermIndex.size();
+        assertThat(PhenotypeTermIndex.indexOf("HP:9999999"), equalTo(PhenotypeTermIndex.NOT_INDEXED));
+        assertThat(PhenotypeTermIndex.indexesOf(Collections.singletonList("user supplied wibble")), equalTo(new int[]{PhenotypeTermIndex.NOT_INDEXED}));
+        assertThat(PhenotypeTermIndex.size(), equalTo(size));
+    }
+
+    @Test
+    public void testIndexesOfEmptyList() {
+        assertThat(PhenotypeTermIndex.indexesOf(Collections.emptyList()), equalTo(new int[0]));
+    }
+
+    @Test
+    public void testIndexesOfRetainsInputOrder() {
+        int[] indexes = PhenotypeTermIndex.indexTerms(Lists.newArrayList("HP:0001363", "HP:0011304", "HP:0001363"));
+        int[] expected = {PhenotypeTermIndex.indexOf("HP:0001363"), PhenotypeTermIndex.indexOf("HP:0011304"), PhenotypeTermIndex.indexOf("HP:0001363")};
+        assertThat(indexes, equalTo(expected));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.phenotype;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class PhenotypeTermRegistryTest {
+
+    private final PhenotypeTerm arachnodactyly = PhenotypeTerm.of("HP:0001166", "Arachnodactyly");
+    private final PhenotypeTerm scoliosis = PhenotypeTerm.of("HP:0002650", "Scoliosis");
+
+    private final List<PhenotypeTerm> terms = Lists.newArrayList(arachnodactyly, scoliosis);
+
+    @Test
+    public void testEmpty() {
+        PhenotypeTermRegistry instance = PhenotypeTermRegistry.empty();
+        assertThat(instance.size(), equalTo(0));
+        assertThat(instance.getTerms(), equalTo(Collections.emptySet()));
+        assertThat(instance.getTerm(arachnodactyly.getId()), nullValue());
+    }
+
+    @Test
+    public void testGetTerm() {
+        PhenotypeTermRegistry instance = PhenotypeTermRegistry.of(terms);
+        assertThat(instance.size(), equalTo(2));
+        assertThat(instance.getTerm(arachnodactyly.getId()), equalTo(arachnodactyly));
+        assertThat(instance.getTerm(scoliosis.getId()), equalTo(scoliosis));
+        assertThat(instance.getTerm("HP:0000000"), nullValue());
+    }
+
+    @Test
+    public void testGetTermForAltId() {
+        PhenotypeTermRegistry instance = PhenotypeTermRegistry.of(terms, ImmutableMap.of("HP:0001519", arachnodactyly.getId()));
+        assertThat(instance.getTerm("HP:0001519"), equalTo(arachnodactyly));
+        assertThat(instance.getPrimaryId("HP:0001519"), equalTo(arachnodactyly.getId()));
+        assertThat(instance.containsId("HP:0001519"), is(true));
+    }
+
+    @Test
+    public void testAltIdForUnknownTermIsNotRecognised() {
+        PhenotypeTermRegistry instance = PhenotypeTermRegistry.of(terms, ImmutableMap.of("HP:0001519", "HP:0000000"));
+        assertThat(instance.getTerm("HP:0001519"), nullValue());
+        assertThat(instance.getPrimaryId("HP:0001519"), nullValue());
+        assertThat(instance.containsId("HP:0001519"), is(false));
+    }
+
+    @Test
+    public void testGetTermsExcludesAltIds() {
+        PhenotypeTermRegistry instance = PhenotypeTermRegistry.of(terms, ImmutableMap.of("HP:0001519", arachnodactyly.getId()));
+        assertThat(instance.getTerms(), equalTo(ImmutableSet.of(arachnodactyly, scoliosis)));
+    }
+
+    @Test
+    public void testGetTermLabelsById() {
+        PhenotypeTermRegistry instance = PhenotypeTermRegistry.of(terms);
+        assertThat(instance.getTermLabelsById(), equalTo(ImmutableMap.of("HP:0001166", "Arachnodactyly", "HP:0002650", "Scoliosis")));
+    }
+}
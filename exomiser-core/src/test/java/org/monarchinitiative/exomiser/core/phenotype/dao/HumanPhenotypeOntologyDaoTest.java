@@ -28,6 +28,7 @@
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Mockito;
 import org.monarchinitiative.exomiser.core.phenotype.PhenotypeMatch;
 import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTerm;
 import org.monarchinitiative.exomiser.core.prioritisers.config.TestDataSourceConfig;
@@ -36,6 +37,8 @@
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import javax.sql.DataSource;
+import java.sql.SQLException;
 import java.util.*;
 import java.util.Map.Entry;
 
@@ -152,6 +155,13 @@ public void testGetAllTerms() {
         assertThat(instance.getAllTerms(), equalTo(allHpoTerms));
     }
     
+    @Test
+    public void testGetAltTermIds() {
+        Map<String, String> expected = new HashMap<>();
+        expected.put("HP:0000004", "HP:0000005");
+        assertThat(instance.getAltTermIds(), equalTo(expected));
+    }
+
     @Test
     public void testGetPhenotypeMatchesForNonExistentHpoTermReturnsEmptySet() {
         PhenotypeTerm nonExistentTerm = PhenotypeTerm.of("", "");
@@ -165,4 +175,25 @@ public void testGetPhenotypeMatchesForHpoTerm() {
         assertThat(matches.isEmpty(), is(false));
         assertThat(matches, equalTo(phenotypeMatches));
     }
+
+    @Test
+    public void testGetPhenotypeMatchesForHpoTermFromPreloadedMatches() {
+        instance.preloadPhenotypeMatches();
+        Set<PhenotypeMatch> matches = instance.getPhenotypeMatchesForHpoTerm(multicysticKidneyDysplasia);
+        assertThat(matches, equalTo(phenotypeMatches));
+    }
+
+    @Test(expected = AbstractOntologyDao.PhenotypeMatchPreloadException.class)
+    public void testPreloadPhenotypeMatchesThrowsExceptionWhenTableCannotBeRead() throws Exception {
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        Mockito.when(dataSource.getConnection()).thenThrow(new SQLException("wibble"));
+        new HumanPhenotypeOntologyDao(dataSource).preloadPhenotypeMatches();
+    }
+
+    @Test
+    public void testGetPhenotypeMatchesForNonExistentHpoTermFromPreloadedMatchesReturnsEmptySet() {
+        instance.preloadPhenotypeMatches();
+        Set<PhenotypeMatch> matches = instance.getPhenotypeMatchesForHpoTerm(PhenotypeTerm.of("", ""));
+        assertThat(matches.isEmpty(), is(true));
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.phenotype.dao;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeMatch;
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTerm;
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTermIndex;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class PhenotypeMatchTableTest {
+
+    private final PhenotypeTerm bigNose = PhenotypeTerm.of("HP:0000001", "Big nose");
+    private final PhenotypeTerm nose = PhenotypeTerm.of("HP:0000002", "Nose");
+    private final PhenotypeTerm littleNose = PhenotypeTerm.of("HP:0000003", "Little nose");
+    private final PhenotypeTerm bigToe = PhenotypeTerm.of("HP:0000005", "Big toe");
+    private final PhenotypeTerm toe = PhenotypeTerm.of("HP:0000004", "Toe");
+    private final PhenotypeTerm longToe = PhenotypeTerm.of("HP:0000007", "Long toe");
+
+    @Test
+    public void testEmptyTable() {
+        PhenotypeMatchTable instance = PhenotypeMatchTable.builder().build();
+        assertThat(instance.size(), equalTo(0));
+        assertThat(instance.numQueryTerms(), equalTo(0));
+        assertThat(instance.getPhenotypeMatchesForHpoTerm(bigNose), equalTo(ImmutableSet.of()));
+    }
+
+    @Test
+    public void testGetPhenotypeMatchesForHpoTermWithUnorderedRows() {
+        PhenotypeMatchTable instance = PhenotypeMatchTable.builder()
+                .add(bigNose.getId(), bigNose, bigNose, 1.0, 4.0, 2.0)
+                .add(bigToe.getId(), longToe, toe, 0.5, 2.0, 1.0)
+                .add(bigNose.getId(), littleNose, nose, 0.5, 2.0, 1.0)
+                .build();
+
+        assertThat(instance.size(), equalTo(3));
+        assertThat(instance.numQueryTerms(), equalTo(2));
+
+        PhenotypeMatch perfectNoseMatch = PhenotypeMatch.builder().query(bigNose).match(bigNose).lcs(bigNose).simj(1.0).ic(4.0).score(2.0).build();
+        PhenotypeMatch noseMatch = PhenotypeMatch.builder().query(bigNose).match(littleNose).lcs(nose).simj(0.5).ic(2.0).score(1.0).build();
+        assertThat(instance.getPhenotypeMatchesForHpoTerm(bigNose), equalTo(ImmutableSet.of(perfectNoseMatch, noseMatch)));
+
+        PhenotypeMatch toeMatch = PhenotypeMatch.builder().query(bigToe).match(longToe).lcs(toe).simj(0.5).ic(2.0).score(1.0).build();
+        assertThat(instance.getPhenotypeMatchesForHpoTerm(bigToe), equalTo(ImmutableSet.of(toeMatch)));
+    }
+
+    @Test
+    public void testGetPhenotypeMatchesForUnknownHpoTerm() {
+        PhenotypeMatchTable instance = PhenotypeMatchTable.builder()
+                .add(bigNose.getId(), bigNose, bigNose, 1.0, 4.0, 2.0)
+                .build();
+        assertThat(instance.getPhenotypeMatchesForHpoTerm(PhenotypeTerm.of("HP:9999999", "Unknown")), equalTo(ImmutableSet.of()));
+        //looking up a query term does not add it to the index
+        assertThat(PhenotypeTermIndex.indexOf("HP:9999999"), equalTo(PhenotypeTermIndex.NOT_INDEXED));
+    }
+
+    @Test
+    public void testQueryTermsAreIndexedWhenBuilt() {
+        PhenotypeTerm rowTerm = PhenotypeTerm.of("HP:0009991", "Row term");
+        PhenotypeMatchTable instance = PhenotypeMatchTable.builder()
+                .add(rowTerm.getId(), bigNose, bigNose, 1.0, 4.0, 2.0)
+                .build();
+        assertThat(PhenotypeTermIndex.indexOf(rowTerm.getId()), not(equalTo(PhenotypeTermIndex.NOT_INDEXED)));
+        assertThat(instance.getPhenotypeMatchesForHpoTerm(rowTerm).size(), equalTo(1));
+    }
+
+    @Test
+    public void testGetPhenotypeMatchesForIndexedTermsNotInTable() {
+        PhenotypeTerm firstRowTerm = PhenotypeTerm.of("HP:0009992", "First row term");
+        PhenotypeTerm betweenRowsTerm = PhenotypeTerm.of("HP:0009993", "Between rows term");
+        PhenotypeTerm lastRowTerm = PhenotypeTerm.of("HP:0009994", "Last row term");
+        PhenotypeTerm afterRowsTerm = PhenotypeTerm.of("HP:0009995", "After rows term");
+        PhenotypeTermIndex.indexTerms(ImmutableList.of(firstRowTerm.getId(), betweenRowsTerm.getId()));
+
+        PhenotypeMatchTable instance = PhenotypeMatchTable.builder()
+                .add(firstRowTerm.getId(), bigNose, bigNose, 1.0, 4.0, 2.0)
+                .add(lastRowTerm.getId(), bigToe, bigToe, 1.0, 4.0, 2.0)
+                .build();
+        PhenotypeTermIndex.indexTerms(ImmutableList.of(afterRowsTerm.getId()));
+
+        assertThat(instance.getPhenotypeMatchesForHpoTerm(firstRowTerm).size(), equalTo(1));
+        assertThat(instance.getPhenotypeMatchesForHpoTerm(betweenRowsTerm), equalTo(ImmutableSet.of()));
+        assertThat(instance.getPhenotypeMatchesForHpoTerm(lastRowTerm).size(), equalTo(1));
+        assertThat(instance.getPhenotypeMatchesForHpoTerm(afterRowsTerm), equalTo(ImmutableSet.of()));
+    }
+
+    @Test
+    public void testBuilderGrowsPastInitialCapacity() {
+        PhenotypeMatchTable.Builder builder = PhenotypeMatchTable.builder();
+        for (int i = 0; i < 3000; i++) {
+            PhenotypeTerm matchTerm = PhenotypeTerm.of("MP:" + i, "term " + i);
+            builder.add(i % 2 == 0 ? bigNose.getId() : bigToe.getId(), matchTerm, nose, 0.5, 1.0, i);
+        }
+        PhenotypeMatchTable instance = builder.build();
+        assertThat(instance.size(), equalTo(3000));
+        assertThat(instance.getPhenotypeMatchesForHpoTerm(bigNose).size(), equalTo(1500));
+        assertThat(instance.getPhenotypeMatchesForHpoTerm(bigToe).size(), equalTo(1500));
+    }
+}
@@ -133,6 +133,30 @@ public void testReturnsPhenotypeTermForGivenHpoId() {
         assertThat(instance.getPhenotypeTermForHpoId(fingerJointHyperExtensibility.getId()), equalTo(fingerJointHyperExtensibility));
     }
 
+    @Test
+    public void testReturnsCurrentPhenotypeTermForGivenAltHpoId() {
+        Mockito.when(mockHpoDao.getAltTermIds()).thenReturn(Collections.singletonMap("HP:0001186", fingerJointHyperExtensibility.getId()));
+        assertThat(instance.getPhenotypeTermForHpoId("HP:0001186"), equalTo(fingerJointHyperExtensibility));
+    }
+
+    @Test
+    public void testHpoTermsAreOnlyLoadedOnce() {
+        instance.getPhenotypeTermForHpoId(fingerJointHyperExtensibility.getId());
+        instance.getPhenotypeTermForHpoId(cleftHelix.getId());
+        instance.getHpoTerms();
+        Mockito.verify(mockHpoDao, Mockito.times(1)).getAllTerms();
+    }
+
+    @Test
+    public void testHpoTermsAreLoadedAgainWhenNoneWereLoaded() {
+        Mockito.when(mockHpoDao.getAllTerms()).thenReturn(Collections.emptySet()).thenReturn(hpoTerms);
+
+        assertThat(instance.getPhenotypeTermForHpoId(fingerJointHyperExtensibility.getId()), equalTo(null));
+        assertThat(instance.getPhenotypeTermForHpoId(fingerJointHyperExtensibility.getId()), equalTo(fingerJointHyperExtensibility));
+        instance.getHpoTerms();
+        Mockito.verify(mockHpoDao, Mockito.times(2)).getAllTerms();
+    }
+
     @Test
     public void testReturnsNullForGivenHpoIdWhenHpoIdIsUnrecognised() {
         assertThat(instance.getPhenotypeTermForHpoId("invalidId"), equalTo(null));
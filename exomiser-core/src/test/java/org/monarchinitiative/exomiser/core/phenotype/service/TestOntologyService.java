@@ -24,6 +24,7 @@
 import com.google.common.collect.Sets;
 import org.monarchinitiative.exomiser.core.phenotype.PhenotypeMatch;
 import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTerm;
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTermRegistry;
 
 import java.util.Collections;
 import java.util.List;
@@ -88,6 +89,11 @@ public PhenotypeTerm getPhenotypeTermForHpoId(String hpoId) {
         return hpIdPhenotypeTerms.getOrDefault(hpoId, PhenotypeTerm.of(hpoId, "Not set"));
     }
 
+    @Override
+    public PhenotypeTermRegistry getHpoTermRegistry() {
+        return PhenotypeTermRegistry.of(hpIdPhenotypeTerms.values());
+    }
+
     public static Builder builder() {
         return new Builder();
     }
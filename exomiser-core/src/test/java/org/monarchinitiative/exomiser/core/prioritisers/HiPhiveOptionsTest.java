@@ -344,10 +344,44 @@ public void testNotEquals() {
         assertThat(instance.equals(other), is(false));
     }
 
+    @Test
+    public void testNotEqualsTopGenesToScore() {
+        HiPhiveOptions instance = HiPhiveOptions.DEFAULT;
+        HiPhiveOptions other = HiPhiveOptions.builder()
+                .topGenesToScore(20)
+                .build();
+        assertThat(instance.equals(other), is(false));
+    }
+
+    @Test
+    public void testTopGenePruningIsDisabledByDefault() {
+        HiPhiveOptions instance = HiPhiveOptions.DEFAULT;
+        assertThat(instance.getTopGenesToScore(), equalTo(0));
+        assertThat(instance.isTopGenePruningEnabled(), is(false));
+    }
+
+    @Test
+    public void testTopGenesToScore() {
+        HiPhiveOptions instance = HiPhiveOptions.builder()
+                .topGenesToScore(20)
+                .build();
+        assertThat(instance.getTopGenesToScore(), equalTo(20));
+        assertThat(instance.isTopGenePruningEnabled(), is(true));
+    }
+
+    @Test
+    public void testNegativeTopGenesToScoreDisablesPruning() {
+        HiPhiveOptions instance = HiPhiveOptions.builder()
+                .topGenesToScore(-1)
+                .build();
+        assertThat(instance.getTopGenesToScore(), equalTo(0));
+        assertThat(instance.isTopGenePruningEnabled(), is(false));
+    }
+
     @Test
      public void testToStringDefaultConstructor() {
         HiPhiveOptions instance = HiPhiveOptions.DEFAULT;
-        String defaultString  = "HiPhiveOptions{diseaseId='', candidateGeneSymbol='', benchmarkingEnabled=false, runPpi=true, runHuman=true, runMouse=true, runFish=true}";
+        String defaultString  = "HiPhiveOptions{diseaseId='', candidateGeneSymbol='', benchmarkingEnabled=false, runPpi=true, runHuman=true, runMouse=true, runFish=true, topGenesToScore=0}";
         assertThat(instance.toString(), equalTo(defaultString));
     }
 
@@ -358,7 +392,7 @@ public void testToStringNonDefaultRunParams() {
                 .diseaseId("diseaseId")
                 .runParams("human,mouse")
                 .build();
-        String defaultString  = "HiPhiveOptions{diseaseId='diseaseId', candidateGeneSymbol='geneSymbol', benchmarkingEnabled=true, runPpi=false, runHuman=true, runMouse=true, runFish=false}";
+        String defaultString  = "HiPhiveOptions{diseaseId='diseaseId', candidateGeneSymbol='geneSymbol', benchmarkingEnabled=true, runPpi=false, runHuman=true, runMouse=true, runFish=false, topGenesToScore=0}";
         assertThat(instance.toString(), equalTo(defaultString));
     }
 
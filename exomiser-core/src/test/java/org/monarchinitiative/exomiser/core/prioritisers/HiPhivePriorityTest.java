@@ -35,6 +35,7 @@
 import org.monarchinitiative.exomiser.core.prioritisers.service.PriorityService;
 import org.monarchinitiative.exomiser.core.prioritisers.service.TestPriorityServiceFactory;
 import org.monarchinitiative.exomiser.core.prioritisers.util.DataMatrix;
+import org.monarchinitiative.exomiser.core.prioritisers.util.InMemoryDataMatrix;
 
 import java.math.BigDecimal;
 import java.util.*;
@@ -73,7 +74,7 @@ public void setUp() {
         };
         DoubleMatrix doubleMatrix = new DoubleMatrix(ppiMatrix);
 
-        testMatrix = new DataMatrix(doubleMatrix.toFloat(), new HashMap<>());
+        testMatrix = new InMemoryDataMatrix(doubleMatrix.toFloat(), new HashMap<>());
 
     }
 
@@ -188,6 +189,45 @@ public void testPrioritise() {
         results.forEach(checkScores(geneScores));
     }
 
+    @Test
+    public void testPrioritiseWithTopGenePruningReturnsSameScoresAsUnpruned() {
+
+        HiPhivePriority instance = new HiPhivePriority(HiPhiveOptions.builder()
+                .runParams("human,mouse,fish")
+                .topGenesToScore(4)
+                .build(), DataMatrix.EMPTY, priorityService);
+        List<Gene> genes = getGenes();
+
+        List<HiPhivePriorityResult> results = instance.prioritise(hpoIds, genes)
+                .sorted(Comparator.naturalOrder())
+                .collect(toList());
+
+        assertThat(results.size(), equalTo(genes.size()));
+
+        //human, mouse, fish, walker, candidateGene (this is really a boolean)
+        Map<String, List<Double>> geneScores = expectedHumanMouseFishScores();
+
+        results.forEach(checkScores(geneScores));
+    }
+
+    @Test
+    public void testPrioritiseWithTopGenePruningScoresTopGene() {
+
+        HiPhivePriority instance = new HiPhivePriority(HiPhiveOptions.builder()
+                .runParams("human,mouse,fish")
+                .topGenesToScore(1)
+                .build(), DataMatrix.EMPTY, priorityService);
+        List<Gene> genes = getGenes();
+
+        List<HiPhivePriorityResult> results = instance.prioritise(hpoIds, genes)
+                .sorted(Comparator.naturalOrder())
+                .collect(toList());
+
+        HiPhivePriorityResult topResult = results.get(0);
+        assertThat(topResult.getGeneSymbol(), equalTo("FGFR2"));
+        checkResultScores(topResult, expectedHumanMouseFishScores().get("FGFR2"));
+    }
+
     @Test
     public void testPrioritiseWithUnMappedQueryPhenotype() {
 
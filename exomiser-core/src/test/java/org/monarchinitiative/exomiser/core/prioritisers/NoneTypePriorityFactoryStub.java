@@ -26,8 +26,10 @@
 package org.monarchinitiative.exomiser.core.prioritisers;
 
 import org.jblas.FloatMatrix;
+import org.monarchinitiative.exomiser.core.prioritisers.service.SharedModelScoringContext;
 import org.monarchinitiative.exomiser.core.prioritisers.service.TestPriorityServiceFactory;
 import org.monarchinitiative.exomiser.core.prioritisers.util.DataMatrix;
+import org.monarchinitiative.exomiser.core.prioritisers.util.InMemoryDataMatrix;
 
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -60,6 +62,11 @@ public PhivePriority makePhivePrioritiser() {
         return new PhivePriority(TestPriorityServiceFactory.STUB_SERVICE);
     }
 
+    @Override
+    public PhivePriority makePhivePrioritiser(SharedModelScoringContext sharedModelScoringContext) {
+        return new PhivePriority(TestPriorityServiceFactory.STUB_SERVICE, sharedModelScoringContext);
+    }
+
     @Override
     public ExomeWalkerPriority makeExomeWalkerPrioritiser(List<Integer> entrezSeedGenes) {
         DataMatrix stubDataMatrix = makeDataMatrixWithGeneIds(entrezSeedGenes);
@@ -71,6 +78,11 @@ public HiPhivePriority makeHiPhivePrioritiser(HiPhiveOptions hiPhiveOptions) {
         return new HiPhivePriority(hiPhiveOptions, null, TestPriorityServiceFactory.STUB_SERVICE);
     }
 
+    @Override
+    public HiPhivePriority makeHiPhivePrioritiser(HiPhiveOptions hiPhiveOptions, SharedModelScoringContext sharedModelScoringContext) {
+        return new HiPhivePriority(hiPhiveOptions, null, TestPriorityServiceFactory.STUB_SERVICE, sharedModelScoringContext);
+    }
+
     private DataMatrix makeDataMatrixWithGeneIds(List<Integer> entrezSeedGenes) {
         Map<Integer, Integer> matrixMap = new LinkedHashMap<>();
         
@@ -79,7 +91,7 @@ private DataMatrix makeDataMatrixWithGeneIds(List<Integer> entrezSeedGenes) {
             matrixMap.put(geneId, i);
         }
                     
-        DataMatrix dataMatrix = new DataMatrix(FloatMatrix.zeros(entrezSeedGenes.size(), entrezSeedGenes.size()), matrixMap);
+        DataMatrix dataMatrix = new InMemoryDataMatrix(FloatMatrix.zeros(entrezSeedGenes.size(), entrezSeedGenes.size()), matrixMap);
         
         return dataMatrix;
     }
@@ -27,6 +27,7 @@
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.monarchinitiative.exomiser.core.analysis.AnalysisMetrics;
 import org.monarchinitiative.exomiser.core.phenotype.PhenotypeMatchService;
 import org.monarchinitiative.exomiser.core.phenotype.dao.HumanPhenotypeOntologyDao;
 import org.monarchinitiative.exomiser.core.phenotype.dao.MousePhenotypeOntologyDao;
@@ -57,6 +58,7 @@
         PriorityService.class,
         OntologyServiceImpl.class,
         PhenotypeMatchService.class,
+        AnalysisMetrics.class,
         ModelServiceImpl.class,
         DefaultDiseaseDao.class,
         HumanPhenotypeOntologyDao.class,
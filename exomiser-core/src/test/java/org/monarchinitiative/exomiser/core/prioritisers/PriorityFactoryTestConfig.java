@@ -28,6 +28,7 @@
 import org.h2.jdbcx.JdbcConnectionPool;
 import org.jblas.FloatMatrix;
 import org.monarchinitiative.exomiser.core.prioritisers.util.DataMatrix;
+import org.monarchinitiative.exomiser.core.prioritisers.util.InMemoryDataMatrix;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
@@ -66,7 +67,7 @@ DataSource dataSource() {
     DataMatrix randomWalkMatrix() {
         logger.info("Loading random walk matrix bean...");
         Map<Integer, Integer> stubMatrixIndex = new HashMap<>();
-        return new DataMatrix(FloatMatrix.EMPTY, stubMatrixIndex);
+        return new InMemoryDataMatrix(FloatMatrix.EMPTY, stubMatrixIndex);
     }
     
     @Bean
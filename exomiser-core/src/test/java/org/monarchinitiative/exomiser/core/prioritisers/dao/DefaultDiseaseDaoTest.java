@@ -29,6 +29,7 @@
 import com.google.common.collect.Sets;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Mockito;
 import org.monarchinitiative.exomiser.core.prioritisers.config.TestDataSourceConfig;
 import org.monarchinitiative.exomiser.core.prioritisers.model.Disease;
 import org.monarchinitiative.exomiser.core.prioritisers.model.InheritanceMode;
@@ -37,11 +38,14 @@
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import javax.sql.DataSource;
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -81,4 +85,18 @@ public void testGetDiseaseDataAssociatedWithGeneId() {
         List<Disease> expected = Lists.newArrayList(disease) ;
         assertThat(instance.getDiseaseDataAssociatedWithGeneId(2263), equalTo(expected));
     }
+
+    @Test
+    public void testGetGeneDiseaseAssociations() {
+        List<Disease> associations = instance.getGeneDiseaseAssociations();
+        assertThat(associations.size(), equalTo(2));
+        assertThat(associations.contains(disease), is(true));
+    }
+
+    @Test(expected = DefaultDiseaseDao.GeneDiseaseAssociationsException.class)
+    public void testGetGeneDiseaseAssociationsThrowsExceptionWhenTableCannotBeRead() throws Exception {
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        Mockito.when(dataSource.getConnection()).thenThrow(new SQLException("wibble"));
+        new DefaultDiseaseDao(dataSource).getGeneDiseaseAssociations();
+    }
 }
@@ -52,4 +52,9 @@ public Set<String> getHpoIdsForDiseaseId(String diseaseId) {
     public List<Disease> getDiseaseDataAssociatedWithGeneId(int geneId) {
         return geneDiseaseAssociations.getOrDefault(geneId, Collections.emptyList());
     }
+
+    @Override
+    public List<Disease> getGeneDiseaseAssociations() {
+        return new ArrayList<>(diseases);
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.model;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class GeneDiseaseIndexTest {
+
+    private static Disease disease(String diseaseId, int geneId, InheritanceMode inheritanceMode) {
+        return Disease.builder()
+                .diseaseId(diseaseId)
+                .associatedGeneId(geneId)
+                .inheritanceMode(inheritanceMode)
+                .build();
+    }
+
+    private final Disease omimDominant = disease("OMIM:101600", 2263, InheritanceMode.AUTOSOMAL_DOMINANT);
+    private final Disease omimRecessive = disease("OMIM:123456", 2263, InheritanceMode.AUTOSOMAL_RECESSIVE);
+    private final Disease omimDominantAgain = disease("OMIM:654321", 2263, InheritanceMode.AUTOSOMAL_DOMINANT);
+    private final Disease orphanetXLinked = disease("ORPHA:1234", 2263, InheritanceMode.X_LINKED);
+    private final Disease orphanetOnly = disease("ORPHA:5678", 2260, InheritanceMode.AUTOSOMAL_DOMINANT);
+
+    private final GeneDiseaseIndex instance = GeneDiseaseIndex.of(ImmutableList.of(omimDominant, omimRecessive, omimDominantAgain, orphanetXLinked, orphanetOnly));
+
+    @Test
+    public void testEmpty() {
+        GeneDiseaseIndex empty = GeneDiseaseIndex.empty();
+        assertThat(empty.size(), equalTo(0));
+        assertThat(empty.getDiseasesForGene(2263), equalTo(Collections.emptyList()));
+        assertThat(empty.getOmimInheritanceModesForGene(2263), equalTo(Collections.emptySet()));
+    }
+
+    @Test
+    public void testSize() {
+        assertThat(instance.size(), equalTo(2));
+    }
+
+    @Test
+    public void testContainsGene() {
+        assertThat(instance.containsGene(2263), is(true));
+        assertThat(instance.containsGene(2260), is(true));
+        assertThat(instance.containsGene(1), is(false));
+    }
+
+    @Test
+    public void testGetDiseasesForGeneKeepsOrder() {
+        List<Disease> expected = ImmutableList.of(omimDominant, omimRecessive, omimDominantAgain, orphanetXLinked);
+        assertThat(instance.getDiseasesForGene(2263), equalTo(expected));
+        assertThat(instance.getDiseasesForGene(2260), equalTo(ImmutableList.of(orphanetOnly)));
+    }
+
+    @Test
+    public void testGetDiseasesForUnknownGene() {
+        assertThat(instance.getDiseasesForGene(1), equalTo(Collections.emptyList()));
+    }
+
+    @Test
+    public void testGetOmimInheritanceModesForGeneOnlyIncludesDistinctOmimModes() {
+        assertThat(instance.getOmimInheritanceModesForGene(2263), equalTo(Sets.newHashSet(InheritanceMode.AUTOSOMAL_DOMINANT, InheritanceMode.AUTOSOMAL_RECESSIVE)));
+    }
+
+    @Test
+    public void testGetOmimInheritanceModesForGeneWithNoOmimDiseases() {
+        assertThat(instance.getOmimInheritanceModesForGene(2260), equalTo(Collections.emptySet()));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.service;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.monarchinitiative.exomiser.core.phenotype.ModelProfileIndex;
+import org.monarchinitiative.exomiser.core.phenotype.Organism;
+import org.monarchinitiative.exomiser.core.phenotype.PhenodigmModelScorer;
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeMatcher;
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTerm;
+import org.monarchinitiative.exomiser.core.prioritisers.model.GeneModel;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class ModelScoringContextTest {
+
+    private final PriorityService priorityService = TestPriorityServiceFactory.TEST_SERVICE;
+
+    private final List<PhenotypeTerm> queryTerms = priorityService.makePhenotypeTermsFromHpoIds(ImmutableList.of("HP:0010055", "HP:0001363", "HP:0001156", "HP:0011304"));
+
+    private int[] allModelIndexes(ModelProfileIndex<GeneModel> modelProfileIndex) {
+        return IntStream.range(0, modelProfileIndex.size()).toArray();
+    }
+
+    @Test
+    public void testPriorityServiceMakesNewContextEachTime() {
+        ModelScoringContext context = priorityService.makeModelScoringContext(queryTerms);
+        assertThat(priorityService.makeModelScoringContext(queryTerms), not(sameInstance(context)));
+        assertThat(context.getQueryPhenotypeTerms(), equalTo(queryTerms));
+    }
+
+    @Test
+    public void testPhenotypeMatcherIsOnlyCreatedOnce() {
+        ModelScoringContext context = priorityService.makeModelScoringContext(queryTerms);
+        PhenotypeMatcher mouseMatcher = context.getPhenotypeMatcher(Organism.MOUSE);
+        assertThat(context.getPhenotypeMatcher(Organism.MOUSE), sameInstance(mouseMatcher));
+        assertThat(mouseMatcher.getOrganism(), equalTo(Organism.MOUSE));
+        assertThat(mouseMatcher.getQueryTerms(), equalTo(queryTerms));
+    }
+
+    @Test
+    public void testScoreModelsMatchesModelProfileIndexScoresForBothNormalisations() {
+        ModelScoringContext context = new ModelScoringContext(queryTerms, priorityService::getPhenotypeMatcherForOrganism, priorityService::getModelProfileIndexForOrganism);
+        ModelProfileIndex<GeneModel> mouseModels = context.getModelProfileIndex(Organism.MOUSE);
+        int[] modelIndexes = allModelIndexes(mouseModels);
+
+        PhenotypeMatcher humanMatcher = context.getPhenotypeMatcher(Organism.HUMAN);
+        PhenotypeMatcher mouseMatcher = context.getPhenotypeMatcher(Organism.MOUSE);
+        PhenodigmModelScorer phiveScorer = PhenodigmModelScorer.forSingleCrossSpecies(mouseMatcher);
+        PhenodigmModelScorer hiPhiveScorer = PhenodigmModelScorer.forMultiCrossSpecies(humanMatcher.getQueryPhenotypeMatch(), mouseMatcher);
+
+        double[] phiveScores = context.scoreModels(Organism.MOUSE, modelIndexes, model -> true, phiveScorer::calculateCombinedScore);
+        assertThat(context.numMatchedProfiles(Organism.MOUSE), equalTo(mouseModels.numProfiles()));
+        double[] hiPhiveScores = context.scoreModels(Organism.MOUSE, modelIndexes, model -> true, hiPhiveScorer::calculateCombinedScore);
+
+        assertThat(phiveScores, equalTo(mouseModels.scoreModels(model -> true, phiveScorer::calculatePhenotypeIndexesScore)));
+        assertThat(hiPhiveScores, equalTo(mouseModels.scoreModels(model -> true, hiPhiveScorer::calculatePhenotypeIndexesScore)));
+    }
+
+    @Test
+    public void testScoreModelsOnlyMatchesSelectedProfiles() {
+        ModelScoringContext context = new ModelScoringContext(queryTerms, priorityService::getPhenotypeMatcherForOrganism, priorityService::getModelProfileIndexForOrganism);
+        assertThat(context.numMatchedProfiles(Organism.MOUSE), equalTo(0));
+
+        ModelProfileIndex<GeneModel> mouseModels = context.getModelProfileIndex(Organism.MOUSE);
+        PhenodigmModelScorer scorer = PhenodigmModelScorer.forSingleCrossSpecies(context.getPhenotypeMatcher(Organism.MOUSE));
+        double[] scores = context.scoreModels(Organism.MOUSE, new int[]{0}, model -> true, scorer::calculateCombinedScore);
+
+        assertThat(context.numMatchedProfiles(Organism.MOUSE), equalTo(1));
+        assertThat(scores[0], equalTo(scorer.calculateModelScore(mouseModels.getModels().get(0))));
+        assertThat(context.scoreProfile(Organism.MOUSE, mouseModels.getProfileIndex(0), scorer::calculateCombinedScore), equalTo(scores[0]));
+    }
+}
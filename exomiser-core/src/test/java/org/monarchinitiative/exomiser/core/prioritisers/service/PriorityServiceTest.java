@@ -0,0 +1,81 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.service;
+
+import org.junit.Test;
+import org.monarchinitiative.exomiser.core.prioritisers.dao.DiseaseDao;
+import org.monarchinitiative.exomiser.core.prioritisers.model.Disease;
+import org.monarchinitiative.exomiser.core.prioritisers.model.GeneDiseaseIndex;
+import org.monarchinitiative.exomiser.core.prioritisers.model.InheritanceMode;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class PriorityServiceTest {
+
+    private final List<Disease> diseases = Collections.singletonList(Disease.builder()
+            .diseaseId("OMIM:101600")
+            .diseaseName("Craniofacial-skeletal-dermatologic dysplasia")
+            .associatedGeneId(2263)
+            .associatedGeneSymbol("FGFR2")
+            .diseaseType(Disease.DiseaseType.DISEASE)
+            .inheritanceMode(InheritanceMode.AUTOSOMAL_DOMINANT)
+            .build());
+
+    @Test
+    public void testGeneDiseaseIndexIsLoadedOnce() {
+        DiseaseDao diseaseDao = Mockito.mock(DiseaseDao.class);
+        Mockito.when(diseaseDao.getGeneDiseaseAssociations()).thenReturn(diseases);
+        PriorityService instance = new PriorityService(null, null, diseaseDao);
+
+        GeneDiseaseIndex index = instance.getGeneDiseaseIndex();
+        assertThat(index.size(), equalTo(1));
+        assertThat(instance.getGeneDiseaseIndex(), sameInstance(index));
+        Mockito.verify(diseaseDao, Mockito.times(1)).getGeneDiseaseAssociations();
+    }
+
+    @Test
+    public void testGeneDiseaseIndexIsNotStoredWhenLoadFails() {
+        DiseaseDao diseaseDao = Mockito.mock(DiseaseDao.class);
+        Mockito.when(diseaseDao.getGeneDiseaseAssociations())
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(diseases);
+        PriorityService instance = new PriorityService(null, null, diseaseDao);
+
+        try {
+            instance.getGeneDiseaseIndex();
+            fail("Expected the failed load to be passed on");
+        } catch (IllegalStateException e) {
+            //expected
+        }
+        assertThat(instance.getGeneDiseaseIndex().size(), equalTo(1));
+        Mockito.verify(diseaseDao, Mockito.times(2)).getGeneDiseaseAssociations();
+    }
+}
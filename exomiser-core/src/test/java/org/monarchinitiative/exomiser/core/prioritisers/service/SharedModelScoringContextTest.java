@@ -0,0 +1,99 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.service;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.monarchinitiative.exomiser.core.model.Gene;
+import org.monarchinitiative.exomiser.core.phenotype.PhenotypeTerm;
+import org.monarchinitiative.exomiser.core.prioritisers.HiPhiveOptions;
+import org.monarchinitiative.exomiser.core.prioritisers.HiPhivePriority;
+import org.monarchinitiative.exomiser.core.prioritisers.PhivePriority;
+import org.monarchinitiative.exomiser.core.prioritisers.util.DataMatrix;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class SharedModelScoringContextTest {
+
+    private final PriorityService priorityService = TestPriorityServiceFactory.TEST_SERVICE;
+
+    private final List<String> hpoIds = ImmutableList.of("HP:0010055", "HP:0001363", "HP:0001156", "HP:0011304");
+    private final List<PhenotypeTerm> queryTerms = priorityService.makePhenotypeTermsFromHpoIds(hpoIds);
+
+    private final Function<List<PhenotypeTerm>, ModelScoringContext> failingFactory = terms -> {
+        throw new AssertionError("Expected the existing context to be used for " + terms);
+    };
+
+    @Test
+    public void testSameContextReturnedForSameQuery() {
+        SharedModelScoringContext instance = new SharedModelScoringContext();
+        ModelScoringContext context = instance.getModelScoringContext(queryTerms, priorityService::makeModelScoringContext);
+
+        List<PhenotypeTerm> sameTerms = priorityService.makePhenotypeTermsFromHpoIds(hpoIds);
+        assertThat(instance.getModelScoringContext(sameTerms, failingFactory), sameInstance(context));
+    }
+
+    @Test
+    public void testSameContextReturnedForSameQueryInDifferentOrder() {
+        SharedModelScoringContext instance = new SharedModelScoringContext();
+        ModelScoringContext context = instance.getModelScoringContext(queryTerms, priorityService::makeModelScoringContext);
+
+        List<PhenotypeTerm> reorderedTerms = priorityService.makePhenotypeTermsFromHpoIds(ImmutableList.of("HP:0011304", "HP:0001156", "HP:0001363", "HP:0010055"));
+        assertThat(instance.getModelScoringContext(reorderedTerms, failingFactory), sameInstance(context));
+    }
+
+    @Test
+    public void testDifferentContextReturnedForDifferentQuery() {
+        SharedModelScoringContext instance = new SharedModelScoringContext();
+        ModelScoringContext context = instance.getModelScoringContext(queryTerms, priorityService::makeModelScoringContext);
+
+        List<PhenotypeTerm> otherTerms = priorityService.makePhenotypeTermsFromHpoIds(ImmutableList.of("HP:0010055", "HP:0001363"));
+        assertThat(instance.getModelScoringContext(otherTerms, priorityService::makeModelScoringContext), not(sameInstance(context)));
+    }
+
+    @Test
+    public void testContextsAreNotSharedBetweenInstances() {
+        ModelScoringContext context = new SharedModelScoringContext().getModelScoringContext(queryTerms, priorityService::makeModelScoringContext);
+        ModelScoringContext other = new SharedModelScoringContext().getModelScoringContext(queryTerms, priorityService::makeModelScoringContext);
+        assertThat(other, not(sameInstance(context)));
+    }
+
+    @Test
+    public void testPhiveAndHiPhiveOfAnAnalysisShareTheContext() {
+        SharedModelScoringContext instance = new SharedModelScoringContext();
+        List<Gene> genes = ImmutableList.of(new Gene("FGFR2", 2263), new Gene("ROR2", 4920));
+
+        new PhivePriority(priorityService, instance).prioritise(hpoIds, genes).collect(toList());
+        ModelScoringContext context = instance.getModelScoringContext(queryTerms, failingFactory);
+
+        new HiPhivePriority(HiPhiveOptions.DEFAULT, DataMatrix.EMPTY, priorityService, instance).prioritise(hpoIds, genes).collect(toList());
+        assertThat(instance.getModelScoringContext(queryTerms, failingFactory), sameInstance(context));
+    }
+}
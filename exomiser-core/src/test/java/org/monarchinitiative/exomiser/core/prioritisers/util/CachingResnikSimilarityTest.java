@@ -0,0 +1,98 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.util;
+
+import ontologizer.go.Ontology;
+import ontologizer.go.Term;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import similarity.concepts.ResnikSimilarity;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class CachingResnikSimilarityTest {
+
+    private static Ontology hpo;
+    private static HashMap<Term, Double> termInformationContent;
+    private static List<Term> terms;
+
+    @BeforeClass
+    public static void setUpClass() {
+        PhenixData phenixData = PhenixData.load(Paths.get("src/test/resources/prioritisers/phenix"));
+        hpo = phenixData.getHpo();
+        termInformationContent = new HashMap<>(phenixData.getTermInformationContent());
+        terms = new ArrayList<>();
+        hpo.forEach(terms::add);
+    }
+
+    @Test
+    public void testComputeSimilarityIsSameAsResnikSimilarity() {
+        ResnikSimilarity resnikSimilarity = new ResnikSimilarity(hpo, termInformationContent);
+        CachingResnikSimilarity instance = new CachingResnikSimilarity(hpo, termInformationContent, new TermPairSimilarityCache());
+
+        for (Term termA : terms) {
+            for (Term termB : terms) {
+                double expected = resnikSimilarity.computeSimilarity(termA, termB);
+                assertThat(instance.computeSimilarity(termA, termB), equalTo(expected));
+                //the second call of the reversed pair is read from the cache
+                assertThat(instance.computeSimilarity(termB, termA), equalTo(expected));
+                assertThat(instance.computeSimilarity(termA, termB), equalTo(expected));
+            }
+        }
+    }
+
+    @Test
+    public void testInstancesShareCache() {
+        TermPairSimilarityCache termPairSimilarityCache = new TermPairSimilarityCache();
+        CachingResnikSimilarity instance = new CachingResnikSimilarity(hpo, termInformationContent, termPairSimilarityCache);
+        CachingResnikSimilarity other = new CachingResnikSimilarity(hpo, termInformationContent, termPairSimilarityCache);
+        Term microcephaly = hpo.getTermIncludingAlternatives("HP:0000252");
+        Term visualImpairment = hpo.getTermIncludingAlternatives("HP:0000505");
+
+        double similarity = instance.computeSimilarity(microcephaly, visualImpairment);
+        assertThat(other.computeSimilarity(visualImpairment, microcephaly), equalTo(similarity));
+        assertThat(termPairSimilarityCache.size(), equalTo(1L));
+    }
+
+    @Test
+    public void testPhenixDataGivesEachThreadItsOwnResnikSimilarity() throws Exception {
+        PhenixData phenixData = PhenixData.load(Paths.get("src/test/resources/prioritisers/phenix"));
+        ResnikSimilarity mainThreadSimilarity = phenixData.getResnikSimilarity();
+        assertThat(phenixData.getResnikSimilarity(), sameInstance(mainThreadSimilarity));
+
+        ResnikSimilarity[] otherThreadSimilarity = new ResnikSimilarity[1];
+        Thread thread = new Thread(() -> otherThreadSimilarity[0] = phenixData.getResnikSimilarity());
+        thread.start();
+        thread.join();
+        assertThat(otherThreadSimilarity[0], not(sameInstance(mainThreadSimilarity)));
+    }
+}
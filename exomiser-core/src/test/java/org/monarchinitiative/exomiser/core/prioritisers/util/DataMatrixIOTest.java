@@ -23,13 +23,17 @@
 import org.jblas.FloatMatrix;
 import org.junit.Test;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
 
+import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
@@ -38,9 +42,9 @@
  */
 public class DataMatrixIOTest {
 
-    private final DataMatrix dataMatrix = loadMatrix();
+    private final InMemoryDataMatrix dataMatrix = loadMatrix();
 
-    public DataMatrix loadMatrix() {
+    public InMemoryDataMatrix loadMatrix() {
         FloatMatrix floatMatrix = new FloatMatrix(4, 4);
 
         //produce the following matrix:
@@ -79,7 +83,7 @@ public DataMatrix loadMatrix() {
         entrezIdToRowIndex.put(2222, 2);
         entrezIdToRowIndex.put(3333, 3);
 
-        return new DataMatrix(floatMatrix, entrezIdToRowIndex);
+        return new InMemoryDataMatrix(floatMatrix, entrezIdToRowIndex);
     }
 
     @Test
@@ -100,6 +104,84 @@ public void testWriteMatrixWithHeaders() throws Exception {
         assertFileExistsThenDelete(outFile);
     }
 
+    private InMemoryDataMatrix symmetricMatrix() {
+        float[][] matrix = {
+                {0.0f, 0.1f, 0.2f, 0.3f},
+                {0.1f, 1.1f, 1.2f, 1.3f},
+                {0.2f, 1.2f, 2.2f, 2.3f},
+                {0.3f, 1.3f, 2.3f, 3.3f}
+        };
+        return new InMemoryDataMatrix(new FloatMatrix(matrix), dataMatrix.getEntrezIdToRowIndex());
+    }
+
+    private void assertMatricesHaveSameColumns(DataMatrix actual, DataMatrix expected) {
+        assertThat(actual.getEntrezIdToRowIndex(), equalTo(expected.getEntrezIdToRowIndex()));
+        assertThat(actual.numRows(), equalTo(expected.numRows()));
+        for (Integer geneId : expected.getEntrezIdToRowIndex().keySet()) {
+            assertThat(actual.getColumnMatrixForGene(geneId), equalTo(expected.getColumnMatrixForGene(geneId)));
+        }
+    }
+
+    @Test
+    public void testWriteThenLoadMappedBinaryMatrix() throws Exception {
+        Path binaryFile = Paths.get("target/testMatrix.bin");
+        InMemoryDataMatrix expected = symmetricMatrix();
+
+        DataMatrixIO.writeBinaryDataMatrix(expected, binaryFile);
+        assertThat(DataMatrixIO.isBinaryDataMatrix(binaryFile), is(true));
+
+        MappedDataMatrix mappedDataMatrix = DataMatrixIO.loadMappedDataMatrix(binaryFile);
+        assertMatricesHaveSameColumns(mappedDataMatrix, expected);
+
+        assertFileExistsThenDelete(binaryFile);
+    }
+
+    @Test
+    public void testConvertTextMatrixToBinary() throws Exception {
+        Path matrixFile = Paths.get("target/testTextMatrix.gz");
+        Path indexFile = Paths.get("target/testTextMatrix_id2index.gz");
+        Path binaryFile = Paths.get("target/testTextMatrix.bin");
+        InMemoryDataMatrix expected = symmetricMatrix();
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(matrixFile))))) {
+            for (float[] row : expected.getMatrix().toArray2()) {
+                for (int j = 0; j < row.length; j++) {
+                    writer.write((j == 0 ? "" : "\t") + row[j]);
+                }
+                writer.write("\n");
+            }
+        }
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(indexFile))))) {
+            for (Map.Entry<Integer, Integer> entry : expected.getEntrezIdToRowIndex().entrySet()) {
+                writer.write(entry.getKey() + "\t" + entry.getValue() + "\n");
+            }
+        }
+
+        DataMatrixIO.convertToBinaryDataMatrix(matrixFile.toString(), indexFile.toString(), false, binaryFile);
+        assertThat(DataMatrixIO.isBinaryDataMatrix(matrixFile), is(false));
+
+        assertMatricesHaveSameColumns(DataMatrixIO.loadMappedDataMatrix(binaryFile), DataMatrixIO.loadDataMatrix(matrixFile.toString(), indexFile.toString(), false));
+
+        assertFileExistsThenDelete(matrixFile);
+        assertFileExistsThenDelete(indexFile);
+        assertFileExistsThenDelete(binaryFile);
+    }
+
+    @Test
+    public void testIsBinaryDataMatrixMissingFile() {
+        assertThat(DataMatrixIO.isBinaryDataMatrix(Paths.get("target/wibble.bin")), is(false));
+    }
+
+    @Test(expected = DataMatrixIO.DataMatrixIoException.class)
+    public void testLoadMappedDataMatrixNotBinaryFile() throws Exception {
+        Path textFile = Paths.get("target/notAMatrix.bin");
+        Files.write(textFile, "not a binary matrix file".getBytes());
+        try {
+            DataMatrixIO.loadMappedDataMatrix(textFile);
+        } finally {
+            Files.delete(textFile);
+        }
+    }
+
     private void assertFileExistsThenDelete(Path outFile) throws IOException {
         assertThat(Files.exists(outFile), is(true));
         Files.delete(outFile);
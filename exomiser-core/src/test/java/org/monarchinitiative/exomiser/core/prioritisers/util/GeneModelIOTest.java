@@ -0,0 +1,134 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.util;
+
+import org.junit.Test;
+import org.monarchinitiative.exomiser.core.phenotype.Organism;
+import org.monarchinitiative.exomiser.core.prioritisers.model.GeneDiseaseModel;
+import org.monarchinitiative.exomiser.core.prioritisers.model.GeneModel;
+import org.monarchinitiative.exomiser.core.prioritisers.model.GeneOrthologModel;
+
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class GeneModelIOTest {
+
+    private final GeneModel diseaseModel = new GeneDiseaseModel("OMIM:101600_2263", Organism.HUMAN, 2263, "FGFR2", "OMIM:101600", "Pfeiffer syndrome", Arrays.asList("HP:0000174", "HP:0000194"));
+    private final GeneModel otherDiseaseModel = new GeneDiseaseModel("OMIM:101600_2260", Organism.HUMAN, 2260, "FGFR1", "OMIM:101600", null, Arrays.asList("HP:0000174", "HP:0000218"));
+    private final GeneModel mouseModel = new GeneOrthologModel("MGI:95523_115", Organism.MOUSE, 2263, "FGFR2", "MGI:95523", "Fgfr2", Arrays.asList("MP:0000031", "MP:0000035"));
+    private final GeneModel mouseModelNoPhenotypes = new GeneOrthologModel("MGI:95523_116", Organism.MOUSE, 2263, "FGFR2", "MGI:95523", "Fgfr2", Collections.singletonList(""));
+
+    private Map<Organism, List<GeneModel>> writeAndRead(Map<Organism, List<GeneModel>> models, String fileName) {
+        Path modelFile = Paths.get("target", fileName);
+        GeneModelIO.writeGeneModels(models, modelFile);
+        try {
+            assertThat(GeneModelIO.isGeneModelFile(modelFile), is(true));
+            return GeneModelIO.readGeneModels(modelFile);
+        } finally {
+            modelFile.toFile().delete();
+        }
+    }
+
+    @Test
+    public void testWriteAndReadGeneModels() {
+        Map<Organism, List<GeneModel>> models = new EnumMap<>(Organism.class);
+        models.put(Organism.HUMAN, Arrays.asList(diseaseModel, otherDiseaseModel));
+        models.put(Organism.MOUSE, Arrays.asList(mouseModel, mouseModelNoPhenotypes));
+        models.put(Organism.FISH, Collections.emptyList());
+
+        Map<Organism, List<GeneModel>> readModels = writeAndRead(models, "testGeneModels.bin");
+        assertThat(readModels, equalTo(models));
+    }
+
+    @Test
+    public void testReadModelsShareStrings() {
+        Map<Organism, List<GeneModel>> models = new EnumMap<>(Organism.class);
+        models.put(Organism.HUMAN, Arrays.asList(diseaseModel, otherDiseaseModel));
+
+        List<GeneModel> readModels = writeAndRead(models, "testGeneModelsShareStrings.bin").get(Organism.HUMAN);
+        GeneDiseaseModel first = (GeneDiseaseModel) readModels.get(0);
+        GeneDiseaseModel second = (GeneDiseaseModel) readModels.get(1);
+        assertThat(first.getDiseaseId(), sameInstance(second.getDiseaseId()));
+        assertThat(first.getPhenotypeIds().get(0), sameInstance(second.getPhenotypeIds().get(0)));
+    }
+
+    @Test
+    public void testReadModelsHavePhenotypeIndexes() {
+        Map<Organism, List<GeneModel>> models = new EnumMap<>(Organism.class);
+        models.put(Organism.MOUSE, Collections.singletonList(mouseModel));
+
+        GeneModel readModel = writeAndRead(models, "testGeneModelsIndexes.bin").get(Organism.MOUSE).get(0);
+        assertThat(readModel.getPhenotypeIndexes(), equalTo(mouseModel.getPhenotypeIndexes()));
+    }
+
+    @Test
+    public void testIsGeneModelFileMissingFile() {
+        assertThat(GeneModelIO.isGeneModelFile(Paths.get("target", "wibble.bin")), is(false));
+    }
+
+    @Test
+    public void testIsGeneModelFileOtherFile() throws Exception {
+        Path otherFile = Paths.get("target", "notAGeneModelFile.txt");
+        Files.write(otherFile, "HUMAN\t2263\tFGFR2\n".getBytes());
+        assertThat(GeneModelIO.isGeneModelFile(otherFile), is(false));
+        Files.delete(otherFile);
+    }
+
+    @Test
+    public void testIsGeneModelFileOtherVersion() throws Exception {
+        Path otherVersionFile = Paths.get("target", "otherVersionGeneModels.bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(otherVersionFile))) {
+            out.writeInt(0x4558474D);
+            out.writeInt(2);
+        }
+        assertThat(GeneModelIO.isGeneModelFile(otherVersionFile), is(false));
+        Files.delete(otherVersionFile);
+    }
+
+    @Test(expected = GeneModelIO.GeneModelIoException.class)
+    public void testReadTruncatedFileThrowsGeneModelIoException() throws Exception {
+        Path truncatedFile = Paths.get("target", "truncatedGeneModels.bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(truncatedFile))) {
+            out.writeInt(0x4558474D);
+            out.writeInt(1);
+            out.writeInt(0);
+            //one organism which doesn't exist
+            out.writeInt(1);
+            out.writeUTF("WIBBLE");
+        }
+        try {
+            GeneModelIO.readGeneModels(truncatedFile);
+        } finally {
+            Files.delete(truncatedFile);
+        }
+    }
+}
@@ -21,9 +21,15 @@
 package org.monarchinitiative.exomiser.core.prioritisers.util;
 
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
 import org.jblas.FloatMatrix;
 import org.junit.Test;
+import org.monarchinitiative.exomiser.core.phenotype.Organism;
 import org.monarchinitiative.exomiser.core.prioritisers.model.GeneMatch;
+import org.monarchinitiative.exomiser.core.prioritisers.model.GeneModelPhenotypeMatch;
+import org.monarchinitiative.exomiser.core.prioritisers.model.GeneOrthologModel;
+
+import java.util.*;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertThat;
@@ -68,4 +74,118 @@ public void testEmptyInputValues() {
         assertThat(instance.getClosestPhenoMatchInNetwork(123), equalTo(GeneMatch.NO_HIT));
     }
 
-}
\ No newline at end of file
+    private GeneModelPhenotypeMatch geneModelMatch(int entrezGeneId, double score) {
+        GeneOrthologModel model = new GeneOrthologModel("MGI:" + entrezGeneId, Organism.MOUSE, entrezGeneId, "GENE" + entrezGeneId, "MGI:" + entrezGeneId, "Gene" + entrezGeneId, Collections
+                .emptyList());
+        return new GeneModelPhenotypeMatch(score, model, Collections.emptyList());
+    }
+
+    private DataMatrix makeDataMatrix(FloatMatrix floatMatrix) {
+        Map<Integer, Integer> index = new HashMap<>();
+        for (int i = 0; i < floatMatrix.getRows(); i++) {
+            index.put(i + 1, i);
+        }
+        return new InMemoryDataMatrix(floatMatrix, index);
+    }
+
+    private ListMultimap<Integer, GeneModelPhenotypeMatch> makeBestGeneModels(GeneModelPhenotypeMatch... geneModelPhenotypeMatches) {
+        ListMultimap<Integer, GeneModelPhenotypeMatch> bestGeneModels = ArrayListMultimap.create();
+        for (GeneModelPhenotypeMatch match : geneModelPhenotypeMatches) {
+            bestGeneModels.put(match.getEntrezGeneId(), match);
+        }
+        return bestGeneModels;
+    }
+
+    @Test
+    public void testGeneNotInMatrixIsNoHit() {
+        ListMultimap<Integer, GeneModelPhenotypeMatch> bestGeneModels = makeBestGeneModels(geneModelMatch(2, 0.8));
+        HiPhiveProteinInteractionScorer instance = new HiPhiveProteinInteractionScorer(makeDataMatrix(testMatrix), bestGeneModels, 0.6);
+        assertThat(instance.getClosestPhenoMatchInNetwork(123), equalTo(GeneMatch.NO_HIT));
+    }
+
+    @Test
+    public void testClosestPhenoMatchInNetworkIsHighestWeightedSeed() {
+        GeneModelPhenotypeMatch gene2Match = geneModelMatch(2, 0.8);
+        GeneModelPhenotypeMatch gene3Match = geneModelMatch(3, 0.5);
+        GeneModelPhenotypeMatch gene4Match = geneModelMatch(4, 0.9);
+        ListMultimap<Integer, GeneModelPhenotypeMatch> bestGeneModels = makeBestGeneModels(gene2Match, gene3Match, gene4Match);
+        HiPhiveProteinInteractionScorer instance = new HiPhiveProteinInteractionScorer(makeDataMatrix(testMatrix), bestGeneModels, 0.6);
+
+        //gene3 is below the high quality cut-off so is never a match
+        GeneMatch expected = GeneMatch.builder()
+                .queryGeneId(1)
+                .matchGeneId(4)
+                .score(0.5 + 0.3f * 0.9f)
+                .bestMatchModels(Collections.singletonList(gene4Match))
+                .build();
+        assertThat(instance.getClosestPhenoMatchInNetwork(1), equalTo(expected));
+    }
+
+    @Test
+    public void testClosestPhenoMatchInNetworkExcludesSelfHits() {
+        GeneModelPhenotypeMatch gene2Match = geneModelMatch(2, 0.8);
+        GeneModelPhenotypeMatch gene4Match = geneModelMatch(4, 0.9);
+        ListMultimap<Integer, GeneModelPhenotypeMatch> bestGeneModels = makeBestGeneModels(gene2Match, gene4Match);
+        HiPhiveProteinInteractionScorer instance = new HiPhiveProteinInteractionScorer(makeDataMatrix(testMatrix), bestGeneModels, 0.6);
+
+        GeneMatch expected = GeneMatch.builder()
+                .queryGeneId(4)
+                .matchGeneId(2)
+                .score(0.5 + 3.1f * 0.8f)
+                .bestMatchModels(Collections.singletonList(gene2Match))
+                .build();
+        assertThat(instance.getClosestPhenoMatchInNetwork(4), equalTo(expected));
+    }
+
+    @Test
+    public void testOnlySeedIsSelfIsNoHit() {
+        ListMultimap<Integer, GeneModelPhenotypeMatch> bestGeneModels = makeBestGeneModels(geneModelMatch(2, 0.8));
+        HiPhiveProteinInteractionScorer instance = new HiPhiveProteinInteractionScorer(makeDataMatrix(testMatrix), bestGeneModels, 0.6);
+        assertThat(instance.getClosestPhenoMatchInNetwork(2), equalTo(GeneMatch.NO_HIT));
+    }
+
+    @Test
+    public void testMatchesExhaustiveSearchAcrossMultipleBlocks() {
+        Random random = new Random(42);
+        int numGenes = 2500;
+        FloatMatrix floatMatrix = FloatMatrix.zeros(numGenes, numGenes);
+        for (int i = 0; i < floatMatrix.length; i++) {
+            //include some ties and zeros
+            floatMatrix.data[i] = random.nextInt(50) / 50f;
+        }
+        List<GeneModelPhenotypeMatch> seeds = new ArrayList<>();
+        for (int geneId = 1; geneId <= numGenes; geneId += 17) {
+            seeds.add(geneModelMatch(geneId, 0.5 + random.nextDouble() / 2));
+        }
+        //seed not in the matrix
+        seeds.add(geneModelMatch(numGenes + 10, 0.9));
+        DataMatrix dataMatrix = makeDataMatrix(floatMatrix);
+        ListMultimap<Integer, GeneModelPhenotypeMatch> bestGeneModels = makeBestGeneModels(seeds.toArray(new GeneModelPhenotypeMatch[0]));
+        HiPhiveProteinInteractionScorer instance = new HiPhiveProteinInteractionScorer(dataMatrix, bestGeneModels, 0.6);
+
+        for (int geneId = 1; geneId <= numGenes; geneId++) {
+            int row = geneId - 1;
+            float bestScore = 0;
+            GeneModelPhenotypeMatch bestSeed = null;
+            for (GeneModelPhenotypeMatch seed : seeds) {
+                Integer seedId = seed.getEntrezGeneId();
+                if (seed.getScore() <= 0.6 || !dataMatrix.containsGene(seedId) || seedId == geneId) {
+                    continue;
+                }
+                float score = floatMatrix.get(row, seedId - 1) * (float) seed.getScore();
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestSeed = seed;
+                }
+            }
+            GeneMatch expected = bestSeed == null ? GeneMatch.NO_HIT : GeneMatch.builder()
+                    .queryGeneId(geneId)
+                    .matchGeneId(bestSeed.getEntrezGeneId())
+                    .score(0.5 + bestScore)
+                    .bestMatchModels(Collections.singletonList(bestSeed))
+                    .build();
+            assertThat(instance.getClosestPhenoMatchInNetwork(geneId), equalTo(expected));
+        }
+    }
+
+}
@@ -30,6 +30,7 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -42,9 +43,9 @@
  *
  * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
  */
-public class DataMatrixTest {
+public class InMemoryDataMatrixTest {
     
-    private DataMatrix instance;
+    private InMemoryDataMatrix instance;
     
     private FloatMatrix floatMatrix;
     private Map<Integer, Integer> entrezIdToRowIndex;
@@ -68,7 +69,7 @@ public void setUp() {
         entrezIdToRowIndex.put(2222, 2);
         entrezIdToRowIndex.put(3333, 3);
 
-        instance = new DataMatrix(floatMatrix, entrezIdToRowIndex);
+        instance = new InMemoryDataMatrix(floatMatrix, entrezIdToRowIndex);
     }
 
     @Test
@@ -76,7 +77,7 @@ public void testEmptyMatrix() {
         DataMatrix emptyMatrix = DataMatrix.EMPTY;
         assertThat(emptyMatrix.containsGene(112), is(false));
         assertThat(emptyMatrix.getEntrezIdToRowIndex(), equalTo(Collections.emptyMap()));
-        assertThat(emptyMatrix.getMatrix().isEmpty(), is(true));
+        assertThat(emptyMatrix.numRows(), equalTo(0));
     }
 
     @Test
@@ -89,6 +90,11 @@ public void testGetData() {
         assertThat(instance.getMatrix(), equalTo(floatMatrix));
     }
 
+    @Test
+    public void testNumRows() {
+        assertThat(instance.numRows(), equalTo(4));
+    }
+
     @Test
     public void testContainsGeneIsTrue() {
         assertThat(instance.containsGene(0000), is(true));
@@ -151,6 +157,24 @@ public void testGetColumnMatrixForGeneInIndex() {
         }
     }
 
+    @Test
+    public void testAddColumnForGeneOnlyAddsRowsInRange() {
+        float[] sums = {1f, 1f, 1f, 1f};
+        instance.addColumnForGene(2222, sums, 1, 3);
+        assertThat(sums, equalTo(new float[]{1f, 1f + 1.2f, 1f + 2.2f, 1f}));
+    }
+
+    @Test
+    public void testSumColumnsForGenes() {
+        FloatMatrix expected = instance.getColumnMatrixForGene(1111).add(instance.getColumnMatrixForGene(3333));
+        assertThat(instance.sumColumnsForGenes(Arrays.asList(1111, 9999, 3333)), equalTo(expected.toArray()));
+    }
+
+    @Test
+    public void testSumColumnsForGenesNoGenes() {
+        assertThat(instance.sumColumnsForGenes(Collections.emptyList()), equalTo(new float[4]));
+    }
+
     @Test
     public void testMakeSubMatrix() {
         float[][] matrix = {{0.0f, 0.1f, 0.2f}, {1.0f, 1.1f, 1.2f}, {2.0f, 2.1f, 2.2f}};
@@ -164,7 +188,7 @@ public void testMakeSubMatrix() {
 
     @Test
     public void testEquals() {
-        DataMatrix identicalMatrix = new DataMatrix(floatMatrix, entrezIdToRowIndex);
+        DataMatrix identicalMatrix = new InMemoryDataMatrix(floatMatrix, entrezIdToRowIndex);
         assertThat(instance, equalTo(identicalMatrix));
     }
     
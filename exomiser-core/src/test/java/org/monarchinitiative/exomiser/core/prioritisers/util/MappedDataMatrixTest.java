@@ -0,0 +1,82 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.util;
+
+import org.jblas.FloatMatrix;
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class MappedDataMatrixTest {
+
+    private final float[] rowMajorValues = {
+            0.0f, 0.1f, 0.2f,
+            0.1f, 1.1f, 1.2f,
+            0.2f, 1.2f, 2.2f
+    };
+
+    private Map<Integer, Integer> index() {
+        Map<Integer, Integer> index = new HashMap<>();
+        index.put(1111, 0);
+        index.put(2222, 1);
+        index.put(3333, 2);
+        return index;
+    }
+
+    @Test
+    public void testGetColumnMatrixForGeneSingleBlock() {
+        MappedDataMatrix instance = new MappedDataMatrix(index(), 3, 3, 3, new FloatBuffer[]{FloatBuffer.wrap(rowMajorValues)});
+        assertThat(instance.numRows(), equalTo(3));
+        assertThat(instance.getColumnMatrixForGene(1111), equalTo(new FloatMatrix(new float[]{0.0f, 0.1f, 0.2f})));
+        assertThat(instance.getColumnMatrixForGene(3333), equalTo(new FloatMatrix(new float[]{0.2f, 1.2f, 2.2f})));
+    }
+
+    @Test
+    public void testGetColumnMatrixForGeneMultipleBlocks() {
+        FloatBuffer[] blocks = {
+                FloatBuffer.wrap(rowMajorValues, 0, 6).slice(),
+                FloatBuffer.wrap(rowMajorValues, 6, 3).slice()
+        };
+        MappedDataMatrix instance = new MappedDataMatrix(index(), 3, 3, 2, blocks);
+        assertThat(instance.getColumnMatrixForGene(2222), equalTo(new FloatMatrix(new float[]{0.1f, 1.1f, 1.2f})));
+        assertThat(instance.getColumnMatrixForGene(3333), equalTo(new FloatMatrix(new float[]{0.2f, 1.2f, 2.2f})));
+    }
+
+    @Test
+    public void testSumColumnsForGenesMultipleBlocks() {
+        FloatBuffer[] blocks = {
+                FloatBuffer.wrap(rowMajorValues, 0, 6).slice(),
+                FloatBuffer.wrap(rowMajorValues, 6, 3).slice()
+        };
+        MappedDataMatrix instance = new MappedDataMatrix(index(), 3, 3, 2, blocks);
+        FloatMatrix expected = instance.getColumnMatrixForGene(1111).add(instance.getColumnMatrixForGene(3333));
+        assertThat(instance.sumColumnsForGenes(Arrays.asList(1111, 3333)), equalTo(expected.toArray()));
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.util;
+
+import ontologizer.go.Term;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class PhenixDataTest {
+
+    private static final Path FIXTURE_DIR = Paths.get("src/test/resources/prioritisers/phenix");
+
+    private final Path phenixDataDir = Paths.get("target", "phenix-data-test");
+
+    @Before
+    public void setUp() throws IOException {
+        deleteDataDir();
+        Files.createDirectories(phenixDataDir);
+        Files.copy(FIXTURE_DIR.resolve(PhenixData.HPO_OBO_FILE_NAME), phenixDataDir.resolve(PhenixData.HPO_OBO_FILE_NAME));
+        Files.copy(FIXTURE_DIR.resolve(PhenixData.HPO_ANNOTATION_FILE_NAME), phenixDataDir.resolve(PhenixData.HPO_ANNOTATION_FILE_NAME));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        deleteDataDir();
+    }
+
+    private void deleteDataDir() throws IOException {
+        if (Files.exists(phenixDataDir)) {
+            try (Stream<Path> files = Files.list(phenixDataDir)) {
+                for (Path file : files.collect(toList())) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(phenixDataDir);
+        }
+    }
+
+    private static Map<String, Set<String>> annotationIds(PhenixData phenixData) {
+        return phenixData.getGeneId2Annotations().entrySet().stream()
+                .collect(toMap(Map.Entry::getKey, entry -> termIds(entry.getValue())));
+    }
+
+    private static Set<String> termIds(List<Term> terms) {
+        return terms.stream().map(term -> term.getID().toString()).collect(toSet());
+    }
+
+    private static Map<String, Double> informationContentByTermId(PhenixData phenixData) {
+        return phenixData.getTermInformationContent().entrySet().stream()
+                .collect(toMap(entry -> entry.getKey().getID().toString(), Map.Entry::getValue));
+    }
+
+    private Path snapshotFile() {
+        return phenixDataDir.resolve(PhenixData.SNAPSHOT_FILE_NAME);
+    }
+
+    private List<Path> filesInDataDir() throws IOException {
+        try (Stream<Path> files = Files.list(phenixDataDir)) {
+            return files.map(Path::getFileName).sorted().collect(toList());
+        }
+    }
+
+    @Test
+    public void testLoad() {
+        PhenixData instance = PhenixData.load(phenixDataDir);
+
+        assertThat(instance.getPhenixDataDirectory(), equalTo(phenixDataDir));
+        Map<String, Set<String>> expected = new HashMap<>();
+        //HP:0000240 is an ancestor of HP:0000252 so is removed in favour of the more specific term
+        expected.put("2263", new HashSet<>(Arrays.asList("HP:0000252", "HP:0000505")));
+        //HP:0005484 is an alt_id of HP:0000252
+        expected.put("2260", Collections.singleton("HP:0000252"));
+        expected.put("341640", Collections.singleton("HP:0000505"));
+        assertThat(annotationIds(instance), equalTo(expected));
+
+        Map<String, Double> informationContent = informationContentByTermId(instance);
+        //the root annotates all three genes
+        assertThat(informationContent.get("HP:0000001"), equalTo(0.0));
+        assertThat(informationContent.get("HP:0000252"), greaterThan(0.0));
+        //terms with no annotations are given the IC of a term annotating a single gene
+        assertThat(informationContent.get("HP:0000004"), equalTo(-Math.log(1 / 3d)));
+    }
+
+    @Test
+    public void testLoadDoesNotWriteSnapshotByDefault() throws IOException {
+        PhenixData.load(phenixDataDir);
+
+        assertThat(Files.exists(snapshotFile()), is(false));
+        assertThat(filesInDataDir().size(), equalTo(2));
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() throws IOException {
+        PhenixData parsed = PhenixData.load(phenixDataDir, true);
+        assertThat(Files.exists(snapshotFile()), is(true));
+        //the temp file is moved into place
+        assertThat(filesInDataDir(), equalTo(Arrays.asList(Paths.get(PhenixData.HPO_ANNOTATION_FILE_NAME), Paths.get(PhenixData.SNAPSHOT_FILE_NAME), Paths.get(PhenixData.HPO_OBO_FILE_NAME))));
+
+        PhenixData restored = PhenixData.load(phenixDataDir, true);
+
+        assertThat(annotationIds(restored), equalTo(annotationIds(parsed)));
+        assertThat(informationContentByTermId(restored), equalTo(informationContentByTermId(parsed)));
+    }
+
+    @Test
+    public void testStaleSnapshotIsIgnored() throws IOException {
+        PhenixData.load(phenixDataDir, true);
+        assertThat(Files.exists(snapshotFile()), is(true));
+
+        Path annotationFile = phenixDataDir.resolve(PhenixData.HPO_ANNOTATION_FILE_NAME);
+        Files.write(annotationFile, Collections.singletonList("2261\tFGFR3\tVisual impairment\tHP:0000505"), StandardOpenOption.APPEND);
+
+        PhenixData reloaded = PhenixData.load(phenixDataDir, true);
+
+        assertThat(annotationIds(reloaded).get("2261"), equalTo(Collections.singleton("HP:0000505")));
+        //the snapshot is re-written for the changed annotations
+        PhenixData restored = PhenixData.load(phenixDataDir, true);
+        assertThat(annotationIds(restored), equalTo(annotationIds(reloaded)));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class ScoreDistributionContainerTest {
+
+    private final Path distributionsDir = Paths.get("target/testScoreDistributions");
+
+    @Before
+    public void setUp() throws Exception {
+        Files.createDirectories(distributionsDir);
+        Files.write(distributionsDir.resolve("1.out"), (">2263_1000\n0.1-0.9\n1.0-0.01\n>341640_1000\n0.1-0.5\n").getBytes());
+        Files.write(distributionsDir.resolve("2.out"), (">2263_1000\n0.2-0.8\n2.0-0.02\n").getBytes());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(distributionsDir)) {
+            files.forEach(file -> file.toFile().delete());
+        }
+        Files.delete(distributionsDir);
+    }
+
+    private String distributionsFolder() {
+        return distributionsDir.toString() + File.separator;
+    }
+
+    @Test
+    public void testGetDistributionForNumQueryTerms() {
+        ScoreDistributionContainer instance = new ScoreDistributionContainer(distributionsFolder());
+        assertThat(instance.getDistribution(2263, false, 2).getPvalue(0.2, 1000d), equalTo(0.8));
+        assertThat(instance.getDistribution(2263, false, 1).getPvalue(0.2, 1000d), equalTo(0.01));
+    }
+
+    @Test
+    public void testGetDistributionFallsBackToFewerQueryTerms() {
+        ScoreDistributionContainer instance = new ScoreDistributionContainer(distributionsFolder());
+        assertThat(instance.getDistribution(341640, false, 2).getPvalue(0.1, 1000d), equalTo(0.5));
+        //other genes still use the distribution for the requested number of terms
+        assertThat(instance.getDistribution(2263, false, 2).getPvalue(0.1, 1000d), equalTo(0.8));
+    }
+
+    @Test
+    public void testGetDistributionNumQueryTermsIsLimitedToTwenty() {
+        ScoreDistributionContainer instance = new ScoreDistributionContainer(distributionsFolder());
+        //there are no 20.out files so this falls back to 2.out
+        assertThat(instance.getDistribution(2263, false, 30).getPvalue(0.2, 1000d), equalTo(0.8));
+    }
+
+    @Test
+    public void testGetDistributionMissingGeneIsNull() {
+        ScoreDistributionContainer instance = new ScoreDistributionContainer(distributionsFolder());
+        assertThat(instance.getDistribution(12345, false, 2), nullValue());
+    }
+
+    @Test
+    public void testGetDistributionMissingFilesIsNull() {
+        ScoreDistributionContainer instance = new ScoreDistributionContainer(distributionsFolder());
+        assertThat(instance.getDistribution(2263, true, 2), nullValue());
+    }
+
+    @Test
+    public void testDistributionsAreLoadedOnceAndShared() {
+        ScoreDistributionContainer instance = new ScoreDistributionContainer(distributionsFolder());
+        assertThat(instance.numLoadedDistributions(), equalTo(0L));
+        instance.getDistribution(2263, false, 2);
+        instance.getDistribution(2263, false, 2);
+        instance.getDistribution(341640, false, 1);
+        assertThat(instance.numLoadedDistributions(), equalTo(2L));
+    }
+
+    @Test
+    public void testDistributionsAreEvictedWhenOverSizeLimit() {
+        ScoreDistributionContainer instance = new ScoreDistributionContainer(distributionsFolder(), 0);
+        assertThat(instance.getDistribution(2263, false, 2).getPvalue(0.2, 1000d), equalTo(0.8));
+        assertThat(instance.numLoadedDistributions(), equalTo(0L));
+    }
+
+    @Test
+    public void testConcurrentAccess() {
+        ScoreDistributionContainer instance = new ScoreDistributionContainer(distributionsFolder());
+        long numCorrect = IntStream.range(0, 1000).parallel()
+                .mapToObj(i -> instance.getDistribution(i % 2 == 0 ? 2263 : 341640, false, 2))
+                .filter(scoreDistribution -> scoreDistribution.getPvalue(0.1, 1000d) == 0.8 || scoreDistribution.getPvalue(0.1, 1000d) == 0.5)
+                .count();
+        assertThat(numCorrect, equalTo(1000L));
+        assertThat(instance.numLoadedDistributions(), equalTo(2L));
+    }
+
+    @Test
+    public void testWritesBinaryDistributionsWhichAreThenUsed() throws Exception {
+        new ScoreDistributionContainer(distributionsFolder()).getDistribution(2263, false, 2);
+        Path binaryFile = distributionsDir.resolve("2.bin");
+        assertThat(ScoreDistributionIO.isBinaryScoreDistributionTable(binaryFile), is(true));
+
+        //remove the text file to make sure the binary one is used
+        Files.delete(distributionsDir.resolve("2.out"));
+        ScoreDistributionContainer instance = new ScoreDistributionContainer(distributionsFolder());
+        assertThat(instance.getDistribution(2263, false, 2).getPvalue(2.0, 1000d), equalTo(0.02));
+    }
+
+    @Test
+    public void testWritingBinaryDistributionsLeavesNoTempFiles() throws Exception {
+        new ScoreDistributionContainer(distributionsFolder()).getDistribution(2263, false, 2);
+        try (Stream<Path> files = Files.list(distributionsDir)) {
+            assertThat(files.anyMatch(file -> file.toString().endsWith(".tmp")), is(false));
+        }
+    }
+
+    @Test
+    public void testUnreadableDistributionsAreNotCached() throws Exception {
+        //a truncated binary file with a valid header
+        Path binaryFile = distributionsDir.resolve("3.bin");
+        Files.write(binaryFile, ByteBuffer.allocate(4 * Integer.BYTES).putInt(0x45585344).putInt(1).putInt(1).putInt(1).array());
+        ScoreDistributionContainer instance = new ScoreDistributionContainer(distributionsFolder());
+
+        //falls back to 2.out
+        assertThat(instance.getDistribution(2263, false, 3).getPvalue(0.2, 1000d), equalTo(0.8));
+        assertThat(instance.numLoadedDistributions(), equalTo(1L));
+
+        Files.delete(binaryFile);
+        Files.write(distributionsDir.resolve("3.out"), (">2263_1000\n0.3-0.7\n").getBytes());
+        assertThat(instance.getDistribution(2263, false, 3).getPvalue(0.3, 1000d), equalTo(0.7));
+        assertThat(instance.numLoadedDistributions(), equalTo(2L));
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.util;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class ScoreDistributionIOTest {
+
+    private static final String DISTRIBUTIONS =
+            ">2263_1000\n" +
+            "0.0-1.0\n" +
+            "1.5E-4-0.8\n" +
+            "0.5-0.2\n" +
+            "2.0-0.001\n" +
+            ">OMIM:101600_1000\n" +
+            "0.5-0.3\n" +
+            ">341640_500\n" +
+            "-0.1-1.0\n" +
+            "1.0-0.002\n";
+
+    private Path writeDistributionFile(String fileName) throws Exception {
+        Path textFile = Paths.get("target", fileName);
+        Files.write(textFile, DISTRIBUTIONS.getBytes());
+        return textFile;
+    }
+
+    private void assertSameDistributions(ScoreDistributionTable actual, ScoreDistributionTable expected) {
+        assertThat(actual.size(), equalTo(expected.size()));
+        assertThat(actual.numPoints(), equalTo(expected.numPoints()));
+        for (int geneId : new int[]{2263, 341640}) {
+            for (double score = -0.2; score < 2.5; score += 0.05) {
+                assertThat(actual.getDistribution(geneId).getPvalue(score, 1000d), equalTo(expected.getDistribution(geneId).getPvalue(score, 1000d)));
+            }
+        }
+    }
+
+    @Test
+    public void testParseScoreDistributionTable() throws Exception {
+        Path textFile = writeDistributionFile("testDistributions.out");
+        ScoreDistributionTable table = ScoreDistributionIO.parseScoreDistributionTable(textFile);
+        Files.delete(textFile);
+
+        //the non-numeric disease id is ignored
+        assertThat(table.size(), equalTo(2));
+        assertThat(table.numPoints(), equalTo(6));
+        assertThat(table.containsGene(2263), is(true));
+        assertThat(table.containsGene(341640), is(true));
+        assertThat(table.getDistribution(101600), nullValue());
+
+        ScoreDistribution gene2263 = table.getDistribution(2263);
+        assertThat(gene2263.getPvalue(0.0001, 10000d), equalTo(0.8));
+        assertThat(gene2263.getPvalue(0.4, 1000d), equalTo(0.2));
+        assertThat(gene2263.getPvalue(3.0, 1000d), equalTo(1d / 1000d));
+
+        ScoreDistribution gene341640 = table.getDistribution(341640);
+        assertThat(gene341640.getPvalue(-0.1, 1000d), equalTo(1.0));
+        assertThat(gene341640.getPvalue(2.0, 1000d), equalTo(1d / 500d));
+    }
+
+    @Test
+    public void testWriteThenLoadMappedBinaryTable() throws Exception {
+        Path textFile = writeDistributionFile("testDistributionsToBinary.out");
+        Path binaryFile = Paths.get("target/testDistributions.bin");
+        ScoreDistributionTable expected = ScoreDistributionIO.parseScoreDistributionTable(textFile);
+        Files.delete(textFile);
+
+        ScoreDistributionIO.writeBinaryScoreDistributionTable(expected, binaryFile);
+        assertThat(ScoreDistributionIO.isBinaryScoreDistributionTable(binaryFile), is(true));
+
+        ScoreDistributionTable mapped = ScoreDistributionIO.loadMappedScoreDistributionTable(binaryFile);
+        assertSameDistributions(mapped, expected);
+        Files.delete(binaryFile);
+    }
+
+    @Test
+    public void testMappedTableHeapSizeExcludesMappedScores() throws Exception {
+        Path textFile = writeDistributionFile("testDistributionsHeapSize.out");
+        Path binaryFile = Paths.get("target/testDistributionsHeapSize.bin");
+        ScoreDistributionTable parsed = ScoreDistributionIO.parseScoreDistributionTable(textFile);
+        Files.delete(textFile);
+        ScoreDistributionIO.writeBinaryScoreDistributionTable(parsed, binaryFile);
+
+        ScoreDistributionTable mapped = ScoreDistributionIO.loadMappedScoreDistributionTable(binaryFile);
+        //2 genes * (3 ints + 1 double) + 2 * 6 points * 1 double
+        assertThat(parsed.heapSizeInBytes(), equalTo(2L * 20 + 2L * 6 * 8));
+        assertThat(parsed.sizeInBytes(), equalTo(parsed.heapSizeInBytes()));
+        assertThat(mapped.heapSizeInBytes(), equalTo(2L * 20));
+        assertThat(mapped.sizeInBytes(), equalTo(parsed.sizeInBytes()));
+        Files.delete(binaryFile);
+    }
+
+    @Test
+    public void testWriteThenLoadEmptyTable() throws Exception {
+        Path binaryFile = Paths.get("target/testEmptyDistributions.bin");
+        ScoreDistributionIO.writeBinaryScoreDistributionTable(ScoreDistributionTable.EMPTY, binaryFile);
+
+        ScoreDistributionTable mapped = ScoreDistributionIO.loadMappedScoreDistributionTable(binaryFile);
+        assertThat(mapped.size(), equalTo(0));
+        assertThat(mapped.getDistribution(2263), nullValue());
+        Files.delete(binaryFile);
+    }
+
+    @Test
+    public void testIsBinaryScoreDistributionTableMissingFile() {
+        assertThat(ScoreDistributionIO.isBinaryScoreDistributionTable(Paths.get("target/wibble.bin")), is(false));
+    }
+
+    @Test(expected = ScoreDistributionIO.ScoreDistributionIoException.class)
+    public void testLoadMappedScoreDistributionTableNotBinaryFile() throws Exception {
+        Path textFile = writeDistributionFile("notBinaryDistributions.bin");
+        try {
+            ScoreDistributionIO.loadMappedScoreDistributionTable(textFile);
+        } finally {
+            Files.delete(textFile);
+        }
+    }
+}
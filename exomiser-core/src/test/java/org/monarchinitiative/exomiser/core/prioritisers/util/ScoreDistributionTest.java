@@ -0,0 +1,92 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class ScoreDistributionTest {
+
+    private ScoreDistribution scoreDistribution(double[] scores, double[] pvalues, double numRandomisations) {
+        ScoreDistribution scoreDistribution = new ScoreDistribution();
+        scoreDistribution.setDistribution(scores, pvalues, numRandomisations);
+        return scoreDistribution;
+    }
+
+    private final ScoreDistribution instance = scoreDistribution(new double[]{0.1, 0.2, 0.2, 0.5, 1.0}, new double[]{0.9, 0.7, 0.6, 0.1, 0.01}, 1000d);
+
+    @Test
+    public void testGetPvalueExactScore() {
+        assertThat(instance.getPvalue(0.5, 1000d), equalTo(0.1));
+    }
+
+    @Test
+    public void testGetPvalueScoreBetweenPointsUsesNextHighest() {
+        assertThat(instance.getPvalue(0.3, 1000d), equalTo(0.1));
+    }
+
+    @Test
+    public void testGetPvalueDuplicateScoresUsesFirst() {
+        assertThat(instance.getPvalue(0.2, 1000d), equalTo(0.7));
+    }
+
+    @Test
+    public void testGetPvalueScoreBelowLowest() {
+        assertThat(instance.getPvalue(0.0, 1000d), equalTo(0.9));
+    }
+
+    @Test
+    public void testGetPvalueScoreAboveHighest() {
+        assertThat(instance.getPvalue(1.5, 1000d), equalTo(1d / 1000d));
+    }
+
+    @Test
+    public void testGetPvalueScoreIsRounded() {
+        assertThat(instance.getPvalue(1.0004, 1000d), equalTo(0.01));
+    }
+
+    @Test
+    public void testGetPvalueNaNScore() {
+        assertThat(instance.getPvalue(Double.NaN, 1000d), equalTo(1d));
+    }
+
+    @Test
+    public void testGetPvalueUnsortedScoresUsesFirstInFileOrder() {
+        ScoreDistribution unsorted = scoreDistribution(new double[]{0.5, 0.1, 1.0}, new double[]{0.1, 0.9, 0.01}, 1000d);
+        assertThat(unsorted.getPvalue(0.1, 1000d), equalTo(0.1));
+    }
+
+    @Test
+    public void testGetPvalueListAndArrayDistributionsAreTheSame() {
+        ScoreDistribution fromLists = new ScoreDistribution();
+        fromLists.setDistribution(Arrays.asList(0.1, 0.2, 0.2, 0.5, 1.0), Arrays.asList(0.9, 0.7, 0.6, 0.1, 0.01), 1000d);
+        for (double score = 0; score < 1.2; score += 0.01) {
+            assertThat(fromLists.getPvalue(score, 1000d), equalTo(instance.getPvalue(score, 1000d)));
+        }
+    }
+}
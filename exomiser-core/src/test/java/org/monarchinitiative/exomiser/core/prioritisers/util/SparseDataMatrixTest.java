@@ -0,0 +1,268 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.util;
+
+import org.jblas.FloatMatrix;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class SparseDataMatrixTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SparseDataMatrixTest.class);
+
+    private InMemoryDataMatrix denseMatrix;
+    private Map<Integer, Integer> entrezIdToRowIndex;
+
+    @Before
+    public void setUp() {
+        float[][] matrix = {
+                {0.0f, 0.1f, 0.2f, 0.3f},
+                {0.1f, 1.1f, 1.2f, 1.3f},
+                {0.2f, 1.2f, 2.2f, 2.3f},
+                {0.3f, 1.3f, 2.3f, 3.3f}
+        };
+
+        entrezIdToRowIndex = new TreeMap<>();
+        entrezIdToRowIndex.put(0000, 0);
+        entrezIdToRowIndex.put(1111, 1);
+        entrezIdToRowIndex.put(2222, 2);
+        entrezIdToRowIndex.put(3333, 3);
+
+        denseMatrix = new InMemoryDataMatrix(new FloatMatrix(matrix), entrezIdToRowIndex);
+    }
+
+    private void assertColumnsAreClose(FloatMatrix actual, FloatMatrix expected, double error) {
+        assertThat(actual.getRows(), equalTo(expected.getRows()));
+        for (int i = 0; i < expected.length; i++) {
+            assertThat((double) actual.get(i), closeTo(expected.get(i), error));
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        SparseDataMatrix instance = SparseDataMatrix.of(DataMatrix.EMPTY, 10);
+        assertThat(instance.numRows(), equalTo(0));
+        assertThat(instance.numEntries(), equalTo(0));
+        assertThat(instance.containsGene(1111), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxEntriesPerColumnMustBePositive() {
+        SparseDataMatrix.of(denseMatrix, 0);
+    }
+
+    @Test
+    public void testKeepsAllPositiveEntriesWhenMaxEntriesIsAtLeastNumRows() {
+        SparseDataMatrix instance = SparseDataMatrix.of(denseMatrix, 10);
+        //the single 0.0 value isn't stored
+        assertThat(instance.numEntries(), equalTo(15));
+        assertThat(instance.getEntrezIdToRowIndex(), equalTo(entrezIdToRowIndex));
+        assertThat(instance.numRows(), equalTo(4));
+        for (int geneId : entrezIdToRowIndex.keySet()) {
+            FloatMatrix expected = denseMatrix.getColumnMatrixForGene(geneId);
+            //quantisation error is at most half of 1/65535 of the column maximum
+            assertColumnsAreClose(instance.getColumnMatrixForGene(geneId), expected, expected.max() / 65535 / 2);
+        }
+    }
+
+    @Test
+    public void testColumnMaximumIsExact() {
+        SparseDataMatrix instance = SparseDataMatrix.of(denseMatrix, 10);
+        assertThat(instance.getColumnMatrixForGene(3333).get(3), equalTo(3.3f));
+    }
+
+    @Test
+    public void testKeepsTopEntriesOfEachColumn() {
+        SparseDataMatrix instance = SparseDataMatrix.of(denseMatrix, 2);
+        assertThat(instance.numEntries(), equalTo(8));
+        assertColumnsAreClose(instance.getColumnMatrixForGene(1111), new FloatMatrix(new float[]{0f, 0f, 1.2f, 1.3f}), 1e-4);
+        assertColumnsAreClose(instance.getColumnMatrixForGene(3333), new FloatMatrix(new float[]{0f, 0f, 2.3f, 3.3f}), 1e-4);
+    }
+
+    @Test
+    public void testAddColumnForGeneOnlyAddsRowsInRange() {
+        SparseDataMatrix instance = SparseDataMatrix.of(denseMatrix, 10);
+        float[] column = instance.getColumnMatrixForGene(2222).toArray();
+        float[] sums = new float[4];
+        instance.addColumnForGene(2222, sums, 1, 3);
+        assertThat(sums, equalTo(new float[]{0f, column[1], column[2], 0f}));
+    }
+
+    @Test
+    public void testSumColumnsForGenes() {
+        SparseDataMatrix instance = SparseDataMatrix.of(denseMatrix, 2);
+        FloatMatrix expected = instance.getColumnMatrixForGene(0000).add(instance.getColumnMatrixForGene(1111)).add(instance.getColumnMatrixForGene(3333));
+        assertThat(instance.sumColumnsForGenes(Arrays.asList(0000, 1111, 3333)), equalTo(expected.toArray()));
+    }
+
+    @Test
+    public void testTiesAtThresholdAreKeptInRowOrder() {
+        Map<Integer, Integer> index = new HashMap<>();
+        index.put(1, 0);
+        index.put(2, 1);
+        index.put(3, 2);
+        SparseDataMatrix instance = SparseDataMatrix.builder(index, 3, 2)
+                .addColumn(new float[]{0.5f, 0.5f, 0.5f})
+                .addColumn(new float[]{0.5f, 0.1f, 0.9f})
+                .addColumn(new float[]{0.5f, 0.9f, 0.1f})
+                .build();
+        assertThat(instance.numEntries(), equalTo(6));
+        assertThat(instance.getColumnMatrixForGene(1), equalTo(new FloatMatrix(new float[]{0.5f, 0.5f, 0f})));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBuildWithMissingColumns() {
+        SparseDataMatrix.builder(entrezIdToRowIndex, 4, 2)
+                .addColumn(new float[]{0.0f, 0.1f, 0.2f, 0.3f})
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddColumnOfWrongLength() {
+        SparseDataMatrix.builder(entrezIdToRowIndex, 4, 2)
+                .addColumn(new float[]{0.0f, 0.1f});
+    }
+
+    @Test
+    public void testEquals() {
+        assertThat(SparseDataMatrix.of(denseMatrix, 2), equalTo(SparseDataMatrix.of(denseMatrix, 2)));
+    }
+
+    @Test
+    public void testLoadSparseDataMatrix() throws IOException {
+        Path matrixFile = Paths.get("target/sparseTestMatrix.gz");
+        Path indexFile = Paths.get("target/sparseTestMatrix_id2index.gz");
+        Files.createDirectories(matrixFile.getParent());
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(matrixFile))))) {
+            writer.write("0.0\t0.1\t0.2\t0.3\n");
+            writer.write("0.1\t1.1\t1.2\t1.3\n");
+            writer.write("0.2\t1.2\t2.2\t2.3\n");
+            writer.write("0.3\t1.3\t2.3\t3.3\n");
+        }
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(indexFile))))) {
+            for (Map.Entry<Integer, Integer> entry : entrezIdToRowIndex.entrySet()) {
+                writer.write(entry.getKey() + "\t" + entry.getValue() + "\n");
+            }
+        }
+
+        SparseDataMatrix instance = DataMatrixIO.loadSparseDataMatrix(matrixFile.toString(), indexFile.toString(), false, 2);
+        assertThat(instance, equalTo(SparseDataMatrix.of(denseMatrix, 2)));
+
+        Files.delete(matrixFile);
+        Files.delete(indexFile);
+    }
+
+    /**
+     * Compares the ranking of the genes in each column of a random matrix of similar distribution to the random walk
+     * matrix, i.e. a few high values and a long tail of low ones, with that of the sparse version. The top 10 genes of
+     * each column are expected to be the same in nearly all cases - any differences are due to values within the
+     * quantisation error of each other.
+     */
+    @Test
+    public void testTopRankingAgreement() {
+        int size = 500;
+        int topGenes = 10;
+        Random random = new Random(42);
+        FloatMatrix matrix = new FloatMatrix(size, size);
+        for (int i = 0; i < size; i++) {
+            for (int j = i; j < size; j++) {
+                float value = (float) Math.exp(-12 * random.nextDouble());
+                matrix.put(i, j, value);
+                matrix.put(j, i, value);
+            }
+        }
+        Map<Integer, Integer> index = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            index.put(i + 1, i);
+        }
+        InMemoryDataMatrix dense = new InMemoryDataMatrix(matrix, index);
+        SparseDataMatrix sparse = SparseDataMatrix.of(dense, 50);
+
+        assertThat(topRankingAgreement(dense, sparse, index.keySet(), topGenes), greaterThanOrEqualTo(0.99));
+    }
+
+    /**
+     * As testTopRankingAgreement, but for a random sample of genes from the real STRING random walk matrix. The matrix
+     * is too large to commit so this only runs when the location of the matrix and index files are given, e.g.
+     * -Dexomiser.random-walk-file-name=rw_string_9_05.gz -Dexomiser.random-walk-index-file-name=rw_string_9_05_id2index.gz
+     */
+    @Test
+    public void testTopRankingAgreementForRandomWalkMatrix() {
+        String matrixFile = System.getProperty("exomiser.random-walk-file-name");
+        String indexFile = System.getProperty("exomiser.random-walk-index-file-name");
+        Assume.assumeTrue(matrixFile != null && indexFile != null);
+
+        int topGenes = 10;
+        DataMatrix dense = DataMatrixIO.loadDataMatrix(matrixFile, indexFile, true);
+        SparseDataMatrix sparse = SparseDataMatrix.of(dense, 1000);
+
+        List<Integer> geneIds = new ArrayList<>(dense.getEntrezIdToRowIndex().keySet());
+        Collections.shuffle(geneIds, new Random(42));
+        List<Integer> sampledGeneIds = geneIds.subList(0, Math.min(1000, geneIds.size()));
+
+        assertThat(topRankingAgreement(dense, sparse, sampledGeneIds, topGenes), greaterThanOrEqualTo(0.99));
+    }
+
+    private double topRankingAgreement(DataMatrix dense, SparseDataMatrix sparse, Collection<Integer> geneIds, int topGenes) {
+        int agreements = 0;
+        for (int geneId : geneIds) {
+            List<Integer> denseTop = topRows(dense.getColumnMatrixForGene(geneId), topGenes);
+            List<Integer> sparseTop = topRows(sparse.getColumnMatrixForGene(geneId), topGenes);
+            if (denseTop.equals(sparseTop)) {
+                agreements++;
+            }
+        }
+        double agreement = agreements / (double) geneIds.size();
+        logger.info("Top {} ranking agreement of {}-entry sparse matrix for {} genes: {} ({} entries stored)", topGenes, sparse.getMaxEntriesPerColumn(), geneIds.size(), agreement, sparse.numEntries());
+        return agreement;
+    }
+
+    private List<Integer> topRows(FloatMatrix column, int n) {
+        float[] values = column.toArray();
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            rows.add(i);
+        }
+        rows.sort(Comparator.comparingDouble((Integer i) -> values[i]).reversed().thenComparing(Comparator.naturalOrder()));
+        return rows.subList(0, n);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.prioritisers.util;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class TermPairSimilarityCacheTest {
+
+    private static double similarity(int termIdA, int termIdB) {
+        return Math.min(termIdA, termIdB) * 0.5 + Math.max(termIdA, termIdB) * 0.25;
+    }
+
+    @Test
+    public void testComputesMissingPair() {
+        TermPairSimilarityCache instance = new TermPairSimilarityCache();
+        assertThat(instance.getSimilarity(1, 2, () -> 0.75), equalTo(0.75));
+        assertThat(instance.size(), equalTo(1L));
+    }
+
+    @Test
+    public void testCachedPairIsNotRecomputed() {
+        TermPairSimilarityCache instance = new TermPairSimilarityCache();
+        AtomicInteger computations = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            assertThat(instance.getSimilarity(1, 2, () -> {
+                computations.incrementAndGet();
+                return 0.75;
+            }), equalTo(0.75));
+        }
+        assertThat(computations.get(), equalTo(1));
+    }
+
+    @Test
+    public void testReversedPairIsCachedOnce() {
+        TermPairSimilarityCache instance = new TermPairSimilarityCache();
+        instance.getSimilarity(252, 505, () -> 0.75);
+        //the reversed pair is read from the cache, not computed
+        assertThat(instance.getSimilarity(505, 252, () -> 0.0), equalTo(0.75));
+        assertThat(instance.size(), equalTo(1L));
+    }
+
+    @Test
+    public void testPairsWithLargeIdsDoNotCollide() {
+        TermPairSimilarityCache instance = new TermPairSimilarityCache();
+        instance.getSimilarity(1, Integer.MAX_VALUE, () -> 0.25);
+        instance.getSimilarity(Integer.MAX_VALUE, Integer.MAX_VALUE, () -> 0.5);
+        assertThat(instance.getSimilarity(Integer.MAX_VALUE, 1, () -> 0.0), equalTo(0.25));
+        assertThat(instance.size(), equalTo(2L));
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        long maxCachedPairs = 2;
+        TermPairSimilarityCache instance = new TermPairSimilarityCache(maxCachedPairs);
+        for (int termIdA = 0; termIdA < 10; termIdA++) {
+            for (int termIdB = 0; termIdB < 10; termIdB++) {
+                int a = termIdA;
+                int b = termIdB;
+                assertThat(instance.getSimilarity(a, b, () -> similarity(a, b)), equalTo(similarity(a, b)));
+                assertThat(instance.size(), lessThanOrEqualTo(maxCachedPairs));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentAccessGivesSameSimilaritiesAsSequential() {
+        TermPairSimilarityCache instance = new TermPairSimilarityCache(1000);
+        int numTerms = 100;
+        List<Double> expected = IntStream.range(0, numTerms * numTerms)
+                .mapToObj(i -> similarity(i / numTerms, i % numTerms))
+                .collect(Collectors.toList());
+        List<Double> actual = IntStream.range(0, numTerms * numTerms)
+                .parallel()
+                .mapToObj(i -> instance.getSimilarity(i / numTerms, i % numTerms, () -> similarity(i / numTerms, i % numTerms)))
+                .collect(Collectors.toList());
+        assertThat(actual, equalTo(expected));
+        assertThat(instance.size(), lessThanOrEqualTo(1000L));
+    }
+}
@@ -7,6 +7,12 @@ CREATE TABLE hpo(
 
 CREATE INDEX hpoidx ON hpo(id);
 
+DROP TABLE hp_alt_ids IF EXISTS;
+
+CREATE TABLE hp_alt_ids(
+    alt_id     CHAR(10) PRIMARY KEY,
+    primary_id CHAR(10));
+
 --- HP-HP mappings
 DROP TABLE hp_hp_mappings IF EXISTS;
 
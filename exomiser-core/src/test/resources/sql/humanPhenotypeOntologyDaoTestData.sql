@@ -1,3 +1,6 @@
+insert into hp_alt_ids values
+('HP:0000004',	'HP:0000005');
+
 insert into hpo values 
 ('All',	'HP:0000001',	'[All]'),
 ('Abnormality of body height',	'HP:0000002',	'[Abnormality of body height]'),
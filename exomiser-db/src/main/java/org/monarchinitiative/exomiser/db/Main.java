@@ -21,6 +21,12 @@
 package org.monarchinitiative.exomiser.db;
 
 import org.flywaydb.core.Flyway;
+import org.monarchinitiative.exomiser.core.phenotype.Organism;
+import org.monarchinitiative.exomiser.core.prioritisers.model.GeneModel;
+import org.monarchinitiative.exomiser.core.prioritisers.service.ModelService;
+import org.monarchinitiative.exomiser.core.prioritisers.service.ModelServiceImpl;
+import org.monarchinitiative.exomiser.core.prioritisers.util.DataMatrixIO;
+import org.monarchinitiative.exomiser.core.prioritisers.util.GeneModelIO;
 import org.monarchinitiative.exomiser.db.config.AppConfig;
 import org.monarchinitiative.exomiser.db.config.DataSourceConfig;
 import org.monarchinitiative.exomiser.db.config.ResourceConfig;
@@ -37,7 +43,9 @@
 
 import javax.sql.DataSource;
 import java.nio.file.Path;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -52,6 +60,9 @@ public class Main implements ApplicationRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
 
+    //the default name of the file read by exomiser-core
+    private static final String GENE_MODEL_FILE_NAME = "exomiser-models.bin";
+
     private final AppConfig appConfig;
     private final ResourceConfig resourceConfig;
     private final DataSourceConfig dataSourceConfig;
@@ -139,6 +150,36 @@ public void run(ApplicationArguments applicationArguments) {
         } else {
             logger.info("Skipping migration of H2 database.");
         }
+
+        boolean writeGeneModels = appConfig.writeGeneModels();
+        if (writeGeneModels) {
+            DataSource h2DataSource = dataSourceConfig.exomiserH2DataSource();
+            writeGeneModelFile(h2DataSource, dataPath.resolve(GENE_MODEL_FILE_NAME));
+        } else {
+            logger.info("Skipping writing of gene model file.");
+        }
+
+        boolean writeBinaryRandomWalkMatrix = appConfig.writeBinaryRandomWalkMatrix();
+        if (writeBinaryRandomWalkMatrix) {
+            writeBinaryRandomWalkMatrixFile(appConfig.randomWalkFilePath(), appConfig.randomWalkIndexFilePath(), appConfig.binaryRandomWalkFilePath());
+        } else {
+            logger.info("Skipping writing of binary random walk matrix file.");
+        }
+    }
+
+    private static void writeBinaryRandomWalkMatrixFile(Path randomWalkFile, Path randomWalkIndexFile, Path binaryRandomWalkFile) {
+        logger.info("Converting random walk matrix {} to binary matrix {}...", randomWalkFile, binaryRandomWalkFile);
+        DataMatrixIO.convertToBinaryDataMatrix(randomWalkFile.toString(), randomWalkIndexFile.toString(), true, binaryRandomWalkFile);
+    }
+
+    private static void writeGeneModelFile(DataSource dataSource, Path geneModelFile) {
+        logger.info("Writing gene models to {}...", geneModelFile);
+        ModelService modelService = new ModelServiceImpl(dataSource);
+        Map<Organism, List<GeneModel>> modelsByOrganism = new EnumMap<>(Organism.class);
+        modelsByOrganism.put(Organism.HUMAN, modelService.getHumanGeneDiseaseModels());
+        modelsByOrganism.put(Organism.MOUSE, modelService.getMouseGeneOrthologModels());
+        modelsByOrganism.put(Organism.FISH, modelService.getFishGeneOrthologModels());
+        GeneModelIO.writeGeneModels(modelsByOrganism, geneModelFile);
     }
 
     private static void migratePostgreSqlDatabase(DataSource dataSource, Map<String, String> propertyPlaceHolders) {
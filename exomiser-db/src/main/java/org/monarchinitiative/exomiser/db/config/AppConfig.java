@@ -178,4 +178,33 @@ public boolean migrateH2() {
         logger.info("Setting application to migrate H2 database: {}", migrateH2);
         return migrateH2;
     }
+
+    @Bean
+    public boolean writeGeneModels() {
+        boolean writeGeneModels = Boolean.parseBoolean(env.getProperty("writeGeneModels"));
+        logger.info("Setting application to write gene model file: {}", writeGeneModels);
+        return writeGeneModels;
+    }
+
+    @Bean
+    public boolean writeBinaryRandomWalkMatrix() {
+        boolean writeBinaryRandomWalkMatrix = Boolean.parseBoolean(env.getProperty("writeBinaryRandomWalkMatrix"));
+        logger.info("Setting application to write binary random walk matrix file: {}", writeBinaryRandomWalkMatrix);
+        return writeBinaryRandomWalkMatrix;
+    }
+
+    @Bean
+    public Path randomWalkFilePath() {
+        return dataPath().resolve(env.getProperty("randomWalkFileName", "rw_string_9_05.gz"));
+    }
+
+    @Bean
+    public Path randomWalkIndexFilePath() {
+        return dataPath().resolve(env.getProperty("randomWalkIndexFileName", "rw_string_9_05_id2index.gz"));
+    }
+
+    @Bean
+    public Path binaryRandomWalkFilePath() {
+        return dataPath().resolve(env.getProperty("binaryRandomWalkFileName", "rw_string_9_05.bin"));
+    }
 }
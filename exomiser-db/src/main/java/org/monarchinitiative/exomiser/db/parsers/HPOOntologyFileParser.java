@@ -51,6 +51,11 @@ public class HPOOntologyFileParser implements ResourceParser {
 
     private static final Logger logger = LoggerFactory.getLogger(HPOOntologyFileParser.class);
 
+    /**
+     * Name of the file of alt_id|id pairs written alongside the parsed file so that obsolete ids can be resolved.
+     */
+    public static final String ALT_IDS_FILE_NAME = "hp_alt_ids.pg";
+
     /**
      * A variable that keeps count of the number of rows added to the database.
      */
@@ -75,12 +80,14 @@ public void parseResource(Resource resource, Path inDir, Path outDir) {
 
         Path inFile = inDir.resolve(resource.getExtractedFileName());
         Path outFile = outDir.resolve(resource.getParsedFileName());
+        Path altIdsOutFile = outDir.resolve(ALT_IDS_FILE_NAME);
 
         logger.info("Parsing {} file: {}. Writing out to: {}", resource.getName(), inFile, outFile);
         ResourceOperationStatus status;
 
         try (BufferedReader reader = Files.newBufferedReader(inFile, Charset.forName("UTF-8"));
-             BufferedWriter writer = Files.newBufferedWriter(outFile, Charset.defaultCharset())) {
+             BufferedWriter writer = Files.newBufferedWriter(outFile, Charset.defaultCharset());
+             BufferedWriter altIdsWriter = Files.newBufferedWriter(altIdsOutFile, Charset.defaultCharset())) {
 
             int termCount = 0; /* count of terms */
 
@@ -93,11 +100,14 @@ public void parseResource(Resource resource, Path inDir, Path outDir) {
             String id = null;
             String name = null;
             List<String> synonymLst = new ArrayList<>();
+            List<String> altIds = new ArrayList<>();
             while ((line = reader.readLine()) != null) {
 //                logger.info(line);
                 if (line.startsWith("id:")) {
                     id = line.substring(3).trim(); /* Gets rid of "id:" and any whitespace in e.g., HP:0000003 */
 
+                } else if (line.startsWith("alt_id:")) {
+                    altIds.add(line.substring(7).trim());
                 } else if (line.startsWith("name:")) {
                     name = line.substring(5).trim();
                     termCount++;
@@ -117,18 +127,22 @@ public void parseResource(Resource resource, Path inDir, Path outDir) {
                     id = null;
                     name = null;
                     synonymLst.clear();
+                    altIds.clear();
                 } else if (line.startsWith("[Term]") && name != null && id != null) {
                     writer.write(String.format("%s|%s|%s", name, id, synonymLst));
                     writer.newLine();
+                    writeAltIds(altIdsWriter, altIds, id);
 //		    logger.info("{} {} {}", name,id,synonymLst);
                     name = null;
                     id = null;
                     synonymLst.clear();
+                    altIds.clear();
                 }
             }
             if (name != null && id != null) {
                 writer.write(String.format("%s|%s|%s", name, id, synonymLst));
                 writer.newLine();
+                writeAltIds(altIdsWriter, altIds, id);
 //                logger.info("{} {} {}", name,id,synonymLst);
 
             }
@@ -147,6 +161,14 @@ public void parseResource(Resource resource, Path inDir, Path outDir) {
         logger.info("{}", status);
     }
 
+    private void writeAltIds(BufferedWriter altIdsWriter, List<String> altIds, String id) throws IOException {
+        for (String altId : altIds) {
+            altIdsWriter.write(String.format("%s|%s", altId, id));
+            altIdsWriter.newLine();
+        }
+        altIds.clear();
+    }
+
 //    /**
 //     * This function directly enters name/id pairs into the Exomiser database
 //     * @param preferred The actual term name of an HPO term
@@ -0,0 +1,9 @@
+--
+-- Creates the table of HPO alternate ids populated by V2.13__Insert_hp_alt_ids. This is a separate migration so that
+-- V1.0__Create_exomiser_schema is unchanged for existing databases.
+--
+DROP TABLE IF EXISTS hp_alt_ids;
+
+CREATE TABLE hp_alt_ids(
+    alt_id     CHAR(10) PRIMARY KEY,
+    primary_id CHAR(10));
@@ -29,7 +29,14 @@
 import org.junit.Test;
 import org.monarchinitiative.exomiser.db.resources.Resource;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.junit.Assert.assertThat;
 
 /**
  * Tests for the HPO ontology parser
@@ -49,5 +56,19 @@ public void testParseHPO() {
         HPOOntologyFileParser instance = new HPOOntologyFileParser();
         instance.parseResource(testResource, Paths.get("src/test/resources/data"), Paths.get("target/test-data"));
     }
+
+    @Test
+    public void testParseHPOWritesAltIds() throws IOException {
+        Resource testResource = new Resource("HPO");
+        testResource.setExtractedFileName("hp.obo");
+        testResource.setParsedFileName("hpoTestOut.pg");
+        HPOOntologyFileParser instance = new HPOOntologyFileParser();
+        Path outDir = Paths.get("target/test-data");
+        Files.createDirectories(outDir);
+        instance.parseResource(testResource, Paths.get("src/test/resources/data"), outDir);
+
+        List<String> altIds = Files.readAllLines(outDir.resolve(HPOOntologyFileParser.ALT_IDS_FILE_NAME));
+        assertThat(altIds, hasItems("HP:0004715|HP:0000003", "HP:0001453|HP:0000005", "HP:0001461|HP:0000005"));
+    }
     
 }
@@ -41,11 +41,9 @@
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
-import static com.google.common.collect.ImmutableMap.toImmutableMap;
 
 /**
  * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
@@ -61,9 +59,7 @@ public class PrioritiserController {
     @Autowired
     public PrioritiserController(PriorityFactory priorityFactory, GeneFactory geneFactory) {
         this.priorityFactory = priorityFactory;
-        this.geneIdentifiers = geneFactory.createKnownGeneIds().stream()
-                .filter(GeneIdentifier::hasEntrezId)
-                .collect(toImmutableMap(GeneIdentifier::getEntrezIdAsInteger, Function.identity()));
+        this.geneIdentifiers = geneFactory.getKnownGeneCatalogue().getGeneIdentifiersByEntrezId();
         logger.info("Created GeneIdentifier cache with {} entries", geneIdentifiers.size());
     }
 
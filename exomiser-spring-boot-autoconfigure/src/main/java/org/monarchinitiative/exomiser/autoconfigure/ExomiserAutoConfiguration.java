@@ -33,10 +33,15 @@
 import org.monarchinitiative.exomiser.core.genome.dao.TabixReaderAdaptor;
 import org.monarchinitiative.exomiser.core.model.frequency.FrequencySource;
 import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicitySource;
+import org.monarchinitiative.exomiser.core.phenotype.Organism;
+import org.monarchinitiative.exomiser.core.phenotype.dao.OntologyDao;
+import org.monarchinitiative.exomiser.core.prioritisers.service.PriorityService;
 import org.monarchinitiative.exomiser.core.prioritisers.util.DataMatrix;
 import org.monarchinitiative.exomiser.core.prioritisers.util.DataMatrixIO;
+import org.monarchinitiative.exomiser.core.prioritisers.util.ScoreDistributionContainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -46,8 +51,6 @@
 import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.cache.ehcache.EhCacheCacheManager;
 import org.springframework.cache.ehcache.EhCacheManagerFactoryBean;
-import org.springframework.cache.interceptor.CacheResolver;
-import org.springframework.cache.interceptor.NamedCacheResolver;
 import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
@@ -59,11 +62,15 @@
 import javax.sql.DataSource;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.joining;
 
 /**
  * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
@@ -204,6 +211,41 @@ private void logTabixPathIfNotEmpty(String prefixMessage, String tabixPath) {
         }
     }
 
+    /**
+     * Identifies the transcript, frequency and pathogenicity data in use by the path, size and modification time of the
+     * transcript data, database and tabix files. This is used to invalidate data derived from them e.g. variant
+     * checkpoints.
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "variantDataVersion")
+    public String variantDataVersion() {
+        List<Path> dataFiles = new ArrayList<>();
+        dataFiles.add(transcriptFilePath());
+        Path h2Directory = determineH2Directory(properties.getH2());
+        dataFiles.add(h2Directory.resolve("exomiser.h2.db"));
+        dataFiles.add(h2Directory.resolve("exomiser.mv.db"));
+        Stream.of(properties.getCaddSnvPath(), properties.getCaddInDelPath(), properties.getRemmPath(), properties.getLocalFrequencyPath())
+                .filter(tabixPath -> !tabixPath.isEmpty())
+                .map(Paths::get)
+                .forEach(dataFiles::add);
+        String variantDataVersion = dataFiles.stream()
+                .filter(Files::exists)
+                .map(ExomiserAutoConfiguration::fileVersion)
+                .collect(joining(", "));
+        logger.debug("Variant data version: {}", variantDataVersion);
+        return variantDataVersion;
+    }
+
+    private static String fileVersion(Path path) {
+        try {
+            return path.toAbsolutePath() + ":" + Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            throw new ExomiserAutoConfigurationException("Unable to read attributes of " + path, e);
+        }
+    }
+
     private TabixDataSource getTabixDataSourceOrDefaultForProperty(String pathToTabixGzFile, String dataSourceName) {
         String tabixGzPathValue = pathToTabixGzFile;
         if (tabixGzPathValue.isEmpty()) {
@@ -230,6 +272,18 @@ public Path phenixDataDirectory() {
         return phenixDataDirectory;
     }
 
+    /**
+     * The PhenIX score distributions are shared by all analyses. These are loaded on first use and the heap memory used
+     * is bounded by the phenixScoreDistributionCacheMb property.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ScoreDistributionContainer phenixScoreDistributionContainer() {
+        long maxCachedMegabytes = properties.getPhenixScoreDistributionCacheMb();
+        logger.debug("phenixScoreDistributionContainer max size: {}MB", maxCachedMegabytes);
+        return new ScoreDistributionContainer(phenixDataDirectory().toString(), maxCachedMegabytes);
+    }
+
     @Bean
     @ConditionalOnMissingBean(name = "hpoOboFilePath")
     public Path hpoOboFilePath() {
@@ -250,7 +304,10 @@ public Path hpoAnnotationFilePath() {
 
     /**
      * This needs a lot of RAM and is slow to create from the randomWalkFile, so
-     * it's set as lazy use on the command-line.
+     * it's set as lazy use on the command-line. Setting randomWalkMaxEntriesPerColumn
+     * will load a much smaller sparse approximation of the matrix. If the randomWalkFileName
+     * is a binary matrix file, written by exomiser-db, this is memory-mapped instead and the
+     * index file and randomWalkMaxEntriesPerColumn are not used.
      *
      * @return
      */
@@ -261,12 +318,37 @@ public DataMatrix randomWalkMatrix() {
         String randomWalkFileNameValue = properties.getRandomWalkFileName();
         Path randomWalkFilePath = resolveRelativeToDataDir(randomWalkFileNameValue);
 
+        int maxEntriesPerColumn = properties.getRandomWalkMaxEntriesPerColumn();
+        if (DataMatrixIO.isBinaryDataMatrix(randomWalkFilePath)) {
+            if (maxEntriesPerColumn > 0) {
+                logger.warn("Ignoring randomWalkMaxEntriesPerColumn={} as {} is a binary matrix which is memory-mapped in full", maxEntriesPerColumn, randomWalkFilePath);
+            }
+            logger.info("Memory-mapping binary random walk matrix {}", randomWalkFilePath);
+            return DataMatrixIO.loadMappedDataMatrix(randomWalkFilePath);
+        }
+
         String randomWalkIndexFileNameValue = properties.getRandomWalkIndexFileName();
         Path randomWalkIndexFilePath = resolveRelativeToDataDir(randomWalkIndexFileNameValue);
 
+        if (maxEntriesPerColumn > 0) {
+            logger.info("Loading sparse random walk matrix keeping top {} entries per gene", maxEntriesPerColumn);
+            return DataMatrixIO.loadSparseDataMatrix(randomWalkFilePath.toString(), randomWalkIndexFilePath.toString(), true, maxEntriesPerColumn);
+        }
         return DataMatrixIO.loadDataMatrix(randomWalkFilePath.toString(), randomWalkIndexFilePath.toString(), true);
     }
 
+    /**
+     * The binary gene model file written by exomiser-db. If this file doesn't exist the models are loaded from the
+     * database.
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "geneModelFilePath")
+    public Path geneModelFilePath() {
+        Path geneModelFilePath = resolveRelativeToDataDir(properties.getGeneModelFileName());
+        logger.debug("geneModelFilePath: {}", geneModelFilePath.toAbsolutePath());
+        return geneModelFilePath;
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public DataSource dataSource() {
@@ -296,6 +378,13 @@ public HikariConfig h2Config() {
         return config;
     }
 
+    private Path determineH2Directory(ExomiserProperties.H2 h2) {
+        if (h2.getDirectory().isEmpty()) {
+            return exomiserDataDirectory();
+        }
+        return Paths.get(h2.getDirectory());
+    }
+
     private String determineH2Url(ExomiserProperties.H2 h2) {
         //the data path is the default place for the exomiser H2 database to be found.
         if (h2.getDirectory().isEmpty()) {
@@ -311,13 +400,36 @@ private String resolveH2UrlPathPlaceholder(String h2Url, String h2AbsolutePath)
         return h2Url.replace("${h2Path}", h2AbsolutePath);
     }
 
+    /**
+     * Optionally loads the phenotype mapping tables into memory once all the beans have been created. This uses a few
+     * hundred MB of RAM but removes a database query per phenotype per organism from each analysis, so is recommended
+     * for long-running services. If a table cannot be loaded the exception is not caught, so the application fails to
+     * start rather than silently running without the preloaded matches.
+     */
+    @Bean
+    public SmartInitializingSingleton phenotypeMatchPreloader(List<OntologyDao> ontologyDaos) {
+        return () -> {
+            if (properties.isPreloadPhenotypeMatches()) {
+                logger.info("Preloading phenotype matches...");
+                ontologyDaos.forEach(OntologyDao::preloadPhenotypeMatches);
+            }
+        };
+    }
+
+    /**
+     * Optionally loads and indexes the disease and animal models once all the beans have been created, rather than
+     * during the first analysis which uses them.
+     */
     @Bean
-    public CacheResolver modelCacheResolver() {
-        NamedCacheResolver modelCacheResolver = new NamedCacheResolver();
-        //these guys are relatively small, always accessed and never grow so were using a ConcurrentMap to store them.
-        modelCacheResolver.setCacheNames(Arrays.asList("models"));
-        modelCacheResolver.setCacheManager(new ConcurrentMapCacheManager());
-        return modelCacheResolver;
+    public SmartInitializingSingleton modelPreloader(PriorityService priorityService) {
+        return () -> {
+            if (properties.isPreloadModels()) {
+                logger.info("Preloading models...");
+                for (Organism organism : Organism.values()) {
+                    priorityService.getModelProfileIndexForOrganism(organism);
+                }
+            }
+        };
     }
 
     @Bean
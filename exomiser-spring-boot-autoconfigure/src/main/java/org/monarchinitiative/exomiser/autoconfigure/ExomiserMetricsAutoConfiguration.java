@@ -0,0 +1,57 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2017 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.autoconfigure;
+
+import org.monarchinitiative.exomiser.core.analysis.AnalysisMetrics;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Publishes the Exomiser {@link AnalysisMetrics} stage timings and counters through the Spring Boot actuator
+ * {@code /metrics} endpoint (and its JMX MBean) when the actuator is on the classpath.
+ *
+ * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
+ */
+@Configuration
+@ConditionalOnClass({PublicMetrics.class, AnalysisMetrics.class})
+@AutoConfigureAfter(ExomiserAutoConfiguration.class)
+public class ExomiserMetricsAutoConfiguration {
+
+    @Bean
+    @ConditionalOnBean(AnalysisMetrics.class)
+    public PublicMetrics exomiserPublicMetrics(AnalysisMetrics analysisMetrics) {
+        return () -> {
+            List<Metric<?>> metrics = analysisMetrics.getMetrics().entrySet().stream()
+                    .map(entry -> new Metric<Number>(entry.getKey(), entry.getValue()))
+                    .collect(toList());
+            return metrics;
+        };
+    }
+}
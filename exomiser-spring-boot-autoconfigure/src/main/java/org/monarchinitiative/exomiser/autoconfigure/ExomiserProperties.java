@@ -51,6 +51,24 @@ public class ExomiserProperties {
      */
     private String cache = "none";
 
+    /**
+     * load the HP-HP, HP-MP and HP-ZP phenotype mapping tables into memory on startup rather than querying the
+     * database for each term of each analysis
+     */
+    private boolean preloadPhenotypeMatches = false;
+
+    /**
+     * load and index all the disease and animal models on startup so that the first analysis using them is as fast as
+     * subsequent ones
+     */
+    private boolean preloadModels = false;
+
+    /**
+     * name of the binary gene model file written by exomiser-db. The models are read from this, if present, rather
+     * than the database.
+     */
+    private String geneModelFileName = "exomiser-models.bin";
+
     /**
      * name of transcript data .ser file created from Jannovar for defining known exon locations
      */
@@ -59,11 +77,22 @@ public class ExomiserProperties {
     //Random walk matrix for hiPhive and exomeWalker
     private String randomWalkFileName = "rw_string_9_05.gz";
     private String randomWalkIndexFileName = "rw_string_9_05_id2index.gz";
+    /**
+     * Maximum number of entries to keep for each gene in the random walk matrix. Values greater than 0 will load a
+     * sparse, quantised version of the matrix which uses a fraction of the memory, but whose rankings may differ from
+     * those of the full matrix. 0 (the default) loads the full matrix.
+     */
+    private int randomWalkMaxEntriesPerColumn = 0;
 
     //Phenix data
     private String phenixDataDir = "phenix";
     private String hpoFileName = "hp.obo";
     private String hpoAnnotationFile = "ALL_SOURCES_ALL_FREQUENCIES_genes_to_phenotype.txt";
+    /**
+     * Maximum size in megabytes of the PhenIX score distributions held in memory. Distributions for the least used
+     * numbers of query terms are evicted once this is exceeded.
+     */
+    private long phenixScoreDistributionCacheMb = 512;
 
     public String getDataDirectory() {
         return dataDirectory;
@@ -129,6 +158,30 @@ public void setCache(String cache) {
         this.cache = cache;
     }
 
+    public boolean isPreloadPhenotypeMatches() {
+        return preloadPhenotypeMatches;
+    }
+
+    public void setPreloadPhenotypeMatches(boolean preloadPhenotypeMatches) {
+        this.preloadPhenotypeMatches = preloadPhenotypeMatches;
+    }
+
+    public boolean isPreloadModels() {
+        return preloadModels;
+    }
+
+    public void setPreloadModels(boolean preloadModels) {
+        this.preloadModels = preloadModels;
+    }
+
+    public String getGeneModelFileName() {
+        return geneModelFileName;
+    }
+
+    public void setGeneModelFileName(String geneModelFileName) {
+        this.geneModelFileName = geneModelFileName;
+    }
+
     public String getTranscriptDataFileName() {
         return transcriptDataFileName;
     }
@@ -153,6 +206,14 @@ public void setRandomWalkIndexFileName(String randomWalkIndexFileName) {
         this.randomWalkIndexFileName = randomWalkIndexFileName;
     }
 
+    public int getRandomWalkMaxEntriesPerColumn() {
+        return randomWalkMaxEntriesPerColumn;
+    }
+
+    public void setRandomWalkMaxEntriesPerColumn(int randomWalkMaxEntriesPerColumn) {
+        this.randomWalkMaxEntriesPerColumn = randomWalkMaxEntriesPerColumn;
+    }
+
     public String getPhenixDataDir() {
         return phenixDataDir;
     }
@@ -177,6 +238,14 @@ public void setHpoAnnotationFile(String hpoAnnotationFile) {
         this.hpoAnnotationFile = hpoAnnotationFile;
     }
 
+    public long getPhenixScoreDistributionCacheMb() {
+        return phenixScoreDistributionCacheMb;
+    }
+
+    public void setPhenixScoreDistributionCacheMb(long phenixScoreDistributionCacheMb) {
+        this.phenixScoreDistributionCacheMb = phenixScoreDistributionCacheMb;
+    }
+
     public static class H2 {
 
         private String directory = "";
@@ -19,6 +19,7 @@
  */
 package org.monarchinitiative.exomiser.web.dao;
 
+import org.monarchinitiative.exomiser.core.phenotype.service.OntologyService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -43,10 +44,12 @@ public class JdbcExomiserDao implements ExomiserDao {
     private static final Logger logger = LoggerFactory.getLogger(JdbcExomiserDao.class);
 
     private final DataSource dataSource;
+    private final OntologyService ontologyService;
 
     @Autowired
-    public JdbcExomiserDao(DataSource dataSource) {
+    public JdbcExomiserDao(DataSource dataSource, OntologyService ontologyService) {
         this.dataSource = dataSource;
+        this.ontologyService = ontologyService;
     }
 
     @Override
@@ -66,21 +69,12 @@ public Map<String, String> getDiseases() {
         return Collections.emptyMap();
     }
 
+    /**
+     * The HPO terms are shared with the {@link OntologyService} used by the prioritisers, so they are only loaded once.
+     */
     @Override
     public Map<String, String> getHpoTerms() {
-        String query = "select id, lcname from hpo";
-        try (
-                Connection connection = dataSource.getConnection();
-                PreparedStatement preparedStatement = createPreparedStatement(connection, query);
-                ResultSet rs = preparedStatement.executeQuery()) {
-
-            return processGetHpoTermsResults(rs);
-
-        } catch (SQLException e) {
-            logger.error("Error executing getHpoTerms query: ", e);
-        }
-
-        return Collections.emptyMap();
+        return ontologyService.getHpoTermRegistry().getTermLabelsById();
     }
     
     @Override